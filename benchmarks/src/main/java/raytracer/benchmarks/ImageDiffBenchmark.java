@@ -0,0 +1,73 @@
+package raytracer.benchmarks;
+
+import imgcompare.ImageComparator;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit de la comparaison d'images en 1080p, 4K et 8K (images TYPE_3BYTE_BGR, comme celles
+ * lues par ImageIO depuis un PNG), sur un thread ou sur tous les cœurs.
+ * Le module jdk.incubator.vector est chargé pour mesurer la version SIMD.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx4g"})
+public class ImageDiffBenchmark {
+
+    @Param({"1080p", "4K", "8K"})
+    public String resolution;
+
+    @Param({"1", "0"}) // 0 = tous les cœurs
+    public int threads;
+
+    /** Proportion de pixels différents. */
+    @Param({"0.01"})
+    public double differences;
+
+    private ImageComparator comparator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int width;
+        int height;
+        switch (resolution) {
+            case "4K": width = 3840; height = 2160; break;
+            case "8K": width = 7680; height = 4320; break;
+            default: width = 1920; height = 1080;
+        }
+        Random rnd = new Random(SceneGenerator.DEFAULT_SEED);
+        BufferedImage a = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        BufferedImage b = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                row[x] = rnd.nextInt(0x1000000);
+            }
+            a.setRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                if (rnd.nextDouble() < differences) {
+                    row[x] ^= 1 << rnd.nextInt(24);
+                }
+            }
+            b.setRGB(0, y, width, 1, row, 0, width);
+        }
+        int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        comparator = new ImageComparator(a, b, n);
+    }
+
+    @Benchmark
+    public int countDifferentPixels() {
+        return comparator.countDifferentPixels();
+    }
+
+    @Benchmark
+    public BufferedImage generateDiffImage() {
+        return comparator.generateDiffImage();
+    }
+}
@@ -0,0 +1,57 @@
+package raytracer.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import raytracer.parsing.SceneCache;
+import raytracer.parsing.SceneFileParser;
+import raytracer.raytracer.Scene;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit du parsing sur des scènes générées de 10k, 1M et 10M triangles (BVH comprises),
+ * en séquentiel et en parallèle, ainsi que le rechargement depuis le cache binaire.
+ * <p>
+ * Chaque mesure est un chargement complet : le mode SingleShotTime évite de garder
+ * plusieurs grosses scènes en mémoire à la fois.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ParseBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int triangles;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = SceneGenerator.cached(triangles, 100, 640, 480);
+        // Cache binaire prêt pour loadCache
+        new SceneCache(threads).load(file.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(SceneCache.cachePath(file));
+    }
+
+    @Benchmark
+    public Scene parse() throws IOException {
+        return new SceneFileParser(threads).parse(file.toString());
+    }
+
+    @Benchmark
+    public Scene loadCache() throws IOException {
+        return new SceneCache(threads).load(file.toString());
+    }
+}
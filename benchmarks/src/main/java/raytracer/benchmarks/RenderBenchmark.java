@@ -0,0 +1,57 @@
+package raytracer.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import raytracer.parsing.SceneFileParser;
+import raytracer.raytracer.Renderer;
+import raytracer.raytracer.Scene;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rayons primaires par seconde : rendu complet d'une image 320 x 240 d'une scène générée
+ * (terrain de triangles, sphères, plan, deux lumières). Chaque opération compte pour un rayon
+ * primaire (cf. OperationsPerInvocation), le score est donc directement en rayons/s.
+ * Le paramètre 'packet' compare le tracé rayon par rayon (1) au tracé par paquets (module
+ * jdk.incubator.vector ajouté au fork : sans lui, les paquets seraient tracés en scalaire).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector"})
+public class RenderBenchmark {
+
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 240;
+
+    @Param({"10000", "1000000"})
+    public int triangles;
+
+    @Param({"1", "0"}) // 0 = tous les cœurs
+    public int threads;
+
+    @Param({"1", "8", "16"})
+    public int packet;
+
+    private Renderer renderer;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Scene scene = new SceneFileParser().parse(SceneGenerator.cached(triangles, 100, WIDTH, HEIGHT).toString());
+        renderer = new Renderer(scene, threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                Renderer.DEFAULT_TILE_SIZE, packet);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        renderer.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WIDTH * HEIGHT)
+    public int[] render() {
+        return renderer.render();
+    }
+}
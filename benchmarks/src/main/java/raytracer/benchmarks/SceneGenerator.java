@@ -0,0 +1,118 @@
+package raytracer.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+/**
+ * Générateur de scènes synthétiques reproductibles (même graine = même fichier), pour les benchmarks.
+ * <p>
+ * La scène est un terrain : une grille de sommets légèrement bruités, découpée en triangles,
+ * avec quelques changements de matériau, des sphères posées dessus, un plan et deux lumières.
+ * <p>
+ * Utilisation : java raytracer.benchmarks.SceneGenerator &lt;scene.txt&gt; &lt;triangles&gt; [graine]
+ */
+public class SceneGenerator {
+
+    public static final long DEFAULT_SEED = 42;
+
+    // Nombre de triangles entre deux changements de matériau
+    private static final int MATERIAL_RUN = 50_000;
+
+    private SceneGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: java raytracer.benchmarks.SceneGenerator <scene.txt> <triangles> [graine]");
+            return;
+        }
+        long seed = args.length == 3 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        write(Paths.get(args[0]), Integer.parseInt(args[1]), 20, seed, 640, 480);
+    }
+
+    /**
+     * @return Une scène d'environ 'triangles' triangles, générée dans le dossier temporaire
+     * si elle n'y est pas déjà (les gros fichiers ne sont générés qu'une fois).
+     */
+    public static Path cached(int triangles, int spheres, int width, int height) throws IOException {
+        Path file = Paths.get(System.getProperty("java.io.tmpdir"),
+                "raytracer-bench-" + triangles + "-" + spheres + "-" + width + "x" + height + ".txt");
+        if (!Files.exists(file)) {
+            Path temp = Files.createTempFile(file.getParent(), "raytracer-bench", ".tmp");
+            write(temp, triangles, spheres, DEFAULT_SEED, width, height);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return file;
+    }
+
+    /**
+     * Écrit une scène.
+     * @param triangles Nombre de triangles du terrain.
+     * @param spheres Nombre de sphères.
+     */
+    public static void write(Path file, int triangles, int spheres, long seed, int width, int height)
+            throws IOException {
+        Random rnd = new Random(seed);
+        // Grille de g x g sommets : 2 (g - 1)² triangles
+        int g = Math.max(2, (int) Math.ceil(Math.sqrt(triangles / 2.0)) + 1);
+        double cell = 20.0 / (g - 1);
+
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("# Scène synthétique : " + triangles + " triangles, " + spheres + " sphères, graine " + seed + "\n");
+            out.write("size " + width + " " + height + "\n");
+            out.write("output bench.png\n");
+            out.write("camera 0 8 14 0 0 0 0 1 0 45\n");
+            out.write("ambient 0.1 0.1 0.1\n");
+            out.write("directional 1 1 1 0.5 0.5 0.5\n");
+            out.write("point 0 10 0 0.4 0.4 0.4\n");
+
+            out.write("diffuse 0.3 0.3 0.3\n");
+            out.write("plane 0 -1 0 0 1 0\n");
+
+            StringBuilder line = new StringBuilder(64);
+            out.write("maxverts " + g * g + "\n");
+            for (int j = 0; j < g; j++) {
+                for (int i = 0; i < g; i++) {
+                    line.setLength(0);
+                    line.append("vertex ").append((float) (-10 + i * cell)).append(' ')
+                            .append((float) (rnd.nextDouble() * 0.5)).append(' ')
+                            .append((float) (-10 + j * cell)).append('\n');
+                    out.write(line.toString());
+                }
+            }
+
+            int written = 0;
+            for (int j = 0; j < g - 1 && written < triangles; j++) {
+                for (int i = 0; i < g - 1 && written < triangles; i++) {
+                    int v = j * g + i;
+                    for (int half = 0; half < 2 && written < triangles; half++) {
+                        if (written % MATERIAL_RUN == 0) {
+                            out.write("diffuse " + (float) (0.2 + 0.6 * rnd.nextDouble()) + " 0.5 0.3\n");
+                        }
+                        line.setLength(0);
+                        if (half == 0) {
+                            line.append("tri ").append(v).append(' ').append(v + g).append(' ').append(v + 1);
+                        } else {
+                            line.append("tri ").append(v + 1).append(' ').append(v + g).append(' ').append(v + g + 1);
+                        }
+                        out.write(line.append('\n').toString());
+                        written++;
+                    }
+                }
+            }
+
+            out.write("diffuse 0.8 0.2 0.2\n");
+            out.write("specular 0.3 0.3 0.3\n");
+            for (int s = 0; s < spheres; s++) {
+                out.write("sphere " + (float) (rnd.nextDouble() * 16 - 8) + " " + (float) (1 + rnd.nextDouble())
+                        + " " + (float) (rnd.nextDouble() * 16 - 8) + " " + (float) (0.3 + rnd.nextDouble() * 0.7) + "\n");
+            }
+        }
+    }
+}
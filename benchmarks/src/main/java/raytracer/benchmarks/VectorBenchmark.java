@@ -0,0 +1,84 @@
+package raytracer.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import raytracer.geometry.MutableVec3;
+import raytracer.geometry.Point;
+import raytracer.geometry.Vector;
+import raytracer.imaging.Color;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmarks des opérations vectorielles : API immuable (Vector, Point, Color)
+ * comparée aux opérations en place de MutableVec3.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class VectorBenchmark {
+
+    private Vector v1;
+    private Vector v2;
+    private Point p1;
+    private Point p2;
+    private Color c1;
+    private Color c2;
+    private final MutableVec3 m = new MutableVec3();
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(SceneGenerator.DEFAULT_SEED);
+        v1 = new Vector(rnd.nextDouble(), rnd.nextDouble(), rnd.nextDouble());
+        v2 = new Vector(rnd.nextDouble(), rnd.nextDouble(), rnd.nextDouble());
+        p1 = new Point(rnd.nextDouble(), rnd.nextDouble(), rnd.nextDouble());
+        p2 = new Point(rnd.nextDouble(), rnd.nextDouble(), rnd.nextDouble());
+        c1 = new Color(rnd.nextDouble(), rnd.nextDouble(), rnd.nextDouble());
+        c2 = new Color(rnd.nextDouble(), rnd.nextDouble(), rnd.nextDouble());
+    }
+
+    @Benchmark
+    public Vector vectorAdd() {
+        return v1.add(v2);
+    }
+
+    @Benchmark
+    public double vectorDot() {
+        return v1.dot(v2);
+    }
+
+    @Benchmark
+    public Vector vectorCross() {
+        return v1.cross(v2);
+    }
+
+    @Benchmark
+    public Vector vectorNormalize() {
+        return v1.normalize();
+    }
+
+    @Benchmark
+    public Vector pointSubtract() {
+        return p1.subtract(p2);
+    }
+
+    @Benchmark
+    public Color colorSchurAdd() {
+        return c1.schur(c2).add(c1);
+    }
+
+    /** Enchaînement typique (direction normalisée d'un point vers un autre), API immuable. */
+    @Benchmark
+    public Vector chainImmutable() {
+        return p2.subtract(p1).cross(v1).normalize();
+    }
+
+    /** Même enchaînement en place, sans allocation. */
+    @Benchmark
+    public MutableVec3 chainMutable() {
+        return m.setSubtract(p2, p1).setCross(m, v1).normalize();
+    }
+}
@@ -0,0 +1,285 @@
+package imgcompare;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Comparaison de deux dossiers d'images (références / images générées), appariées par nom de fichier.
+ * <p>
+ * Chaque paire passe par un pipeline : lecture des deux images (en parallèle), comparaison, puis
+ * écriture de l'image différentielle. Les étapes des différentes paires se chevauchent sur un
+ * même pool de threads borné, ce qui occupe à la fois les disques et les cœurs. Le nombre de
+ * paires en cours est limité (les images décodées peuvent être volumineuses).
+ * <p>
+ * Un résumé (summary.json et summary.csv) est écrit dans le dossier de sortie, avec les temps
+ * de chaque étape.
+ */
+public class BatchComparator {
+
+    /** Extensions des fichiers considérés comme des images. */
+    private static final String[] EXTENSIONS = {".png", ".jpg", ".jpeg", ".bmp", ".gif"};
+
+    /**
+     * Résultat de la comparaison d'une paire d'images.
+     */
+    public static class PairResult {
+
+        public enum Status { OK, KO, MISSING, SIZE_MISMATCH, ERROR }
+
+        private final String name;
+        private Status status;
+        private int width;
+        private int height;
+        private int differentPixels = -1;
+        private String diffFile;
+        private String error;
+
+        // Temps (en ms) de chaque étape
+        private double decodeMs;
+        private double compareMs;
+        private double encodeMs;
+
+        PairResult(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+        public Status getStatus() { return status; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public int getDifferentPixels() { return differentPixels; }
+        public String getDiffFile() { return diffFile; }
+        public String getError() { return error; }
+        public double getDecodeMs() { return decodeMs; }
+        public double getCompareMs() { return compareMs; }
+        public double getEncodeMs() { return encodeMs; }
+    }
+
+    private final File referenceDir;
+    private final File candidateDir;
+    private final File outputDir;
+    private final int threads;
+
+    /**
+     * @param referenceDir Dossier des images de référence.
+     * @param candidateDir Dossier des images à vérifier (mêmes noms de fichiers).
+     * @param outputDir Dossier où écrire les images différentielles et le résumé.
+     * @param threads Nombre de threads du pool (>= 1).
+     */
+    public BatchComparator(File referenceDir, File candidateDir, File outputDir, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être >= 1 : " + threads);
+        }
+        this.referenceDir = referenceDir;
+        this.candidateDir = candidateDir;
+        this.outputDir = outputDir;
+        this.threads = threads;
+    }
+
+    /**
+     * Compare toutes les paires et écrit le résumé.
+     * @return Les résultats, dans l'ordre alphabétique des noms de fichiers.
+     * @throws IOException si un dossier ne peut être lu ou le résumé écrit.
+     */
+    public List<PairResult> run() throws IOException {
+        String[] names = referenceDir.list((dir, name) -> isImage(name));
+        if (names == null || !candidateDir.isDirectory()) {
+            throw new IOException("Dossier illisible : " + (names == null ? referenceDir : candidateDir));
+        }
+        Arrays.sort(names);
+        Files.createDirectories(outputDir.toPath());
+
+        // Pas de cache disque pour les flux ImageIO : tout se fait en mémoire
+        ImageIO.setUseCache(false);
+
+        long start = System.nanoTime();
+        List<PairResult> results = new ArrayList<>();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        // Au plus 2 paires par thread en mémoire (une en cours, une en attente)
+        Semaphore inFlight = new Semaphore(2 * threads);
+        try {
+            for (String name : names) {
+                PairResult result = new PairResult(name);
+                results.add(result);
+                File candidate = new File(candidateDir, name);
+                if (!candidate.isFile()) {
+                    result.status = PairResult.Status.MISSING;
+                    continue;
+                }
+                inFlight.acquireUninterruptibly();
+                pending.add(compare(new File(referenceDir, name), candidate, result, pool)
+                        .whenComplete((ignored, e) -> inFlight.release()));
+            }
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            pool.shutdown();
+        }
+        double totalMs = (System.nanoTime() - start) / 1e6;
+
+        writeJson(results, totalMs, new File(outputDir, "summary.json"));
+        writeCsv(results, new File(outputDir, "summary.csv"));
+        return results;
+    }
+
+    /**
+     * Lance le pipeline d'une paire : lecture des deux images -> comparaison -> image différentielle.
+     */
+    private CompletableFuture<Void> compare(File reference, File candidate, PairResult result, ExecutorService pool) {
+        CompletableFuture<BufferedImage> img1 = CompletableFuture.supplyAsync(() -> read(reference, result), pool);
+        CompletableFuture<BufferedImage> img2 = CompletableFuture.supplyAsync(() -> read(candidate, result), pool);
+
+        return img1.thenCombineAsync(img2, (a, b) -> {
+            result.width = a.getWidth();
+            result.height = a.getHeight();
+            ImageComparator comparator = new ImageComparator(a, b); // Un thread par paire : le parallélisme vient des paires
+            if (!comparator.haveSameDimensions()) {
+                result.status = PairResult.Status.SIZE_MISMATCH;
+                return null;
+            }
+            long t = System.nanoTime();
+            result.differentPixels = comparator.countDifferentPixels();
+            result.status = result.differentPixels < Main.MAX_DIFFERENT_PIXELS
+                    ? PairResult.Status.OK : PairResult.Status.KO;
+            BufferedImage diff = result.differentPixels > 0 ? comparator.generateDiffImage() : null;
+            result.compareMs = (System.nanoTime() - t) / 1e6;
+            return diff;
+        }, pool).thenAcceptAsync(diff -> {
+            if (diff != null) {
+                long t = System.nanoTime();
+                File output = new File(outputDir, diffName(result.name));
+                try {
+                    ImageIO.write(diff, "png", output);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Écriture impossible : " + output, e);
+                }
+                result.diffFile = output.getName();
+                result.encodeMs = (System.nanoTime() - t) / 1e6;
+            }
+        }, pool).exceptionally(e -> {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            result.status = PairResult.Status.ERROR;
+            result.error = cause.getMessage();
+            return null;
+        });
+    }
+
+    private static BufferedImage read(File file, PairResult result) {
+        long t = System.nanoTime();
+        BufferedImage image;
+        try {
+            image = ImageIO.read(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("Lecture impossible : " + file, e);
+        }
+        if (image == null) {
+            throw new IllegalStateException("Format d'image non reconnu : " + file);
+        }
+        synchronized (result) {
+            result.decodeMs += (System.nanoTime() - t) / 1e6;
+        }
+        return image;
+    }
+
+    private static boolean isImage(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (String extension : EXTENSIONS) {
+            if (lower.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Le nom de l'image différentielle d'une paire (ex: "scene1.png" -> "scene1-diff.png").
+     */
+    static String diffName(String name) {
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + "-diff.png";
+    }
+
+    // --- Résumé ---
+
+    private static void writeJson(List<PairResult> results, double totalMs, File file) throws IOException {
+        int ok = 0;
+        for (PairResult r : results) {
+            if (r.status == PairResult.Status.OK) {
+                ok++;
+            }
+        }
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8)) {
+            out.println("{");
+            out.printf(Locale.ROOT, "  \"pairs\": %d,%n  \"ok\": %d,%n  \"totalMs\": %.3f,%n", results.size(), ok, totalMs);
+            out.println("  \"results\": [");
+            for (int i = 0; i < results.size(); i++) {
+                PairResult r = results.get(i);
+                out.printf(Locale.ROOT, "    {\"name\": %s, \"status\": \"%s\", \"width\": %d, \"height\": %d, "
+                                + "\"differentPixels\": %d, \"diff\": %s, \"decodeMs\": %.3f, \"compareMs\": %.3f, "
+                                + "\"encodeMs\": %.3f, \"error\": %s}%s%n",
+                        json(r.name), r.status, r.width, r.height, r.differentPixels, json(r.diffFile),
+                        r.decodeMs, r.compareMs, r.encodeMs, json(r.error), i + 1 < results.size() ? "," : "");
+            }
+            out.println("  ]");
+            out.println("}");
+        }
+    }
+
+    private static void writeCsv(List<PairResult> results, File file) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8)) {
+            out.println("name,status,width,height,differentPixels,diff,decodeMs,compareMs,encodeMs,error");
+            for (PairResult r : results) {
+                out.printf(Locale.ROOT, "%s,%s,%d,%d,%d,%s,%.3f,%.3f,%.3f,%s%n",
+                        csv(r.name), r.status, r.width, r.height, r.differentPixels, csv(r.diffFile),
+                        r.decodeMs, r.compareMs, r.encodeMs, csv(r.error));
+            }
+        }
+    }
+
+    /**
+     * @return La chaîne au format JSON (entre guillemets, échappée), ou null.
+     */
+    static String json(String s) {
+        if (s == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * @return La valeur pour une cellule CSV (entre guillemets si besoin), vide si null.
+     */
+    static String csv(String s) {
+        if (s == null) {
+            return "";
+        }
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,51 @@
+package imgcompare;
+
+/**
+ * Boucles de base de la comparaison, appliquées à une ligne de pixels.
+ * <p>
+ * Deux implémentations : ScalarDiffKernel (Java pur) et VectorDiffKernel (SIMD, API
+ * jdk.incubator.vector). La seconde n'est utilisée que si le module est présent au lancement
+ * (option --add-modules jdk.incubator.vector) ; sinon on se rabat sur la version scalaire.
+ */
+interface DiffKernel {
+
+    /**
+     * Compte les pixels différents entre deux suites d'entiers (un pixel par entier).
+     * @param mask Bits significatifs de chaque pixel (ex: 0x00FFFFFF pour ignorer l'octet de poids fort).
+     */
+    int countDifferentInts(int[] a, int aOffset, int[] b, int bOffset, int length, int mask);
+
+    /**
+     * Compte les pixels différents entre deux suites d'octets, chaque pixel occupant
+     * pixelStride octets consécutifs tous significatifs.
+     */
+    int countDifferentBytes(byte[] a, int aOffset, byte[] b, int bOffset, int pixels, int pixelStride);
+
+    /**
+     * Différence absolue, composante par composante (octet par octet), de deux suites de pixels
+     * packés en entiers : out = (|a - b| & mask) | bits.
+     */
+    void absDiffInts(int[] a, int aOffset, int[] b, int bOffset, int[] out, int outOffset,
+                     int length, int mask, int bits);
+
+    /**
+     * Différence absolue octet par octet : out = |a - b|.
+     */
+    void absDiffBytes(byte[] a, int aOffset, byte[] b, int bOffset, byte[] out, int outOffset, int length);
+
+    /**
+     * @return La version SIMD si le module jdk.incubator.vector est disponible, sinon la version scalaire.
+     */
+    static DiffKernel best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Chargée par réflexion : la classe ne doit pas être liée quand le module est absent
+                return (DiffKernel) Class.forName("imgcompare.VectorDiffKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // On garde la version scalaire
+            }
+        }
+        return new ScalarDiffKernel();
+    }
+}
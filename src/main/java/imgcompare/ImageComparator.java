@@ -1,26 +1,57 @@
 package imgcompare;
 
 import java.awt.image.BufferedImage;
-import java.awt.Color;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Cette classe gère la logique de comparaison entre deux images.
  * Elle fournit des méthodes pour compter les pixels différents
  * et pour générer une image différentielle.
+ * <p>
+ * Les pixels sont lus directement dans les tableaux des rasters (cf. RasterPixels) et comparés
+ * ligne par ligne avec des boucles SIMD si possible (cf. DiffKernel). Avec plusieurs threads,
+ * l'image est découpée en bandes de lignes traitées en parallèle sur un ForkJoinPool.
  */
 public class ImageComparator {
 
+    /** Nombre de lignes d'une bande traitée d'un seul tenant. */
+    static final int BAND_HEIGHT = 32;
+
+    // Choisie une seule fois : SIMD si le module jdk.incubator.vector est chargé
+    private static final DiffKernel KERNEL = DiffKernel.best();
+
     private BufferedImage img1;
     private BufferedImage img2;
+    private final int threads;
+
+    // Accès direct aux tableaux de pixels des deux images
+    private final RasterPixels pixels1;
+    private final RasterPixels pixels2;
 
     /**
-     * Constructeur pour l'ImageComparator.
+     * Constructeur pour l'ImageComparator (comparaison sur un seul thread).
      * @param img1 La première image (par ex: image de référence)
      * @param img2 La seconde image (par ex: image générée)
      */
     public ImageComparator(BufferedImage img1, BufferedImage img2) {
+        this(img1, img2, 1);
+    }
+
+    /**
+     * @param img1 La première image (par ex: image de référence)
+     * @param img2 La seconde image (par ex: image générée)
+     * @param threads Nombre de threads de comparaison (>= 1).
+     */
+    public ImageComparator(BufferedImage img1, BufferedImage img2, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être >= 1 : " + threads);
+        }
         this.img1 = img1;
         this.img2 = img2;
+        this.threads = threads;
+        this.pixels1 = RasterPixels.of(img1);
+        this.pixels2 = RasterPixels.of(img2);
     }
 
     /**
@@ -31,9 +62,16 @@ public class ImageComparator {
         return img1.getWidth() == img2.getWidth() && img1.getHeight() == img2.getHeight();
     }
 
+    /**
+     * @return true si les boucles SIMD (API Vector) sont utilisées.
+     */
+    public static boolean isVectorized() {
+        return !(KERNEL instanceof ScalarDiffKernel);
+    }
+
     /**
      * Compte le nombre de pixels qui sont différents entre les deux images.
-     * La comparaison se fait pixel par pixel.
+     * La comparaison se fait pixel par pixel, directement sur les tableaux des rasters.
      *
      * @return Le nombre total de pixels différents.
      * @throws IllegalArgumentException si les images n'ont pas les mêmes dimensions.
@@ -42,25 +80,40 @@ public class ImageComparator {
         if (!haveSameDimensions()) {
             throw new IllegalArgumentException("Les images n'ont pas les mêmes dimensions.");
         }
+        return forEachBand(this::countDifferentPixels);
+    }
 
-        int diffPixelCount = 0;
+    /**
+     * Compte les pixels différents des lignes [fromY, toY[.
+     * Si les deux images ont la même disposition mémoire, on compare directement leurs tableaux ;
+     * sinon, chaque ligne est convertie en ARGB avant d'être comparée.
+     */
+    int countDifferentPixels(int fromY, int toY) {
         int width = img1.getWidth();
-        int height = img1.getHeight();
-
-        // On parcourt chaque ligne (y)
-        for (int y = 0; y < height; y++) {
-            // Dans chaque ligne, on parcourt chaque pixel (x)
-            for (int x = 0; x < width; x++) {
-
-                // On récupère la couleur (entier RGB) de chaque pixel
-                int rgb1 = img1.getRGB(x, y);
-                int rgb2 = img2.getRGB(x, y);
+        int diffPixelCount = 0;
 
-                // Si les valeurs RGB sont différentes, on incrémente le compteur
-                if (rgb1 != rgb2) {
-                    diffPixelCount++;
+        if (pixels1.sameLayout(pixels2) && pixels1.isPacked()) {
+            for (int y = fromY; y < toY; y++) {
+                int i1 = pixels1.offset + y * pixels1.scanlineStride;
+                int i2 = pixels2.offset + y * pixels2.scanlineStride;
+                if (pixels1.layout == RasterPixels.Layout.BYTE) {
+                    diffPixelCount += KERNEL.countDifferentBytes(pixels1.bytes, i1, pixels2.bytes, i2,
+                            width, pixels1.pixelStride);
+                } else {
+                    // Pour INT_RGB, l'octet de poids fort est ignoré
+                    int mask = pixels1.layout == RasterPixels.Layout.INT_ARGB ? 0xFFFFFFFF : 0x00FFFFFF;
+                    diffPixelCount += KERNEL.countDifferentInts(pixels1.ints, i1, pixels2.ints, i2, width, mask);
                 }
             }
+            return diffPixelCount;
+        }
+
+        int[] row1 = new int[width];
+        int[] row2 = new int[width];
+        for (int y = fromY; y < toY; y++) {
+            pixels1.readRow(y, row1);
+            pixels2.readRow(y, row2);
+            diffPixelCount += KERNEL.countDifferentInts(row1, 0, row2, 0, width, 0xFFFFFFFF);
         }
         return diffPixelCount;
     }
@@ -82,33 +135,107 @@ public class ImageComparator {
         int height = img1.getHeight();
 
         // On crée une nouvelle image en mémoire pour stocker le résultat
-        BufferedImage diffImage = new BufferedImage(width, height, img1.getType());
-
-        // On parcourt chaque pixel
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
+        // (du même type que la première, sauf si ce type ne peut pas être recréé)
+        int type = img1.getType() != BufferedImage.TYPE_CUSTOM ? img1.getType() : BufferedImage.TYPE_INT_RGB;
+        BufferedImage diffImage = new BufferedImage(width, height, type);
+        RasterPixels diff = RasterPixels.of(diffImage);
+        forEachBand((fromY, toY) -> {
+            fillDiffImage(diff, fromY, toY);
+            return 0;
+        });
+        return diffImage;
+    }
 
-                int rgb1 = img1.getRGB(x, y);
-                int rgb2 = img2.getRGB(x, y);
+    /**
+     * Calcule les lignes [fromY, toY[ de l'image différentielle, sans allocation par pixel.
+     * Un pixel identique donne du noir, c'est-à-dire une différence nulle : l'image est donc
+     * simplement la différence absolue composante par composante, opaque.
+     */
+    void fillDiffImage(RasterPixels diff, int fromY, int toY) {
+        int width = img1.getWidth();
 
-                if (rgb1 == rgb2) {
-                    // Pixels identiques : on met du noir
-                    diffImage.setRGB(x, y, Color.BLACK.getRGB());
+        if (pixels1.sameLayout(pixels2) && pixels1.sameLayout(diff)) {
+            for (int y = fromY; y < toY; y++) {
+                int i1 = pixels1.offset + y * pixels1.scanlineStride;
+                int i2 = pixels2.offset + y * pixels2.scanlineStride;
+                int out = diff.offset + y * diff.scanlineStride;
+                if (diff.layout == RasterPixels.Layout.BYTE) {
+                    KERNEL.absDiffBytes(pixels1.bytes, i1, pixels2.bytes, i2, diff.bytes, out,
+                            width * diff.pixelStride);
+                    if (diff.alpha >= 0) {
+                        for (int x = 0, a = out + diff.alpha; x < width; x++, a += diff.pixelStride) {
+                            diff.bytes[a] = (byte) 0xFF;
+                        }
+                    }
                 } else {
-                    // Pixels différents : on calcule la différence de couleur
-                    Color c1 = new Color(rgb1);
-                    Color c2 = new Color(rgb2);
+                    int alpha = diff.layout == RasterPixels.Layout.INT_ARGB ? 0xFF000000 : 0;
+                    KERNEL.absDiffInts(pixels1.ints, i1, pixels2.ints, i2, diff.ints, out, width, 0x00FFFFFF, alpha);
+                }
+            }
+            return;
+        }
+
+        int[] row1 = new int[width];
+        int[] row2 = new int[width];
+        for (int y = fromY; y < toY; y++) {
+            pixels1.readRow(y, row1);
+            pixels2.readRow(y, row2);
+            KERNEL.absDiffInts(row1, 0, row2, 0, row1, 0, width, 0x00FFFFFF, 0xFF000000);
+            diff.writeRow(y, row1);
+        }
+    }
 
-                    // On calcule la différence absolue pour chaque composante (Rouge, Vert, Bleu)
-                    int diffR = Math.abs(c1.getRed() - c2.getRed());
-                    int diffG = Math.abs(c1.getGreen() - c2.getGreen());
-                    int diffB = Math.abs(c1.getBlue() - c2.getBlue());
+    // --- Découpage en bandes de lignes ---
 
-                    Color diffColor = new Color(diffR, diffG, diffB);
-                    diffImage.setRGB(x, y, diffColor.getRGB());
-                }
+    /**
+     * Traitement d'une bande de lignes [fromY, toY[, renvoyant un compte (sommé sur les bandes).
+     */
+    private interface BandOperation {
+        int apply(int fromY, int toY);
+    }
+
+    /**
+     * Applique l'opération à toute l'image : directement sur un seul thread, sinon par bandes en parallèle.
+     */
+    private int forEachBand(BandOperation operation) {
+        int height = img1.getHeight();
+        if (threads == 1 || height <= BAND_HEIGHT) {
+            return operation.apply(0, height);
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new BandTask(operation, 0, height));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tâche ForkJoin couvrant les lignes [fromY, toY[.
+     * Elle se divise en deux tant qu'elle contient plus d'une bande.
+     */
+    private static class BandTask extends RecursiveTask<Integer> {
+
+        private final BandOperation operation;
+        private final int fromY;
+        private final int toY;
+
+        BandTask(BandOperation operation, int fromY, int toY) {
+            this.operation = operation;
+            this.fromY = fromY;
+            this.toY = toY;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (toY - fromY <= BAND_HEIGHT) {
+                return operation.apply(fromY, toY);
             }
+            int mid = fromY + Math.max(1, (toY - fromY) / BAND_HEIGHT / 2) * BAND_HEIGHT; // Coupure entre deux bandes
+            BandTask top = new BandTask(operation, fromY, mid);
+            top.fork();
+            int bottom = new BandTask(operation, mid, toY).compute();
+            return top.join() + bottom;
         }
-        return diffImage;
     }
-}
\ No newline at end of file
+}
@@ -3,17 +3,30 @@ package imgcompare;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import javax.imageio.ImageIO; // 
 
 /**
  * Programme principal pour comparer deux images PNG.
  * Prend deux fichiers image en argument et affiche le résultat de la comparaison.
  * Génère une image 'diff.png' si les images diffèrent.
+ * <p>
+ * Mode "batch" : si les deux arguments sont des dossiers, toutes les images de même nom
+ * sont comparées (cf. BatchComparator), les images différentielles et le résumé étant écrits
+ * dans le dossier donné en troisième argument ("diffs" par défaut).
  */
 public class Main {
 
+    /** Nombre de pixels différents à partir duquel deux images sont jugées différentes (KO). */
+    static final int MAX_DIFFERENT_PIXELS = 1000;
+
     public static void main(String[] args) {
 
+        if ((args.length == 2 || args.length == 3) && new File(args[0]).isDirectory()) {
+            runBatch(args);
+            return;
+        }
+
         String pathImg1;
         String pathImg2;
 
@@ -33,6 +46,7 @@ public class Main {
             // Cas invalide (1 seul argument, ou plus de 2)
             System.err.println("Erreur: Nombre d'arguments incorrect.");
             System.err.println("Usage: java imgcompare.Main <image1.png> <image2.png>");
+            System.err.println("   ou: java imgcompare.Main <dossier1> <dossier2> [dossierDiffs]");
             System.err.println("Ou ne fournissez aucun argument pour utiliser les images par défaut.");
             return;
         }
@@ -51,8 +65,8 @@ public class Main {
                 return;
             }
 
-            // 3. Initialiser le comparateur
-            ImageComparator comparator = new ImageComparator(img1, img2);
+            // 3. Initialiser le comparateur (sur tous les cœurs disponibles)
+            ImageComparator comparator = new ImageComparator(img1, img2, Runtime.getRuntime().availableProcessors());
 
             // 4. Vérifier les dimensions avant de comparer 
             if (!comparator.haveSameDimensions()) {
@@ -65,7 +79,7 @@ public class Main {
 
             // 6. Afficher le résultat (OK/KO) 
             // Moins de 1000 pixels différents = OK 
-            if (diffPixels < 1000) {
+            if (diffPixels < MAX_DIFFERENT_PIXELS) {
                 System.out.println("OK"); // 
             } else {
                 System.out.println("KO"); // 
@@ -91,4 +105,29 @@ public class Main {
             System.err.println("Erreur de comparaison : " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Compare deux dossiers d'images et affiche un bilan.
+     */
+    private static void runBatch(String[] args) {
+        File outputDir = new File(args.length == 3 ? args[2] : "diffs");
+        int threads = Runtime.getRuntime().availableProcessors();
+        BatchComparator batch = new BatchComparator(new File(args[0]), new File(args[1]), outputDir, threads);
+        try {
+            List<BatchComparator.PairResult> results = batch.run();
+            int ok = 0;
+            for (BatchComparator.PairResult result : results) {
+                if (result.getStatus() == BatchComparator.PairResult.Status.OK) {
+                    ok++;
+                } else {
+                    System.out.println(result.getStatus() + " " + result.getName()
+                            + (result.getError() != null ? " : " + result.getError() : ""));
+                }
+            }
+            System.out.println(ok + "/" + results.size() + " paires OK. Résumé écrit dans '"
+                    + new File(outputDir, "summary.json") + "'.");
+        } catch (IOException e) {
+            System.err.println("Erreur d'entrée/sortie : " + e.getMessage());
+        }
+    }
+}
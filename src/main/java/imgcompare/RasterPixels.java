@@ -0,0 +1,174 @@
+package imgcompare;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Accès direct aux pixels d'une BufferedImage, par le tableau qui stocke son raster
+ * (DataBufferInt ou DataBufferByte), au lieu d'appeler getRGB/setRGB pour chaque pixel.
+ * <p>
+ * Dispositions reconnues : TYPE_INT_ARGB, TYPE_INT_RGB, TYPE_3BYTE_BGR et TYPE_4BYTE_ABGR
+ * (ces deux dernières sont celles des PNG 8 bits lus par ImageIO). Les autres (palette,
+ * niveaux de gris, 16 bits, prémultiplié...) passent par getRGB/setRGB, mais une ligne à la fois.
+ * Dans tous les cas, les couleurs lues sont les mêmes que celles de getRGB (ARGB non prémultiplié).
+ */
+final class RasterPixels {
+
+    enum Layout { INT_ARGB, INT_RGB, BYTE, GENERIC }
+
+    final BufferedImage image;
+    final Layout layout;
+    final int width;
+    final int height;
+
+    // Tableau du raster (selon la disposition) et position du pixel (0, 0) dans ce tableau
+    final int[] ints;
+    final byte[] bytes;
+    final int offset;
+    final int scanlineStride;
+    final int pixelStride;
+
+    // Disposition BYTE : position de chaque composante dans un pixel (alpha = -1 si absente)
+    final int red;
+    final int green;
+    final int blue;
+    final int alpha;
+
+    private RasterPixels(BufferedImage image, Layout layout, int[] ints, byte[] bytes, int offset,
+                         int scanlineStride, int pixelStride, int[] bandOffsets) {
+        this.image = image;
+        this.layout = layout;
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+        this.ints = ints;
+        this.bytes = bytes;
+        this.offset = offset;
+        this.scanlineStride = scanlineStride;
+        this.pixelStride = pixelStride;
+        this.red = bandOffsets != null ? bandOffsets[0] : 0;
+        this.green = bandOffsets != null ? bandOffsets[1] : 0;
+        this.blue = bandOffsets != null ? bandOffsets[2] : 0;
+        this.alpha = bandOffsets != null && bandOffsets.length > 3 ? bandOffsets[3] : -1;
+    }
+
+    /**
+     * Analyse la disposition du raster de l'image.
+     */
+    static RasterPixels of(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        SampleModel model = raster.getSampleModel();
+        DataBuffer buffer = raster.getDataBuffer();
+        // Position du pixel (0, 0) dans le modèle (non nulle pour une sous-image)
+        int x0 = -raster.getSampleModelTranslateX();
+        int y0 = -raster.getSampleModelTranslateY();
+
+        int type = image.getType();
+        if ((type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB)
+                && buffer instanceof DataBufferInt && buffer.getNumBanks() == 1
+                && model instanceof SinglePixelPackedSampleModel) {
+            SinglePixelPackedSampleModel packed = (SinglePixelPackedSampleModel) model;
+            return new RasterPixels(image,
+                    type == BufferedImage.TYPE_INT_ARGB ? Layout.INT_ARGB : Layout.INT_RGB,
+                    ((DataBufferInt) buffer).getData(), null,
+                    buffer.getOffset() + packed.getOffset(x0, y0), packed.getScanlineStride(), 1, null);
+        }
+        if ((type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_4BYTE_ABGR)
+                && buffer instanceof DataBufferByte && buffer.getNumBanks() == 1
+                && model instanceof ComponentSampleModel) {
+            ComponentSampleModel component = (ComponentSampleModel) model;
+            return new RasterPixels(image, Layout.BYTE, null, ((DataBufferByte) buffer).getData(),
+                    buffer.getOffset() + y0 * component.getScanlineStride() + x0 * component.getPixelStride(),
+                    component.getScanlineStride(), component.getPixelStride(), component.getBandOffsets());
+        }
+        return new RasterPixels(image, Layout.GENERIC, null, null, 0, 0, 0, null);
+    }
+
+    /**
+     * @return true si les deux images ont exactement la même disposition de pixels
+     * (on peut alors comparer directement le contenu des tableaux).
+     */
+    boolean sameLayout(RasterPixels other) {
+        return layout == other.layout && layout != Layout.GENERIC
+                && pixelStride == other.pixelStride
+                && red == other.red && green == other.green && blue == other.blue && alpha == other.alpha;
+    }
+
+    /**
+     * @return true si les pixels sont des entiers, ou des octets consécutifs sans bourrage
+     * (tous les octets d'un pixel sont alors des composantes).
+     */
+    boolean isPacked() {
+        return layout == Layout.INT_ARGB || layout == Layout.INT_RGB
+                || (layout == Layout.BYTE && pixelStride == (alpha >= 0 ? 4 : 3));
+    }
+
+    /**
+     * Lit la ligne y en ARGB (comme getRGB).
+     * @param argb Tableau d'au moins width entiers.
+     */
+    void readRow(int y, int[] argb) {
+        switch (layout) {
+            case INT_ARGB:
+                System.arraycopy(ints, offset + y * scanlineStride, argb, 0, width);
+                break;
+            case INT_RGB: {
+                int i = offset + y * scanlineStride;
+                for (int x = 0; x < width; x++) {
+                    argb[x] = ints[i + x] | 0xFF000000;
+                }
+                break;
+            }
+            case BYTE: {
+                int i = offset + y * scanlineStride;
+                for (int x = 0; x < width; x++, i += pixelStride) {
+                    int a = alpha >= 0 ? bytes[i + alpha] & 0xFF : 0xFF;
+                    argb[x] = (a << 24) | ((bytes[i + red] & 0xFF) << 16)
+                            | ((bytes[i + green] & 0xFF) << 8) | (bytes[i + blue] & 0xFF);
+                }
+                break;
+            }
+            default:
+                image.getRGB(0, y, width, 1, argb, 0, width);
+        }
+    }
+
+    /**
+     * Écrit la ligne y à partir de couleurs ARGB (comme setRGB).
+     * @param argb Tableau d'au moins width entiers.
+     */
+    void writeRow(int y, int[] argb) {
+        switch (layout) {
+            case INT_ARGB:
+                System.arraycopy(argb, 0, ints, offset + y * scanlineStride, width);
+                break;
+            case INT_RGB: {
+                int i = offset + y * scanlineStride;
+                for (int x = 0; x < width; x++) {
+                    ints[i + x] = argb[x] & 0xFFFFFF;
+                }
+                break;
+            }
+            case BYTE: {
+                int i = offset + y * scanlineStride;
+                for (int x = 0; x < width; x++, i += pixelStride) {
+                    int c = argb[x];
+                    if (alpha >= 0) {
+                        bytes[i + alpha] = (byte) (c >>> 24);
+                    }
+                    bytes[i + red] = (byte) (c >> 16);
+                    bytes[i + green] = (byte) (c >> 8);
+                    bytes[i + blue] = (byte) c;
+                }
+                break;
+            }
+            default:
+                image.setRGB(0, y, width, 1, argb, 0, width);
+        }
+    }
+}
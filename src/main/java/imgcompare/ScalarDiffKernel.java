@@ -0,0 +1,58 @@
+package imgcompare;
+
+/**
+ * Boucles de comparaison en Java pur (cf. DiffKernel).
+ */
+class ScalarDiffKernel implements DiffKernel {
+
+    @Override
+    public int countDifferentInts(int[] a, int aOffset, int[] b, int bOffset, int length, int mask) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (((a[aOffset + i] ^ b[bOffset + i]) & mask) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int countDifferentBytes(byte[] a, int aOffset, byte[] b, int bOffset, int pixels, int pixelStride) {
+        int count = 0;
+        for (int p = 0; p < pixels; p++, aOffset += pixelStride, bOffset += pixelStride) {
+            for (int k = 0; k < pixelStride; k++) {
+                if (a[aOffset + k] != b[bOffset + k]) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void absDiffInts(int[] a, int aOffset, int[] b, int bOffset, int[] out, int outOffset,
+                            int length, int mask, int bits) {
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = (absDiff(a[aOffset + i], b[bOffset + i]) & mask) | bits;
+        }
+    }
+
+    @Override
+    public void absDiffBytes(byte[] a, int aOffset, byte[] b, int bOffset, byte[] out, int outOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = (byte) Math.abs((a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF));
+        }
+    }
+
+    /**
+     * Différence absolue de chacun des 4 octets de deux entiers.
+     */
+    static int absDiff(int c1, int c2) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            result |= Math.abs(((c1 >>> shift) & 0xFF) - ((c2 >>> shift) & 0xFF)) << shift;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,107 @@
+package imgcompare;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Boucles de comparaison SIMD, avec l'API jdk.incubator.vector (cf. DiffKernel).
+ * Les fins de lignes (moins d'un vecteur complet) sont traitées par la version scalaire.
+ * <p>
+ * Ne doit être chargée que si le module est présent (cf. DiffKernel.best).
+ */
+class VectorDiffKernel implements DiffKernel {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+    private final ScalarDiffKernel scalar = new ScalarDiffKernel();
+
+    @Override
+    public int countDifferentInts(int[] a, int aOffset, int[] b, int bOffset, int length, int mask) {
+        IntVector significant = IntVector.broadcast(INTS, mask);
+        int upper = INTS.loopBound(length);
+        int count = 0;
+        int i = 0;
+        for (; i < upper; i += INTS.length()) {
+            IntVector va = IntVector.fromArray(INTS, a, aOffset + i);
+            IntVector vb = IntVector.fromArray(INTS, b, bOffset + i);
+            count += va.lanewise(VectorOperators.XOR, vb).and(significant)
+                    .compare(VectorOperators.NE, 0).trueCount();
+        }
+        return count + scalar.countDifferentInts(a, aOffset + i, b, bOffset + i, length - i, mask);
+    }
+
+    /**
+     * Les octets sont comparés un vecteur à la fois ; le masque des octets différents est
+     * récupéré sous forme de bits (toLong) et replié pour savoir quels pixels ont au moins
+     * un octet différent. Chaque pas avance d'un nombre entier de pixels, pour que les
+     * pixels restent alignés sur les bits du masque.
+     */
+    @Override
+    public int countDifferentBytes(byte[] a, int aOffset, byte[] b, int bOffset, int pixels, int pixelStride) {
+        int lanes = BYTES.length();
+        if (lanes > 64 || pixelStride > lanes) {
+            return scalar.countDifferentBytes(a, aOffset, b, bOffset, pixels, pixelStride);
+        }
+        int step = lanes / pixelStride * pixelStride; // Octets traités par pas
+        long used = step == 64 ? -1L : (1L << step) - 1;
+        long firstBytes = 0; // Un bit au premier octet de chaque pixel
+        for (int k = 0; k < step; k += pixelStride) {
+            firstBytes |= 1L << k;
+        }
+
+        int length = pixels * pixelStride;
+        int count = 0;
+        int i = 0;
+        for (; i + lanes <= length; i += step) {
+            ByteVector va = ByteVector.fromArray(BYTES, a, aOffset + i);
+            ByteVector vb = ByteVector.fromArray(BYTES, b, bOffset + i);
+            long different = va.compare(VectorOperators.NE, vb).toLong() & used;
+            long any = different;
+            for (int k = 1; k < pixelStride; k++) {
+                any |= different >>> k;
+            }
+            count += Long.bitCount(any & firstBytes);
+        }
+        return count + scalar.countDifferentBytes(a, aOffset + i, b, bOffset + i,
+                pixels - i / pixelStride, pixelStride);
+    }
+
+    @Override
+    public void absDiffInts(int[] a, int aOffset, int[] b, int bOffset, int[] out, int outOffset,
+                            int length, int mask, int bits) {
+        IntVector significant = IntVector.broadcast(INTS, mask);
+        IntVector forced = IntVector.broadcast(INTS, bits);
+        int upper = INTS.loopBound(length);
+        int i = 0;
+        for (; i < upper; i += INTS.length()) {
+            ByteVector va = IntVector.fromArray(INTS, a, aOffset + i).reinterpretAsBytes();
+            ByteVector vb = IntVector.fromArray(INTS, b, bOffset + i).reinterpretAsBytes();
+            absDiff(va, vb).reinterpretAsInts().and(significant).or(forced).intoArray(out, outOffset + i);
+        }
+        scalar.absDiffInts(a, aOffset + i, b, bOffset + i, out, outOffset + i, length - i, mask, bits);
+    }
+
+    @Override
+    public void absDiffBytes(byte[] a, int aOffset, byte[] b, int bOffset, byte[] out, int outOffset, int length) {
+        int upper = BYTES.loopBound(length);
+        int i = 0;
+        for (; i < upper; i += BYTES.length()) {
+            absDiff(ByteVector.fromArray(BYTES, a, aOffset + i), ByteVector.fromArray(BYTES, b, bOffset + i))
+                    .intoArray(out, outOffset + i);
+        }
+        scalar.absDiffBytes(a, aOffset + i, b, bOffset + i, out, outOffset + i, length - i);
+    }
+
+    /**
+     * |a - b| sur des octets non signés : en inversant le bit de poids fort, l'ordre non signé
+     * devient l'ordre signé, et max - min (modulo 256) donne la différence absolue.
+     */
+    private static ByteVector absDiff(ByteVector a, ByteVector b) {
+        ByteVector sa = a.lanewise(VectorOperators.XOR, (byte) 0x80);
+        ByteVector sb = b.lanewise(VectorOperators.XOR, (byte) 0x80);
+        return sa.max(sb).sub(sa.min(sb));
+    }
+}
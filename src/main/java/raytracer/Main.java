@@ -0,0 +1,236 @@
+package raytracer;
+
+import raytracer.farm.RenderCoordinator;
+import raytracer.farm.RenderWorker;
+import raytracer.parsing.CameraPathParser;
+import raytracer.parsing.SceneCache;
+import raytracer.parsing.SceneFileParser;
+import raytracer.raytracer.AnimationRenderer;
+import raytracer.raytracer.Camera;
+import raytracer.raytracer.ProgressiveRenderer;
+import raytracer.raytracer.Renderer;
+import raytracer.raytracer.Scene;
+import raytracer.stats.RenderStats;
+import raytracer.watch.SceneWatcher;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Programme principal du lancer de rayons.
+ * Lit un fichier de scène et écrit l'image rendue dans le fichier 'output' de la scène.
+ * Avec --cache, la scène est relue depuis un cache binaire (scene.txt.cache) tenu à jour.
+ * Avec --packet=N (4, 8 ou 16), les rayons primaires sont tracés par paquets de N.
+ * Avec --progressive[=ms], l'image est rendue par passes de plus en plus fines, dans la limite
+ * du budget de temps éventuel (cf. ProgressiveRenderer).
+ * Avec --farm=port, l'image est rendue par des nœuds connectés sur ce port (cf. RenderCoordinator),
+ * lancés avec --worker=machine:port [threads] (cf. RenderWorker).
+ * Avec --animate=trajectoire.txt, une image est rendue par caméra de la trajectoire (cf. CameraPathParser),
+ * dans des fichiers numérotés ; --concurrent=N en rend N à la fois (cf. AnimationRenderer).
+ * Avec --watch, l'image est rendue à nouveau à chaque modification du fichier de scène (cf. SceneWatcher).
+ * Les statistiques du rendu sont écrites à côté de l'image (image.png.stats.json).
+ */
+public class Main {
+
+    public static void main(String[] args) {
+
+        // Options (--cache, --packet=N, --progressive[=ms], --farm=port, --worker=machine:port,
+        // --animate=trajectoire, --concurrent=N, --watch) puis arguments positionnels
+        boolean useCache = false;
+        boolean watch = false;
+        int packetSize = 1;
+        long budgetMs = -1; // < 0 : rendu non progressif
+        int farmPort = -1;  // < 0 : rendu local
+        String coordinator = null;
+        String cameraPath = null;
+        int concurrentFrames = 1;
+        List<String> positional = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--cache")) {
+                useCache = true;
+            } else if (arg.startsWith("--packet=")) {
+                try {
+                    packetSize = Integer.parseInt(arg.substring("--packet=".length()));
+                } catch (NumberFormatException e) {
+                    System.err.println("Erreur: Taille de paquet invalide : " + arg);
+                    return;
+                }
+            } else if (arg.equals("--progressive")) {
+                budgetMs = 0;
+            } else if (arg.startsWith("--progressive=")) {
+                try {
+                    budgetMs = Long.parseLong(arg.substring("--progressive=".length()));
+                } catch (NumberFormatException e) {
+                    budgetMs = -1;
+                }
+                if (budgetMs < 0) {
+                    System.err.println("Erreur: Budget de temps invalide : " + arg);
+                    return;
+                }
+            } else if (arg.startsWith("--farm=")) {
+                try {
+                    farmPort = Integer.parseInt(arg.substring("--farm=".length()));
+                } catch (NumberFormatException e) {
+                    farmPort = -1;
+                }
+                if (farmPort < 0 || farmPort > 65535) {
+                    System.err.println("Erreur: Port invalide : " + arg);
+                    return;
+                }
+            } else if (arg.equals("--watch")) {
+                watch = true;
+            } else if (arg.startsWith("--worker=")) {
+                coordinator = arg.substring("--worker=".length());
+            } else if (arg.startsWith("--animate=")) {
+                cameraPath = arg.substring("--animate=".length());
+            } else if (arg.startsWith("--concurrent=")) {
+                try {
+                    concurrentFrames = Integer.parseInt(arg.substring("--concurrent=".length()));
+                } catch (NumberFormatException e) {
+                    concurrentFrames = 0;
+                }
+                if (concurrentFrames < 1) {
+                    System.err.println("Erreur: Nombre d'images simultanées invalide : " + arg);
+                    return;
+                }
+            } else {
+                positional.add(arg);
+            }
+        }
+
+        if (coordinator != null) {
+            runWorker(coordinator, positional);
+            return;
+        }
+
+        if (positional.size() < 1 || positional.size() > 2) {
+            System.err.println("Erreur: Nombre d'arguments incorrect.");
+            System.err.println("Usage: java raytracer.Main [--cache] [--packet=N] [--progressive[=ms]] [--farm=port]"
+                    + " [--animate=trajectoire.txt [--concurrent=N]] [--watch] <scene.txt> [threads]");
+            System.err.println("       java raytracer.Main --worker=machine:port [threads]");
+            return;
+        }
+
+        String scenePath = positional.get(0);
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (positional.size() == 2) {
+            try {
+                threads = Integer.parseInt(positional.get(1));
+            } catch (NumberFormatException e) {
+                System.err.println("Erreur: Nombre de threads invalide : " + positional.get(1));
+                return;
+            }
+        }
+
+        if (watch) {
+            runWatcher(scenePath, threads);
+            return;
+        }
+
+        try {
+            // 1. Lire la scène (depuis le cache binaire s'il est demandé et à jour)
+            long loadStart = System.nanoTime();
+            Scene scene = useCache
+                    ? new SceneCache(threads).load(scenePath)
+                    : new SceneFileParser(threads).parse(scenePath);
+
+            long loadNanos = System.nanoTime() - loadStart;
+
+            // 2. Rendre l'image et l'écrire dans le fichier de sortie
+            long start = System.nanoTime();
+            RenderStats stats;
+            if (cameraPath != null) {
+                List<Camera> cameras = new CameraPathParser().parse(cameraPath);
+                AnimationRenderer renderer = new AnimationRenderer(scene, cameras, threads);
+                renderer.setConcurrentFrames(concurrentFrames);
+                renderer.setListener((frame, output, nanos) -> System.out.println("Image " + frame + "/"
+                        + cameras.size() + " '" + output + "' : " + nanos / 1_000_000 + " ms"));
+                renderer.renderToFiles();
+                stats = renderer.getStats();
+            } else if (farmPort >= 0) {
+                try (RenderCoordinator farm = new RenderCoordinator(scene, farmPort)) {
+                    System.out.println("En attente des nœuds sur le port " + farm.getPort() + "...");
+                    farm.renderToFile();
+                    stats = farm.getStats();
+                }
+            } else if (budgetMs >= 0) {
+                try (ProgressiveRenderer renderer = new ProgressiveRenderer(scene, threads)) {
+                    renderer.setTimeBudget(budgetMs);
+                    renderer.setListener((pixels, pass, complete) -> System.out.println("Passe " + (pass + 1) + "/"
+                            + ProgressiveRenderer.PASSES + (complete ? "" : " (interrompue)") + " : "
+                            + (System.nanoTime() - start) / 1_000_000 + " ms"));
+                    renderer.renderToFile();
+                    stats = renderer.getStats();
+                }
+            } else {
+                try (Renderer renderer = new Renderer(scene, threads, Renderer.DEFAULT_TILE_SIZE, packetSize)) {
+                    renderer.renderToFile();
+                    stats = renderer.getStats();
+                }
+            }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.println((cameraPath != null ? "Animation" : "Image") + " '" + scene.getOutput()
+                    + "' générée en " + elapsedMs + " ms ("
+                    + (farmPort >= 0 ? "rendu distribué" : threads + " threads") + ").");
+
+            // 3. Statistiques du rendu (temps de chargement de la scène compris)
+            stats.recordParse(loadNanos);
+            String statsFile = scene.getOutput() + ".stats.json";
+            Files.writeString(Paths.get(statsFile), stats.toJson(), StandardCharsets.UTF_8);
+            System.out.println("Statistiques : " + statsFile);
+
+        } catch (IOException e) {
+            System.err.println("Erreur d'entrée/sortie : " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erreur de rendu : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Mode surveillance : rend la scène à chaque modification de son fichier, jusqu'à l'arrêt du programme.
+     */
+    private static void runWatcher(String scenePath, int threads) {
+        try (SceneWatcher watcher = new SceneWatcher(scenePath, threads)) {
+            watcher.setListener((diff, refitted, reshaded, nanos) -> System.out.println("Image '"
+                    + watcher.getScene().getOutput() + "' " + (diff == null ? "générée" : "mise à jour (" + diff + ")")
+                    + " en " + nanos / 1_000_000 + " ms" + (reshaded ? ", depuis le G-buffer"
+                    : refitted && diff.isGeometryChanged() ? ", BVH réajustée" : "") + "."));
+            System.out.println("Surveillance de '" + scenePath + "' (Ctrl+C pour arrêter)...");
+            watcher.watch();
+        } catch (IOException e) {
+            System.err.println("Erreur d'entrée/sortie : " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Mode nœud : rend les bandes confiées par le coordinateur 'machine:port' (cf. RenderWorker).
+     */
+    private static void runWorker(String coordinator, List<String> positional) {
+        int colon = coordinator.lastIndexOf(':');
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            if (colon < 0 || positional.size() > 1) {
+                throw new NumberFormatException();
+            }
+            int port = Integer.parseInt(coordinator.substring(colon + 1));
+            if (positional.size() == 1) {
+                threads = Integer.parseInt(positional.get(0));
+            }
+            int bands = new RenderWorker(coordinator.substring(0, colon), port, threads).run();
+            System.out.println(bands + " bandes rendues (" + threads + " threads).");
+        } catch (NumberFormatException e) {
+            System.err.println("Erreur: Usage: java raytracer.Main --worker=machine:port [threads]");
+        } catch (IOException e) {
+            System.err.println("Erreur d'entrée/sortie : " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erreur de rendu : " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package raytracer.acceleration;
+
+import raytracer.geometry.AbstractVec3;
+import raytracer.geometry.BoundingBox;
+import raytracer.geometry.Hit;
+import raytracer.geometry.Ray;
+import raytracer.geometry.RayPacket;
+
+import java.util.Arrays;
+
+/**
+ * Hiérarchie de volumes englobants (BVH) sur un ensemble de primitives quelconques.
+ * <p>
+ * La BVH ne connaît que les boîtes englobantes des primitives (indices 0..n-1) ;
+ * le test d'intersection d'une primitive est délégué à un PrimitiveIntersector.
+ * Elle est construite avec l'heuristique SAH (Surface Area Heuristic) par "binning",
+ * et stockée à plat dans des tableaux (nœud gauche = nœud + 1) pour un parcours sans pointeurs.
+ */
+public class BVH {
+
+    /**
+     * Test d'intersection d'une primitive, appelé sur les feuilles traversées.
+     */
+    public interface PrimitiveIntersector {
+        /**
+         * @param primitive Indice de la primitive (tel que fourni à la construction).
+         * @param ray Le rayon.
+         * @param hit L'intersection la plus proche (à mettre à jour).
+         * @return true si le Hit a été mis à jour.
+         */
+        boolean intersect(int primitive, Ray ray, Hit hit);
+    }
+
+    /**
+     * Test d'intersection d'une primitive avec tous les rayons d'un paquet (cf. intersectPacket).
+     */
+    public interface PacketIntersector {
+        /**
+         * @param primitive Indice de la primitive (tel que fourni à la construction).
+         * @param packet Le paquet (intersection la plus proche de chaque voie, à mettre à jour).
+         * @param hit Hit de travail (pile de parcours et compteurs du thread).
+         */
+        void intersect(int primitive, RayPacket packet, Hit hit);
+    }
+
+    // Paramètres de construction
+    private static final int BINS = 16;
+    private static final int MIN_LEAF_SIZE = 2;    // En dessous : toujours une feuille
+    private static final int MAX_LEAF_SIZE = 16;   // Au-dessus : toujours découper
+    private static final int MAX_DEPTH = 60;
+    private static final double TRAVERSAL_COST = 1.0; // Relatif au coût d'une intersection (1)
+
+    // Nœuds : 6 floats (min xyz, max xyz) et 3 entiers par nœud
+    // - feuille : (première primitive, nombre de primitives > 0, -)
+    // - nœud interne : (indice de l'enfant droit, 0, axe de découpe)
+    // Les boîtes sont arrondies vers l'extérieur lors du passage en float : elles restent englobantes.
+    private final float[] nodeBounds;
+    private final int[] nodeData;
+    private final int nodeCount;
+    private final int[] primIndices;
+
+    private BVH(float[] nodeBounds, int[] nodeData, int nodeCount, int[] primIndices) {
+        this.nodeBounds = nodeBounds;
+        this.nodeData = nodeData;
+        this.nodeCount = nodeCount;
+        this.primIndices = primIndices;
+    }
+
+    /**
+     * Recrée une BVH à partir de ses tableaux internes (cf. getNodeBounds, getNodeData,
+     * getPrimitiveIndices), par exemple relus depuis un cache binaire.
+     * @throws IllegalArgumentException si les tailles des tableaux sont incohérentes.
+     */
+    public static BVH fromArrays(float[] nodeBounds, int[] nodeData, int[] primIndices) {
+        int nodeCount = nodeBounds.length / 6;
+        if (nodeBounds.length != nodeCount * 6 || nodeData.length != nodeCount * 3) {
+            throw new IllegalArgumentException("Tableaux de BVH incohérents.");
+        }
+        return new BVH(nodeBounds, nodeData, nodeCount, primIndices);
+    }
+
+    /**
+     * Construit la BVH.
+     * @param primBounds Boîtes des primitives : 6 valeurs par primitive (minX, minY, minZ, maxX, maxY, maxZ).
+     * @return La BVH construite.
+     */
+    public static BVH build(double[] primBounds) {
+        if (primBounds.length % 6 != 0) {
+            throw new IllegalArgumentException("Le tableau des boîtes doit contenir 6 valeurs par primitive.");
+        }
+        return new Builder(primBounds).build();
+    }
+
+    /**
+     * Réajuste la BVH à de nouvelles boîtes de primitives ("refit") : les nœuds et les feuilles
+     * sont gardés, seules leurs boîtes sont recalculées, des feuilles vers la racine.
+     * Bien plus rapide qu'une reconstruction ; l'arbre reste correct, mais sa qualité se dégrade
+     * si les primitives bougent beaucoup. Cette BVH n'est pas modifiée.
+     * @param primBounds Nouvelles boîtes des primitives (autant que de primitives, même format que pour build).
+     * @return La BVH réajustée.
+     */
+    public BVH refit(double[] primBounds) {
+        if (primBounds.length != primIndices.length * 6) {
+            throw new IllegalArgumentException("Le tableau des boîtes doit contenir 6 valeurs pour chacune des "
+                    + primIndices.length + " primitives.");
+        }
+        float[] bounds = new float[nodeCount * 6];
+        double[] box = new double[6];
+        // Les enfants sont rangés après leur parent : parcours à rebours
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            int b = node * 6;
+            int n = node * 3;
+            int count = nodeData[n + 1];
+            if (count > 0) {
+                Builder.resetBox(box, 0);
+                int first = nodeData[n];
+                for (int i = first; i < first + count; i++) {
+                    Builder.growBox(box, 0, primBounds, primIndices[i] * 6);
+                }
+                for (int k = 0; k < 3; k++) {
+                    bounds[b + k] = Math.nextDown((float) box[k]);
+                    bounds[b + 3 + k] = Math.nextUp((float) box[3 + k]);
+                }
+            } else {
+                int left = (node + 1) * 6;
+                int right = nodeData[n] * 6;
+                for (int k = 0; k < 3; k++) {
+                    bounds[b + k] = Math.min(bounds[left + k], bounds[right + k]);
+                    bounds[b + 3 + k] = Math.max(bounds[left + 3 + k], bounds[right + 3 + k]);
+                }
+            }
+        }
+        return new BVH(bounds, nodeData, nodeCount, primIndices);
+    }
+
+    // --- Getters ---
+    public int getNodeCount() { return nodeCount; }
+    public int getPrimitiveCount() { return primIndices.length; }
+
+    // Tableaux internes, exposés pour la sérialisation (à ne pas modifier)
+    public float[] getNodeBounds() { return nodeBounds; }
+    public int[] getNodeData() { return nodeData; }
+    public int[] getPrimitiveIndices() { return primIndices; }
+
+    /**
+     * @return La boîte englobant toutes les primitives, ou null si la BVH est vide.
+     */
+    public BoundingBox getBounds() {
+        if (nodeCount == 0) {
+            return null;
+        }
+        return new BoundingBox(nodeBounds[0], nodeBounds[1], nodeBounds[2],
+                nodeBounds[3], nodeBounds[4], nodeBounds[5]);
+    }
+
+    /**
+     * Cherche l'intersection la plus proche entre le rayon et les primitives.
+     * Les enfants sont visités du plus proche au plus lointain (selon le signe de la direction),
+     * et les sous-arbres plus loin que hit.getT() sont élagués.
+     *
+     * @return true si le Hit a été mis à jour.
+     */
+    public boolean intersect(Ray ray, Hit hit, PrimitiveIntersector intersector) {
+        return traverse(ray, hit, intersector, false);
+    }
+
+    /**
+     * Cherche une intersection quelconque plus proche que hit.getT() (rayons d'ombre) :
+     * le parcours s'arrête à la première primitive touchée, qui n'est pas forcément la plus proche.
+     *
+     * @return true si une primitive a été touchée (elle est enregistrée dans le Hit).
+     */
+    public boolean intersectAny(Ray ray, Hit hit, PrimitiveIntersector intersector) {
+        return traverse(ray, hit, intersector, true);
+    }
+
+    private boolean traverse(Ray ray, Hit hit, PrimitiveIntersector intersector, boolean anyHit) {
+        if (nodeCount == 0) {
+            return false;
+        }
+        AbstractVec3 o = ray.getOrigin();
+        double ox = o.getX(), oy = o.getY(), oz = o.getZ();
+        double invDx = ray.getInvDirX(), invDy = ray.getInvDirY(), invDz = ray.getInvDirZ();
+
+        // Pile de parcours prise dans le Hit (pas d'allocation par rayon)
+        int base = hit.reserveStack(MAX_DEPTH + 2);
+        int[] stack = hit.getStack();
+        int sp = base;
+        int node = 0;
+        int visited = 0;
+        boolean found = false;
+
+        traversal:
+        while (true) {
+            visited++;
+            int b = node * 6;
+            if (BoundingBox.slabs(ox, oy, oz, invDx, invDy, invDz, hit.getT(),
+                    nodeBounds[b], nodeBounds[b + 1], nodeBounds[b + 2],
+                    nodeBounds[b + 3], nodeBounds[b + 4], nodeBounds[b + 5])) {
+                int n = node * 3;
+                int count = nodeData[n + 1];
+                if (count > 0) {
+                    // Feuille : on teste chaque primitive
+                    int first = nodeData[n];
+                    for (int i = first; i < first + count; i++) {
+                        if (intersector.intersect(primIndices[i], ray, hit)) {
+                            found = true;
+                            if (anyHit) {
+                                break traversal;
+                            }
+                        }
+                    }
+                } else {
+                    // Nœud interne : on descend d'abord dans l'enfant le plus proche
+                    int axis = nodeData[n + 2];
+                    double dirOnAxis = axis == 0 ? invDx : (axis == 1 ? invDy : invDz);
+                    if (dirOnAxis < 0) {
+                        stack[sp++] = node + 1;
+                        node = nodeData[n];
+                    } else {
+                        stack[sp++] = nodeData[n];
+                        node = node + 1;
+                    }
+                    continue;
+                }
+            }
+            if (sp == base) {
+                break;
+            }
+            node = stack[--sp];
+        }
+        hit.releaseStack(base);
+        hit.getCounters().addNodesVisited(visited);
+        return found;
+    }
+
+    /**
+     * Cherche l'intersection la plus proche de chaque rayon d'un paquet.
+     * Le paquet parcourt l'arbre d'un seul bloc : un nœud est visité si au moins un de ses
+     * rayons traverse la boîte, et chaque feuille visitée est testée contre tout le paquet.
+     * L'ordre de visite des enfants suit la direction du premier rayon (rayons cohérents).
+     *
+     * @param hit Hit de travail (pile de parcours et compteurs du thread).
+     */
+    public void intersectPacket(RayPacket packet, Hit hit, PacketIntersector intersector) {
+        if (nodeCount == 0) {
+            return;
+        }
+        int base = hit.reserveStack(MAX_DEPTH + 2);
+        int[] stack = hit.getStack();
+        int sp = base;
+        int node = 0;
+        int visited = 0;
+
+        while (true) {
+            visited++;
+            int b = node * 6;
+            if (packet.hitsBox(nodeBounds[b], nodeBounds[b + 1], nodeBounds[b + 2],
+                    nodeBounds[b + 3], nodeBounds[b + 4], nodeBounds[b + 5])) {
+                int n = node * 3;
+                int count = nodeData[n + 1];
+                if (count > 0) {
+                    int first = nodeData[n];
+                    for (int i = first; i < first + count; i++) {
+                        intersector.intersect(primIndices[i], packet, hit);
+                    }
+                } else {
+                    int axis = nodeData[n + 2];
+                    double dirOnAxis = axis == 0 ? packet.getInvDirX(0)
+                            : (axis == 1 ? packet.getInvDirY(0) : packet.getInvDirZ(0));
+                    if (dirOnAxis < 0) {
+                        stack[sp++] = node + 1;
+                        node = nodeData[n];
+                    } else {
+                        stack[sp++] = nodeData[n];
+                        node = node + 1;
+                    }
+                    continue;
+                }
+            }
+            if (sp == base) {
+                break;
+            }
+            node = stack[--sp];
+        }
+        hit.releaseStack(base);
+        hit.getCounters().addNodesVisited(visited);
+    }
+
+    /**
+     * Construction SAH par "binning" : pour chaque nœud, les centres des primitives sont
+     * répartis dans BINS cases sur chaque axe, et on choisit le plan de coupe de coût minimal.
+     */
+    private static class Builder {
+
+        private final double[] primBounds;
+        private final double[] centroids;
+        private final int[] primIndices;
+        private final double[] nodeBounds;
+        private final int[] nodeData;
+        private int nodeCount = 0;
+
+        // Tableaux de travail réutilisés d'un nœud à l'autre
+        private final int[] binCount = new int[BINS];
+        private final double[] binBounds = new double[BINS * 6];
+        private final double[] rightArea = new double[BINS];
+        private final int[] rightCount = new int[BINS];
+        private final double[] acc = new double[6];
+
+        Builder(double[] primBounds) {
+            int n = primBounds.length / 6;
+            this.primBounds = primBounds;
+            this.centroids = new double[n * 3];
+            this.primIndices = new int[n];
+            for (int i = 0; i < n; i++) {
+                primIndices[i] = i;
+                for (int k = 0; k < 3; k++) {
+                    centroids[i * 3 + k] = (primBounds[i * 6 + k] + primBounds[i * 6 + 3 + k]) / 2;
+                }
+            }
+            int maxNodes = Math.max(1, 2 * n - 1);
+            this.nodeBounds = new double[maxNodes * 6];
+            this.nodeData = new int[maxNodes * 3];
+        }
+
+        BVH build() {
+            if (primIndices.length > 0) {
+                buildNode(0, primIndices.length, 0);
+            }
+            // Passage en float (arrondi vers l'extérieur) et ajustement à la taille réelle
+            float[] bounds = new float[nodeCount * 6];
+            for (int i = 0; i < nodeCount; i++) {
+                for (int k = 0; k < 3; k++) {
+                    bounds[i * 6 + k] = Math.nextDown((float) nodeBounds[i * 6 + k]);
+                    bounds[i * 6 + 3 + k] = Math.nextUp((float) nodeBounds[i * 6 + 3 + k]);
+                }
+            }
+            return new BVH(bounds, Arrays.copyOf(nodeData, nodeCount * 3), nodeCount, primIndices);
+        }
+
+        private int buildNode(int start, int end, int depth) {
+            int node = nodeCount++;
+            int count = end - start;
+
+            // Boîte du nœud et boîte des centres
+            double[] cb = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                    Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+            int b = node * 6;
+            for (int k = 0; k < 3; k++) {
+                nodeBounds[b + k] = Double.POSITIVE_INFINITY;
+                nodeBounds[b + 3 + k] = Double.NEGATIVE_INFINITY;
+            }
+            for (int i = start; i < end; i++) {
+                int p = primIndices[i];
+                for (int k = 0; k < 3; k++) {
+                    nodeBounds[b + k] = Math.min(nodeBounds[b + k], primBounds[p * 6 + k]);
+                    nodeBounds[b + 3 + k] = Math.max(nodeBounds[b + 3 + k], primBounds[p * 6 + 3 + k]);
+                    cb[k] = Math.min(cb[k], centroids[p * 3 + k]);
+                    cb[3 + k] = Math.max(cb[3 + k], centroids[p * 3 + k]);
+                }
+            }
+
+            if (count <= MIN_LEAF_SIZE || depth >= MAX_DEPTH) {
+                return makeLeaf(node, start, count);
+            }
+
+            // Recherche de la meilleure coupe sur les trois axes
+            double parentArea = area(nodeBounds, b);
+            if (parentArea <= 0) {
+                parentArea = 1; // Boîte dégénérée (primitives ponctuelles) : coûts relatifs seulement
+            }
+            double bestCost = Double.POSITIVE_INFINITY;
+            int bestAxis = -1;
+            int bestBin = -1;
+            for (int axis = 0; axis < 3; axis++) {
+                double cMin = cb[axis];
+                double extent = cb[3 + axis] - cMin;
+                if (extent <= 0) {
+                    continue; // Tous les centres confondus sur cet axe
+                }
+                double scale = BINS / extent;
+
+                Arrays.fill(binCount, 0);
+                for (int i = 0; i < BINS; i++) {
+                    resetBox(binBounds, i * 6);
+                }
+                for (int i = start; i < end; i++) {
+                    int p = primIndices[i];
+                    int bin = binIndex(centroids[p * 3 + axis], cMin, scale);
+                    binCount[bin]++;
+                    growBox(binBounds, bin * 6, primBounds, p * 6);
+                }
+
+                // Balayage de droite à gauche : aires et effectifs cumulés à droite de chaque coupe
+                resetBox(acc, 0);
+                int accCount = 0;
+                for (int i = BINS - 1; i > 0; i--) {
+                    growBox(acc, 0, binBounds, i * 6);
+                    accCount += binCount[i];
+                    rightArea[i] = accCount > 0 ? area(acc, 0) : 0;
+                    rightCount[i] = accCount;
+                }
+
+                // Balayage de gauche à droite : évaluation du coût SAH de chaque coupe
+                resetBox(acc, 0);
+                accCount = 0;
+                for (int i = 0; i < BINS - 1; i++) {
+                    growBox(acc, 0, binBounds, i * 6);
+                    accCount += binCount[i];
+                    if (accCount == 0 || rightCount[i + 1] == 0) {
+                        continue;
+                    }
+                    double cost = TRAVERSAL_COST
+                            + (area(acc, 0) * accCount + rightArea[i + 1] * rightCount[i + 1]) / parentArea;
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestBin = i;
+                    }
+                }
+            }
+
+            int mid;
+            if (bestAxis < 0) {
+                // Centres tous confondus : impossible de séparer spatialement
+                if (count <= MAX_LEAF_SIZE) {
+                    return makeLeaf(node, start, count);
+                }
+                bestAxis = 0;
+                mid = (start + end) >>> 1;
+            } else {
+                if (bestCost >= count && count <= MAX_LEAF_SIZE) {
+                    return makeLeaf(node, start, count); // Découper coûterait plus cher
+                }
+                mid = partition(start, end, bestAxis, bestBin, cb[bestAxis], BINS / (cb[3 + bestAxis] - cb[bestAxis]));
+                if (mid == start || mid == end) {
+                    mid = (start + end) >>> 1;
+                }
+            }
+
+            buildNode(start, mid, depth + 1); // Enfant gauche = node + 1
+            int right = buildNode(mid, end, depth + 1);
+            int n = node * 3;
+            nodeData[n] = right;
+            nodeData[n + 1] = 0;
+            nodeData[n + 2] = bestAxis;
+            return node;
+        }
+
+        private int makeLeaf(int node, int start, int count) {
+            int n = node * 3;
+            nodeData[n] = start;
+            nodeData[n + 1] = count;
+            nodeData[n + 2] = 0;
+            return node;
+        }
+
+        /**
+         * Réordonne primIndices[start, end[ : d'abord les primitives dont la case est <= bin.
+         * @return L'indice du premier élément de la partie droite.
+         */
+        private int partition(int start, int end, int axis, int bin, double cMin, double scale) {
+            int i = start;
+            int j = end - 1;
+            while (i <= j) {
+                if (binIndex(centroids[primIndices[i] * 3 + axis], cMin, scale) <= bin) {
+                    i++;
+                } else {
+                    int tmp = primIndices[i];
+                    primIndices[i] = primIndices[j];
+                    primIndices[j] = tmp;
+                    j--;
+                }
+            }
+            return i;
+        }
+
+        private static int binIndex(double c, double cMin, double scale) {
+            int bin = (int) ((c - cMin) * scale);
+            return Math.min(bin, BINS - 1);
+        }
+
+        private static void resetBox(double[] box, int o) {
+            for (int k = 0; k < 3; k++) {
+                box[o + k] = Double.POSITIVE_INFINITY;
+                box[o + 3 + k] = Double.NEGATIVE_INFINITY;
+            }
+        }
+
+        private static void growBox(double[] box, int o, double[] src, int s) {
+            for (int k = 0; k < 3; k++) {
+                box[o + k] = Math.min(box[o + k], src[s + k]);
+                box[o + 3 + k] = Math.max(box[o + 3 + k], src[s + 3 + k]);
+            }
+        }
+
+        private static double area(double[] box, int o) {
+            double dx = box[o + 3] - box[o];
+            double dy = box[o + 4] - box[o + 1];
+            double dz = box[o + 5] - box[o + 2];
+            return 2 * (dx * dy + dy * dz + dz * dx);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package raytracer.acceleration;
+
+import raytracer.geometry.BoundingBox;
+import raytracer.geometry.Hit;
+import raytracer.geometry.Ray;
+import raytracer.geometry.RayPacket;
+import raytracer.geometry.Shape;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Structure d'accélération pour les formes d'une scène.
+ * Les formes bornées (sphères, triangles...) sont rangées dans une BVH ;
+ * les formes infinies (plans) sont dans une liste à part, toujours testée.
+ */
+public class ShapeBVH {
+
+    private final Shape[] bounded;
+    private final Shape[] unbounded;
+    private final BVH bvh;
+    private final BVH.PrimitiveIntersector intersector;
+    private final BVH.PrimitiveIntersector anyIntersector;
+    private final BVH.PacketIntersector packetIntersector;
+
+    /**
+     * Construit la structure à partir de la liste des formes.
+     * @param shapes Les formes de la scène.
+     */
+    public ShapeBVH(List<Shape> shapes) {
+        List<Shape> boundedList = new ArrayList<>();
+        List<Shape> unboundedList = new ArrayList<>();
+        List<BoundingBox> boxes = new ArrayList<>();
+        for (Shape shape : shapes) {
+            BoundingBox box = shape.getBoundingBox();
+            if (box == null) {
+                unboundedList.add(shape);
+            } else {
+                boundedList.add(shape);
+                boxes.add(box);
+            }
+        }
+
+        this.bounded = boundedList.toArray(new Shape[0]);
+        this.unbounded = unboundedList.toArray(new Shape[0]);
+        this.bvh = BVH.build(primBounds(boxes));
+        this.intersector = (primitive, ray, hit) -> bounded[primitive].intersect(ray, hit);
+        this.anyIntersector = (primitive, ray, hit) -> bounded[primitive].intersectAny(ray, hit);
+        this.packetIntersector = (primitive, packet, hit) -> bounded[primitive].intersectPacket(packet, hit);
+    }
+
+    private ShapeBVH(Shape[] bounded, Shape[] unbounded, BVH bvh) {
+        this.bounded = bounded;
+        this.unbounded = unbounded;
+        this.bvh = bvh;
+        this.intersector = (primitive, ray, hit) -> bounded[primitive].intersect(ray, hit);
+        this.anyIntersector = (primitive, ray, hit) -> bounded[primitive].intersectAny(ray, hit);
+        this.packetIntersector = (primitive, packet, hit) -> bounded[primitive].intersectPacket(packet, hit);
+    }
+
+    /**
+     * Structure pour une nouvelle version des formes (ex: scène relue, cf. SceneWatcher) :
+     * la BVH est réajustée à leurs boîtes (cf. BVH.refit) au lieu d'être reconstruite.
+     * @param shapes Les formes : autant de formes bornées et infinies que pour cette structure,
+     * dans le même ordre (leur géométrie et leurs matériaux peuvent avoir changé).
+     * @return La nouvelle structure, ou null si les formes ne correspondent pas à celles de cette structure.
+     */
+    public ShapeBVH refit(List<Shape> shapes) {
+        Shape[] newBounded = new Shape[bounded.length];
+        Shape[] newUnbounded = new Shape[unbounded.length];
+        List<BoundingBox> boxes = new ArrayList<>();
+        int u = 0;
+        for (Shape shape : shapes) {
+            BoundingBox box = shape.getBoundingBox();
+            if (box == null) {
+                if (u == newUnbounded.length) {
+                    return null;
+                }
+                newUnbounded[u++] = shape;
+            } else {
+                if (boxes.size() == newBounded.length) {
+                    return null;
+                }
+                newBounded[boxes.size()] = shape;
+                boxes.add(box);
+            }
+        }
+        if (u != newUnbounded.length || boxes.size() != newBounded.length) {
+            return null;
+        }
+        return new ShapeBVH(newBounded, newUnbounded, bvh.refit(primBounds(boxes)));
+    }
+
+    // Boîtes au format attendu par BVH.build
+    private static double[] primBounds(List<BoundingBox> boxes) {
+        double[] primBounds = new double[boxes.size() * 6];
+        for (int i = 0; i < boxes.size(); i++) {
+            BoundingBox box = boxes.get(i);
+            primBounds[i * 6] = box.getMinX();
+            primBounds[i * 6 + 1] = box.getMinY();
+            primBounds[i * 6 + 2] = box.getMinZ();
+            primBounds[i * 6 + 3] = box.getMaxX();
+            primBounds[i * 6 + 4] = box.getMaxY();
+            primBounds[i * 6 + 5] = box.getMaxZ();
+        }
+        return primBounds;
+    }
+
+    // --- Getters ---
+    public BVH getBVH() { return bvh; }
+    public int getBoundedCount() { return bounded.length; }
+    public int getUnboundedCount() { return unbounded.length; }
+
+    /**
+     * Cherche l'intersection la plus proche parmi toutes les formes.
+     * Les plans sont testés en premier : leur distance permet d'élaguer la BVH.
+     * @return true si le Hit a été mis à jour.
+     */
+    public boolean intersect(Ray ray, Hit hit) {
+        boolean found = false;
+        for (Shape shape : unbounded) {
+            if (shape.intersect(ray, hit)) {
+                found = true;
+            }
+        }
+        if (bvh.intersect(ray, hit, intersector)) {
+            found = true;
+        }
+        return found;
+    }
+
+    /**
+     * Cherche l'intersection la plus proche de chaque rayon d'un paquet (cf. BVH.intersectPacket).
+     * @param hit Hit de travail (pile de parcours et compteurs du thread).
+     */
+    public void intersectPacket(RayPacket packet, Hit hit) {
+        for (Shape shape : unbounded) {
+            shape.intersectPacket(packet, hit);
+        }
+        bvh.intersectPacket(packet, hit, packetIntersector);
+    }
+
+    /**
+     * Cherche une intersection quelconque plus proche que hit.getT() (rayons d'ombre).
+     * S'arrête à la première forme touchée.
+     * @return true si une forme a été touchée (elle est enregistrée dans le Hit).
+     */
+    public boolean intersectAny(Ray ray, Hit hit) {
+        for (Shape shape : unbounded) {
+            if (shape.intersectAny(ray, hit)) {
+                return true;
+            }
+        }
+        return bvh.intersectAny(ray, hit, anyIntersector);
+    }
+}
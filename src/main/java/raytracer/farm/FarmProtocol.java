@@ -0,0 +1,108 @@
+package raytracer.farm;
+
+import raytracer.parsing.BinarySceneFormat;
+import raytracer.raytracer.Scene;
+import raytracer.stats.RenderStats;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+/**
+ * Protocole entre le coordinateur et les nœuds de rendu (cf. RenderCoordinator, RenderWorker).
+ * <p>
+ * Sur une connexion TCP, le coordinateur envoie d'abord MAGIC, VERSION puis la scène au format
+ * BinarySceneFormat (précédée de sa taille). Il envoie ensuite des commandes BAND (lignes y0 et y1,
+ * et si le résultat est attendu en HDR), auxquelles le nœud répond par les lignes rendues : y0, y1,
+ * ses compteurs (cf. TraceCounters.add), le temps de rendu en nanosecondes, puis les pixels
+ * (RGB packé, ou trois plans de float r, g et b en HDR). La commande END termine la connexion.
+ * Les nombres sont en big-endian (DataInputStream / DataOutputStream).
+ */
+final class FarmProtocol {
+
+    static final int MAGIC = 0x52544652; // "RTFR"
+    static final int VERSION = 1;
+
+    // Commandes du coordinateur
+    static final int END = 0;
+    static final int BAND = 1;
+
+    private FarmProtocol() {
+    }
+
+    /**
+     * @return La scène au format BinarySceneFormat.
+     */
+    static byte[] serialize(Scene scene) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinarySceneFormat.write(scene, Channels.newChannel(bytes));
+        return bytes.toByteArray();
+    }
+
+    static void writeHeader(DataOutputStream out, byte[] scene) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(scene.length);
+        out.write(scene);
+        out.flush();
+    }
+
+    /**
+     * Lit l'en-tête envoyé par writeHeader.
+     * @return La scène, avec sa BVH.
+     */
+    static Scene readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Le serveur n'est pas un coordinateur de rendu.");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Version du protocole non supportée : " + version);
+        }
+        byte[] scene = new byte[in.readInt()];
+        in.readFully(scene);
+        return BinarySceneFormat.read(ByteBuffer.wrap(scene));
+    }
+
+    /**
+     * @return Les compteurs d'un rendu, dans l'ordre de TraceCounters.add.
+     */
+    static long[] counters(RenderStats stats) {
+        return new long[]{stats.getPrimaryRays(), stats.getShadowRays(), stats.getSecondaryRays(),
+                stats.getAntialiasRays(), stats.getSphereTests(), stats.getTriangleTests(),
+                stats.getPlaneTests(), stats.getNodesVisited()};
+    }
+
+    // Tableaux écrits en un bloc (writeInt par valeur serait bien plus lent)
+
+    static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES);
+        buffer.asIntBuffer().put(values);
+        out.write(buffer.array());
+    }
+
+    static int[] readInts(DataInputStream in, int count) throws IOException {
+        byte[] bytes = new byte[count * Integer.BYTES];
+        in.readFully(bytes);
+        int[] values = new int[count];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(values);
+        return values;
+    }
+
+    static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Float.BYTES);
+        buffer.asFloatBuffer().put(values);
+        out.write(buffer.array());
+    }
+
+    static float[] readFloats(DataInputStream in, int count) throws IOException {
+        byte[] bytes = new byte[count * Float.BYTES];
+        in.readFully(bytes);
+        float[] values = new float[count];
+        ByteBuffer.wrap(bytes).asFloatBuffer().get(values);
+        return values;
+    }
+}
@@ -0,0 +1,339 @@
+package raytracer.farm;
+
+import raytracer.imaging.HdrImage;
+import raytracer.imaging.PfmWriter;
+import raytracer.raytracer.Renderer;
+import raytracer.raytracer.Scene;
+import raytracer.stats.RenderStats;
+import raytracer.stats.TraceCounters;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Coordinateur d'un rendu distribué sur plusieurs machines (ou JVM).
+ * <p>
+ * Les nœuds (cf. RenderWorker) se connectent au port du coordinateur. Chacun reçoit la scène une
+ * seule fois, au format binaire compact (cf. BinarySceneFormat), puis des bandes de lignes à rendre
+ * l'une après l'autre : un nœud rapide en rend plus qu'un nœud lent. Le coordinateur assemble l'image.
+ * <p>
+ * Une bande dont le nœud se déconnecte, ou ne répond pas dans le délai (cf. setTimeout), est
+ * redonnée à un autre nœud. Lorsqu'il n'y a plus de bande en attente, un nœud inactif reçoit une
+ * copie de la plus ancienne bande en cours : la fin de l'image n'attend pas le nœud le plus lent,
+ * le premier résultat reçu est gardé. Des nœuds peuvent rejoindre le rendu à tout moment.
+ * <p>
+ * Les pixels sont identiques à ceux d'un rendu local (cf. Renderer.renderRows).
+ */
+public class RenderCoordinator implements Closeable {
+
+    /** Délai de réponse par défaut d'un nœud pour une bande (en ms). */
+    public static final long DEFAULT_TIMEOUT_MS = 60_000;
+
+    // Intervalle de vérification de la fin du rendu pendant l'attente des connexions
+    private static final int ACCEPT_POLL_MS = 100;
+
+    private final Scene scene;
+    private final ServerSocket server;
+    private int bandRows = Renderer.DEFAULT_TILE_SIZE;
+    private long timeoutMs = DEFAULT_TIMEOUT_MS;
+
+    // Statistiques du dernier rendu
+    private volatile RenderStats stats;
+
+    /**
+     * @param scene La scène à rendre.
+     * @param port Port d'écoute des nœuds (0 : port libre quelconque, cf. getPort).
+     */
+    public RenderCoordinator(Scene scene, int port) throws IOException {
+        this.scene = scene;
+        this.server = new ServerSocket(port);
+    }
+
+    /**
+     * @return Le port d'écoute des nœuds.
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * @param rows Nombre de lignes par bande confiée à un nœud (>= 1).
+     */
+    public void setBandRows(int rows) {
+        if (rows < 1) {
+            throw new IllegalArgumentException("Le nombre de lignes par bande doit être >= 1 : " + rows);
+        }
+        this.bandRows = rows;
+    }
+
+    /**
+     * @param timeoutMs Délai (> 0, en ms) au-delà duquel un nœud qui n'a pas rendu sa bande est abandonné.
+     */
+    public void setTimeout(long timeoutMs) {
+        if (timeoutMs <= 0 || timeoutMs > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Délai invalide : " + timeoutMs);
+        }
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * @return Les statistiques du dernier rendu, cumulées sur tous les nœuds (null si aucun rendu n'a été lancé).
+     */
+    public RenderStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Rend la scène sur les nœuds connectés (attend qu'au moins un nœud se connecte).
+     * @return Les pixels (format RGB packé, après tone mapping éventuel) ligne par ligne, de haut en bas.
+     */
+    public int[] render() throws IOException {
+        Job job = new Job(false);
+        run(job);
+        return job.pixels;
+    }
+
+    /**
+     * Rend la scène en HDR sur les nœuds connectés (cf. Renderer.renderHdr).
+     */
+    public HdrImage renderHdr() throws IOException {
+        Job job = new Job(true);
+        run(job);
+        return job.hdr;
+    }
+
+    /**
+     * Rend la scène et écrit l'image dans le fichier scene.getOutput() (cf. Renderer.renderToFile).
+     */
+    public void renderToFile() throws IOException {
+        String output = scene.getOutput();
+        if (Renderer.imageFormat(output).equals("pfm")) {
+            HdrImage hdr = renderHdr();
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(output)))) {
+                PfmWriter.write(hdr, out);
+            }
+            return;
+        }
+        Renderer.writeImage(render(), scene.getWidth(), scene.getHeight(), output);
+    }
+
+    /**
+     * Ferme le port d'écoute. Les nœuds encore connectés terminent leur bande en cours.
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Accepte les nœuds jusqu'à ce que toutes les bandes soient rendues.
+     * Chaque nœud est servi par son propre thread ; ceux qui rendent encore une copie d'une bande
+     * terminée sont laissés finir en arrière-plan.
+     */
+    private void run(Job job) throws IOException {
+        RenderStats renderStats = new RenderStats();
+        this.stats = renderStats;
+        job.stats = renderStats;
+        long start = System.nanoTime();
+
+        if (!job.isFinished()) {
+            byte[] data = FarmProtocol.serialize(scene);
+            ExecutorService handlers = Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "render-coordinator");
+                thread.setDaemon(true);
+                return thread;
+            });
+            server.setSoTimeout(ACCEPT_POLL_MS);
+            try {
+                while (!job.isFinished()) {
+                    Socket socket;
+                    try {
+                        socket = server.accept();
+                    } catch (SocketTimeoutException e) {
+                        continue;
+                    }
+                    handlers.execute(() -> serve(socket, data, job));
+                }
+            } finally {
+                handlers.shutdown();
+            }
+        }
+
+        renderStats.recordRender(System.nanoTime() - start);
+        RenderStats.global().merge(renderStats);
+    }
+
+    /**
+     * Dialogue avec un nœud : envoi de la scène, puis des bandes jusqu'à la fin du rendu.
+     * Si le nœud échoue ou dépasse le délai, sa bande en cours est remise en attente.
+     */
+    private void serve(Socket socket, byte[] data, Job job) {
+        int band = -1;
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout((int) timeoutMs);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            FarmProtocol.writeHeader(out, data);
+
+            while ((band = job.next()) >= 0) {
+                int y0 = band * bandRows;
+                int y1 = Math.min(y0 + bandRows, scene.getHeight());
+                out.writeInt(FarmProtocol.BAND);
+                out.writeInt(y0);
+                out.writeInt(y1);
+                out.writeBoolean(job.hdr != null);
+                out.flush();
+
+                if (in.readInt() != y0 || in.readInt() != y1) {
+                    throw new IOException("Réponse inattendue du nœud " + socket.getRemoteSocketAddress());
+                }
+                long[] counters = new long[8];
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] = in.readLong();
+                }
+                long nanos = in.readLong();
+                int count = scene.getWidth() * (y1 - y0);
+                if (job.hdr != null) {
+                    float[] r = FarmProtocol.readFloats(in, count);
+                    float[] g = FarmProtocol.readFloats(in, count);
+                    float[] b = FarmProtocol.readFloats(in, count);
+                    job.complete(band, null, new float[][]{r, g, b}, counters, nanos);
+                } else {
+                    job.complete(band, FarmProtocol.readInts(in, count), null, counters, nanos);
+                }
+                band = -1;
+            }
+            out.writeInt(FarmProtocol.END);
+            out.flush();
+        } catch (IOException e) {
+            // Nœud perdu (déconnecté ou trop lent) : sa bande sera rendue par un autre
+            if (band >= 0) {
+                job.abandon(band);
+            }
+        }
+    }
+
+    /**
+     * État d'un rendu : bandes en attente, en cours (nombre de copies) et terminées.
+     * Partagé par les threads des nœuds, toutes les méthodes sont synchronisées.
+     */
+    private final class Job {
+
+        final int[] pixels;
+        final HdrImage hdr;
+        RenderStats stats;
+
+        private final Deque<Integer> pending = new ArrayDeque<>();
+        private final int[] copies;        // Copies de chaque bande en cours de rendu
+        private final long[] assignedAt;   // Date de la première attribution de chaque bande
+        private final boolean[] done;
+        private int remaining;
+
+        Job(boolean hdr) {
+            int width = scene.getWidth();
+            int height = scene.getHeight();
+            this.pixels = hdr ? null : new int[width * height];
+            this.hdr = hdr ? new HdrImage(width, height) : null;
+            int bands = width > 0 ? (height + bandRows - 1) / bandRows : 0;
+            copies = new int[bands];
+            assignedAt = new long[bands];
+            done = new boolean[bands];
+            remaining = bands;
+            for (int band = 0; band < bands; band++) {
+                pending.add(band);
+            }
+        }
+
+        synchronized boolean isFinished() {
+            return remaining == 0;
+        }
+
+        /**
+         * Attend une bande à rendre : une bande en attente, ou à défaut une copie de la plus
+         * ancienne bande en cours qui n'a pas encore de copie.
+         * @return L'indice de la bande, ou -1 si l'image est terminée.
+         */
+        synchronized int next() {
+            while (remaining > 0) {
+                Integer band = pending.poll();
+                if (band == null) {
+                    band = oldestSingleCopy();
+                }
+                if (band != null) {
+                    if (copies[band]++ == 0 && assignedAt[band] == 0) {
+                        assignedAt[band] = System.nanoTime();
+                    }
+                    return band;
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        private Integer oldestSingleCopy() {
+            Integer oldest = null;
+            for (int band = 0; band < done.length; band++) {
+                if (!done[band] && copies[band] == 1 && (oldest == null || assignedAt[band] < assignedAt[oldest])) {
+                    oldest = band;
+                }
+            }
+            return oldest;
+        }
+
+        /**
+         * Enregistre le résultat d'une bande (ignoré si une autre copie l'a déjà rendue).
+         */
+        synchronized void complete(int band, int[] rows, float[][] rgb, long[] counters, long nanos) {
+            copies[band]--;
+            if (done[band]) {
+                return;
+            }
+            int offset = band * bandRows * scene.getWidth();
+            if (rows != null) {
+                System.arraycopy(rows, 0, pixels, offset, rows.length);
+            } else {
+                for (int i = 0; i < rgb[0].length; i++) {
+                    hdr.set(offset + i, rgb[0][i], rgb[1][i], rgb[2][i]);
+                }
+            }
+            TraceCounters bandCounters = new TraceCounters();
+            bandCounters.add(counters);
+            stats.add(bandCounters);
+            stats.recordTile(nanos);
+            done[band] = true;
+            remaining--;
+            notifyAll();
+        }
+
+        /**
+         * Remet en attente la bande d'un nœud perdu, si aucune autre copie n'est en cours.
+         */
+        synchronized void abandon(int band) {
+            copies[band]--;
+            if (!done[band] && copies[band] == 0 && !pending.contains(band)) {
+                pending.addFirst(band);
+                notifyAll();
+            }
+        }
+    }
+}
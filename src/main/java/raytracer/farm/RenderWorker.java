@@ -0,0 +1,92 @@
+package raytracer.farm;
+
+import raytracer.imaging.HdrImage;
+import raytracer.raytracer.Renderer;
+import raytracer.raytracer.Scene;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * Nœud d'un rendu distribué : se connecte au coordinateur (cf. RenderCoordinator), reçoit la scène
+ * une seule fois, puis rend avec tous ses threads les bandes de lignes qui lui sont confiées
+ * (cf. Renderer.renderRows) jusqu'à la fin de l'image.
+ */
+public class RenderWorker {
+
+    private final String host;
+    private final int port;
+    private final int threads;
+
+    /**
+     * @param host Machine du coordinateur.
+     * @param port Port du coordinateur.
+     * @param threads Nombre de threads de rendu (>= 1).
+     */
+    public RenderWorker(String host, int port, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être >= 1 : " + threads);
+        }
+        this.host = host;
+        this.port = port;
+        this.threads = threads;
+    }
+
+    /**
+     * Participe au rendu d'une image, jusqu'à ce que le coordinateur y mette fin.
+     * @return Le nombre de bandes rendues.
+     * @throws IOException Si la connexion échoue ou est interrompue.
+     */
+    public int run() throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            Scene scene = FarmProtocol.readHeader(in);
+            // Un seul Renderer (et ses threads) pour toutes les bandes
+            try (Renderer renderer = new Renderer(scene, threads)) {
+                int width = scene.getWidth();
+                int bands = 0;
+                while (in.readInt() == FarmProtocol.BAND) {
+                    int y0 = in.readInt();
+                    int y1 = in.readInt();
+                    boolean hdr = in.readBoolean();
+
+                    long start = System.nanoTime();
+                    int count = width * (y1 - y0);
+                    HdrImage image = hdr ? new HdrImage(width, y1 - y0) : null;
+                    int[] pixels = renderer.renderRows(y0, y1, image);
+                    long elapsed = System.nanoTime() - start;
+
+                    out.writeInt(y0);
+                    out.writeInt(y1);
+                    for (long counter : FarmProtocol.counters(renderer.getStats())) {
+                        out.writeLong(counter);
+                    }
+                    out.writeLong(elapsed);
+                    if (hdr) {
+                        float[] r = new float[count], g = new float[count], b = new float[count];
+                        for (int i = 0; i < count; i++) {
+                            r[i] = image.getR(i);
+                            g[i] = image.getG(i);
+                            b[i] = image.getB(i);
+                        }
+                        FarmProtocol.writeFloats(out, r);
+                        FarmProtocol.writeFloats(out, g);
+                        FarmProtocol.writeFloats(out, b);
+                    } else {
+                        FarmProtocol.writeInts(out, pixels);
+                    }
+                    out.flush();
+                    bands++;
+                }
+                return bands;
+            }
+        }
+    }
+}
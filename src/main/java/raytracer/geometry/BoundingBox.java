@@ -0,0 +1,124 @@
+package raytracer.geometry;
+
+/**
+ * Boîte englobante alignée sur les axes (AABB), définie par ses coins min et max.
+ */
+public class BoundingBox {
+
+    private final double minX, minY, minZ;
+    private final double maxX, maxY, maxZ;
+
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Plus petite boîte contenant tous les points donnés.
+     */
+    public static BoundingBox of(Point... points) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (Point p : points) {
+            minX = Math.min(minX, p.getX());
+            minY = Math.min(minY, p.getY());
+            minZ = Math.min(minZ, p.getZ());
+            maxX = Math.max(maxX, p.getX());
+            maxY = Math.max(maxY, p.getY());
+            maxZ = Math.max(maxZ, p.getZ());
+        }
+        return new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    // --- Getters ---
+    public double getMinX() { return minX; }
+    public double getMinY() { return minY; }
+    public double getMinZ() { return minZ; }
+    public double getMaxX() { return maxX; }
+    public double getMaxY() { return maxY; }
+    public double getMaxZ() { return maxZ; }
+
+    /**
+     * Union de deux boîtes.
+     * @param b L'autre boîte.
+     * @return La plus petite boîte contenant les deux.
+     */
+    public BoundingBox union(BoundingBox b) {
+        return new BoundingBox(
+                Math.min(minX, b.minX), Math.min(minY, b.minY), Math.min(minZ, b.minZ),
+                Math.max(maxX, b.maxX), Math.max(maxY, b.maxY), Math.max(maxZ, b.maxZ));
+    }
+
+    /**
+     * @return Le centre de la boîte.
+     */
+    public Point centroid() {
+        return new Point((minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2);
+    }
+
+    /**
+     * @return L'aire de la surface de la boîte (utilisée par l'heuristique SAH).
+     */
+    public double surfaceArea() {
+        double dx = maxX - minX;
+        double dy = maxY - minY;
+        double dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Test rayon/boîte par la méthode des "slabs".
+     * @param ray Le rayon.
+     * @param tMax Distance maximale considérée.
+     * @return true si le rayon traverse la boîte entre Ray.T_MIN et tMax.
+     */
+    public boolean intersects(Ray ray, double tMax) {
+        AbstractVec3 o = ray.getOrigin();
+        return intersects(o.getX(), o.getY(), o.getZ(),
+                ray.getInvDirX(), ray.getInvDirY(), ray.getInvDirZ(), tMax);
+    }
+
+    /**
+     * Version du test "slabs" avec l'inverse de la direction déjà calculé.
+     */
+    public boolean intersects(double ox, double oy, double oz,
+                              double invDx, double invDy, double invDz, double tMax) {
+        return slabs(ox, oy, oz, invDx, invDy, invDz, tMax,
+                minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Test "slabs" sur une boîte donnée par ses composantes.
+     * Les divisions par zéro donnent des infinis, correctement gérés par min/max.
+     */
+    public static boolean slabs(double ox, double oy, double oz,
+                                double invDx, double invDy, double invDz, double tMax,
+                                double minX, double minY, double minZ,
+                                double maxX, double maxY, double maxZ) {
+        double t1 = (minX - ox) * invDx;
+        double t2 = (maxX - ox) * invDx;
+        double tNear = Math.min(t1, t2);
+        double tFar = Math.max(t1, t2);
+
+        t1 = (minY - oy) * invDy;
+        t2 = (maxY - oy) * invDy;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+
+        t1 = (minZ - oz) * invDz;
+        t2 = (maxZ - oz) * invDz;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+
+        return tFar >= tNear && tFar > Ray.T_MIN && tNear < tMax;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[(%f, %f, %f) - (%f, %f, %f)]", minX, minY, minZ, maxX, maxY, maxZ);
+    }
+}
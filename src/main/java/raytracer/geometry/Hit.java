@@ -0,0 +1,97 @@
+package raytracer.geometry;
+
+import raytracer.stats.TraceCounters;
+
+import java.util.Arrays;
+
+/**
+ * Résultat (mutable) d'une recherche d'intersection.
+ * Un même objet Hit est passé à chaque forme testée : il ne retient
+ * que l'intersection la plus proche trouvée jusqu'ici.
+ * <p>
+ * Il porte aussi la pile de parcours des BVH, pour que la recherche n'alloue rien :
+ * chaque parcours (y compris imbriqué, ex: BVH d'un maillage dans la BVH de la scène)
+ * y réserve sa propre zone.
+ * Enfin, il porte les compteurs du thread (tests d'intersection, nœuds visités...).
+ */
+public class Hit {
+
+    private double t = Double.POSITIVE_INFINITY;
+    private Shape shape;
+    private int primitive = -1;
+
+    private int[] stack = new int[256];
+    private int stackTop = 0;
+
+    private final TraceCounters counters = new TraceCounters();
+
+    /**
+     * Remet le Hit à zéro (aucune intersection, distance infinie).
+     */
+    public void reset() {
+        reset(Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Remet le Hit à zéro en limitant la distance de recherche.
+     * @param tMax Distance maximale au-delà de laquelle les intersections sont ignorées.
+     */
+    public void reset(double tMax) {
+        this.t = tMax;
+        this.shape = null;
+        this.primitive = -1;
+    }
+
+    /**
+     * Enregistre une intersection (appelé par les formes).
+     * @param t Distance le long du rayon.
+     * @param shape La forme touchée.
+     * @param primitive Indice de la primitive touchée dans la forme (-1 si non applicable).
+     */
+    public void record(double t, Shape shape, int primitive) {
+        this.t = t;
+        this.shape = shape;
+        this.primitive = primitive;
+    }
+
+    /**
+     * @return true si une intersection a été enregistrée.
+     */
+    public boolean isHit() {
+        return shape != null;
+    }
+
+    // --- Getters ---
+    public double getT() { return t; }
+    public Shape getShape() { return shape; }
+    public int getPrimitive() { return primitive; }
+    public TraceCounters getCounters() { return counters; }
+
+    // --- Pile de parcours ---
+
+    /**
+     * Réserve une zone de la pile de parcours.
+     * @param size Nombre de cases nécessaires.
+     * @return L'indice de la première case réservée (à rendre avec releaseStack).
+     */
+    public int reserveStack(int size) {
+        int base = stackTop;
+        stackTop += size;
+        if (stackTop > stack.length) {
+            stack = Arrays.copyOf(stack, stackTop * 2);
+        }
+        return base;
+    }
+
+    /**
+     * Libère la zone réservée à partir de base.
+     */
+    public void releaseStack(int base) {
+        stackTop = base;
+    }
+
+    /**
+     * @return Le tableau de la pile (à relire après chaque reserveStack, il peut être agrandi).
+     */
+    public int[] getStack() { return stack; }
+}
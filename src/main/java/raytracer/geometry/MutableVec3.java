@@ -0,0 +1,136 @@
+package raytracer.geometry;
+
+import raytracer.imaging.Color;
+
+/**
+ * Vecteur 3D modifiable, pour les calculs du rendu (intersection, éclairage).
+ * <p>
+ * Contrairement à Point, Vector et Color (immuables), les opérations modifient
+ * l'objet courant et le retournent : un même MutableVec3 sert de variable de travail
+ * pour tous les rayons d'un thread, sans aucune allocation.
+ * Les composantes ne sont pas limitées (pas de "clamp" comme dans Color).
+ */
+public class MutableVec3 extends AbstractVec3 {
+
+    /**
+     * Constructeur par défaut (0, 0, 0).
+     */
+    public MutableVec3() {
+        super();
+    }
+
+    public MutableVec3(double x, double y, double z) {
+        super(x, y, z);
+    }
+
+    // --- Affectation ---
+
+    public MutableVec3 set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    public MutableVec3 set(AbstractVec3 v) {
+        return set(v.x, v.y, v.z);
+    }
+
+    /**
+     * this = a - b
+     */
+    public MutableVec3 setSubtract(AbstractVec3 a, AbstractVec3 b) {
+        return set(a.x - b.x, a.y - b.y, a.z - b.z);
+    }
+
+    /**
+     * this = a x b (produit vectoriel). this peut être a ou b.
+     */
+    public MutableVec3 setCross(AbstractVec3 a, AbstractVec3 b) {
+        return set(a.y * b.z - a.z * b.y,
+                a.z * b.x - a.x * b.z,
+                a.x * b.y - a.y * b.x);
+    }
+
+    /**
+     * this = origine + t * direction (point d'un rayon).
+     */
+    public MutableVec3 setPointAt(Ray ray, double t) {
+        AbstractVec3 o = ray.getOrigin();
+        AbstractVec3 d = ray.getDirection();
+        return set(o.x + t * d.x, o.y + t * d.y, o.z + t * d.z);
+    }
+
+    // --- Opérations en place ---
+
+    public MutableVec3 add(AbstractVec3 v) {
+        return set(x + v.x, y + v.y, z + v.z);
+    }
+
+    public MutableVec3 subtract(AbstractVec3 v) {
+        return set(x - v.x, y - v.y, z - v.z);
+    }
+
+    public MutableVec3 multiply(double d) {
+        return set(x * d, y * d, z * d);
+    }
+
+    /**
+     * this += v * d
+     */
+    public MutableVec3 addScaled(AbstractVec3 v, double d) {
+        return set(x + v.x * d, y + v.y * d, z + v.z * d);
+    }
+
+    /**
+     * Produit de Schur en place (composante par composante).
+     */
+    public MutableVec3 schur(AbstractVec3 v) {
+        return set(x * v.x, y * v.y, z * v.z);
+    }
+
+    /**
+     * this += (a schur b) * d : accumulation d'une contribution lumineuse.
+     */
+    public MutableVec3 addSchurScaled(AbstractVec3 a, AbstractVec3 b, double d) {
+        return set(x + a.x * b.x * d, y + a.y * b.y * d, z + a.z * b.z * d);
+    }
+
+    /**
+     * Normalise en place (le vecteur nul reste nul).
+     */
+    public MutableVec3 normalize() {
+        double len = length();
+        if (areEqual(len, 0)) {
+            return set(0, 0, 0);
+        }
+        return multiply(1.0 / len);
+    }
+
+    // --- Calculs ---
+
+    public double dot(AbstractVec3 v) {
+        return x * v.x + y * v.y + z * v.z;
+    }
+
+    public double length() {
+        return Math.sqrt(dot(this));
+    }
+
+    // --- Conversions vers les types immuables ---
+
+    public Point toPoint() {
+        return new Point(x, y, z);
+    }
+
+    public Vector toVector() {
+        return new Vector(x, y, z);
+    }
+
+    /**
+     * @return La couleur correspondante (les composantes sont limitées à [0, 1]).
+     */
+    public Color toColor() {
+        return new Color(x, y, z);
+    }
+}
@@ -0,0 +1,51 @@
+package raytracer.geometry;
+
+/**
+ * Tests d'intersection d'un paquet de rayons (cf. RayPacket), sur les voies [from, to[.
+ * <p>
+ * Deux implémentations : ScalarPacketKernel (Java pur) et VectorPacketKernel (SIMD, API
+ * jdk.incubator.vector). La seconde n'est utilisée que si le module est présent au lancement
+ * (option --add-modules jdk.incubator.vector) ; sinon on se rabat sur la version scalaire.
+ * Les deux font exactement les mêmes opérations que les tests d'un seul rayon : les
+ * intersections trouvées sont identiques.
+ */
+interface PacketKernel {
+
+    /**
+     * @return true si au moins un rayon traverse la boîte dans ]Ray.T_MIN, t[voie][.
+     */
+    boolean hitsBox(RayPacket p, int from, int to,
+                    double minX, double minY, double minZ, double maxX, double maxY, double maxZ);
+
+    /**
+     * Met à jour les voies dont le rayon touche la sphère plus près que leur intersection actuelle.
+     * @param radius2 Carré du rayon de la sphère.
+     */
+    void intersectSphere(RayPacket p, int from, int to, Shape shape,
+                         double cx, double cy, double cz, double radius2);
+
+    /**
+     * Möller-Trumbore : met à jour les voies dont le rayon touche le triangle plus près que
+     * leur intersection actuelle.
+     */
+    void intersectTriangle(RayPacket p, int from, int to, Shape shape, int primitive,
+                           double p1x, double p1y, double p1z,
+                           double p2x, double p2y, double p2z,
+                           double p3x, double p3y, double p3z);
+
+    /**
+     * @return La version SIMD si le module jdk.incubator.vector est disponible, sinon la version scalaire.
+     */
+    static PacketKernel best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Chargée par réflexion : la classe ne doit pas être liée quand le module est absent
+                return (PacketKernel) Class.forName("raytracer.geometry.VectorPacketKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // On garde la version scalaire
+            }
+        }
+        return new ScalarPacketKernel();
+    }
+}
@@ -24,4 +24,37 @@ public class Plane extends Shape {
     public Vector getNormal() {
         return normal;
     }
+
+    /**
+     * Intersection rayon/plan : t = ((point - o) . n) / (d . n).
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        hit.getCounters().addPlaneTest();
+        AbstractVec3 o = ray.getOrigin();
+        AbstractVec3 d = ray.getDirection();
+        double denom = d.x * normal.x + d.y * normal.y + d.z * normal.z;
+        if (AbstractVec3.areEqual(denom, 0)) {
+            return false; // Rayon parallèle au plan
+        }
+        double t = ((point.x - o.x) * normal.x + (point.y - o.y) * normal.y + (point.z - o.z) * normal.z) / denom;
+        if (t > Ray.T_MIN && t < hit.getT()) {
+            hit.record(t, this, -1);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void normalAt(AbstractVec3 p, Hit hit, MutableVec3 n) {
+        n.set(normal).normalize();
+    }
+
+    /**
+     * Un plan est infini : il n'a pas de boîte englobante.
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package raytracer.geometry;
+
+/**
+ * Représente un rayon : une origine et une direction.
+ * Un point du rayon est donné par : origine + t * direction (t > 0).
+ * <p>
+ * Un Ray est réutilisable (méthodes set) : le rendu en garde un par thread
+ * plutôt que d'en allouer un par pixel. L'inverse de la direction est
+ * calculé une seule fois, pour les tests rayon/boîte.
+ */
+public class Ray {
+
+    /**
+     * Distance minimale acceptée pour une intersection.
+     * Évite qu'un rayon secondaire ne ré-intersecte la surface dont il part ("acné").
+     */
+    public static final double T_MIN = 1e-6;
+
+    private final MutableVec3 origin = new MutableVec3();
+    private final MutableVec3 direction = new MutableVec3();
+    private double invDx, invDy, invDz;
+
+    /**
+     * Rayon "vide", à initialiser avec set.
+     */
+    public Ray() {
+    }
+
+    public Ray(Point origin, Vector direction) {
+        assign(origin.getX(), origin.getY(), origin.getZ(),
+                direction.getX(), direction.getY(), direction.getZ());
+    }
+
+    /**
+     * Réinitialise le rayon.
+     * @return this
+     */
+    public Ray set(double ox, double oy, double oz, double dx, double dy, double dz) {
+        assign(ox, oy, oz, dx, dy, dz);
+        return this;
+    }
+
+    public Ray set(AbstractVec3 origin, AbstractVec3 direction) {
+        return set(origin.getX(), origin.getY(), origin.getZ(),
+                direction.getX(), direction.getY(), direction.getZ());
+    }
+
+    // --- Getters (vues en lecture seule : utiliser set pour modifier le rayon) ---
+    public AbstractVec3 getOrigin() { return origin; }
+    public AbstractVec3 getDirection() { return direction; }
+    public double getInvDirX() { return invDx; }
+    public double getInvDirY() { return invDy; }
+    public double getInvDirZ() { return invDz; }
+
+    private void assign(double ox, double oy, double oz, double dx, double dy, double dz) {
+        origin.set(ox, oy, oz);
+        direction.set(dx, dy, dz);
+        invDx = 1.0 / dx;
+        invDy = 1.0 / dy;
+        invDz = 1.0 / dz;
+    }
+
+    /**
+     * Calcule le point situé à la distance t sur le rayon.
+     * @param t Le paramètre du rayon.
+     * @return Le point origine + t * direction.
+     */
+    public Point pointAt(double t) {
+        return new Point(origin.x + t * direction.x, origin.y + t * direction.y, origin.z + t * direction.z);
+    }
+}
@@ -0,0 +1,145 @@
+package raytracer.geometry;
+
+import java.util.Arrays;
+
+/**
+ * Paquet de rayons cohérents (ex: rayons primaires de pixels voisins), tracés ensemble.
+ * <p>
+ * Les rayons sont rangés en structure de tableaux (une case par rayon, ou "voie") : les tests
+ * d'intersection traitent toutes les voies d'un coup, avec l'API jdk.incubator.vector quand
+ * elle est disponible (cf. PacketKernel). Les BVH sont parcourues une seule fois pour tout
+ * le paquet : un nœud est visité si au moins un rayon traverse sa boîte.
+ * <p>
+ * Chaque voie garde son intersection la plus proche (distance, forme, primitive), comme un Hit.
+ * Un RayPacket est réutilisable et ne doit jamais être partagé entre deux threads.
+ */
+public final class RayPacket {
+
+    private static final PacketKernel KERNEL = PacketKernel.best();
+
+    final int size;
+
+    // Rayons
+    final double[] ox, oy, oz;
+    final double[] dx, dy, dz;
+    final double[] invDx, invDy, invDz;
+
+    // Intersection la plus proche de chaque voie
+    final double[] t;
+    final Shape[] shapes;
+    final int[] primitives;
+
+    // Rayon de travail pour les tests voie par voie (cf. Shape.intersectPacket)
+    final Ray laneRay = new Ray();
+
+    /**
+     * @param size Nombre de rayons du paquet : 4, 8 ou 16.
+     */
+    public RayPacket(int size) {
+        if (size != 4 && size != 8 && size != 16) {
+            throw new IllegalArgumentException("La taille d'un paquet doit être 4, 8 ou 16 : " + size);
+        }
+        this.size = size;
+        ox = new double[size];
+        oy = new double[size];
+        oz = new double[size];
+        dx = new double[size];
+        dy = new double[size];
+        dz = new double[size];
+        invDx = new double[size];
+        invDy = new double[size];
+        invDz = new double[size];
+        t = new double[size];
+        shapes = new Shape[size];
+        primitives = new int[size];
+        reset();
+    }
+
+    /**
+     * @return true si les tests d'intersection utilisent l'API jdk.incubator.vector.
+     */
+    public static boolean isVectorized() {
+        return !(KERNEL instanceof ScalarPacketKernel);
+    }
+
+    public int size() { return size; }
+
+    /**
+     * Copie un rayon dans une voie du paquet.
+     */
+    public void set(int lane, Ray ray) {
+        AbstractVec3 o = ray.getOrigin();
+        AbstractVec3 d = ray.getDirection();
+        ox[lane] = o.x;
+        oy[lane] = o.y;
+        oz[lane] = o.z;
+        dx[lane] = d.x;
+        dy[lane] = d.y;
+        dz[lane] = d.z;
+        invDx[lane] = ray.getInvDirX();
+        invDy[lane] = ray.getInvDirY();
+        invDz[lane] = ray.getInvDirZ();
+    }
+
+    /**
+     * Copie le rayon d'une voie dans 'ray'.
+     * @return ray
+     */
+    public Ray getRay(int lane, Ray ray) {
+        return ray.set(ox[lane], oy[lane], oz[lane], dx[lane], dy[lane], dz[lane]);
+    }
+
+    /**
+     * Remet toutes les voies à zéro (aucune intersection, distance infinie).
+     */
+    public void reset() {
+        Arrays.fill(t, Double.POSITIVE_INFINITY);
+        Arrays.fill(shapes, null);
+        Arrays.fill(primitives, -1);
+    }
+
+    /**
+     * Enregistre une intersection pour une voie.
+     */
+    public void record(int lane, double t, Shape shape, int primitive) {
+        this.t[lane] = t;
+        this.shapes[lane] = shape;
+        this.primitives[lane] = primitive;
+    }
+
+    // --- Résultats et rayons, par voie ---
+    public double getT(int lane) { return t[lane]; }
+    public Shape getShape(int lane) { return shapes[lane]; }
+    public int getPrimitive(int lane) { return primitives[lane]; }
+    public double getInvDirX(int lane) { return invDx[lane]; }
+    public double getInvDirY(int lane) { return invDy[lane]; }
+    public double getInvDirZ(int lane) { return invDz[lane]; }
+
+    // --- Tests d'intersection (toutes les voies) ---
+
+    /**
+     * Test rayons/boîte (méthode des "slabs", cf. BoundingBox.slabs) pour tout le paquet.
+     * @return true si au moins un rayon traverse la boîte avant son intersection actuelle.
+     */
+    public boolean hitsBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        return KERNEL.hitsBox(this, 0, size, minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Intersection de chaque rayon avec une sphère (mêmes calculs que Sphere.intersect).
+     */
+    void intersectSphere(Shape shape, double cx, double cy, double cz, double radius) {
+        KERNEL.intersectSphere(this, 0, size, shape, cx, cy, cz, radius * radius);
+    }
+
+    /**
+     * Intersection de chaque rayon avec un triangle (mêmes calculs que Triangle.intersect).
+     */
+    void intersectTriangle(Shape shape, int primitive,
+                           double p1x, double p1y, double p1z,
+                           double p2x, double p2y, double p2z,
+                           double p3x, double p3y, double p3z) {
+        KERNEL.intersectTriangle(this, 0, size, shape, primitive,
+                p1x, p1y, p1z, p2x, p2y, p2z, p3x, p3y, p3z);
+    }
+}
@@ -0,0 +1,84 @@
+package raytracer.geometry;
+
+/**
+ * Tests d'intersection d'un paquet, voie par voie, en Java pur (cf. PacketKernel).
+ */
+class ScalarPacketKernel implements PacketKernel {
+
+    @Override
+    public boolean hitsBox(RayPacket p, int from, int to,
+                           double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        for (int i = from; i < to; i++) {
+            if (BoundingBox.slabs(p.ox[i], p.oy[i], p.oz[i], p.invDx[i], p.invDy[i], p.invDz[i], p.t[i],
+                    minX, minY, minZ, maxX, maxY, maxZ)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void intersectSphere(RayPacket p, int from, int to, Shape shape,
+                                double cx, double cy, double cz, double radius2) {
+        for (int i = from; i < to; i++) {
+            double dx = p.dx[i], dy = p.dy[i], dz = p.dz[i];
+            double ocx = p.ox[i] - cx;
+            double ocy = p.oy[i] - cy;
+            double ocz = p.oz[i] - cz;
+
+            double a = dx * dx + dy * dy + dz * dz;
+            double halfB = ocx * dx + ocy * dy + ocz * dz;
+            double c = ocx * ocx + ocy * ocy + ocz * ocz - radius2;
+            double delta = halfB * halfB - a * c;
+            if (delta < 0) {
+                continue;
+            }
+            double sqrtDelta = Math.sqrt(delta);
+            double t = (-halfB - sqrtDelta) / a;
+            if (t <= Ray.T_MIN) {
+                t = (-halfB + sqrtDelta) / a;
+            }
+            if (t > Ray.T_MIN && t < p.t[i]) {
+                p.record(i, t, shape, -1);
+            }
+        }
+    }
+
+    @Override
+    public void intersectTriangle(RayPacket p, int from, int to, Shape shape, int primitive,
+                                  double p1x, double p1y, double p1z,
+                                  double p2x, double p2y, double p2z,
+                                  double p3x, double p3y, double p3z) {
+        double e1x = p2x - p1x, e1y = p2y - p1y, e1z = p2z - p1z;
+        double e2x = p3x - p1x, e2y = p3y - p1y, e2z = p3z - p1z;
+        for (int i = from; i < to; i++) {
+            double dx = p.dx[i], dy = p.dy[i], dz = p.dz[i];
+            double px = dy * e2z - dz * e2y;
+            double py = dz * e2x - dx * e2z;
+            double pz = dx * e2y - dy * e2x;
+            double det = e1x * px + e1y * py + e1z * pz;
+            if (AbstractVec3.areEqual(det, 0)) {
+                continue;
+            }
+            double invDet = 1.0 / det;
+
+            double tx = p.ox[i] - p1x, ty = p.oy[i] - p1y, tz = p.oz[i] - p1z;
+            double u = (tx * px + ty * py + tz * pz) * invDet;
+            if (u < 0 || u > 1) {
+                continue;
+            }
+            double qx = ty * e1z - tz * e1y;
+            double qy = tz * e1x - tx * e1z;
+            double qz = tx * e1y - ty * e1x;
+            double v = (dx * qx + dy * qy + dz * qz) * invDet;
+            if (v < 0 || u + v > 1) {
+                continue;
+            }
+
+            double t = (e2x * qx + e2y * qy + e2z * qz) * invDet;
+            if (t > Ray.T_MIN && t < p.t[i]) {
+                p.record(i, t, shape, primitive);
+            }
+        }
+    }
+}
@@ -24,4 +24,76 @@ public abstract class Shape {
     public Color getSpecular() {
         return specular;
     }
-}
\ No newline at end of file
+
+    // --- Géométrie ---
+
+    /**
+     * Teste l'intersection entre le rayon et la forme.
+     * L'intersection n'est retenue que si sa distance est dans ]Ray.T_MIN, hit.getT()[ ;
+     * dans ce cas, le Hit est mis à jour.
+     *
+     * @param ray Le rayon (sa direction n'a pas besoin d'être normalisée).
+     * @param hit L'intersection la plus proche trouvée jusqu'ici.
+     * @return true si le Hit a été mis à jour.
+     */
+    public abstract boolean intersect(Ray ray, Hit hit);
+
+    /**
+     * Cherche une intersection quelconque dans ]Ray.T_MIN, hit.getT()[ (rayons d'ombre) :
+     * les formes composées peuvent s'arrêter à la première trouvée, sans chercher la plus proche.
+     * @return true si une intersection a été trouvée (le Hit est alors mis à jour).
+     */
+    public boolean intersectAny(Ray ray, Hit hit) {
+        return intersect(ray, hit);
+    }
+
+    /**
+     * Teste seulement la primitive donnée (ex: un triangle d'un maillage), comme intersect.
+     * Sert à retester un bloqueur déjà trouvé. Les formes simples ignorent l'indice.
+     * @param primitive Indice renvoyé par Hit.getPrimitive() lors d'une intersection précédente.
+     * @return true si le Hit a été mis à jour.
+     */
+    public boolean intersectPrimitive(int primitive, Ray ray, Hit hit) {
+        return intersect(ray, hit);
+    }
+
+    /**
+     * Cherche, pour chaque rayon du paquet, l'intersection la plus proche que celle de sa voie
+     * (mêmes résultats que intersect appelé sur chaque rayon).
+     * Par défaut les rayons sont testés un par un ; les formes fréquentes traitent le paquet d'un coup.
+     * @param hit Hit de travail (pile de parcours et compteurs du thread), écrasé.
+     */
+    public void intersectPacket(RayPacket packet, Hit hit) {
+        Ray ray = packet.laneRay;
+        for (int lane = 0; lane < packet.size; lane++) {
+            hit.reset(packet.t[lane]);
+            if (intersect(packet.getRay(lane, ray), hit)) {
+                packet.record(lane, hit.getT(), hit.getShape(), hit.getPrimitive());
+            }
+        }
+    }
+
+    /**
+     * Calcule la normale (normalisée) de la forme au point d'intersection, sans allocation.
+     * @param p Le point d'intersection.
+     * @param hit Le Hit renvoyé par intersect (utile pour les formes composées).
+     * @param normal Reçoit la normale unitaire en p.
+     */
+    public abstract void normalAt(AbstractVec3 p, Hit hit, MutableVec3 normal);
+
+    /**
+     * Version "immuable" de normalAt (alloue un nouveau vecteur).
+     * @return La normale unitaire en p.
+     */
+    public Vector normalAt(Point p, Hit hit) {
+        MutableVec3 normal = new MutableVec3();
+        normalAt(p, hit, normal);
+        return normal.toVector();
+    }
+
+    /**
+     * Boîte englobante de la forme, utilisée par les structures d'accélération.
+     * @return La boîte, ou null si la forme est infinie (ex: plan).
+     */
+    public abstract BoundingBox getBoundingBox();
+}
@@ -24,4 +24,56 @@ public class Sphere extends Shape {
     public double getRadius() {
         return radius;
     }
+
+    /**
+     * Intersection rayon/sphère : résolution de l'équation du second degré
+     * |o + t*d - c|² = r² (avec b = 2 * b', pour économiser quelques multiplications).
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        hit.getCounters().addSphereTest();
+        AbstractVec3 o = ray.getOrigin();
+        AbstractVec3 d = ray.getDirection();
+        double ocx = o.x - center.x;
+        double ocy = o.y - center.y;
+        double ocz = o.z - center.z;
+
+        double a = d.x * d.x + d.y * d.y + d.z * d.z;
+        double halfB = ocx * d.x + ocy * d.y + ocz * d.z;
+        double c = ocx * ocx + ocy * ocy + ocz * ocz - radius * radius;
+        double delta = halfB * halfB - a * c;
+        if (delta < 0) {
+            return false; // Pas de solution réelle : le rayon rate la sphère
+        }
+
+        double sqrtDelta = Math.sqrt(delta);
+        // On teste d'abord la racine la plus proche, puis la seconde (origine dans la sphère)
+        double t = (-halfB - sqrtDelta) / a;
+        if (t <= Ray.T_MIN) {
+            t = (-halfB + sqrtDelta) / a;
+        }
+        if (t > Ray.T_MIN && t < hit.getT()) {
+            hit.record(t, this, -1);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void intersectPacket(RayPacket packet, Hit hit) {
+        hit.getCounters().addSphereTests(packet.size());
+        packet.intersectSphere(this, center.x, center.y, center.z, radius);
+    }
+
+    @Override
+    public void normalAt(AbstractVec3 p, Hit hit, MutableVec3 normal) {
+        normal.setSubtract(p, center).normalize();
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(
+                center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius);
+    }
 }
\ No newline at end of file
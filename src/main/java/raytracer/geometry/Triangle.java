@@ -22,4 +22,91 @@ public class Triangle extends Shape {
     public Point getP1() { return p1; }
     public Point getP2() { return p2; }
     public Point getP3() { return p3; }
+
+    /**
+     * Intersection rayon/triangle (algorithme de Möller-Trumbore).
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        return intersect(ray, hit, this, -1,
+                p1.x, p1.y, p1.z, p2.x, p2.y, p2.z, p3.x, p3.y, p3.z);
+    }
+
+    @Override
+    public void intersectPacket(RayPacket packet, Hit hit) {
+        hit.getCounters().addTriangleTests(packet.size());
+        packet.intersectTriangle(this, -1, p1.x, p1.y, p1.z, p2.x, p2.y, p2.z, p3.x, p3.y, p3.z);
+    }
+
+    /**
+     * Möller-Trumbore sur un triangle donné par ses composantes (partagé avec TriangleMesh).
+     * @param shape La forme à enregistrer dans le Hit.
+     * @param primitive L'indice de primitive à enregistrer dans le Hit.
+     * @return true si le Hit a été mis à jour.
+     */
+    static boolean intersect(Ray ray, Hit hit, Shape shape, int primitive,
+                             double p1x, double p1y, double p1z,
+                             double p2x, double p2y, double p2z,
+                             double p3x, double p3y, double p3z) {
+        hit.getCounters().addTriangleTest();
+        AbstractVec3 o = ray.getOrigin();
+        AbstractVec3 d = ray.getDirection();
+        double e1x = p2x - p1x, e1y = p2y - p1y, e1z = p2z - p1z;
+        double e2x = p3x - p1x, e2y = p3y - p1y, e2z = p3z - p1z;
+
+        // pvec = d x e2
+        double px = d.y * e2z - d.z * e2y;
+        double py = d.z * e2x - d.x * e2z;
+        double pz = d.x * e2y - d.y * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        if (AbstractVec3.areEqual(det, 0)) {
+            return false; // Rayon parallèle au triangle
+        }
+        double invDet = 1.0 / det;
+
+        // Coordonnées barycentriques (u, v) du point d'intersection
+        double tx = o.x - p1x, ty = o.y - p1y, tz = o.z - p1z;
+        double u = (tx * px + ty * py + tz * pz) * invDet;
+        if (u < 0 || u > 1) {
+            return false;
+        }
+        // qvec = tvec x e1
+        double qx = ty * e1z - tz * e1y;
+        double qy = tz * e1x - tx * e1z;
+        double qz = tx * e1y - ty * e1x;
+        double v = (d.x * qx + d.y * qy + d.z * qz) * invDet;
+        if (v < 0 || u + v > 1) {
+            return false;
+        }
+
+        double t = (e2x * qx + e2y * qy + e2z * qz) * invDet;
+        if (t > Ray.T_MIN && t < hit.getT()) {
+            hit.record(t, shape, primitive);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void normalAt(AbstractVec3 p, Hit hit, MutableVec3 normal) {
+        faceNormal(p1.x, p1.y, p1.z, p2.x, p2.y, p2.z, p3.x, p3.y, p3.z, normal);
+    }
+
+    /**
+     * Normale unitaire (p2 - p1) x (p3 - p1) d'un triangle donné par ses composantes.
+     */
+    static void faceNormal(double p1x, double p1y, double p1z,
+                           double p2x, double p2y, double p2z,
+                           double p3x, double p3y, double p3z, MutableVec3 normal) {
+        double e1x = p2x - p1x, e1y = p2y - p1y, e1z = p2z - p1z;
+        double e2x = p3x - p1x, e2y = p3y - p1y, e2z = p3z - p1z;
+        normal.set(e1y * e2z - e1z * e2y,
+                e1z * e2x - e1x * e2z,
+                e1x * e2y - e1y * e2x).normalize();
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return BoundingBox.of(p1, p2, p3);
+    }
 }
\ No newline at end of file
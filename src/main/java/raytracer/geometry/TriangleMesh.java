@@ -0,0 +1,195 @@
+package raytracer.geometry;
+
+import raytracer.acceleration.BVH;
+import raytracer.imaging.Color;
+
+/**
+ * Maillage de triangles partageant un même matériau.
+ * <p>
+ * Contrairement à Triangle (3 objets Point par triangle), les données sont stockées à plat :
+ * les positions des sommets dans un float[] (x, y, z par sommet), pouvant être partagé
+ * entre plusieurs maillages, et les indices des sommets dans un int[] (3 par triangle).
+ * Le maillage possède sa propre BVH sur ses triangles (sa construction peut être différée,
+ * cf. withoutBVH).
+ */
+public class TriangleMesh extends Shape {
+
+    private final float[] positions;
+    private final int[] indices;
+    private final BVH bvh;
+    private final BVH.PrimitiveIntersector intersector;
+    private final BVH.PacketIntersector packetIntersector;
+
+    /**
+     * @param positions Positions des sommets (3 floats par sommet).
+     * @param indices Indices des sommets de chaque triangle (3 par triangle).
+     * @param diffuse Couleur diffuse du maillage.
+     * @param specular Couleur spéculaire du maillage.
+     */
+    public TriangleMesh(float[] positions, int[] indices, Color diffuse, Color specular) {
+        this(positions, indices, null, diffuse, specular);
+    }
+
+    /**
+     * Crée un maillage dont la BVH est déjà construite (ex: relue depuis un cache binaire).
+     * @param bvh La BVH sur les triangles, ou null pour la construire.
+     */
+    public TriangleMesh(float[] positions, int[] indices, BVH bvh, Color diffuse, Color specular) {
+        this(positions, indices, bvh, true, diffuse, specular);
+    }
+
+    private TriangleMesh(float[] positions, int[] indices, BVH bvh, boolean build, Color diffuse, Color specular) {
+        super(diffuse, specular);
+        if (positions.length % 3 != 0 || indices.length % 3 != 0) {
+            throw new IllegalArgumentException("Les positions et les indices doivent être des multiples de 3.");
+        }
+        int vertexCount = positions.length / 3;
+        for (int index : indices) {
+            if (index < 0 || index >= vertexCount) {
+                throw new IndexOutOfBoundsException("Erreur: Indice de vertex '" + index + "' invalide. Doit être < " + vertexCount);
+            }
+        }
+        if (bvh != null && bvh.getPrimitiveCount() != indices.length / 3) {
+            throw new IllegalArgumentException("La BVH ne correspond pas au maillage.");
+        }
+        this.positions = positions;
+        this.indices = indices;
+        this.bvh = bvh != null || !build ? bvh : BVH.build(triangleBounds(positions, indices));
+        this.intersector = this::intersectTriangle;
+        this.packetIntersector = this::intersectTriangle;
+    }
+
+    /**
+     * Crée un maillage dont la BVH sera donnée plus tard (cf. withBVH), par exemple réutilisée
+     * depuis une version précédente de la scène (cf. SceneWatcher). Il ne peut être intersecté
+     * qu'une fois remplacé par withBVH.
+     */
+    public static TriangleMesh withoutBVH(float[] positions, int[] indices, Color diffuse, Color specular) {
+        return new TriangleMesh(positions, indices, null, false, diffuse, specular);
+    }
+
+    /**
+     * @return Le même maillage avec cette BVH (ex: celle d'un maillage de même géométrie, ou
+     * réajustée par refitBVH), ou avec une BVH construite si bvh est null.
+     */
+    public TriangleMesh withBVH(BVH bvh) {
+        return new TriangleMesh(positions, indices, bvh, diffuse, specular);
+    }
+
+    /**
+     * @return false si la BVH n'a pas encore été donnée (cf. withoutBVH).
+     */
+    public boolean hasBVH() {
+        return bvh != null;
+    }
+
+    /**
+     * @param bvh La BVH d'un maillage de mêmes indices (ex: version précédente de ce maillage).
+     * @return Cette BVH réajustée aux positions de ce maillage (cf. BVH.refit).
+     */
+    public BVH refitBVH(BVH bvh) {
+        return bvh.refit(triangleBounds(positions, indices));
+    }
+
+    // --- Getters ---
+    public float[] getPositions() { return positions; }
+    public int[] getIndices() { return indices; }
+    public int getTriangleCount() { return indices.length / 3; }
+    public BVH getBVH() { return bvh; }
+
+    /**
+     * Construit un objet Triangle équivalent au triangle i (pour le débogage et les tests).
+     */
+    public Triangle getTriangle(int i) {
+        return new Triangle(vertex(indices[i * 3]), vertex(indices[i * 3 + 1]), vertex(indices[i * 3 + 2]),
+                diffuse, specular);
+    }
+
+    private Point vertex(int v) {
+        return new Point(positions[v * 3], positions[v * 3 + 1], positions[v * 3 + 2]);
+    }
+
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        return bvh.intersect(ray, hit, intersector);
+    }
+
+    @Override
+    public boolean intersectAny(Ray ray, Hit hit) {
+        return bvh.intersectAny(ray, hit, intersector);
+    }
+
+    @Override
+    public boolean intersectPrimitive(int primitive, Ray ray, Hit hit) {
+        return intersectTriangle(primitive, ray, hit);
+    }
+
+    @Override
+    public void intersectPacket(RayPacket packet, Hit hit) {
+        bvh.intersectPacket(packet, hit, packetIntersector);
+    }
+
+    /**
+     * Intersection rayon/triangle i (Möller-Trumbore), lue directement dans les tableaux.
+     */
+    private boolean intersectTriangle(int i, Ray ray, Hit hit) {
+        int a = indices[i * 3] * 3;
+        int b = indices[i * 3 + 1] * 3;
+        int c = indices[i * 3 + 2] * 3;
+        return Triangle.intersect(ray, hit, this, i,
+                positions[a], positions[a + 1], positions[a + 2],
+                positions[b], positions[b + 1], positions[b + 2],
+                positions[c], positions[c + 1], positions[c + 2]);
+    }
+
+    /**
+     * Intersection des rayons d'un paquet avec le triangle i.
+     */
+    private void intersectTriangle(int i, RayPacket packet, Hit hit) {
+        hit.getCounters().addTriangleTests(packet.size());
+        int a = indices[i * 3] * 3;
+        int b = indices[i * 3 + 1] * 3;
+        int c = indices[i * 3 + 2] * 3;
+        packet.intersectTriangle(this, i,
+                positions[a], positions[a + 1], positions[a + 2],
+                positions[b], positions[b + 1], positions[b + 2],
+                positions[c], positions[c + 1], positions[c + 2]);
+    }
+
+    /**
+     * Normale (géométrique) du triangle touché, donné par hit.getPrimitive().
+     */
+    @Override
+    public void normalAt(AbstractVec3 p, Hit hit, MutableVec3 normal) {
+        int i = hit.getPrimitive();
+        int a = indices[i * 3] * 3;
+        int b = indices[i * 3 + 1] * 3;
+        int c = indices[i * 3 + 2] * 3;
+        Triangle.faceNormal(positions[a], positions[a + 1], positions[a + 2],
+                positions[b], positions[b + 1], positions[b + 2],
+                positions[c], positions[c + 1], positions[c + 2], normal);
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return bvh.getBounds();
+    }
+
+    /**
+     * Boîtes englobantes des triangles, au format attendu par BVH.build.
+     */
+    private static double[] triangleBounds(float[] positions, int[] indices) {
+        int count = indices.length / 3;
+        double[] bounds = new double[count * 6];
+        for (int i = 0; i < count; i++) {
+            for (int k = 0; k < 3; k++) {
+                double va = positions[indices[i * 3] * 3 + k];
+                double vb = positions[indices[i * 3 + 1] * 3 + k];
+                double vc = positions[indices[i * 3 + 2] * 3 + k];
+                bounds[i * 6 + k] = Math.min(va, Math.min(vb, vc));
+                bounds[i * 6 + 3 + k] = Math.max(va, Math.max(vb, vc));
+            }
+        }
+        return bounds;
+    }
+}
@@ -0,0 +1,155 @@
+package raytracer.geometry;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Tests d'intersection d'un paquet en SIMD, avec l'API jdk.incubator.vector (cf. PacketKernel).
+ * Toutes les voies d'un vecteur sont calculées, puis un masque retient celles qui touchent :
+ * les opérations (et donc les résultats) sont celles de la version scalaire. Les voies
+ * restantes (moins d'un vecteur complet) sont traitées par la version scalaire.
+ * <p>
+ * Ne doit être chargée que si le module est présent (cf. PacketKernel.best).
+ */
+class VectorPacketKernel implements PacketKernel {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    private final ScalarPacketKernel scalar = new ScalarPacketKernel();
+
+    @Override
+    public boolean hitsBox(RayPacket p, int from, int to,
+                           double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        int upper = from + DOUBLES.loopBound(to - from);
+        int i = from;
+        for (; i < upper; i += DOUBLES.length()) {
+            DoubleVector ox = DoubleVector.fromArray(DOUBLES, p.ox, i);
+            DoubleVector invDx = DoubleVector.fromArray(DOUBLES, p.invDx, i);
+            DoubleVector t1 = DoubleVector.broadcast(DOUBLES, minX).sub(ox).mul(invDx);
+            DoubleVector t2 = DoubleVector.broadcast(DOUBLES, maxX).sub(ox).mul(invDx);
+            DoubleVector tNear = t1.min(t2);
+            DoubleVector tFar = t1.max(t2);
+
+            DoubleVector oy = DoubleVector.fromArray(DOUBLES, p.oy, i);
+            DoubleVector invDy = DoubleVector.fromArray(DOUBLES, p.invDy, i);
+            t1 = DoubleVector.broadcast(DOUBLES, minY).sub(oy).mul(invDy);
+            t2 = DoubleVector.broadcast(DOUBLES, maxY).sub(oy).mul(invDy);
+            tNear = tNear.max(t1.min(t2));
+            tFar = tFar.min(t1.max(t2));
+
+            DoubleVector oz = DoubleVector.fromArray(DOUBLES, p.oz, i);
+            DoubleVector invDz = DoubleVector.fromArray(DOUBLES, p.invDz, i);
+            t1 = DoubleVector.broadcast(DOUBLES, minZ).sub(oz).mul(invDz);
+            t2 = DoubleVector.broadcast(DOUBLES, maxZ).sub(oz).mul(invDz);
+            tNear = tNear.max(t1.min(t2));
+            tFar = tFar.min(t1.max(t2));
+
+            DoubleVector tMax = DoubleVector.fromArray(DOUBLES, p.t, i);
+            VectorMask<Double> hit = tFar.compare(VectorOperators.GE, tNear)
+                    .and(tFar.compare(VectorOperators.GT, Ray.T_MIN))
+                    .and(tNear.compare(VectorOperators.LT, tMax));
+            if (hit.anyTrue()) {
+                return true;
+            }
+        }
+        return scalar.hitsBox(p, i, to, minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    @Override
+    public void intersectSphere(RayPacket p, int from, int to, Shape shape,
+                                double cx, double cy, double cz, double radius2) {
+        int upper = from + DOUBLES.loopBound(to - from);
+        int i = from;
+        for (; i < upper; i += DOUBLES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(DOUBLES, p.dx, i);
+            DoubleVector dy = DoubleVector.fromArray(DOUBLES, p.dy, i);
+            DoubleVector dz = DoubleVector.fromArray(DOUBLES, p.dz, i);
+            DoubleVector ocx = DoubleVector.fromArray(DOUBLES, p.ox, i).sub(cx);
+            DoubleVector ocy = DoubleVector.fromArray(DOUBLES, p.oy, i).sub(cy);
+            DoubleVector ocz = DoubleVector.fromArray(DOUBLES, p.oz, i).sub(cz);
+
+            DoubleVector a = dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz));
+            DoubleVector halfB = ocx.mul(dx).add(ocy.mul(dy)).add(ocz.mul(dz));
+            DoubleVector c = ocx.mul(ocx).add(ocy.mul(ocy)).add(ocz.mul(ocz)).sub(radius2);
+            DoubleVector delta = halfB.mul(halfB).sub(a.mul(c));
+            VectorMask<Double> real = delta.compare(VectorOperators.GE, 0);
+            if (!real.anyTrue()) {
+                continue;
+            }
+
+            DoubleVector sqrtDelta = delta.lanewise(VectorOperators.SQRT);
+            DoubleVector minusHalfB = halfB.neg();
+            DoubleVector t = minusHalfB.sub(sqrtDelta).div(a);
+            t = t.blend(minusHalfB.add(sqrtDelta).div(a), t.compare(VectorOperators.LE, Ray.T_MIN));
+            DoubleVector tMax = DoubleVector.fromArray(DOUBLES, p.t, i);
+            VectorMask<Double> valid = real.and(t.compare(VectorOperators.GT, Ray.T_MIN))
+                    .and(t.compare(VectorOperators.LT, tMax));
+            record(p, i, tMax, t, valid, shape, -1);
+        }
+        scalar.intersectSphere(p, i, to, shape, cx, cy, cz, radius2);
+    }
+
+    @Override
+    public void intersectTriangle(RayPacket p, int from, int to, Shape shape, int primitive,
+                                  double p1x, double p1y, double p1z,
+                                  double p2x, double p2y, double p2z,
+                                  double p3x, double p3y, double p3z) {
+        double e1x = p2x - p1x, e1y = p2y - p1y, e1z = p2z - p1z;
+        double e2x = p3x - p1x, e2y = p3y - p1y, e2z = p3z - p1z;
+        int upper = from + DOUBLES.loopBound(to - from);
+        int i = from;
+        for (; i < upper; i += DOUBLES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(DOUBLES, p.dx, i);
+            DoubleVector dy = DoubleVector.fromArray(DOUBLES, p.dy, i);
+            DoubleVector dz = DoubleVector.fromArray(DOUBLES, p.dz, i);
+            // pvec = d x e2
+            DoubleVector px = dy.mul(e2z).sub(dz.mul(e2y));
+            DoubleVector py = dz.mul(e2x).sub(dx.mul(e2z));
+            DoubleVector pz = dx.mul(e2y).sub(dy.mul(e2x));
+            DoubleVector det = px.mul(e1x).add(py.mul(e1y)).add(pz.mul(e1z));
+            VectorMask<Double> valid = det.abs().compare(VectorOperators.LT, AbstractVec3.EPSILON).not();
+            DoubleVector invDet = DoubleVector.broadcast(DOUBLES, 1.0).div(det);
+
+            DoubleVector tx = DoubleVector.fromArray(DOUBLES, p.ox, i).sub(p1x);
+            DoubleVector ty = DoubleVector.fromArray(DOUBLES, p.oy, i).sub(p1y);
+            DoubleVector tz = DoubleVector.fromArray(DOUBLES, p.oz, i).sub(p1z);
+            DoubleVector u = tx.mul(px).add(ty.mul(py)).add(tz.mul(pz)).mul(invDet);
+            valid = valid.andNot(u.compare(VectorOperators.LT, 0).or(u.compare(VectorOperators.GT, 1)));
+            if (!valid.anyTrue()) {
+                continue; // Cas le plus fréquent : aucun rayon ne touche le triangle
+            }
+            // qvec = tvec x e1
+            DoubleVector qx = ty.mul(e1z).sub(tz.mul(e1y));
+            DoubleVector qy = tz.mul(e1x).sub(tx.mul(e1z));
+            DoubleVector qz = tx.mul(e1y).sub(ty.mul(e1x));
+            DoubleVector v = dx.mul(qx).add(dy.mul(qy)).add(dz.mul(qz)).mul(invDet);
+            valid = valid.andNot(v.compare(VectorOperators.LT, 0).or(u.add(v).compare(VectorOperators.GT, 1)));
+
+            DoubleVector t = qx.mul(e2x).add(qy.mul(e2y)).add(qz.mul(e2z)).mul(invDet);
+            DoubleVector tMax = DoubleVector.fromArray(DOUBLES, p.t, i);
+            valid = valid.and(t.compare(VectorOperators.GT, Ray.T_MIN)).and(t.compare(VectorOperators.LT, tMax));
+            record(p, i, tMax, t, valid, shape, primitive);
+        }
+        scalar.intersectTriangle(p, i, to, shape, primitive, p1x, p1y, p1z, p2x, p2y, p2z, p3x, p3y, p3z);
+    }
+
+    /**
+     * Enregistre les intersections des voies retenues par le masque (voies i à i + DOUBLES.length()).
+     */
+    private static void record(RayPacket p, int i, DoubleVector tMax, DoubleVector t, VectorMask<Double> valid,
+                               Shape shape, int primitive) {
+        if (!valid.anyTrue()) {
+            return;
+        }
+        tMax.blend(t, valid).intoArray(p.t, i);
+        long lanes = valid.toLong();
+        while (lanes != 0) {
+            int lane = i + Long.numberOfTrailingZeros(lanes);
+            p.shapes[lane] = shape;
+            p.primitives[lane] = primitive;
+            lanes &= lanes - 1;
+        }
+    }
+}
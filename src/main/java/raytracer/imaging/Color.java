@@ -28,7 +28,7 @@ public class Color extends AbstractVec3 {
      * @param val La valeur à limiter.
      * @return La valeur limitée.
      */
-    private static double clamp(double val) {
+    public static double clamp(double val) {
         return Math.max(0, Math.min(1, val));
     }
 
@@ -67,10 +67,19 @@ public class Color extends AbstractVec3 {
      * @return Un entier représentant la couleur ARGB (Alpha est à 255).
      */
     public int toRGB() {
+        return toRGB(this.x, this.y, this.z);
+    }
+
+    /**
+     * Convertit des composantes flottantes en entier RGB, sans créer d'objet Color.
+     * Les composantes sont d'abord limitées à [0, 1].
+     * @return Un entier représentant la couleur ARGB (Alpha est à 255).
+     */
+    public static int toRGB(double r, double g, double b) {
         // Note: j'ai corrigé les typos du PDF
-        int red   = (int) Math.round(this.x * 255); // 
-        int green = (int) Math.round(this.y * 255); // 
-        int blue  = (int) Math.round(this.z * 255); // 
+        int red   = (int) Math.round(clamp(r) * 255); // 
+        int green = (int) Math.round(clamp(g) * 255); // 
+        int blue  = (int) Math.round(clamp(b) * 255); // 
 
         // On combine les 3 composantes en un seul entier
         // (Alpha est implicitement 255, opaque)
@@ -0,0 +1,67 @@
+package raytracer.imaging;
+
+/**
+ * Image HDR : couleurs linéaires non limitées, en float, avant tone mapping.
+ * <p>
+ * Les composantes sont rangées en trois tableaux (r, g, b) indexés par pixel (y * width + x) :
+ * aucun objet Color n'est créé, et la conversion finale en 8 bits (cf. toRGB) traite toute
+ * l'image en une passe, vectorisée quand l'API jdk.incubator.vector est disponible.
+ * Des pixels différents peuvent être écrits par des threads différents.
+ */
+public final class HdrImage {
+
+    private static final ToneKernel KERNEL = ToneKernel.best();
+
+    private final int width;
+    private final int height;
+    final float[] r;
+    final float[] g;
+    final float[] b;
+
+    public HdrImage(int width, int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Taille d'image invalide : " + width + " x " + height);
+        }
+        this.width = width;
+        this.height = height;
+        r = new float[width * height];
+        g = new float[width * height];
+        b = new float[width * height];
+    }
+
+    /**
+     * @return true si la conversion en 8 bits utilise l'API jdk.incubator.vector.
+     */
+    public static boolean isVectorized() {
+        return !(KERNEL instanceof ScalarToneKernel);
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    /**
+     * @param index Indice du pixel (y * width + x).
+     */
+    public void set(int index, double r, double g, double b) {
+        this.r[index] = (float) r;
+        this.g[index] = (float) g;
+        this.b[index] = (float) b;
+    }
+
+    public float getR(int index) { return r[index]; }
+    public float getG(int index) { return g[index]; }
+    public float getB(int index) { return b[index]; }
+
+    /**
+     * Convertit l'image en 8 bits : exposition, tone mapping, limitation à [0, 1] puis gamma
+     * (cf. ToneMapping.toRGB).
+     * @param exposure Facteur appliqué aux couleurs avant le tone mapping (> 0).
+     * @param gamma Gamma de l'écran (1 : pas de correction, 2.2 : écran sRGB typique).
+     * @return Les pixels au format RGB packé, ligne par ligne.
+     */
+    public int[] toRGB(ToneMapping mapping, double exposure, double gamma) {
+        int[] pixels = new int[width * height];
+        KERNEL.toRGB(this, pixels, 0, pixels.length, mapping, (float) exposure, (float) (1 / gamma));
+        return pixels;
+    }
+}
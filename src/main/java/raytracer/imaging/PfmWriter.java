@@ -0,0 +1,36 @@
+package raytracer.imaging;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Écriture d'une image HDR au format PFM (Portable Float Map, couleur) : un en-tête texte
+ * ("PF", taille, -1.0 pour little-endian), puis les pixels en float RGB, ligne par ligne
+ * du bas vers le haut. Le format est lu par la plupart des outils HDR (ex: ImageMagick, GIMP).
+ */
+public final class PfmWriter {
+
+    private PfmWriter() {
+    }
+
+    /**
+     * Écrit l'image (couleurs linéaires, sans tone mapping). Le flux n'est pas fermé.
+     */
+    public static void write(HdrImage image, OutputStream out) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        out.write(("PF\n" + width + " " + height + "\n-1.0\n").getBytes(StandardCharsets.US_ASCII));
+
+        ByteBuffer row = ByteBuffer.allocate(width * 3 * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int y = height - 1; y >= 0; y--) {
+            row.clear();
+            for (int x = 0, i = y * width; x < width; x++, i++) {
+                row.putFloat(image.r[i]).putFloat(image.g[i]).putFloat(image.b[i]);
+            }
+            out.write(row.array(), 0, row.position());
+        }
+    }
+}
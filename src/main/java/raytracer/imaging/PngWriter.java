@@ -0,0 +1,243 @@
+package raytracer.imaging;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Écriture d'une image PNG (RGB 8 bits) ligne par ligne, sans garder l'image en mémoire.
+ * <p>
+ * Les lignes sont reçues au format RGB packé (cf. Color.toRGB), filtrées puis compressées
+ * au fur et à mesure : seules la ligne courante et la précédente sont gardées (pour les filtres).
+ * Le filtre de chaque ligne est choisi parmi None, Sub, Up et Paeth (celui qui donne la plus
+ * petite somme des valeurs absolues, comme libpng). Les données compressées sont écrites
+ * par blocs IDAT de CHUNK_SIZE octets.
+ * <p>
+ * Un PngWriter ne doit être utilisé que par un seul thread.
+ */
+public final class PngWriter implements Closeable {
+
+    /** Taille maximale des blocs IDAT écrits. */
+    public static final int CHUNK_SIZE = 1 << 16;
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    // Filtres PNG (premier octet de chaque ligne)
+    private static final int NONE = 0;
+    private static final int SUB = 1;
+    private static final int UP = 2;
+    private static final int PAETH = 4;
+
+    private final OutputStream out;
+    private final int width;
+    private final int height;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+
+    // Ligne courante et précédente (octets RGB, la précédente est nulle au départ),
+    // ligne filtrée (octet de filtre + données)
+    private byte[] current;
+    private byte[] previous;
+    private final byte[] filtered;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkLength;
+    private int rows;
+
+    /**
+     * Écrit l'en-tête de l'image (compression par défaut).
+     * @param out Le flux de sortie, fermé par close().
+     */
+    public PngWriter(OutputStream out, int width, int height) throws IOException {
+        this(out, width, height, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Écrit l'en-tête de l'image.
+     * @param out Le flux de sortie, fermé par close().
+     * @param level Niveau de compression (0 à 9, ou Deflater.DEFAULT_COMPRESSION).
+     */
+    public PngWriter(OutputStream out, int width, int height, int level) throws IOException {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Taille d'image invalide : " + width + " x " + height);
+        }
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        this.deflater = new Deflater(level);
+        current = new byte[width * 3];
+        previous = new byte[width * 3];
+        filtered = new byte[width * 3 + 1];
+
+        out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8;  // 8 bits par composante
+        header[9] = 2;  // RGB
+        header[10] = 0; // Deflate
+        header[11] = 0; // Filtres adaptatifs
+        header[12] = 0; // Pas d'entrelacement
+        writeChunk("IHDR", header, header.length);
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    /**
+     * @return Le nombre de lignes déjà écrites.
+     */
+    public int getRows() { return rows; }
+
+    /**
+     * Écrit les lignes suivantes de l'image.
+     * @param pixels Pixels RGB packés, ligne par ligne (width pixels par ligne).
+     * @param offset Indice du premier pixel de la première ligne.
+     * @param count Nombre de lignes à écrire.
+     */
+    public void writeRows(int[] pixels, int offset, int count) throws IOException {
+        if (rows + count > height) {
+            throw new IllegalArgumentException("Trop de lignes : " + (rows + count) + " > " + height);
+        }
+        for (int r = 0; r < count; r++) {
+            writeRow(pixels, offset + r * width);
+        }
+    }
+
+    private void writeRow(int[] pixels, int offset) throws IOException {
+        byte[] cur = current;
+        for (int x = 0, i = 0; x < width; x++) {
+            int rgb = pixels[offset + x];
+            cur[i++] = (byte) (rgb >> 16);
+            cur[i++] = (byte) (rgb >> 8);
+            cur[i++] = (byte) rgb;
+        }
+        filter();
+        deflater.setInput(filtered);
+        while (!deflater.needsInput()) {
+            deflate();
+        }
+
+        // La ligne courante devient la précédente
+        current = previous;
+        previous = cur;
+        rows++;
+    }
+
+    /**
+     * Termine la compression, écrit la fin de l'image et ferme le flux.
+     * @throws IOException Si toutes les lignes n'ont pas été écrites.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rows != height) {
+                throw new IOException("Image incomplète : " + rows + " lignes sur " + height);
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate();
+            }
+            flushChunk();
+            writeChunk("IEND", chunk, 0);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    /**
+     * Filtre la ligne courante dans 'filtered' avec le filtre qui la compresse le mieux
+     * (plus petite somme des octets filtrés, vus comme des entiers signés).
+     * Pour la première ligne, la ligne précédente est nulle (comme le prévoit le format).
+     */
+    private void filter() {
+        byte[] cur = current;
+        byte[] prev = previous;
+        int n = cur.length;
+        long none = 0, sub = 0, up = 0, paeth = 0;
+        for (int i = 0; i < n; i++) {
+            int x = cur[i] & 0xff;
+            int a = i >= 3 ? cur[i - 3] & 0xff : 0;
+            int b = prev[i] & 0xff;
+            int c = i >= 3 ? prev[i - 3] & 0xff : 0;
+            none += Math.abs((byte) x);
+            sub += Math.abs((byte) (x - a));
+            up += Math.abs((byte) (x - b));
+            paeth += Math.abs((byte) (x - paethPredictor(a, b, c)));
+        }
+
+        int type = NONE;
+        long best = none;
+        if (sub < best) { type = SUB; best = sub; }
+        if (up < best) { type = UP; best = up; }
+        if (paeth < best) { type = PAETH; }
+
+        filtered[0] = (byte) type;
+        for (int i = 0; i < n; i++) {
+            int x = cur[i] & 0xff;
+            int a = i >= 3 ? cur[i - 3] & 0xff : 0;
+            int b = prev[i] & 0xff;
+            int c = i >= 3 ? prev[i - 3] & 0xff : 0;
+            int value = switch (type) {
+                case SUB -> x - a;
+                case UP -> x - b;
+                case PAETH -> x - paethPredictor(a, b, c);
+                default -> x;
+            };
+            filtered[i + 1] = (byte) value;
+        }
+    }
+
+    private static int paethPredictor(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    // Compresse dans le bloc courant, écrit comme IDAT lorsqu'il est plein
+    private void deflate() throws IOException {
+        chunkLength += deflater.deflate(chunk, chunkLength, CHUNK_SIZE - chunkLength);
+        if (chunkLength == CHUNK_SIZE) {
+            flushChunk();
+        }
+    }
+
+    private void flushChunk() throws IOException {
+        if (chunkLength > 0) {
+            writeChunk("IDAT", chunk, chunkLength);
+            chunkLength = 0;
+        }
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] header = new byte[8];
+        putInt(header, 0, length);
+        byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(name, 0, header, 4, 4);
+        out.write(header);
+        out.write(data, 0, length);
+
+        crc.reset();
+        crc.update(name);
+        crc.update(data, 0, length);
+        byte[] sum = new byte[4];
+        putInt(sum, 0, (int) crc.getValue());
+        out.write(sum);
+    }
+
+    // Entier 32 bits big-endian
+    private static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,17 @@
+package raytracer.imaging;
+
+/**
+ * Conversion HDR vers RGB packé en Java pur, pixel par pixel (cf. ToneKernel).
+ */
+class ScalarToneKernel implements ToneKernel {
+
+    @Override
+    public void toRGB(HdrImage image, int[] out, int from, int to, ToneMapping mapping, float exposure, float invGamma) {
+        float[] r = image.r;
+        float[] g = image.g;
+        float[] b = image.b;
+        for (int i = from; i < to; i++) {
+            out[i] = mapping.toRGB(r[i], g[i], b[i], exposure, invGamma);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package raytracer.imaging;
+
+/**
+ * Conversion des pixels [from, to[ d'une image HDR en RGB packé (cf. ToneMapping.toRGB).
+ * <p>
+ * Deux implémentations : ScalarToneKernel (Java pur) et VectorToneKernel (SIMD, API
+ * jdk.incubator.vector). La seconde n'est utilisée que si le module est présent au lancement
+ * (option --add-modules jdk.incubator.vector) ; sinon on se rabat sur la version scalaire.
+ * Les deux font les mêmes opérations, sauf la correction gamma (puissance vectorielle, dont
+ * le résultat peut différer d'une unité sur 255).
+ */
+interface ToneKernel {
+
+    /**
+     * @param invGamma Inverse du gamma (1 : pas de correction).
+     */
+    void toRGB(HdrImage image, int[] out, int from, int to, ToneMapping mapping, float exposure, float invGamma);
+
+    /**
+     * @return La version SIMD si le module jdk.incubator.vector est disponible, sinon la version scalaire.
+     */
+    static ToneKernel best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Chargée par réflexion : la classe ne doit pas être liée quand le module est absent
+                return (ToneKernel) Class.forName("raytracer.imaging.VectorToneKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // On garde la version scalaire
+            }
+        }
+        return new ScalarToneKernel();
+    }
+}
@@ -0,0 +1,61 @@
+package raytracer.imaging;
+
+import java.util.Locale;
+
+/**
+ * Opérateurs de tone mapping : ramènent une couleur HDR (non limitée) dans [0, 1] avant
+ * la conversion en 8 bits (cf. HdrImage.toRGB). Chaque composante est traitée séparément,
+ * après multiplication par l'exposition.
+ */
+public enum ToneMapping {
+
+    /** Aucun : les composantes sont simplement limitées à [0, 1]. */
+    NONE,
+
+    /** Reinhard : x / (1 + x). */
+    REINHARD,
+
+    /** Approximation de la courbe ACES (K. Narkowicz) : x (2.51 x + 0.03) / (x (2.43 x + 0.59) + 0.14). */
+    ACES;
+
+    /**
+     * @return L'opérateur de ce nom (insensible à la casse, ex: "reinhard").
+     */
+    public static ToneMapping fromName(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Tone mapping inconnu : " + name);
+        }
+    }
+
+    /**
+     * Applique l'opérateur à une composante (déjà multipliée par l'exposition).
+     * @return La valeur, non encore limitée à [0, 1].
+     */
+    public float apply(float x) {
+        return switch (this) {
+            case NONE -> x;
+            case REINHARD -> x / (1 + x);
+            case ACES -> x * (2.51f * x + 0.03f) / (x * (2.43f * x + 0.59f) + 0.14f);
+        };
+    }
+
+    /**
+     * Convertit une couleur HDR en entier RGB (8 bits par composante) : exposition, opérateur,
+     * limitation à [0, 1] puis correction gamma. Calcul de référence de HdrImage.toRGB.
+     * @param invGamma Inverse du gamma de l'écran (1 : pas de correction).
+     */
+    public int toRGB(float r, float g, float b, float exposure, float invGamma) {
+        return channel(r, exposure, invGamma) << 16 | channel(g, exposure, invGamma) << 8
+                | channel(b, exposure, invGamma);
+    }
+
+    private int channel(float x, float exposure, float invGamma) {
+        float v = Math.min(1f, Math.max(0f, apply(x * exposure)));
+        if (invGamma != 1f) {
+            v = (float) Math.pow(v, invGamma);
+        }
+        return (int) (v * 255 + 0.5f);
+    }
+}
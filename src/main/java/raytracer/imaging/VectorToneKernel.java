@@ -0,0 +1,52 @@
+package raytracer.imaging;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Conversion HDR vers RGB packé en SIMD, avec l'API jdk.incubator.vector (cf. ToneKernel).
+ * Les canaux r, g et b de l'image étant des tableaux séparés, chaque vecteur traite autant de
+ * pixels qu'il a de voies, jusqu'à l'entier RGB. Les pixels restants (moins d'un vecteur
+ * complet) sont traités par la version scalaire.
+ * <p>
+ * Ne doit être chargée que si le module est présent (cf. ToneKernel.best).
+ */
+class VectorToneKernel implements ToneKernel {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    private final ScalarToneKernel scalar = new ScalarToneKernel();
+
+    @Override
+    public void toRGB(HdrImage image, int[] out, int from, int to, ToneMapping mapping, float exposure, float invGamma) {
+        int upper = from + FLOATS.loopBound(to - from);
+        int i = from;
+        for (; i < upper; i += FLOATS.length()) {
+            IntVector r = channel(FloatVector.fromArray(FLOATS, image.r, i), mapping, exposure, invGamma);
+            IntVector g = channel(FloatVector.fromArray(FLOATS, image.g, i), mapping, exposure, invGamma);
+            IntVector b = channel(FloatVector.fromArray(FLOATS, image.b, i), mapping, exposure, invGamma);
+            r.lanewise(VectorOperators.LSHL, 16)
+                    .or(g.lanewise(VectorOperators.LSHL, 8))
+                    .or(b)
+                    .intoArray(out, i);
+        }
+        scalar.toRGB(image, out, i, to, mapping, exposure, invGamma);
+    }
+
+    // Mêmes opérations que ToneMapping.channel
+    private static IntVector channel(FloatVector x, ToneMapping mapping, float exposure, float invGamma) {
+        x = x.mul(exposure);
+        switch (mapping) {
+            case REINHARD -> x = x.div(x.add(1f));
+            case ACES -> x = x.mul(x.mul(2.51f).add(0.03f)).div(x.mul(x.mul(2.43f).add(0.59f)).add(0.14f));
+            case NONE -> { }
+        }
+        x = x.max(0f).min(1f);
+        if (invGamma != 1f) {
+            x = x.lanewise(VectorOperators.POW, invGamma);
+        }
+        return (IntVector) x.mul(255f).add(0.5f).convert(VectorOperators.F2I, 0);
+    }
+}
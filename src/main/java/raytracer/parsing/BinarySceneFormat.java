@@ -0,0 +1,560 @@
+package raytracer.parsing;
+
+import raytracer.acceleration.BVH;
+import raytracer.geometry.*;
+import raytracer.imaging.Color;
+import raytracer.imaging.ToneMapping;
+import raytracer.raytracer.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Format binaire compact d'une scène, prévu pour être relu très vite (cf. SceneCache).
+ * <p>
+ * Les données sont rangées par type, en tableaux contigus (structure de tableaux) : paramètres,
+ * caméra, couleurs (partagées par indice), lumières, puis les formes (sphères, plans, triangles,
+ * tampons de sommets et maillages avec leur BVH déjà construite). Les tableaux sont alignés sur
+ * 8 octets et relus par copies en bloc depuis le fichier projeté en mémoire (FileChannel.map) :
+ * aucun texte à analyser et aucune BVH de maillage à reconstruire.
+ * <p>
+ * Les nombres sont en little-endian. Le numéro de VERSION doit être incrémenté à chaque
+ * changement du format (ou des informations de Scene qu'il contient).
+ */
+public class BinarySceneFormat {
+
+    public static final int MAGIC = 0x43535452; // "RTSC" en little-endian
+    public static final int VERSION = 5;
+
+    // Types de lumières et de formes
+    private static final byte POINT_LIGHT = 0;
+    private static final byte DIRECTIONAL_LIGHT = 1;
+    private static final byte SPHERE = 0;
+    private static final byte PLANE = 1;
+    private static final byte TRIANGLE = 2;
+    private static final byte MESH = 3;
+
+    private BinarySceneFormat() {
+    }
+
+    // ------------------------------------------------------------------ Écriture
+
+    /**
+     * Écrit la scène au format binaire.
+     * @throws IllegalArgumentException si la scène contient un type de forme ou de lumière inconnu.
+     */
+    public static void write(Scene scene, WritableByteChannel channel) throws IOException {
+        Output out = new Output(channel);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+
+        // Paramètres et caméra
+        out.putInt(scene.getWidth());
+        out.putInt(scene.getHeight());
+        out.putBytes(scene.getOutput().getBytes(StandardCharsets.UTF_8));
+        out.putInt(scene.getMaxDepth());
+        out.putInt(scene.getAaSamples());
+        out.putInt(scene.getToneMapping().ordinal());
+        out.putInt(scene.getLightSamples());
+        out.putDoubles(new double[]{scene.getAaThreshold(), scene.getExposure(), scene.getGamma()});
+        Camera camera = scene.getCamera();
+        out.putInt(camera != null ? 1 : 0);
+        if (camera != null) {
+            out.putDoubles(new double[]{
+                    camera.getLookFrom().getX(), camera.getLookFrom().getY(), camera.getLookFrom().getZ(),
+                    camera.getLookAt().getX(), camera.getLookAt().getY(), camera.getLookAt().getZ(),
+                    camera.getUp().getX(), camera.getUp().getY(), camera.getUp().getZ(),
+                    camera.getFov()});
+        }
+
+        // Table des couleurs : les objets Color partagés le restent à la relecture
+        Map<Color, Integer> colorIndex = new IdentityHashMap<>();
+        List<Color> colors = new ArrayList<>();
+        int ambient = colorId(scene.getAmbient(), colorIndex, colors);
+
+        List<AbstractLight> lights = scene.getLights();
+        byte[] lightTypes = new byte[lights.size()];
+        double[] lightData = new double[lights.size() * 3];
+        int[] lightColors = new int[lights.size()];
+        for (int i = 0; i < lights.size(); i++) {
+            AbstractLight light = lights.get(i);
+            AbstractVec3 v;
+            if (light instanceof PointLight) {
+                lightTypes[i] = POINT_LIGHT;
+                v = ((PointLight) light).getPosition();
+            } else if (light instanceof DirectionalLight) {
+                lightTypes[i] = DIRECTIONAL_LIGHT;
+                v = ((DirectionalLight) light).getDirection();
+            } else {
+                throw new IllegalArgumentException("Type de lumière non sérialisable : " + light.getClass().getName());
+            }
+            putVec3(lightData, 3 * i, v);
+            lightColors[i] = colorId(light.getColor(), colorIndex, colors);
+        }
+
+        // Formes : type et matériau de chacune (dans l'ordre de la scène), puis les données par type
+        List<Shape> shapes = scene.getShapes();
+        byte[] kinds = new byte[shapes.size()];
+        int[] materials = new int[shapes.size() * 2];
+        List<Sphere> spheres = new ArrayList<>();
+        List<Plane> planes = new ArrayList<>();
+        List<Triangle> triangles = new ArrayList<>();
+        List<TriangleMesh> meshes = new ArrayList<>();
+        for (int i = 0; i < shapes.size(); i++) {
+            Shape shape = shapes.get(i);
+            if (shape instanceof Sphere) {
+                kinds[i] = SPHERE;
+                spheres.add((Sphere) shape);
+            } else if (shape instanceof Plane) {
+                kinds[i] = PLANE;
+                planes.add((Plane) shape);
+            } else if (shape instanceof Triangle) {
+                kinds[i] = TRIANGLE;
+                triangles.add((Triangle) shape);
+            } else if (shape instanceof TriangleMesh) {
+                kinds[i] = MESH;
+                meshes.add((TriangleMesh) shape);
+            } else {
+                throw new IllegalArgumentException("Type de forme non sérialisable : " + shape.getClass().getName());
+            }
+            materials[2 * i] = colorId(shape.getDiffuse(), colorIndex, colors);
+            materials[2 * i + 1] = colorId(shape.getSpecular(), colorIndex, colors);
+        }
+
+        double[] colorData = new double[colors.size() * 3];
+        for (int i = 0; i < colors.size(); i++) {
+            putVec3(colorData, 3 * i, colors.get(i));
+        }
+        out.putInt(colors.size());
+        out.putDoubles(colorData);
+        out.putInt(ambient);
+
+        out.putInt(lights.size());
+        out.putBytes(lightTypes);
+        out.putDoubles(lightData);
+        out.putInts(lightColors);
+
+        out.putInt(shapes.size());
+        out.putBytes(kinds);
+        out.putInts(materials);
+
+        double[] sphereData = new double[spheres.size() * 4];
+        for (int i = 0; i < spheres.size(); i++) {
+            putVec3(sphereData, 4 * i, spheres.get(i).getCenter());
+            sphereData[4 * i + 3] = spheres.get(i).getRadius();
+        }
+        out.putDoubles(sphereData);
+
+        double[] planeData = new double[planes.size() * 6];
+        for (int i = 0; i < planes.size(); i++) {
+            putVec3(planeData, 6 * i, planes.get(i).getPoint());
+            putVec3(planeData, 6 * i + 3, planes.get(i).getNormal());
+        }
+        out.putDoubles(planeData);
+
+        double[] triangleData = new double[triangles.size() * 9];
+        for (int i = 0; i < triangles.size(); i++) {
+            putVec3(triangleData, 9 * i, triangles.get(i).getP1());
+            putVec3(triangleData, 9 * i + 3, triangles.get(i).getP2());
+            putVec3(triangleData, 9 * i + 6, triangles.get(i).getP3());
+        }
+        out.putDoubles(triangleData);
+
+        // Tampons de sommets (partagés entre les maillages d'un même bloc maxverts)
+        Map<float[], Integer> bufferIndex = new IdentityHashMap<>();
+        List<float[]> buffers = new ArrayList<>();
+        for (TriangleMesh mesh : meshes) {
+            if (!bufferIndex.containsKey(mesh.getPositions())) {
+                bufferIndex.put(mesh.getPositions(), buffers.size());
+                buffers.add(mesh.getPositions());
+            }
+        }
+        out.putInt(buffers.size());
+        for (float[] buffer : buffers) {
+            out.putFloats(buffer);
+        }
+        for (TriangleMesh mesh : meshes) {
+            BVH bvh = mesh.getBVH();
+            out.putInt(bufferIndex.get(mesh.getPositions()));
+            out.putInts(mesh.getIndices());
+            out.putFloats(bvh.getNodeBounds());
+            out.putInts(bvh.getNodeData());
+            out.putInts(bvh.getPrimitiveIndices());
+        }
+        out.flush();
+    }
+
+    private static int colorId(Color color, Map<Color, Integer> index, List<Color> colors) {
+        Integer id = index.get(color);
+        if (id == null) {
+            id = colors.size();
+            index.put(color, id);
+            colors.add(color);
+        }
+        return id;
+    }
+
+    private static void putVec3(double[] data, int offset, AbstractVec3 v) {
+        data[offset] = v.getX();
+        data[offset + 1] = v.getY();
+        data[offset + 2] = v.getZ();
+    }
+
+    // ------------------------------------------------------------------ Lecture
+
+    /**
+     * Relit une scène écrite par write, à partir de la position donnée du fichier.
+     * La BVH globale de la scène est reconstruite (celles des maillages sont relues telles quelles).
+     * @throws IOException si le fichier n'est pas au bon format ou dans une autre version.
+     */
+    public static Scene read(FileChannel channel, long position) throws IOException {
+        return read(new Input(channel, position));
+    }
+
+    /**
+     * Relit une scène écrite par write depuis un tampon en mémoire (ex: reçue par le réseau, cf. raytracer.farm),
+     * à partir de sa position courante. Le tampon n'est pas modifié.
+     * @throws IOException si les données ne sont pas au bon format ou dans une autre version.
+     */
+    public static Scene read(ByteBuffer buffer) throws IOException {
+        return read(new Input(buffer));
+    }
+
+    private static Scene read(Input in) throws IOException {
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Format de scène binaire invalide.");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Version de scène binaire non supportée : " + version);
+        }
+
+        try {
+            Scene scene = new Scene();
+            scene.setWidth(in.getInt());
+            scene.setHeight(in.getInt());
+            scene.setOutput(new String(in.getBytes(), StandardCharsets.UTF_8));
+            scene.setMaxDepth(in.getInt());
+            int aaSamples = in.getInt();
+            ToneMapping toneMapping = ToneMapping.values()[in.getInt()];
+            scene.setLightSamples(in.getInt());
+            double[] settings = in.getDoubles();
+            scene.setAntialiasing(aaSamples, settings[0]);
+            scene.setToneMapping(toneMapping, settings[1]);
+            scene.setGamma(settings[2]);
+            if (in.getInt() != 0) {
+                double[] c = in.getDoubles();
+                scene.setCamera(new Camera(new Point(c[0], c[1], c[2]), new Point(c[3], c[4], c[5]),
+                        new Vector(c[6], c[7], c[8]), c[9]));
+            }
+
+            int colorCount = in.getInt();
+            double[] colorData = in.getDoubles();
+            Color[] colors = new Color[colorCount];
+            for (int i = 0; i < colorCount; i++) {
+                colors[i] = new Color(colorData[3 * i], colorData[3 * i + 1], colorData[3 * i + 2]);
+            }
+            scene.setAmbient(colors[in.getInt()]);
+
+            int lightCount = in.getInt();
+            byte[] lightTypes = in.getBytes();
+            double[] lightData = in.getDoubles();
+            int[] lightColors = in.getInts();
+            for (int i = 0; i < lightCount; i++) {
+                double x = lightData[3 * i], y = lightData[3 * i + 1], z = lightData[3 * i + 2];
+                Color color = colors[lightColors[i]];
+                if (lightTypes[i] == POINT_LIGHT) {
+                    scene.addLight(new PointLight(new Point(x, y, z), color));
+                } else {
+                    scene.addLight(new DirectionalLight(new Vector(x, y, z), color));
+                }
+            }
+
+            int shapeCount = in.getInt();
+            byte[] kinds = in.getBytes();
+            int[] materials = in.getInts();
+            double[] sphereData = in.getDoubles();
+            double[] planeData = in.getDoubles();
+            double[] triangleData = in.getDoubles();
+            float[][] buffers = new float[in.getInt()][];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = in.getFloats();
+            }
+
+            int sphere = 0, plane = 0, triangle = 0;
+            for (int i = 0; i < shapeCount; i++) {
+                Color diffuse = colors[materials[2 * i]];
+                Color specular = colors[materials[2 * i + 1]];
+                switch (kinds[i]) {
+                    case SPHERE:
+                        scene.addShape(new Sphere(point(sphereData, 4 * sphere), sphereData[4 * sphere + 3],
+                                diffuse, specular));
+                        sphere++;
+                        break;
+                    case PLANE:
+                        scene.addShape(new Plane(point(planeData, 6 * plane), vector(planeData, 6 * plane + 3),
+                                diffuse, specular));
+                        plane++;
+                        break;
+                    case TRIANGLE:
+                        scene.addShape(new Triangle(point(triangleData, 9 * triangle),
+                                point(triangleData, 9 * triangle + 3), point(triangleData, 9 * triangle + 6),
+                                diffuse, specular));
+                        triangle++;
+                        break;
+                    case MESH:
+                        float[] positions = buffers[in.getInt()];
+                        int[] indices = in.getInts();
+                        BVH bvh = BVH.fromArrays(in.getFloats(), in.getInts(), in.getInts());
+                        scene.addShape(new TriangleMesh(positions, indices, bvh, diffuse, specular));
+                        break;
+                    default:
+                        throw new IOException("Type de forme inconnu : " + kinds[i]);
+                }
+            }
+            scene.buildAccelerator();
+            return scene;
+        } catch (RuntimeException e) {
+            // Tableaux tronqués ou incohérents : fichier corrompu
+            throw new IOException("Scène binaire corrompue : " + e.getMessage(), e);
+        }
+    }
+
+    private static Point point(double[] data, int offset) {
+        return new Point(data[offset], data[offset + 1], data[offset + 2]);
+    }
+
+    private static Vector vector(double[] data, int offset) {
+        return new Vector(data[offset], data[offset + 1], data[offset + 2]);
+    }
+
+    /**
+     * Écriture tamponnée. Chaque tableau est précédé de sa longueur et suivi d'un bourrage
+     * jusqu'au prochain multiple de 8 octets.
+     */
+    private static class Output {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long position = 0;
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        void putBytes(byte[] values) throws IOException {
+            putInt(values.length);
+            align();
+            for (int i = 0; i < values.length; ) {
+                ensure(1);
+                int n = Math.min(buffer.remaining(), values.length - i);
+                buffer.put(values, i, n);
+                i += n;
+            }
+            position += values.length;
+            align();
+        }
+
+        void putInts(int[] values) throws IOException {
+            putInt(values.length);
+            align();
+            for (int i = 0; i < values.length; ) {
+                ensure(4);
+                int n = Math.min(buffer.remaining() / 4, values.length - i);
+                buffer.asIntBuffer().put(values, i, n);
+                buffer.position(buffer.position() + 4 * n);
+                i += n;
+            }
+            position += 4L * values.length;
+            align();
+        }
+
+        void putFloats(float[] values) throws IOException {
+            putInt(values.length);
+            align();
+            for (int i = 0; i < values.length; ) {
+                ensure(4);
+                int n = Math.min(buffer.remaining() / 4, values.length - i);
+                buffer.asFloatBuffer().put(values, i, n);
+                buffer.position(buffer.position() + 4 * n);
+                i += n;
+            }
+            position += 4L * values.length;
+            align();
+        }
+
+        void putDoubles(double[] values) throws IOException {
+            putInt(values.length);
+            align();
+            for (int i = 0; i < values.length; ) {
+                ensure(8);
+                int n = Math.min(buffer.remaining() / 8, values.length - i);
+                buffer.asDoubleBuffer().put(values, i, n);
+                buffer.position(buffer.position() + 8 * n);
+                i += n;
+            }
+            position += 8L * values.length;
+            align();
+        }
+
+        private void align() throws IOException {
+            while ((position & 7) != 0) {
+                ensure(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Lecture depuis le fichier projeté en mémoire, par fenêtres (une projection est limitée à 2 Go),
+     * ou depuis un tampon en mémoire (une seule fenêtre).
+     */
+    private static class Input {
+        private static final long WINDOW_SIZE = 1L << 28; // 256 Mo
+
+        private final FileChannel channel; // null : lecture d'un tampon
+        private final long size;
+        private final long start;
+        private long windowStart;
+        private ByteBuffer window;
+
+        Input(FileChannel channel, long position) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.start = position;
+            map(position);
+        }
+
+        Input(ByteBuffer buffer) {
+            this.channel = null;
+            this.window = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            this.size = window.limit();
+            this.start = 0;
+            this.windowStart = 0;
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+            window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        private long position() {
+            return windowStart + window.position();
+        }
+
+        /**
+         * Garantit qu'au moins 'bytes' octets (ou tout le reste du fichier) sont dans la fenêtre.
+         */
+        private void ensure(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                long position = position();
+                if (channel == null || size - position < bytes) {
+                    throw new IOException("Scène binaire tronquée.");
+                }
+                map(position);
+            }
+        }
+
+        int getInt() throws IOException {
+            ensure(4);
+            return window.getInt();
+        }
+
+        private int getLength(int elementSize) throws IOException {
+            int length = getInt();
+            align();
+            if (length < 0 || (long) length * elementSize > size - position()) {
+                throw new IOException("Scène binaire tronquée ou corrompue.");
+            }
+            return length;
+        }
+
+        byte[] getBytes() throws IOException {
+            byte[] values = new byte[getLength(1)];
+            for (int i = 0; i < values.length; ) {
+                ensure(1);
+                int n = Math.min(window.remaining(), values.length - i);
+                window.get(values, i, n);
+                i += n;
+            }
+            align();
+            return values;
+        }
+
+        int[] getInts() throws IOException {
+            int[] values = new int[getLength(4)];
+            for (int i = 0; i < values.length; ) {
+                ensure(4);
+                int n = Math.min(window.remaining() / 4, values.length - i);
+                window.asIntBuffer().get(values, i, n);
+                window.position(window.position() + 4 * n);
+                i += n;
+            }
+            align();
+            return values;
+        }
+
+        float[] getFloats() throws IOException {
+            float[] values = new float[getLength(4)];
+            for (int i = 0; i < values.length; ) {
+                ensure(4);
+                int n = Math.min(window.remaining() / 4, values.length - i);
+                window.asFloatBuffer().get(values, i, n);
+                window.position(window.position() + 4 * n);
+                i += n;
+            }
+            align();
+            return values;
+        }
+
+        double[] getDoubles() throws IOException {
+            double[] values = new double[getLength(8)];
+            for (int i = 0; i < values.length; ) {
+                ensure(8);
+                int n = Math.min(window.remaining() / 8, values.length - i);
+                window.asDoubleBuffer().get(values, i, n);
+                window.position(window.position() + 8 * n);
+                i += n;
+            }
+            align();
+            return values;
+        }
+
+        private void align() throws IOException {
+            int padding = (int) (-(position() - start) & 7);
+            if (padding > 0) {
+                ensure(padding);
+                window.position(window.position() + padding);
+            }
+        }
+    }
+}
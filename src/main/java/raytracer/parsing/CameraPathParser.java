@@ -0,0 +1,121 @@
+package raytracer.parsing;
+
+import raytracer.geometry.Point;
+import raytracer.geometry.Vector;
+import raytracer.raytracer.Camera;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Analyse un fichier de trajectoire de caméra, pour le rendu d'une animation (cf. AnimationRenderer).
+ * <p>
+ * Chaque ligne donne la caméra d'une image, avec les paramètres de la commande 'camera' des scènes :
+ * <ul>
+ *   <li>camera fromx fromy fromz atx aty atz upx upy upz fov : l'image suivante ;</li>
+ *   <li>keyframe n fromx ... fov : l'image n (numérotées à partir de 1, dans l'ordre croissant).
+ *   Les images entre deux clés sont interpolées linéairement (position, cible, haut et angle de vue),
+ *   le vecteur haut interpolé étant ramené à une longueur de 1. Les images avant la première clé
+ *   gardent sa caméra.</li>
+ * </ul>
+ * Les deux formes peuvent être mélangées : une ligne 'camera' est la clé de l'image qui suit la précédente.
+ */
+public class CameraPathParser {
+
+    private static final byte[] CAMERA = SceneFileParser.ascii("camera");
+    private static final byte[] KEYFRAME = SceneFileParser.ascii("keyframe");
+
+    // Clés lues : numéro de l'image et paramètres de sa caméra
+    private final List<Integer> frames = new ArrayList<>();
+    private final List<double[]> keys = new ArrayList<>();
+
+    /**
+     * @param filePath Chemin du fichier de trajectoire.
+     * @return Les caméras de toutes les images, dans l'ordre (la première est l'image 1).
+     * @throws IOException Si le fichier ne peut être lu.
+     * @throws IllegalArgumentException Si le fichier ne contient aucune caméra, ou si le vecteur haut
+     * d'une image est nul ou parallèle à sa direction de visée (ex: passage par zéro entre deux clés opposées).
+     */
+    public List<Camera> parse(String filePath) throws IOException {
+        frames.clear();
+        keys.clear();
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            SceneTokenizer tokens = new SceneTokenizer(channel);
+            while (tokens.nextLine()) {
+                processLine(tokens);
+            }
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("Aucune caméra dans la trajectoire '" + filePath + "'");
+        }
+
+        // Première clé (et les images qui la précèdent), puis interpolation jusqu'à chaque clé suivante
+        List<Camera> cameras = new ArrayList<>();
+        for (int f = 1; f <= frames.get(0); f++) {
+            cameras.add(camera(keys.get(0), keys.get(0), 0, f));
+        }
+        for (int k = 1; k < keys.size(); k++) {
+            int span = frames.get(k) - frames.get(k - 1);
+            for (int f = 1; f <= span; f++) {
+                cameras.add(camera(keys.get(k - 1), keys.get(k), (double) f / span, frames.get(k - 1) + f));
+            }
+        }
+        return cameras;
+    }
+
+    private void processLine(SceneTokenizer tokens) {
+        try {
+            int frame;
+            int first; // Indice du premier paramètre de caméra
+            if (tokens.tokenEquals(0, CAMERA)) {
+                frame = frames.isEmpty() ? 1 : frames.get(frames.size() - 1) + 1;
+                first = 1;
+            } else if (tokens.tokenEquals(0, KEYFRAME)) {
+                frame = tokens.parseInt(1);
+                first = 2;
+                int last = frames.isEmpty() ? 0 : frames.get(frames.size() - 1);
+                if (frame <= last) {
+                    throw new IllegalArgumentException("Les images clés doivent être dans l'ordre croissant (> "
+                            + last + ") : " + frame);
+                }
+            } else {
+                System.err.println("Commande inconnue : " + tokens.tokenString(0));
+                return;
+            }
+            double[] key = new double[10];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = tokens.parseDouble(first + i);
+            }
+            frames.add(frame);
+            keys.add(key);
+        } catch (Exception e) {
+            System.err.println("Erreur lors de l'analyse de la ligne : '" + tokens.lineString() + "'");
+            e.printStackTrace();
+        }
+    }
+
+    // Caméra de l'image 'frame', interpolée entre deux clés (t = 0 : a, t = 1 : b)
+    private static Camera camera(double[] a, double[] b, double t, int frame) {
+        double[] c = new double[10];
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] + (b[i] - a[i]) * t;
+        }
+        Point from = new Point(c[0], c[1], c[2]);
+        Point at = new Point(c[3], c[4], c[5]);
+        Vector up = new Vector(c[6], c[7], c[8]);
+        // Un haut nul ou parallèle à la visée ne donne pas de repère (coordonnées NaN)
+        Vector right = up.cross(from.subtract(at));
+        if (!(right.length() > 1e-9 * up.length() * from.subtract(at).length())) {
+            throw new IllegalArgumentException("Image " + frame + " : vecteur haut " + up
+                    + " nul ou parallèle à la direction de visée");
+        }
+        if (t > 0 && t < 1) {
+            up = up.normalize(); // Interpolé : seule sa direction compte
+        }
+        return new Camera(from, at, up, c[9]);
+    }
+}
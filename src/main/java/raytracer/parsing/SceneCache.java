@@ -0,0 +1,154 @@
+package raytracer.parsing;
+
+import raytracer.raytracer.Scene;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Cache binaire des scènes : le fichier "scene.txt" est analysé une seule fois, puis la scène
+ * est relue depuis "scene.txt.cache" (cf. BinarySceneFormat), ce qui évite le parsing du texte
+ * et la construction des BVH des maillages.
+ * <p>
+ * Le cache est associé au fichier source par son empreinte SHA-256. La taille et la date de
+ * modification du source sont aussi enregistrées : si elles n'ont pas changé, l'empreinte n'est
+ * pas recalculée. Dès que le contenu du source change (ou que le format évolue), le cache est
+ * reconstruit automatiquement.
+ */
+public class SceneCache {
+
+    public static final String EXTENSION = ".cache";
+
+    private static final int MAGIC = 0x48435452; // "RTCH" en little-endian
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 32;
+
+    private final int threads;
+
+    /**
+     * @param threads Nombre de threads pour le parsing du texte quand le cache n'est pas à jour.
+     */
+    public SceneCache(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Charge la scène depuis le cache s'il est à jour, sinon analyse le fichier texte et
+     * (re)crée le cache. Une erreur d'écriture du cache n'empêche pas le chargement.
+     * @param filePath Chemin du fichier de scène (texte).
+     */
+    public Scene load(String filePath) throws IOException {
+        Path source = Paths.get(filePath);
+        Path cache = cachePath(source);
+        long size = Files.size(source);
+        long modified = Files.getLastModifiedTime(source).toMillis();
+
+        byte[] hash = null;
+        if (Files.exists(cache)) {
+            try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+                ByteBuffer header = readHeader(channel);
+                if (header != null) {
+                    byte[] cachedHash = new byte[32];
+                    header.get(24, cachedHash);
+                    boolean upToDate = header.getLong(8) == size && header.getLong(16) == modified;
+                    if (!upToDate) {
+                        // Source touché ou copié : seul son contenu compte
+                        hash = hash(source);
+                        upToDate = Arrays.equals(hash, cachedHash);
+                    }
+                    if (upToDate) {
+                        return BinarySceneFormat.read(channel, HEADER_SIZE);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Cache de scène illisible, il sera reconstruit : " + e.getMessage());
+            }
+        }
+
+        if (hash == null) {
+            hash = hash(source);
+        }
+        Scene scene = new SceneFileParser(threads).parse(filePath);
+        try {
+            write(scene, cache, size, modified, hash);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Impossible d'écrire le cache de scène '" + cache + "' : " + e.getMessage());
+        }
+        return scene;
+    }
+
+    /**
+     * @return Le chemin du cache associé au fichier de scène.
+     */
+    public static Path cachePath(Path source) {
+        return source.resolveSibling(source.getFileName() + EXTENSION);
+    }
+
+    /**
+     * @return L'en-tête du cache, ou null s'il ne correspond pas à ce format / cette version.
+     */
+    private static ByteBuffer readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                return null;
+            }
+        }
+        if (header.getInt(0) != MAGIC || header.getInt(4) != BinarySceneFormat.VERSION) {
+            return null;
+        }
+        return header;
+    }
+
+    /**
+     * Écrit le cache dans un fichier temporaire, renommé ensuite : un cache interrompu
+     * en cours d'écriture n'est jamais relu.
+     */
+    private static void write(Scene scene, Path cache, long size, long modified, byte[] hash) throws IOException {
+        Path temp = cache.resolveSibling(cache.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(BinarySceneFormat.VERSION).putLong(size).putLong(modified).put(hash);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            BinarySceneFormat.write(scene, channel);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return L'empreinte SHA-256 du contenu du fichier.
+     */
+    static byte[] hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Toujours disponible dans la JVM
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return digest.digest();
+    }
+}
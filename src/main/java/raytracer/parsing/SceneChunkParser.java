@@ -0,0 +1,167 @@
+package raytracer.parsing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Analyse d'un morceau (une suite de lignes complètes) d'un fichier de scène, pour le parsing parallèle.
+ * <p>
+ * Seules les lignes 'vertex' et 'tri', qui font l'essentiel des gros fichiers, sont converties ici :
+ * leurs valeurs sont rangées dans des tableaux à plat. Leur validation dépend de l'état du parseur
+ * (maxverts, sommets déjà lus, matériau courant...) et est donc faite plus tard, en rejouant les
+ * opérations dans l'ordre du fichier (cf. SceneFileParser). Les autres lignes (rares) et les lignes
+ * 'vertex'/'tri' mal formées sont simplement mises de côté, pour être traitées lors de ce rejeu.
+ */
+class SceneChunkParser implements Callable<SceneChunkParser.Result> {
+
+    // Codes des opérations à rejouer (chaque opération est suivie de son nombre de répétitions)
+    static final int OP_VERTEX = 0;
+    static final int OP_TRI = 1;
+    static final int OP_LINE = 2;
+
+    private static final byte[] VERTEX = "vertex".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRI = "tri".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Résultat de l'analyse d'un morceau.
+     */
+    static class Result {
+        int[] ops = new int[32];       // (code, nombre de répétitions), dans l'ordre du fichier
+        int opCount = 0;
+        float[] vertices = new float[3 * 1024];
+        int vertexCount = 0;
+        int[] triangles = new int[3 * 1024];
+        int triangleCount = 0;
+        List<byte[]> lines = new ArrayList<>();
+
+        private void addOp(int code) {
+            if (opCount > 0 && ops[opCount - 2] == code) {
+                ops[opCount - 1]++;
+                return;
+            }
+            if (opCount + 2 > ops.length) {
+                ops = Arrays.copyOf(ops, ops.length * 2);
+            }
+            ops[opCount++] = code;
+            ops[opCount++] = 1;
+        }
+
+        private void addVertex(double x, double y, double z) {
+            if (vertexCount * 3 + 3 > vertices.length) {
+                vertices = Arrays.copyOf(vertices, vertices.length * 2);
+            }
+            vertices[vertexCount * 3] = (float) x;
+            vertices[vertexCount * 3 + 1] = (float) y;
+            vertices[vertexCount * 3 + 2] = (float) z;
+            vertexCount++;
+            addOp(OP_VERTEX);
+        }
+
+        private void addTriangle(int i1, int i2, int i3) {
+            if (triangleCount * 3 + 3 > triangles.length) {
+                triangles = Arrays.copyOf(triangles, triangles.length * 2);
+            }
+            triangles[triangleCount * 3] = i1;
+            triangles[triangleCount * 3 + 1] = i2;
+            triangles[triangleCount * 3 + 2] = i3;
+            triangleCount++;
+            addOp(OP_TRI);
+        }
+
+        private void addLine(byte[] line) {
+            lines.add(line);
+            addOp(OP_LINE);
+        }
+    }
+
+    private final FileChannel channel;
+    private final long start;
+    private final long end;
+
+    /**
+     * @param channel Le fichier (lu par positions : peut être partagé entre les threads).
+     * @param start Début du morceau (début de ligne).
+     * @param end Fin du morceau (exclue, début de ligne ou fin du fichier).
+     */
+    SceneChunkParser(FileChannel channel, long start, long end) {
+        this.channel = channel;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public Result call() throws IOException {
+        Result result = new Result();
+        SceneTokenizer tokens = new SceneTokenizer(channel, start, end);
+        while (tokens.nextLine()) {
+            try {
+                if (tokens.tokenEquals(0, VERTEX)) {
+                    result.addVertex(tokens.parseDouble(1), tokens.parseDouble(2), tokens.parseDouble(3));
+                    continue;
+                }
+                if (tokens.tokenEquals(0, TRI)) {
+                    result.addTriangle(tokens.parseInt(1), tokens.parseInt(2), tokens.parseInt(3));
+                    continue;
+                }
+            } catch (RuntimeException e) {
+                // Ligne mal formée : elle sera traitée (et l'erreur signalée) lors du rejeu
+            }
+            result.addLine(tokens.lineBytes());
+        }
+        return result;
+    }
+
+    /**
+     * Découpe le fichier en morceaux de tailles voisines, chacun commençant en début de ligne.
+     * @param channel Le fichier.
+     * @param chunks Nombre de morceaux souhaité.
+     * @return Les bornes des morceaux : morceau k = [bounds[k], bounds[k + 1][.
+     */
+    static long[] split(FileChannel channel, int chunks) throws IOException {
+        long size = channel.size();
+        long[] bounds = new long[chunks + 1];
+        int count = 1;
+        bounds[0] = 0;
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        for (int k = 1; k < chunks; k++) {
+            long target = Math.max(size * k / chunks, bounds[count - 1]);
+            long boundary = nextLineStart(channel, target, size, window);
+            if (boundary > bounds[count - 1] && boundary < size) {
+                bounds[count++] = boundary;
+            }
+        }
+        bounds[count++] = size;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * @return La position du premier début de ligne >= from (ou size s'il n'y en a pas).
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer window) throws IOException {
+        if (from == 0) {
+            return 0;
+        }
+        // On part de from - 1 : si c'est un '\n', from est déjà un début de ligne
+        long position = from - 1;
+        while (position < size) {
+            window.clear();
+            int n = channel.read(window, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+}
@@ -3,49 +3,140 @@ package raytracer.parsing;
 // Imports de tous nos packages
 import raytracer.geometry.*;
 import raytracer.imaging.Color;
+import raytracer.imaging.ToneMapping;
 import raytracer.raytracer.*;
+import raytracer.stats.RenderStats;
+import raytracer.stats.SceneParsedEvent;
 
 // Imports Java
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Classe dédiée au parsing (à l'analyse) du fichier de description de scène.
- * 
+ * Le fichier est lu en flux et découpé directement sur les octets (cf. SceneTokenizer) :
+ * la mémoire utilisée est celle de la scène construite, pas celle du fichier.
  */
 public class SceneFileParser {
 
+    // Noms des commandes, comparés octet par octet aux tokens
+    private static final byte[] SIZE = ascii("size");
+    private static final byte[] OUTPUT = ascii("output");
+    private static final byte[] MAXDEPTH = ascii("maxdepth");
+    private static final byte[] ANTIALIAS = ascii("antialias");
+    private static final byte[] TONEMAP = ascii("tonemap");
+    private static final byte[] GAMMA = ascii("gamma");
+    private static final byte[] LIGHTSAMPLES = ascii("lightsamples");
+    private static final byte[] CAMERA = ascii("camera");
+    private static final byte[] AMBIENT = ascii("ambient");
+    private static final byte[] DIFFUSE = ascii("diffuse");
+    private static final byte[] SPECULAR = ascii("specular");
+    private static final byte[] DIRECTIONAL = ascii("directional");
+    private static final byte[] POINT = ascii("point");
+    private static final byte[] MAXVERTS = ascii("maxverts");
+    private static final byte[] VERTEX = ascii("vertex");
+    private static final byte[] SPHERE = ascii("sphere");
+    private static final byte[] PLANE = ascii("plane");
+    private static final byte[] TRI = ascii("tri");
+
+    // En dessous de cette taille, le parsing parallèle ne vaut pas son coût
+    private static final long PARALLEL_MIN_SIZE = 4 << 20; // 4 Mo
+    // Nombre de morceaux par thread (des morceaux plus petits équilibrent mieux la charge)
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final int threads;
+    private boolean buildAccelerator = true;
+
     private Scene scene;
+    private SceneTokenizer tokens;
 
     // Variables d'état pour le parsing 
     private Color currentDiffuse = new Color(0, 0, 0);
     private Color currentSpecular = new Color(0, 0, 0);
     private int maxVerts = 0;
-    private List<Point> vertices = new ArrayList<>();
+
+    // Sommets stockés à plat (x, y, z par sommet), partagés par les maillages
+    private float[] vertexPositions = new float[0];
+    private int vertexCount = 0;
+
+    // Triangles en attente, regroupés par matériau (un TriangleMesh par groupe)
+    private List<MeshBuilder> meshBuilders = new ArrayList<>();
+    private Map<MaterialKey, MeshBuilder> meshBuildersByMaterial = new HashMap<>();
+    private MeshBuilder lastMeshBuilder;
 
     // Indicateurs pour les champs obligatoires
     private boolean sizeSet = false;
     private boolean cameraSet = false;
 
+    /**
+     * Parseur séquentiel.
+     */
+    public SceneFileParser() {
+        this(1);
+    }
+
+    /**
+     * Parseur utilisant plusieurs threads pour les gros fichiers.
+     * @param threads Nombre de threads (1 = parsing séquentiel).
+     */
+    public SceneFileParser(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être >= 1 : " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * @param build false si la BVH de la scène et celles de ses maillages sont construites par
+     * l'appelant (ex: réutilisées ou réajustées depuis une version précédente, cf. SceneWatcher) :
+     * les maillages sont alors créés sans BVH (cf. TriangleMesh.withoutBVH) ; true par défaut.
+     */
+    public void setBuildAccelerator(boolean build) {
+        this.buildAccelerator = build;
+    }
+
     /**
      * Analyse le fichier de scène et retourne un objet Scène complet.
+     * Avec plusieurs threads, le résultat est identique à celui du parsing séquentiel.
      * @param filePath Chemin vers le fichier .txt de la scène.
      * @return L'objet Scene configuré.
      * @throws IOException Si le fichier ne peut être lu.
      */
     public Scene parse(String filePath) throws IOException {
         this.scene = new Scene();
+        SceneParsedEvent event = new SceneParsedEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long size;
 
-        // On lit toutes les lignes du fichier 
-        List<String> lines = Files.readAllLines(Paths.get(filePath));
-
-        for (String line : lines) {
-            processLine(line);
+        // On lit le fichier ligne par ligne, sans le charger en entier
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            size = channel.size();
+            if (threads > 1 && channel.size() >= PARALLEL_MIN_SIZE) {
+                parseChunks(channel);
+            } else {
+                tokens = new SceneTokenizer(channel);
+                while (tokens.nextLine()) {
+                    processLine();
+                }
+            }
+        } finally {
+            tokens = null;
         }
 
+        // Les triangles en attente deviennent des maillages
+        flushMeshes();
+
         // --- Validation finale ---
         if (!sizeSet) {
             throw new RuntimeException("Erreur: La commande 'size' (obligatoire) est manquante.");
@@ -57,109 +148,186 @@ public class SceneFileParser {
         // Validation de la somme des lumières 
         validateLightColors();
 
+        // Construction de la structure d'accélération (BVH)
+        if (buildAccelerator) {
+            scene.buildAccelerator();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        event.end();
+        RenderStats.global().recordParse(elapsed);
+        if (event.shouldCommit()) {
+            event.file = filePath;
+            event.bytes = size;
+            event.threads = threads;
+            event.shapes = scene.getShapes().size();
+            event.commit();
+        }
         return scene;
     }
 
     /**
-     * Traite une seule ligne du fichier de scène.
-     * @param line La ligne à analyser.
+     * Traite la ligne courante du tokenizer (non vide, hors commentaire).
+     * Les commandes les plus fréquentes dans les gros fichiers (vertex, tri) sont testées en premier.
      */
-    private void processLine(String line) {
-        line = line.trim(); // Nettoyer les espaces 
-        if (line.isEmpty() || line.startsWith("#")) { // Ignorer commentaires et lignes vides 
-            return;
-        }
-
-        // Sépare la commande (ex: "sphere") du reste (ex: "0 1 0 0.5")
-        // On utilise split sur un ou plusieurs espaces "\\s+" 
-        String[] parts = line.split("\\s+");
-        String command = parts[0];
-
+    private void processLine() {
         try {
-            // Utilise un switch pour gérer les commandes 
-            switch (command) {
-                // --- Paramètres de Scène ---
-                case "size": // 
-                    scene.setWidth(i(parts[1]));
-                    scene.setHeight(i(parts[2]));
-                    sizeSet = true;
-                    break;
-                case "output": // 
-                    scene.setOutput(parts[1]);
-                    break;
-                case "camera": // 
-                    Point lookFrom = new Point(d(parts[1]), d(parts[2]), d(parts[3]));
-                    Point lookAt = new Point(d(parts[4]), d(parts[5]), d(parts[6]));
-                    Vector up = new Vector(d(parts[7]), d(parts[8]), d(parts[9]));
-                    double fov = d(parts[10]);
-                    scene.setCamera(new Camera(lookFrom, lookAt, up, fov));
-                    cameraSet = true;
-                    break;
+            // --- Objets (Triangles) ---
+            if (command(VERTEX)) { // 
+                addVertex(d(1), d(2), d(3));
+            } else if (command(TRI)) { // 
+                addTriangle(i(1), i(2), i(3));
+            } else if (command(MAXVERTS)) { // 
+                // Nouveau jeu de sommets : les triangles précédents référencent l'ancien
+                flushMeshes();
+                maxVerts = i(1);
+                vertexPositions = new float[maxVerts * 3];
+                vertexCount = 0;
 
-                // --- Matériaux et Lumières ---
-                case "ambient": // 
-                    scene.setAmbient(new Color(d(parts[1]), d(parts[2]), d(parts[3])));
-                    break;
-                case "diffuse": // 
-                    currentDiffuse = new Color(d(parts[1]), d(parts[2]), d(parts[3]));
-                    break;
-                case "specular": // 
-                    currentSpecular = new Color(d(parts[1]), d(parts[2]), d(parts[3]));
-                    break;
-                case "directional": // 
-                    Vector dir = new Vector(d(parts[1]), d(parts[2]), d(parts[3]));
-                    Color colDir = new Color(d(parts[4]), d(parts[5]), d(parts[6]));
-                    scene.addLight(new DirectionalLight(dir, colDir));
-                    break;
-                case "point": // 
-                    Point pos = new Point(d(parts[1]), d(parts[2]), d(parts[3]));
-                    Color colPoint = new Color(d(parts[4]), d(parts[5]), d(parts[6]));
-                    scene.addLight(new PointLight(pos, colPoint));
-                    break;
+            // --- Objets (Formes) ---
+            } else if (command(SPHERE)) { // 
+                validateAmbientDiffuse(scene.getAmbient(), currentDiffuse); // Validation 
+                Point center = new Point(d(1), d(2), d(3));
+                double radius = d(4);
+                scene.addShape(new Sphere(center, radius, currentDiffuse, currentSpecular));
+            } else if (command(PLANE)) { // 
+                validateAmbientDiffuse(scene.getAmbient(), currentDiffuse); // Validation 
+                Point p = new Point(d(1), d(2), d(3));
+                Vector n = new Vector(d(4), d(5), d(6));
+                scene.addShape(new Plane(p, n, currentDiffuse, currentSpecular));
 
-                // --- Objets (Triangles) ---
-                case "maxverts": // 
-                    maxVerts = i(parts[1]);
-                    vertices = new ArrayList<>(maxVerts);
-                    break;
-                case "vertex": // 
-                    vertices.add(new Point(d(parts[1]), d(parts[2]), d(parts[3])));
-                    break;
+            // --- Matériaux et Lumières ---
+            } else if (command(DIFFUSE)) { // 
+                currentDiffuse = new Color(d(1), d(2), d(3));
+            } else if (command(SPECULAR)) { // 
+                currentSpecular = new Color(d(1), d(2), d(3));
+            } else if (command(AMBIENT)) { // 
+                scene.setAmbient(new Color(d(1), d(2), d(3)));
+            } else if (command(DIRECTIONAL)) { // 
+                Vector dir = new Vector(d(1), d(2), d(3));
+                Color colDir = new Color(d(4), d(5), d(6));
+                scene.addLight(new DirectionalLight(dir, colDir));
+            } else if (command(POINT)) { // 
+                Point pos = new Point(d(1), d(2), d(3));
+                Color colPoint = new Color(d(4), d(5), d(6));
+                scene.addLight(new PointLight(pos, colPoint));
 
-                // --- Objets (Formes) ---
-                case "sphere": // 
-                    validateAmbientDiffuse(scene.getAmbient(), currentDiffuse); // Validation 
-                    Point center = new Point(d(parts[1]), d(parts[2]), d(parts[3]));
-                    double radius = d(parts[4]);
-                    scene.addShape(new Sphere(center, radius, currentDiffuse, currentSpecular));
-                    break;
-                case "plane": // 
-                    validateAmbientDiffuse(scene.getAmbient(), currentDiffuse); // Validation 
-                    Point p = new Point(d(parts[1]), d(parts[2]), d(parts[3]));
-                    Vector n = new Vector(d(parts[4]), d(parts[5]), d(parts[6]));
-                    scene.addShape(new Plane(p, n, currentDiffuse, currentSpecular));
-                    break;
-                case "tri": // 
-                    validateAmbientDiffuse(scene.getAmbient(), currentDiffuse); // Validation 
-                    int i1 = i(parts[1]);
-                    int i2 = i(parts[2]);
-                    int i3 = i(parts[3]);
-                    // Validation des indices 
-                    validateVertexIndex(i1);
-                    validateVertexIndex(i2);
-                    validateVertexIndex(i3);
-                    scene.addShape(new Triangle(vertices.get(i1), vertices.get(i2), vertices.get(i3), currentDiffuse, currentSpecular));
-                    break;
+            // --- Paramètres de Scène ---
+            } else if (command(SIZE)) { // 
+                scene.setWidth(i(1));
+                scene.setHeight(i(2));
+                sizeSet = true;
+            } else if (command(OUTPUT)) { // 
+                scene.setOutput(tokens.tokenString(1));
+            } else if (command(MAXDEPTH)) {
+                scene.setMaxDepth(i(1));
+            } else if (command(ANTIALIAS)) {
+                scene.setAntialiasing(i(1), d(2));
+            } else if (command(TONEMAP)) {
+                scene.setToneMapping(ToneMapping.fromName(tokens.tokenString(1)), d(2));
+            } else if (command(GAMMA)) {
+                scene.setGamma(d(1));
+            } else if (command(LIGHTSAMPLES)) {
+                scene.setLightSamples(i(1));
+            } else if (command(CAMERA)) { // 
+                Point lookFrom = new Point(d(1), d(2), d(3));
+                Point lookAt = new Point(d(4), d(5), d(6));
+                Vector up = new Vector(d(7), d(8), d(9));
+                double fov = d(10);
+                scene.setCamera(new Camera(lookFrom, lookAt, up, fov));
+                cameraSet = true;
 
-                default:
-                    System.err.println("Commande inconnue : " + command);
+            } else {
+                System.err.println("Commande inconnue : " + tokens.tokenString(0));
             }
         } catch (Exception e) {
-            System.err.println("Erreur lors de l'analyse de la ligne : '" + line + "'");
+            System.err.println("Erreur lors de l'analyse de la ligne : '" + tokens.lineString() + "'");
             e.printStackTrace();
         }
     }
 
+    /**
+     * Ajoute un triangle (commande 'tri') au maillage du matériau courant.
+     */
+    private void addTriangle(int i1, int i2, int i3) {
+        validateAmbientDiffuse(scene.getAmbient(), currentDiffuse); // Validation 
+        // Validation des indices 
+        validateVertexIndex(i1);
+        validateVertexIndex(i2);
+        validateVertexIndex(i3);
+        meshBuilderFor(currentDiffuse, currentSpecular).add(i1, i2, i3);
+    }
+
+    // --- Parsing parallèle ---
+
+    /**
+     * Parsing parallèle : le fichier est découpé en morceaux analysés en même temps
+     * (lecture, découpage et conversion des nombres), puis les opérations de chaque morceau
+     * sont rejouées dans l'ordre du fichier. Le rejeu applique l'état du parseur (maxverts,
+     * matériau courant, validations) exactement comme le parsing séquentiel.
+     * Le morceau k est rejoué dès qu'il est prêt, pendant que les suivants sont analysés.
+     */
+    private void parseChunks(FileChannel channel) throws IOException {
+        long[] bounds = SceneChunkParser.split(channel, threads * CHUNKS_PER_THREAD);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<SceneChunkParser.Result>> chunks = new ArrayList<>();
+            for (int k = 0; k + 1 < bounds.length; k++) {
+                chunks.add(pool.submit(new SceneChunkParser(channel, bounds[k], bounds[k + 1])));
+            }
+            for (int k = 0; k < chunks.size(); k++) {
+                replay(chunks.get(k).join());
+                chunks.set(k, null); // Libère le morceau dès qu'il est rejoué
+            }
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Rejoue, dans l'ordre, les opérations d'un morceau analysé.
+     */
+    private void replay(SceneChunkParser.Result chunk) throws IOException {
+        int vertex = 0;
+        int triangle = 0;
+        int line = 0;
+        for (int op = 0; op < chunk.opCount; op += 2) {
+            int count = chunk.ops[op + 1];
+            switch (chunk.ops[op]) {
+                case SceneChunkParser.OP_VERTEX:
+                    for (int n = 0; n < count; n++, vertex++) {
+                        addVertex(chunk.vertices[vertex * 3], chunk.vertices[vertex * 3 + 1], chunk.vertices[vertex * 3 + 2]);
+                    }
+                    break;
+                case SceneChunkParser.OP_TRI:
+                    for (int n = 0; n < count; n++, triangle++) {
+                        int i1 = chunk.triangles[triangle * 3];
+                        int i2 = chunk.triangles[triangle * 3 + 1];
+                        int i3 = chunk.triangles[triangle * 3 + 2];
+                        try {
+                            addTriangle(i1, i2, i3);
+                        } catch (Exception e) {
+                            System.err.println("Erreur lors de l'analyse de la ligne : 'tri " + i1 + " " + i2 + " " + i3 + "'");
+                            e.printStackTrace();
+                        }
+                    }
+                    break;
+                default: // OP_LINE : ligne rare, traitée comme en séquentiel
+                    for (int n = 0; n < count; n++, line++) {
+                        tokens = new SceneTokenizer(chunk.lines.get(line));
+                        if (tokens.nextLine()) {
+                            processLine();
+                        }
+                    }
+            }
+        }
+    }
+
     // --- Méthodes de validation ---
 
     /**
@@ -189,24 +357,148 @@ public class SceneFileParser {
     }
 
     /**
-     * Vérifie qu'un indice de vertex est valide.
+     * Vérifie qu'un indice de vertex est valide (et que le vertex a déjà été déclaré).
      * 
      */
     private void validateVertexIndex(int index) {
         if (index < 0 || index >= maxVerts) {
             throw new IndexOutOfBoundsException("Erreur: Indice de vertex '" + index + "' invalide. Doit être < " + maxVerts);
         }
+        if (index >= vertexCount) {
+            throw new IndexOutOfBoundsException("Erreur: Le vertex '" + index + "' n'a pas encore été déclaré.");
+        }
+    }
+
+    // --- Gestion des maillages ---
+
+    /**
+     * Ajoute un sommet au tableau des positions (agrandi si besoin).
+     */
+    private void addVertex(double x, double y, double z) {
+        if (vertexCount * 3 == vertexPositions.length) {
+            vertexPositions = Arrays.copyOf(vertexPositions, Math.max(48, vertexPositions.length * 2));
+        }
+        vertexPositions[vertexCount * 3] = (float) x;
+        vertexPositions[vertexCount * 3 + 1] = (float) y;
+        vertexPositions[vertexCount * 3 + 2] = (float) z;
+        vertexCount++;
+    }
+
+    /**
+     * Retourne le groupe de triangles correspondant au matériau (le crée si besoin).
+     * Le dernier groupe utilisé est testé en premier : les triangles d'un même
+     * matériau se suivent en général dans le fichier. Les autres sont retrouvés
+     * par table de hachage (autant de groupes que de matériaux distincts).
+     */
+    private MeshBuilder meshBuilderFor(Color diffuse, Color specular) {
+        if (lastMeshBuilder != null && lastMeshBuilder.hasMaterial(diffuse, specular)) {
+            return lastMeshBuilder;
+        }
+        MaterialKey key = new MaterialKey(diffuse, specular);
+        MeshBuilder builder = meshBuildersByMaterial.get(key);
+        if (builder == null) {
+            builder = new MeshBuilder(diffuse, specular);
+            meshBuilders.add(builder);
+            meshBuildersByMaterial.put(key, builder);
+        }
+        lastMeshBuilder = builder;
+        return builder;
+    }
+
+    /**
+     * Transforme les groupes de triangles en attente en TriangleMesh,
+     * tous partageant le tableau des sommets courant.
+     */
+    private void flushMeshes() {
+        if (meshBuilders.isEmpty()) {
+            return;
+        }
+        // Pas de copie si le tableau est déjà à la bonne taille (cas où maxverts est exact)
+        float[] positions = vertexCount * 3 == vertexPositions.length
+                ? vertexPositions : Arrays.copyOf(vertexPositions, vertexCount * 3);
+        for (MeshBuilder builder : meshBuilders) {
+            scene.addShape(builder.build(positions, buildAccelerator));
+        }
+        meshBuilders.clear();
+        meshBuildersByMaterial.clear();
+        lastMeshBuilder = null;
     }
 
-    // --- Petits helpers pour convertir les String ---
+    /**
+     * Clé d'un matériau (composantes exactes des couleurs diffuse et spéculaire).
+     */
+    private static final class MaterialKey {
+        private final double[] components;
+
+        MaterialKey(Color diffuse, Color specular) {
+            this.components = new double[] {diffuse.getR(), diffuse.getG(), diffuse.getB(),
+                    specular.getR(), specular.getG(), specular.getB()};
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MaterialKey other && Arrays.equals(components, other.components);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(components);
+        }
+    }
+
+    /**
+     * Liste extensible des indices des triangles d'un même matériau.
+     */
+    private static class MeshBuilder {
+        private final Color diffuse;
+        private final Color specular;
+        private int[] indices = new int[48];
+        private int size = 0;
+
+        MeshBuilder(Color diffuse, Color specular) {
+            this.diffuse = diffuse;
+            this.specular = specular;
+        }
+
+        boolean hasMaterial(Color d, Color s) {
+            return d.getR() == diffuse.getR() && d.getG() == diffuse.getG() && d.getB() == diffuse.getB()
+                    && s.getR() == specular.getR() && s.getG() == specular.getG() && s.getB() == specular.getB();
+        }
+
+        void add(int i1, int i2, int i3) {
+            if (size + 3 > indices.length) {
+                indices = Arrays.copyOf(indices, indices.length * 2);
+            }
+            indices[size++] = i1;
+            indices[size++] = i2;
+            indices[size++] = i3;
+        }
+
+        TriangleMesh build(float[] positions, boolean buildBVH) {
+            int[] meshIndices = Arrays.copyOf(indices, size);
+            return buildBVH ? new TriangleMesh(positions, meshIndices, diffuse, specular)
+                    : TriangleMesh.withoutBVH(positions, meshIndices, diffuse, specular);
+        }
+    }
+
+    // --- Petits helpers pour lire les tokens de la ligne courante ---
+
+    /** Vrai si la ligne courante est la commande donnée */
+    private boolean command(byte[] name) {
+        return tokens.tokenEquals(0, name);
+    }
+
+    /** Convertit le token k en double  */
+    private double d(int k) {
+        return tokens.parseDouble(k);
+    }
 
-    /** Convertit String en double  */
-    private double d(String s) {
-        return Double.parseDouble(s);
+    /** Convertit le token k en int  */
+    private int i(int k) {
+        return tokens.parseInt(k);
     }
 
-    /** Convertit String en int  */
-    private int i(String s) {
-        return Integer.parseInt(s);
+    static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,375 @@
+package raytracer.parsing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Découpe un fichier de scène en lignes et en mots ("tokens"), directement sur les octets.
+ * <p>
+ * Le fichier est lu par blocs dans un tampon réutilisé : aucune String ni String[]
+ * n'est créée par ligne. Un token est repéré par ses positions (début, fin) dans le tampon,
+ * et les nombres sont convertis sans passer par une String (cf. parseDouble).
+ * Le tokenizer peut ne lire qu'une partie du fichier (utile pour le parsing parallèle).
+ */
+class SceneTokenizer {
+
+    private static final int BUFFER_SIZE = 1 << 20; // 1 Mo
+
+    // Puissances de 10 représentables exactement par un double
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final FileChannel channel;
+    private long position;      // Prochain octet du fichier à lire
+    private final long end;     // Fin (exclue) de la zone à lire
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferStart = 0; // Début des octets non encore consommés
+    private int bufferEnd = 0;   // Fin des octets valides
+    private boolean eof = false;
+
+    // Ligne courante
+    private int lineStart;
+    private int lineEnd;
+    private int[] tokenStart = new int[16];
+    private int[] tokenEnd = new int[16];
+    private int tokenCount = 0;
+
+    /**
+     * Tokenizer sur tout le fichier.
+     */
+    SceneTokenizer(FileChannel channel) throws IOException {
+        this(channel, 0, channel.size());
+    }
+
+    /**
+     * Tokenizer sur la zone [start, end[ du fichier (start doit être un début de ligne).
+     */
+    SceneTokenizer(FileChannel channel, long start, long end) {
+        this.channel = channel;
+        this.position = start;
+        this.end = end;
+    }
+
+    /**
+     * Tokenizer sur un contenu déjà en mémoire (ex: une ligne mise de côté par le parsing parallèle).
+     */
+    SceneTokenizer(byte[] content) {
+        this.channel = null;
+        this.position = 0;
+        this.end = 0;
+        this.buffer = content;
+        this.bufferEnd = content.length;
+        this.eof = true;
+    }
+
+    /**
+     * Passe à la ligne suivante non vide et qui n'est pas un commentaire.
+     * @return false s'il n'y a plus de ligne.
+     */
+    boolean nextLine() throws IOException {
+        while (readLine()) {
+            tokenize();
+            if (tokenCount > 0 && buffer[tokenStart[0]] != '#') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Repère la prochaine ligne brute dans le tampon (en le remplissant si besoin).
+     */
+    private boolean readLine() throws IOException {
+        int scan = bufferStart;
+        while (true) {
+            // Recherche de la fin de ligne dans les octets déjà lus
+            for (int i = scan; i < bufferEnd; i++) {
+                if (buffer[i] == '\n') {
+                    lineStart = bufferStart;
+                    lineEnd = i;
+                    bufferStart = i + 1;
+                    return true;
+                }
+            }
+            scan = bufferEnd;
+            if (eof) {
+                // Dernière ligne sans '\n' final
+                if (bufferStart < bufferEnd) {
+                    lineStart = bufferStart;
+                    lineEnd = bufferEnd;
+                    bufferStart = bufferEnd;
+                    return true;
+                }
+                return false;
+            }
+            int consumed = bufferStart;
+            fill();
+            scan -= consumed;
+        }
+    }
+
+    /**
+     * Recopie la fin de ligne en cours au début du tampon et lit la suite du fichier.
+     */
+    private void fill() throws IOException {
+        int remaining = bufferEnd - bufferStart;
+        if (bufferStart > 0) {
+            System.arraycopy(buffer, bufferStart, buffer, 0, remaining);
+        } else if (remaining == buffer.length) {
+            // Ligne plus longue que le tampon : on l'agrandit
+            byte[] bigger = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, bigger, 0, remaining);
+            buffer = bigger;
+        }
+        bufferStart = 0;
+        bufferEnd = remaining;
+
+        int toRead = (int) Math.min(buffer.length - bufferEnd, end - position);
+        if (toRead <= 0) {
+            eof = true;
+            return;
+        }
+        ByteBuffer bb = ByteBuffer.wrap(buffer, bufferEnd, toRead);
+        while (bb.hasRemaining()) {
+            int n = channel.read(bb, position);
+            if (n < 0) {
+                eof = true;
+                break;
+            }
+            position += n;
+        }
+        bufferEnd = bb.position();
+        if (position >= end) {
+            eof = true;
+        }
+    }
+
+    /**
+     * Découpe la ligne courante en tokens séparés par des blancs (espaces, tabulations, '\r'...).
+     * Les octets sont comparés non signés : ceux d'un caractère UTF-8 non ASCII (>= 0x80) font partie du token.
+     */
+    private void tokenize() {
+        tokenCount = 0;
+        int i = lineStart;
+        while (i < lineEnd) {
+            while (i < lineEnd && (buffer[i] & 0xFF) <= ' ') {
+                i++;
+            }
+            if (i >= lineEnd) {
+                break;
+            }
+            int start = i;
+            while (i < lineEnd && (buffer[i] & 0xFF) > ' ') {
+                i++;
+            }
+            if (tokenCount == tokenStart.length) {
+                tokenStart = Arrays.copyOf(tokenStart, tokenCount * 2);
+                tokenEnd = Arrays.copyOf(tokenEnd, tokenCount * 2);
+            }
+            tokenStart[tokenCount] = start;
+            tokenEnd[tokenCount] = i;
+            tokenCount++;
+        }
+    }
+
+    // --- Accès aux tokens de la ligne courante ---
+
+    int tokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * @return true si le token k est exactement égal au mot donné (ASCII).
+     */
+    boolean tokenEquals(int k, byte[] word) {
+        int start = tokenStart[k];
+        int length = tokenEnd[k] - start;
+        if (length != word.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[start + i] != word[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Le token k sous forme de String (à réserver aux cas rares : nom de fichier, erreurs).
+     * @throws IndexOutOfBoundsException si la ligne n'a pas de token k.
+     */
+    String tokenString(int k) {
+        checkToken(k);
+        return new String(buffer, tokenStart[k], tokenEnd[k] - tokenStart[k], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return La ligne courante (sans blancs autour), pour les messages d'erreur.
+     */
+    String lineString() {
+        if (tokenCount == 0) {
+            return "";
+        }
+        int start = tokenStart[0];
+        return new String(buffer, start, tokenEnd[tokenCount - 1] - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Une copie des octets de la ligne courante.
+     */
+    byte[] lineBytes() {
+        return Arrays.copyOfRange(buffer, lineStart, lineEnd);
+    }
+
+    /**
+     * Convertit le token k en entier.
+     * @throws NumberFormatException si le token n'est pas un entier valide.
+     */
+    int parseInt(int k) {
+        checkToken(k);
+        int i = tokenStart[k];
+        int end = tokenEnd[k];
+        boolean negative = false;
+        if (buffer[i] == '-' || buffer[i] == '+') {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        if (i == end) {
+            throw numberFormat(k);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw numberFormat(k);
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw numberFormat(k);
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw numberFormat(k);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Convertit le token k en double, sans créer de String.
+     * <p>
+     * Cas courant (au plus 15 chiffres significatifs, exposant décimal modéré) : la mantisse
+     * entière et la puissance de 10 sont des doubles exacts, donc une seule multiplication
+     * (ou division) donne le même résultat, correctement arrondi, que Double.parseDouble.
+     * Les autres cas (beaucoup de chiffres, NaN, notation hexadécimale...) sont délégués
+     * à Double.parseDouble.
+     *
+     * @throws NumberFormatException si le token n'est pas un nombre valide.
+     */
+    double parseDouble(int k) {
+        checkToken(k);
+        int i = tokenStart[k];
+        int end = tokenEnd[k];
+        boolean negative = false;
+        if (buffer[i] == '-' || buffer[i] == '+') {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        boolean dot = false;
+        for (; i < end; i++) {
+            byte c = buffer[i];
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (mantissa == 0 && c == '0') {
+                    // Zéros non significatifs
+                    if (dot) {
+                        exponent--;
+                    }
+                    continue;
+                }
+                if (significantDigits >= 15) {
+                    return slowParseDouble(k);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                significantDigits++;
+                if (dot) {
+                    exponent--;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else if ((c == 'e' || c == 'E') && anyDigit) {
+                exponent += parseExponent(k, i + 1, end);
+                i = end;
+                break;
+            } else {
+                return slowParseDouble(k);
+            }
+        }
+        if (!anyDigit) {
+            return slowParseDouble(k); // Ex: "NaN", "Infinity", "." -> laissé à Double.parseDouble
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (exponent >= 0 && exponent < POW10.length) {
+            value = mantissa * POW10[exponent];
+        } else if (exponent < 0 && -exponent < POW10.length) {
+            value = mantissa / POW10[-exponent];
+        } else {
+            return slowParseDouble(k);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Lit l'exposant (après 'e'), avec son signe éventuel.
+     */
+    private int parseExponent(int k, int i, int end) {
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        if (i == end) {
+            throw numberFormat(k);
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw numberFormat(k);
+            }
+            if (value < 100000) {
+                value = value * 10 + digit; // Au-delà, le résultat est 0 ou l'infini de toute façon
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    private double slowParseDouble(int k) {
+        return Double.parseDouble(tokenString(k));
+    }
+
+    private void checkToken(int k) {
+        if (k < 0 || k >= tokenCount) {
+            throw new IndexOutOfBoundsException("Paramètre manquant (position " + k + ")");
+        }
+    }
+
+    private NumberFormatException numberFormat(int k) {
+        return new NumberFormatException("Nombre invalide : \"" + tokenString(k) + "\"");
+    }
+}
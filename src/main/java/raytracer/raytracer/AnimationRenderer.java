@@ -0,0 +1,180 @@
+package raytracer.raytracer;
+
+import raytracer.stats.RenderStats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Rendu d'une animation : la même scène vue depuis une suite de caméras (cf. CameraPathParser).
+ * <p>
+ * La scène n'est analysée qu'une fois et sa BVH construite une fois : chaque image est une vue
+ * de la scène (cf. Scene.withCamera) qui partage ses formes, ses lumières et sa BVH. Toutes les
+ * images sont rendues par les mêmes threads et le même traceur (arbre de lumières compris), créés
+ * une fois par animation. Les images sont rendues l'une après l'autre, ou plusieurs à la fois (cf.
+ * setConcurrentFrames), ce qui occupe mieux les cœurs pour de petites images (pendant l'écriture
+ * d'une image, les threads rendent les autres). L'image i est écrite dans le fichier de sortie
+ * de la scène numéroté (cf. frameOutput).
+ */
+public class AnimationRenderer {
+
+    /**
+     * Reçoit la fin de chaque image.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Appelé après l'écriture de chaque image (depuis le thread qui l'a rendue).
+         * @param frame Numéro de l'image (à partir de 1).
+         * @param output Fichier de l'image.
+         * @param nanos Temps de rendu et d'écriture de l'image.
+         */
+        void frameRendered(int frame, String output, long nanos);
+    }
+
+    private final Scene scene;
+    private final List<Camera> cameras;
+    private final int threads;
+    private int concurrentFrames = 1;
+    private Listener listener;
+
+    // Statistiques de la dernière animation (toutes images confondues)
+    private volatile RenderStats stats;
+
+    /**
+     * Crée un moteur utilisant tous les cœurs disponibles.
+     */
+    public AnimationRenderer(Scene scene, List<Camera> cameras) {
+        this(scene, cameras, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param scene La scène (sa caméra est ignorée).
+     * @param cameras La caméra de chaque image.
+     * @param threads Nombre de threads de rendu (>= 1).
+     */
+    public AnimationRenderer(Scene scene, List<Camera> cameras, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être >= 1 : " + threads);
+        }
+        this.scene = scene;
+        this.cameras = List.copyOf(cameras);
+        this.threads = threads;
+    }
+
+    /**
+     * @param frames Nombre d'images rendues en même temps (>= 1), par les mêmes threads.
+     */
+    public void setConcurrentFrames(int frames) {
+        if (frames < 1) {
+            throw new IllegalArgumentException("Le nombre d'images simultanées doit être >= 1 : " + frames);
+        }
+        this.concurrentFrames = frames;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return Les statistiques de la dernière animation (null si aucun rendu n'a été lancé).
+     */
+    public RenderStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return Le fichier de l'image 'frame' : le numéro, sur au moins 4 chiffres, est inséré
+     * avant l'extension (image.png -> image_0001.png).
+     */
+    public static String frameOutput(String output, int frame, int frameCount) {
+        int digits = Math.max(4, String.valueOf(frameCount).length());
+        String number = String.format("_%0" + digits + "d", frame);
+        int dot = output.lastIndexOf('.');
+        int separator = Math.max(output.lastIndexOf('/'), output.lastIndexOf('\\'));
+        if (dot > separator + 1) {
+            return output.substring(0, dot) + number + output.substring(dot);
+        }
+        return output + number;
+    }
+
+    /**
+     * Rend toutes les images et les écrit dans leurs fichiers.
+     * @return Les fichiers écrits, dans l'ordre des images.
+     * @throws IOException Si une image ne peut être écrite (les images suivantes ne sont pas rendues).
+     */
+    public List<String> renderToFiles() throws IOException {
+        RenderStats renderStats = new RenderStats();
+        this.stats = renderStats;
+        if (scene.getAccelerator() == null) {
+            scene.buildAccelerator();
+        }
+        List<String> outputs = new ArrayList<>();
+        for (int frame = 1; frame <= cameras.size(); frame++) {
+            outputs.add(frameOutput(scene.getOutput(), frame, cameras.size()));
+        }
+
+        RayTracer tracer = new RayTracer(scene);
+        ForkJoinPool renderPool = new ForkJoinPool(threads);
+        int frames = Math.min(concurrentFrames, cameras.size());
+        if (frames <= 1) {
+            try {
+                for (int frame = 1; frame <= cameras.size(); frame++) {
+                    renderFrame(frame, outputs.get(frame - 1), tracer, renderPool, renderStats);
+                }
+            } finally {
+                renderPool.shutdown();
+            }
+            return outputs;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(frames);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int frame = 1; frame <= cameras.size(); frame++) {
+                int f = frame;
+                results.add(pool.submit(() -> {
+                    renderFrame(f, outputs.get(f - 1), tracer, renderPool, renderStats);
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Rendu de l'animation interrompu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Erreur lors du rendu de l'animation", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            renderPool.shutdown();
+        }
+        return outputs;
+    }
+
+    private void renderFrame(int frame, String output, RayTracer tracer, ForkJoinPool renderPool,
+                             RenderStats renderStats) throws IOException {
+        long start = System.nanoTime();
+        Renderer renderer = new Renderer(scene.withCamera(cameras.get(frame - 1), output), threads);
+        renderer.setPool(renderPool);
+        renderer.setTracer(tracer);
+        renderer.renderToFile();
+        renderStats.merge(renderer.getStats());
+        if (listener != null) {
+            listener.frameRendered(frame, output, System.nanoTime() - start);
+        }
+    }
+}
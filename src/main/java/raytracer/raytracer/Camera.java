@@ -1,23 +1,64 @@
 package raytracer.raytracer;
 
 import raytracer.geometry.Point;
+import raytracer.geometry.Ray;
 import raytracer.geometry.Vector;
 
 /**
  * Stocke les informations de la caméra (point de vue, cible, etc.).
+ * <p>
+ * Le repère de la caméra (u, v, w) et la tangente du demi-angle de vue sont calculés une fois
+ * à la construction. Pour le rendu d'une image, les directions des rayons primaires sont
+ * précalculées par colonne et par ligne (cf. RayTable) : la direction du pixel (x, y) est
+ * la somme de deux vecteurs, sans trigonométrie ni normalisation.
  */
 public class Camera {
 
-    private Point lookFrom;
-    private Point lookAt;
-    private Vector up;
-    private double fov; // en degrés
+    private final Point lookFrom;
+    private final Point lookAt;
+    private final Vector up;
+    private final double fov; // en degrés
+
+    // Repère de la caméra : w pointe vers l'arrière, u vers la droite, v vers le haut
+    private final double ux, uy, uz;
+    private final double vx, vy, vz;
+    private final double wx, wy, wz;
+    // Demi-hauteur (en unités monde) de l'image placée à distance 1
+    private final double halfHeight;
+
+    // Dernière table calculée (la même image est en général rendue plusieurs fois)
+    private volatile RayTable rayTable;
 
     public Camera(Point lookFrom, Point lookAt, Vector up, double fov) {
         this.lookFrom = lookFrom;
         this.lookAt = lookAt;
         this.up = up;
         this.fov = fov;
+
+        // w = normalize(lookFrom - lookAt)
+        double x = lookFrom.getX() - lookAt.getX();
+        double y = lookFrom.getY() - lookAt.getY();
+        double z = lookFrom.getZ() - lookAt.getZ();
+        double len = Math.sqrt(x * x + y * y + z * z);
+        wx = x / len;
+        wy = y / len;
+        wz = z / len;
+
+        // u = normalize(up x w)
+        x = up.getY() * wz - up.getZ() * wy;
+        y = up.getZ() * wx - up.getX() * wz;
+        z = up.getX() * wy - up.getY() * wx;
+        len = Math.sqrt(x * x + y * y + z * z);
+        ux = x / len;
+        uy = y / len;
+        uz = z / len;
+
+        // v = w x u
+        vx = wy * uz - wz * uy;
+        vy = wz * ux - wx * uz;
+        vz = wx * uy - wy * ux;
+
+        halfHeight = Math.tan(Math.toRadians(fov) / 2);
     }
 
     // --- Getters ---
@@ -25,4 +66,103 @@ public class Camera {
     public Point getLookAt() { return lookAt; }
     public Vector getUp() { return up; }
     public double getFov() { return fov; }
-}
\ No newline at end of file
+
+    /**
+     * Génère le rayon primaire passant par un point de l'image.
+     * @see #generateRay(double, double, int, int, Ray)
+     * @return Un nouveau rayon partant de lookFrom.
+     */
+    public Ray generateRay(double px, double py, int width, int height) {
+        return generateRay(px, py, width, height, new Ray());
+    }
+
+    /**
+     * Génère le rayon primaire passant par un point de l'image, dans un rayon existant.
+     * La direction n'est pas normalisée : c'est le vecteur allant de lookFrom au point de
+     * l'image placée à distance 1. Pour les centres de pixels, le résultat est identique
+     * à celui de RayTable.generateRay.
+     *
+     * @param px Abscisse dans l'image, en pixels (le centre du pixel i est en i + 0.5).
+     * @param py Ordonnée dans l'image, en pixels (0 en haut de l'image).
+     * @param width Largeur de l'image.
+     * @param height Hauteur de l'image.
+     * @param ray Le rayon à remplir (origine lookFrom).
+     * @return ray
+     */
+    public Ray generateRay(double px, double py, int width, int height, Ray ray) {
+        double a = screenX(px, width, height);
+        double b = screenY(py, height);
+        return ray.set(lookFrom.getX(), lookFrom.getY(), lookFrom.getZ(),
+                ux * a + (vx * b - wx), uy * a + (vy * b - wy), uz * a + (vz * b - wz));
+    }
+
+    /**
+     * @return La table des directions des rayons primaires pour une image width x height
+     * (recalculée seulement si la taille change).
+     */
+    public RayTable rayTable(int width, int height) {
+        RayTable table = rayTable;
+        if (table == null || table.width != width || table.height != height) {
+            table = new RayTable(width, height);
+            rayTable = table;
+        }
+        return table;
+    }
+
+    // Coordonnées (en unités monde) d'un point de l'image placée à distance 1
+    private double screenX(double px, int width, int height) {
+        double halfWidth = halfHeight * width / height;
+        return halfWidth * (px - width / 2.0) / (width / 2.0);
+    }
+
+    private double screenY(double py, int height) {
+        return halfHeight * (height / 2.0 - py) / (height / 2.0);
+    }
+
+    /**
+     * Directions des rayons primaires passant par les centres des pixels d'une image, séparées
+     * en une partie par colonne (u * a) et une partie par ligne (v * b - w).
+     * Une table est immuable et peut être partagée entre les threads.
+     */
+    public final class RayTable {
+
+        private final int width;
+        private final int height;
+        private final double[] columns; // (x, y, z) par colonne
+        private final double[] rows;    // (x, y, z) par ligne
+
+        private RayTable(int width, int height) {
+            this.width = width;
+            this.height = height;
+            columns = new double[width * 3];
+            for (int x = 0; x < width; x++) {
+                double a = screenX(x + 0.5, width, height);
+                columns[x * 3] = ux * a;
+                columns[x * 3 + 1] = uy * a;
+                columns[x * 3 + 2] = uz * a;
+            }
+            rows = new double[height * 3];
+            for (int y = 0; y < height; y++) {
+                double b = screenY(y + 0.5, height);
+                rows[y * 3] = vx * b - wx;
+                rows[y * 3 + 1] = vy * b - wy;
+                rows[y * 3 + 2] = vz * b - wz;
+            }
+        }
+
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+
+        /**
+         * Rayon primaire passant par le centre du pixel (x, y).
+         * @param ray Le rayon à remplir (origine lookFrom, direction non normalisée).
+         * @return ray
+         */
+        public Ray generateRay(int x, int y, Ray ray) {
+            int c = x * 3;
+            int r = y * 3;
+            return ray.set(lookFrom.getX(), lookFrom.getY(), lookFrom.getZ(),
+                    columns[c] + rows[r], columns[c + 1] + rows[r + 1], columns[c + 2] + rows[r + 2]);
+        }
+    }
+}
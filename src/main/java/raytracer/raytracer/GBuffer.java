@@ -0,0 +1,190 @@
+package raytracer.raytracer;
+
+import raytracer.geometry.AbstractVec3;
+import raytracer.geometry.Ray;
+import raytracer.geometry.Shape;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache des intersections primaires d'un rendu (G-buffer), pour recalculer l'éclairage sans relancer
+ * les rayons primaires quand seuls les matériaux, l'ambiante ou les couleurs des lumières changent
+ * (cf. Renderer.setGBuffer).
+ * <p>
+ * Pour chaque pixel sont gardés la forme touchée (indice dans Scene.getShapes()), la primitive et la
+ * distance t : le point et la normale sont recalculés exactement comme au premier rendu, l'image est
+ * donc identique à un rendu complet. Avec au plus 64 lumières (et sans échantillonnage des lumières),
+ * la visibilité de chaque lumière depuis le point touché est aussi gardée : tant que les lumières ne
+ * bougent pas, le point primaire est éclairé sans rayon d'ombre. Les réflexions sont toujours tracées.
+ * <p>
+ * Le cache n'est réutilisé que pour une scène de même taille, même caméra et même géométrie
+ * (formes dans le même ordre, comparées valeur par valeur) ; sinon le rendu est complet et le remplit.
+ */
+public final class GBuffer {
+
+    /** Nombre maximal de lumières dont la visibilité est gardée (un bit par lumière). */
+    public static final int MAX_LIGHTS = Long.SIZE;
+
+    // Scène enregistrée (les formes et la caméra sont immuables ; les lumières sont recopiées)
+    private int width;
+    private int height;
+    private Camera camera;
+    private List<Shape> shapes;
+    private double[] lightGeometry; // Position ou direction de chaque lumière (null : visibilité non gardée)
+
+    // Par pixel
+    int[] shapeIndices; // -1 : aucune forme
+    int[] primitives;
+    double[] distances;
+    long[] visibility;  // Bit i : lumière i visible depuis le point touché
+
+    // Rendu en cours : relecture du cache (formes de la nouvelle scène) ou enregistrement
+    private boolean reshading;
+    private boolean replayVisibility;
+    private Shape[] sceneShapes;
+    private Map<Shape, Integer> shapeIndex;
+
+    /**
+     * @return true si le cache a été rempli par un rendu de la scène, ou d'une scène de même taille,
+     * même caméra et même géométrie.
+     */
+    public boolean isValidFor(Scene scene) {
+        if (shapes == null || scene.getWidth() != width || scene.getHeight() != height
+                || !SceneDiff.sameCamera(camera, scene.getCamera())) {
+            return false;
+        }
+        List<Shape> other = scene.getShapes();
+        if (other.size() != shapes.size()) {
+            return false;
+        }
+        for (int i = 0; i < shapes.size(); i++) {
+            if (!SceneDiff.sameGeometry(shapes.get(i), other.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true si la visibilité des lumières gardée vaut pour cette scène (mêmes lumières, aux mêmes places).
+     */
+    boolean hasVisibilityFor(Scene scene) {
+        return lightGeometry != null && Arrays.equals(lightGeometry, lightGeometry(scene.getLights()));
+    }
+
+    /**
+     * Vide le cache (le prochain rendu sera complet).
+     */
+    public void clear() {
+        reshading = false;
+        sceneShapes = null;
+        shapeIndex = null;
+        shapes = null;
+        camera = null;
+        lightGeometry = null;
+        shapeIndices = primitives = null;
+        distances = null;
+        visibility = null;
+    }
+
+    /**
+     * Début d'un rendu complet de la scène : le cache sera relu s'il est valide pour elle,
+     * sinon rempli par ce rendu.
+     */
+    void begin(Scene scene, RayTracer tracer) {
+        reshading = isValidFor(scene);
+        if (reshading) {
+            sceneShapes = scene.getShapes().toArray(new Shape[0]);
+            replayVisibility = visibility != null && tracer.canCacheVisibility() && hasVisibilityFor(scene);
+            shapeIndex = null;
+        } else {
+            reset(scene, tracer.canCacheVisibility());
+            replayVisibility = false;
+            sceneShapes = null;
+            shapeIndex = new IdentityHashMap<>();
+            for (int i = 0; i < shapes.size(); i++) {
+                shapeIndex.put(shapes.get(i), i);
+            }
+        }
+    }
+
+    /**
+     * @return true si le rendu en cours relit le cache (aucun rayon primaire).
+     */
+    boolean isReshading() {
+        return reshading;
+    }
+
+    /**
+     * Prépare les variables de travail d'un thread pour le rendu en cours.
+     */
+    void prepare(TraceContext ctx) {
+        ctx.recordVisibility = !reshading && visibility != null;
+        ctx.replayVisibility = replayVisibility;
+    }
+
+    /**
+     * Recalcule la couleur du pixel i depuis le cache (cf. RayTracer.reshade).
+     * @param ray Le rayon primaire du pixel.
+     */
+    void reshade(RayTracer tracer, Ray ray, int i, TraceContext ctx) {
+        int shape = shapeIndices[i];
+        if (visibility != null) {
+            ctx.visibility = visibility[i];
+        }
+        tracer.reshade(ray, shape < 0 ? null : sceneShapes[shape], primitives[i], distances[i], ctx);
+    }
+
+    /**
+     * Prépare le cache pour l'enregistrement d'un rendu complet de la scène.
+     * @param withVisibility true si la visibilité des lumières est enregistrée.
+     */
+    void reset(Scene scene, boolean withVisibility) {
+        width = scene.getWidth();
+        height = scene.getHeight();
+        camera = scene.getCamera();
+        shapes = List.copyOf(scene.getShapes());
+        lightGeometry = withVisibility ? lightGeometry(scene.getLights()) : null;
+        int size = width * height;
+        if (shapeIndices == null || shapeIndices.length != size) {
+            shapeIndices = new int[size];
+            primitives = new int[size];
+            distances = new double[size];
+        }
+        visibility = withVisibility ? new long[size] : null;
+    }
+
+    /**
+     * Enregistre l'intersection primaire calculée par le dernier RayTracer.trace pour le pixel i.
+     */
+    void store(int i, TraceContext ctx) {
+        Shape shape = ctx.primaryShape;
+        shapeIndices[i] = shape == null ? -1 : shapeIndex.get(shape);
+        primitives[i] = ctx.primaryPrimitive;
+        distances[i] = ctx.primaryT;
+        if (visibility != null) {
+            visibility[i] = ctx.visibility;
+        }
+    }
+
+    private static double[] lightGeometry(List<AbstractLight> lights) {
+        double[] values = new double[lights.size() * 4];
+        for (int i = 0; i < lights.size(); i++) {
+            AbstractLight light = lights.get(i);
+            AbstractVec3 v;
+            if (light instanceof PointLight point) {
+                v = point.getPosition();
+                values[i * 4 + 3] = 1;
+            } else {
+                v = ((DirectionalLight) light).getDirection();
+            }
+            values[i * 4] = v.getX();
+            values[i * 4 + 1] = v.getY();
+            values[i * 4 + 2] = v.getZ();
+        }
+        return values;
+    }
+}
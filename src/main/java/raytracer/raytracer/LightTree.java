@@ -0,0 +1,191 @@
+package raytracer.raytracer;
+
+import raytracer.geometry.AbstractVec3;
+import raytracer.geometry.Point;
+import raytracer.imaging.Color;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hiérarchie de lumières ponctuelles, pour l'échantillonnage d'importance des scènes
+ * qui en contiennent beaucoup (cf. Scene.setLightSamples).
+ * <p>
+ * Chaque nœud garde la boîte englobant la position de ses lumières et leur puissance totale
+ * (somme des composantes de leur couleur). Son importance pour un point de surface est sa
+ * puissance multipliée par une borne du cosinus (loi de Lambert) sur toute la boîte : elle est
+ * nulle si toutes ses lumières sont derrière la surface, qui sont ainsi ignorées d'un coup.
+ * Une lumière est tirée en descendant l'arbre, en choisissant chaque enfant avec une probabilité
+ * proportionnelle à son importance : le coût d'un tirage est proportionnel à la profondeur
+ * (log du nombre de lumières), pas au nombre de lumières.
+ * <p>
+ * L'arbre est construit par découpes à la médiane de l'axe le plus long, avec une lumière par
+ * feuille, et stocké à plat (enfant gauche = nœud + 1). Il est immuable et partagé entre les threads.
+ */
+final class LightTree {
+
+    private final int nodeCount;
+    private final double[] bounds; // 6 par nœud : min xyz, max xyz
+    private final double[] power;  // Puissance totale des lumières du nœud
+    private final int[] right;     // Enfant droit, ou -1 - (indice dans Scene.getLights()) pour une feuille
+
+    // Construction
+    private final double[] positions; // xyz par lumière
+    private int next;
+
+    /**
+     * Construit l'arbre sur les lumières ponctuelles de puissance non nulle.
+     * @param lights Les lumières de la scène (les autres types sont ignorés).
+     */
+    LightTree(List<AbstractLight> lights) {
+        int[] order = new int[lights.size()];
+        int count = 0;
+        positions = new double[lights.size() * 3];
+        for (int i = 0; i < lights.size(); i++) {
+            if (lights.get(i) instanceof PointLight light && powerOf(light) > 0) {
+                Point p = light.getPosition();
+                positions[i * 3] = p.getX();
+                positions[i * 3 + 1] = p.getY();
+                positions[i * 3 + 2] = p.getZ();
+                order[count++] = i;
+            }
+        }
+
+        nodeCount = Math.max(0, 2 * count - 1);
+        bounds = new double[nodeCount * 6];
+        power = new double[nodeCount];
+        right = new int[nodeCount];
+        if (count > 0) {
+            build(lights, Arrays.copyOf(order, count), 0, count);
+        }
+    }
+
+    /**
+     * @return Le nombre de lumières de l'arbre.
+     */
+    int size() {
+        return (nodeCount + 1) / 2;
+    }
+
+    // Puissance d'une lumière : somme des composantes de sa couleur
+    private static double powerOf(AbstractLight light) {
+        Color c = light.getColor();
+        return c.getR() + c.getG() + c.getB();
+    }
+
+    private int build(List<AbstractLight> lights, int[] order, int from, int to) {
+        int node = next++;
+        double minX = Double.POSITIVE_INFINITY, minY = minX, minZ = minX;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = maxX, maxZ = maxX;
+        double total = 0;
+        for (int k = from; k < to; k++) {
+            int i = order[k];
+            double x = positions[i * 3], y = positions[i * 3 + 1], z = positions[i * 3 + 2];
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+            total += powerOf(lights.get(i));
+        }
+        int b = node * 6;
+        bounds[b] = minX;
+        bounds[b + 1] = minY;
+        bounds[b + 2] = minZ;
+        bounds[b + 3] = maxX;
+        bounds[b + 4] = maxY;
+        bounds[b + 5] = maxZ;
+        power[node] = total;
+
+        if (to - from == 1) {
+            right[node] = -1 - order[from];
+            return node;
+        }
+
+        // Découpe à la médiane de l'axe le plus long
+        double ex = maxX - minX, ey = maxY - minY, ez = maxZ - minZ;
+        int axis = ex >= ey && ex >= ez ? 0 : ey >= ez ? 1 : 2;
+        Integer[] sorted = new Integer[to - from];
+        for (int k = from; k < to; k++) {
+            sorted[k - from] = order[k];
+        }
+        Arrays.sort(sorted, (i, j) -> Double.compare(positions[i * 3 + axis], positions[j * 3 + axis]));
+        for (int k = from; k < to; k++) {
+            order[k] = sorted[k - from];
+        }
+        int mid = (from + to) >>> 1;
+        build(lights, order, from, mid); // = node + 1
+        right[node] = build(lights, order, mid, to);
+        return node;
+    }
+
+    /**
+     * Tire une lumière pour le point p de normale n, avec une probabilité proportionnelle
+     * à l'importance de chaque nœud traversé.
+     * @param u Nombre aléatoire dans [0, 1[.
+     * @param ctx Reçoit la probabilité de la lumière tirée (ctx.lightPdf).
+     * @return L'indice de la lumière dans Scene.getLights(), ou -1 si aucune lumière n'éclaire le point.
+     */
+    int sample(AbstractVec3 p, AbstractVec3 n, double u, TraceContext ctx) {
+        if (nodeCount == 0 || importance(0, p, n) <= 0) {
+            return -1;
+        }
+        int node = 0;
+        double pdf = 1;
+        while (right[node] >= 0) {
+            int left = node + 1;
+            double il = importance(left, p, n);
+            double ir = importance(right[node], p, n);
+            // Borne du parent > 0 mais enfants nuls (ex: p dans la sphère du parent, lumières sous
+            // l'horizon des deux côtés) : aucune lumière n'éclaire le point
+            if (il + ir <= 0) {
+                return -1;
+            }
+            double pl = il / (il + ir);
+            // Un enfant d'importance nulle n'est jamais choisi
+            if (ir <= 0 || il > 0 && u < pl) {
+                u = Math.min(u / pl, 1);
+                pdf *= pl;
+                node = left;
+            } else {
+                u = Math.max(0, (u - pl) / (1 - pl));
+                pdf *= 1 - pl;
+                node = right[node];
+            }
+        }
+        ctx.lightPdf = pdf;
+        return -1 - right[node];
+    }
+
+    /**
+     * Importance d'un nœud : puissance x borne supérieure de cos(n, p -> lumière) sur sa boîte.
+     * La boîte est vue depuis p dans un cône (demi-angle alpha, autour de la direction de son
+     * centre, à l'angle theta de n) : le cosinus ne dépasse pas cos(max(0, theta - alpha)).
+     */
+    private double importance(int node, AbstractVec3 p, AbstractVec3 n) {
+        int b = node * 6;
+        double cx = (bounds[b] + bounds[b + 3]) * 0.5 - p.getX();
+        double cy = (bounds[b + 1] + bounds[b + 4]) * 0.5 - p.getY();
+        double cz = (bounds[b + 2] + bounds[b + 5]) * 0.5 - p.getZ();
+        double hx = (bounds[b + 3] - bounds[b]) * 0.5;
+        double hy = (bounds[b + 4] - bounds[b + 1]) * 0.5;
+        double hz = (bounds[b + 5] - bounds[b + 2]) * 0.5;
+        double r2 = hx * hx + hy * hy + hz * hz;
+        double d2 = cx * cx + cy * cy + cz * cz;
+        if (d2 <= r2) {
+            return power[node]; // p dans la sphère englobante : aucune borne sur l'angle
+        }
+
+        double d = Math.sqrt(d2);
+        double cosTheta = (n.getX() * cx + n.getY() * cy + n.getZ() * cz) / d;
+        double sinAlpha2 = r2 / d2;
+        double cosAlpha = Math.sqrt(1 - sinAlpha2);
+        if (cosTheta >= cosAlpha) {
+            return power[node]; // La normale est dans le cône
+        }
+        double sinTheta = Math.sqrt(Math.max(0, 1 - cosTheta * cosTheta));
+        double cosBound = cosTheta * cosAlpha + sinTheta * Math.sqrt(sinAlpha2);
+        return cosBound > 0 ? power[node] * cosBound : 0;
+    }
+}
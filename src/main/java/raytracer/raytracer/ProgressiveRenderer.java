@@ -0,0 +1,335 @@
+package raytracer.raytracer;
+
+import raytracer.geometry.MutableVec3;
+import raytracer.geometry.Ray;
+import raytracer.imaging.Color;
+import raytracer.imaging.HdrImage;
+import raytracer.imaging.PfmWriter;
+import raytracer.imaging.ToneMapping;
+import raytracer.stats.RenderStats;
+import raytracer.stats.TraceCounters;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Rendu progressif, pour avoir très vite un aperçu des scènes lourdes.
+ * <p>
+ * La première passe ne calcule qu'un pixel par bloc de COARSE_STEP x COARSE_STEP, recopié sur
+ * tout le bloc. Les passes suivantes sont entrelacées : à chaque passe le pas est divisé par 2
+ * et seuls les pixels pas encore calculés le sont (chacun recopié sur son sous-bloc), jusqu'au
+ * pas de 1 pixel. Aucun pixel n'est calculé deux fois et l'image finale est identique à celle
+ * de Renderer (sans anti-aliasing ; le tone mapping est appliqué pixel par pixel, cf.
+ * ToneMapping.toRGB). Chaque passe est rendue en parallèle, par tuiles, comme dans Renderer.
+ * <p>
+ * Après chaque passe, une copie de l'image est publiée au Listener. Avec un budget de temps,
+ * les tuiles ne sont plus calculées une fois le temps écoulé (sauf pendant la première passe,
+ * toujours complète) : on garde la meilleure image obtenue.
+ * <p>
+ * Comme pour Renderer, les threads de rendu sont créés au premier rendu et gardés jusqu'à close().
+ */
+public class ProgressiveRenderer implements AutoCloseable {
+
+    /** Côté (en pixels) des blocs de la première passe (une puissance de 2). */
+    public static final int COARSE_STEP = 8;
+
+    /** Nombre de passes (pas de COARSE_STEP, COARSE_STEP / 2, ..., 1). */
+    public static final int PASSES = Integer.numberOfTrailingZeros(COARSE_STEP) + 1;
+
+    // Tuiles multiples de COARSE_STEP : un bloc n'est jamais à cheval sur deux tuiles
+    private static final int TILE_SIZE = 4 * COARSE_STEP;
+
+    /**
+     * Reçoit les images intermédiaires.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Appelé après chaque passe (depuis le thread qui a lancé le rendu).
+         * @param pixels Copie de l'image (format RGB packé, cf. Color.toRGB).
+         * @param pass Numéro de la passe (0 = aperçu grossier, PASSES - 1 = image complète).
+         * @param complete false si la passe a été interrompue par le budget de temps.
+         */
+        void frameReady(int[] pixels, int pass, boolean complete);
+    }
+
+    private final Scene scene;
+    private final int threads;
+    private long budgetNanos;
+    private Listener listener;
+
+    // Threads de rendu (null : pas encore créés, cf. close) et traceur de la scène
+    private ForkJoinPool pool;
+    private RayTracer tracer;
+    // Variables de travail de chaque thread, gardées d'une tuile et d'une passe à l'autre (cf. Renderer)
+    private final ThreadLocal<TraceContext> contexts = ThreadLocal.withInitial(TraceContext::new);
+
+    // Résultat du dernier rendu
+    private volatile RenderStats stats;
+    private volatile int completedPasses;
+
+    /**
+     * Crée un moteur utilisant tous les cœurs disponibles.
+     */
+    public ProgressiveRenderer(Scene scene) {
+        this(scene, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param scene La scène à rendre.
+     * @param threads Nombre de threads de rendu (>= 1).
+     */
+    public ProgressiveRenderer(Scene scene, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être >= 1 : " + threads);
+        }
+        this.scene = scene;
+        this.threads = threads;
+    }
+
+    /**
+     * @param millis Temps maximal du rendu, en millisecondes (0 = pas de limite).
+     */
+    public void setTimeBudget(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Le budget de temps doit être >= 0 : " + millis);
+        }
+        this.budgetNanos = millis * 1_000_000;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return Les statistiques du dernier rendu (null si aucun rendu n'a été lancé).
+     */
+    public RenderStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Arrête les threads de rendu (ils seraient recréés par un nouveau rendu).
+     */
+    @Override
+    public synchronized void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(threads);
+        }
+        return pool;
+    }
+
+    private synchronized RayTracer tracer() {
+        if (tracer == null) {
+            tracer = new RayTracer(scene);
+        }
+        return tracer;
+    }
+
+    /**
+     * @return Le nombre de passes terminées lors du dernier rendu (PASSES si l'image est complète).
+     */
+    public int getCompletedPasses() {
+        return completedPasses;
+    }
+
+    /**
+     * Rend la scène, passe par passe, jusqu'à l'image complète ou la fin du budget de temps.
+     * @return Les pixels (format RGB packé, cf. Color.toRGB) ligne par ligne, de haut en bas.
+     */
+    public int[] render() {
+        return render(null);
+    }
+
+    /**
+     * @param hdr Image HDR remplie en même temps que les pixels (null : aucune).
+     */
+    private int[] render(HdrImage hdr) {
+        int width = scene.getWidth();
+        int height = scene.getHeight();
+        int[] pixels = new int[width * height];
+
+        int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+
+        RenderStats renderStats = new RenderStats();
+        this.stats = renderStats;
+        this.completedPasses = 0;
+        if (tilesX * tilesY == 0) {
+            return pixels;
+        }
+
+        if (scene.getAccelerator() == null) {
+            scene.buildAccelerator();
+        }
+
+        long start = System.nanoTime();
+        long deadline = budgetNanos > 0 ? start + budgetNanos : Long.MAX_VALUE;
+
+        RayTracer tracer = tracer();
+        ForkJoinPool pool = pool();
+        for (int pass = 0; pass < PASSES; pass++) {
+            PassTask task = new PassTask(tracer, pixels, hdr, renderStats, pass,
+                    pass == 0 ? Long.MAX_VALUE : deadline, tilesX, 0, tilesX * tilesY);
+            pool.invoke(task);
+            boolean complete = !task.interrupted();
+            if (complete) {
+                completedPasses = pass + 1;
+            }
+            if (listener != null) {
+                listener.frameReady(Arrays.copyOf(pixels, pixels.length), pass, complete);
+            }
+            if (!complete || System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+
+        renderStats.recordRender(System.nanoTime() - start);
+        RenderStats.global().merge(renderStats);
+        return pixels;
+    }
+
+    /**
+     * Rend la scène (dans la limite du budget de temps) et écrit la meilleure image obtenue
+     * dans le fichier scene.getOutput().
+     * @throws IOException Si l'image ne peut être écrite.
+     */
+    public void renderToFile() throws IOException {
+        String output = scene.getOutput();
+        if (Renderer.imageFormat(output).equals("pfm")) {
+            HdrImage hdr = new HdrImage(scene.getWidth(), scene.getHeight());
+            render(hdr);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(output)))) {
+                PfmWriter.write(hdr, out);
+            }
+            return;
+        }
+        int[] pixels = render();
+        Renderer.writeImage(pixels, scene.getWidth(), scene.getHeight(), output);
+    }
+
+    /**
+     * Calcule les pixels d'une passe dans une tuile.
+     * Passe 0 : les pixels multiples de COARSE_STEP. Passe p > 0 : les pixels multiples du pas
+     * (COARSE_STEP >> p) qui ne le sont pas du pas précédent. Chaque pixel calculé est recopié
+     * sur son bloc (pas x pas), qui sera affiné par les passes suivantes.
+     */
+    private void renderTile(RayTracer tracer, int[] pixels, HdrImage hdr, RenderStats renderStats, int pass,
+                            int x0, int y0) {
+        int width = scene.getWidth();
+        int height = scene.getHeight();
+        int x1 = Math.min(x0 + TILE_SIZE, width);
+        int y1 = Math.min(y0 + TILE_SIZE, height);
+        Camera.RayTable rays = scene.getCamera().rayTable(width, height);
+        int step = COARSE_STEP >> pass;
+        int previous = step * 2;
+
+        TraceContext ctx = contexts.get();
+        Ray ray = ctx.getRay();
+        MutableVec3 color = ctx.getColor();
+        long traced = 0;
+        ToneMapping mapping = scene.hasToneMapping() ? scene.getToneMapping() : null;
+        float exposure = (float) scene.getExposure();
+        float invGamma = (float) (1 / scene.getGamma());
+
+        for (int y = y0; y < y1; y += step) {
+            boolean previousRow = y % previous == 0;
+            for (int x = x0; x < x1; x += step) {
+                if (pass > 0 && previousRow && x % previous == 0) {
+                    continue; // Déjà calculé par une passe précédente
+                }
+                rays.generateRay(x, y, ray);
+                tracer.trace(ray, ctx);
+                traced++;
+                int rgb = mapping == null
+                        ? Color.toRGB(color.getX(), color.getY(), color.getZ())
+                        : mapping.toRGB((float) color.getX(), (float) color.getY(), (float) color.getZ(),
+                                exposure, invGamma);
+                int bx1 = Math.min(x + step, x1);
+                int by1 = Math.min(y + step, y1);
+                for (int by = y; by < by1; by++) {
+                    Arrays.fill(pixels, by * width + x, by * width + bx1, rgb);
+                    if (hdr != null) {
+                        for (int bx = x; bx < bx1; bx++) {
+                            hdr.set(by * width + bx, color.getX(), color.getY(), color.getZ());
+                        }
+                    }
+                }
+            }
+        }
+
+        TraceCounters counters = ctx.hit.getCounters();
+        counters.addPrimaryRays(traced);
+        renderStats.add(counters);
+    }
+
+    /**
+     * Rend les tuiles [from, to[ d'une passe.
+     */
+    private class PassTask extends RecursiveAction {
+
+        private final RayTracer tracer;
+        private final int[] pixels;
+        private final HdrImage hdr;
+        private final RenderStats renderStats;
+        private final int pass;
+        private final long deadline;
+        private final int tilesX;
+        private final int from;
+        private final int to;
+        private boolean skipped;
+
+        PassTask(RayTracer tracer, int[] pixels, HdrImage hdr, RenderStats renderStats, int pass, long deadline,
+                 int tilesX, int from, int to) {
+            this.tracer = tracer;
+            this.pixels = pixels;
+            this.hdr = hdr;
+            this.renderStats = renderStats;
+            this.pass = pass;
+            this.deadline = deadline;
+            this.tilesX = tilesX;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * @return true si des tuiles n'ont pas été calculées (budget de temps écoulé).
+         */
+        boolean interrupted() {
+            return skipped;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                if (System.nanoTime() >= deadline) {
+                    skipped = true;
+                    return;
+                }
+                long start = System.nanoTime();
+                renderTile(tracer, pixels, hdr, renderStats, pass, (from % tilesX) * TILE_SIZE,
+                        (from / tilesX) * TILE_SIZE);
+                renderStats.recordTile(System.nanoTime() - start);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            PassTask left = new PassTask(tracer, pixels, hdr, renderStats, pass, deadline, tilesX, from, mid);
+            PassTask right = new PassTask(tracer, pixels, hdr, renderStats, pass, deadline, tilesX, mid, to);
+            invokeAll(left, right);
+            skipped = left.skipped || right.skipped;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package raytracer.raytracer;
+
+import raytracer.acceleration.ShapeBVH;
+import raytracer.geometry.AbstractVec3;
+import raytracer.geometry.Hit;
+import raytracer.geometry.MutableVec3;
+import raytracer.geometry.Ray;
+import raytracer.geometry.RayPacket;
+import raytracer.geometry.Shape;
+import raytracer.imaging.Color;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Calcule la couleur vue le long d'un rayon (recherche d'intersection + éclairage).
+ * Les surfaces dont la couleur spéculaire n'est pas noire réfléchissent la scène (miroir),
+ * jusqu'à Scene.getMaxDepth() rayons par chemin.
+ * Avec Scene.getLightSamples() > 0 et plus de lumières ponctuelles que d'échantillons, chaque point
+ * n'en éclaire qu'un échantillon tiré selon leur importance (cf. LightTree), pondéré pour que
+ * l'éclairage moyen reste exact. Les tirages dépendent seulement du point : l'image est reproductible.
+ * Un RayTracer ne garde aucun état modifiable : il peut être partagé entre les threads,
+ * chacun utilisant son propre TraceContext.
+ */
+public class RayTracer {
+
+    /**
+     * Contribution minimale d'un rayon réfléchi : en dessous (produit des couleurs spéculaires
+     * le long du chemin, sur chaque composante), il n'apporterait rien de visible à l'image 8 bits.
+     */
+    public static final double MIN_THROUGHPUT = 1.0 / 512;
+
+    private final Scene scene;
+
+    // Échantillonnage des lumières (null : toutes les lumières sont prises)
+    private final LightTree lightTree;
+    private final int[] directionalLights; // Indices des lumières directionnelles
+
+    public RayTracer(Scene scene) {
+        this.scene = scene;
+        List<AbstractLight> lights = scene.getLights();
+        int samples = scene.getLightSamples();
+        long pointLights = lights.stream().filter(light -> light instanceof PointLight).count();
+        if (samples > 0 && pointLights > samples) {
+            lightTree = new LightTree(lights);
+            directionalLights = IntStream.range(0, lights.size())
+                    .filter(i -> !(lights.get(i) instanceof PointLight)).toArray();
+        } else {
+            lightTree = null;
+            directionalLights = null;
+        }
+    }
+
+    /**
+     * Cherche l'intersection la plus proche entre le rayon et les formes de la scène.
+     * Utilise la BVH de la scène si elle a été construite, sinon teste chaque forme.
+     * @param ray Le rayon à lancer.
+     * @param hit Le Hit à remplir (il est remis à zéro au préalable).
+     * @return true si une forme a été touchée.
+     */
+    public boolean findClosestHit(Ray ray, Hit hit) {
+        hit.reset();
+        ShapeBVH accelerator = scene.getAccelerator();
+        if (accelerator != null) {
+            return accelerator.intersect(ray, hit);
+        }
+        for (Shape shape : scene.getShapes()) {
+            shape.intersect(ray, hit);
+        }
+        return hit.isHit();
+    }
+
+    /**
+     * Cherche l'intersection la plus proche de chaque rayon d'un paquet (rayons primaires cohérents).
+     * Les résultats sont ceux de findClosestHit sur chaque rayon.
+     * @param hit Hit de travail (pile de parcours et compteurs du thread), écrasé.
+     */
+    public void findClosestHits(RayPacket packet, Hit hit) {
+        packet.reset();
+        ShapeBVH accelerator = scene.getAccelerator();
+        if (accelerator != null) {
+            accelerator.intersectPacket(packet, hit);
+            return;
+        }
+        for (Shape shape : scene.getShapes()) {
+            shape.intersectPacket(packet, hit);
+        }
+    }
+
+    /**
+     * Teste si le segment ]Ray.T_MIN, tMax[ du rayon est bloqué par une forme (rayon d'ombre).
+     * Le dernier bloqueur de la lumière est testé en premier ; sinon, la recherche s'arrête
+     * à la première forme touchée, sans chercher la plus proche.
+     * @param light Indice de la lumière dans Scene.getLights() (pour le cache des bloqueurs).
+     * @param hit Le Hit de travail (écrasé).
+     * @return true si le point est dans l'ombre.
+     */
+    boolean isOccluded(Ray ray, double tMax, int light, TraceContext ctx, Hit hit) {
+        hit.getCounters().addShadowRay();
+        Shape cached = ctx.occluderCache ? ctx.occluders[light] : null;
+        if (cached != null) {
+            hit.reset(tMax);
+            if (cached.intersectPrimitive(ctx.occluderPrimitives[light], ray, hit)) {
+                return true;
+            }
+        }
+
+        hit.reset(tMax);
+        boolean occluded;
+        ShapeBVH accelerator = scene.getAccelerator();
+        if (accelerator != null) {
+            occluded = accelerator.intersectAny(ray, hit);
+        } else {
+            occluded = false;
+            List<Shape> shapes = scene.getShapes();
+            for (int i = 0; i < shapes.size() && !occluded; i++) {
+                occluded = shapes.get(i).intersectAny(ray, hit);
+            }
+        }
+        if (occluded && ctx.occluderCache) {
+            ctx.occluders[light] = hit.getShape();
+            ctx.occluderPrimitives[light] = hit.getPrimitive();
+        }
+        return occluded;
+    }
+
+    /**
+     * Calcule la couleur du pixel correspondant au rayon.
+     * Version pratique (alloue ses variables de travail) : le rendu utilise trace(Ray, TraceContext).
+     * @param ray Le rayon primaire.
+     * @return La couleur (noir si le rayon ne touche rien).
+     */
+    public Color trace(Ray ray) {
+        TraceContext ctx = new TraceContext();
+        trace(ray, ctx);
+        return ctx.color.toColor();
+    }
+
+    /**
+     * Calcule la couleur vue le long du rayon, sans allocation.
+     * Les réflexions sont suivies de façon itérative : chaque rayon réfléchi ajoute son éclairage,
+     * pondéré par le produit des couleurs spéculaires rencontrées (throughput). Le chemin s'arrête
+     * à la profondeur maximale de la scène, ou dès que ce produit passe sous MIN_THROUGHPUT
+     * (une surface sans spéculaire ne lance donc aucun rayon réfléchi).
+     * @param ray Le rayon primaire.
+     * @param ctx Les variables de travail du thread ; la couleur est écrite dans ctx.getColor().
+     */
+    public void trace(Ray ray, TraceContext ctx) {
+        follow(ray, ctx, findClosestHit(ray, ctx.hit));
+    }
+
+    /**
+     * Calcule la couleur vue le long du rayon d'une voie d'un paquet, dont l'intersection
+     * a déjà été cherchée par findClosestHits (même résultat que trace sur ce rayon).
+     * @param ctx Les variables de travail du thread ; la couleur est écrite dans ctx.getColor().
+     */
+    public void trace(RayPacket packet, int lane, TraceContext ctx) {
+        Ray ray = packet.getRay(lane, ctx.ray);
+        Shape shape = packet.getShape(lane);
+        if (shape == null) {
+            ctx.hit.reset();
+        } else {
+            ctx.hit.record(packet.getT(lane), shape, packet.getPrimitive(lane));
+        }
+        follow(ray, ctx, shape != null);
+    }
+
+    /**
+     * Recalcule la couleur vue le long d'un rayon primaire dont l'intersection est connue
+     * (cf. GBuffer) : même résultat que trace, sans recherche d'intersection pour ce rayon.
+     * @param shape La forme touchée (null si aucune).
+     * @param primitive La primitive touchée dans la forme.
+     * @param t La distance de l'intersection le long du rayon.
+     * @param ctx Les variables de travail du thread ; la couleur est écrite dans ctx.getColor().
+     */
+    public void reshade(Ray ray, Shape shape, int primitive, double t, TraceContext ctx) {
+        if (shape == null) {
+            ctx.hit.reset();
+        } else {
+            ctx.hit.record(t, shape, primitive);
+        }
+        follow(ray, ctx, shape != null);
+    }
+
+    /**
+     * @return true si la visibilité des lumières depuis les points primaires peut être gardée
+     * (cf. GBuffer) : toutes les lumières sont évaluées, et il y en a au plus GBuffer.MAX_LIGHTS.
+     */
+    boolean canCacheVisibility() {
+        return lightTree == null && scene.getLights().size() <= GBuffer.MAX_LIGHTS;
+    }
+
+    /**
+     * Suit le chemin du rayon (éclairage puis réflexions), son intersection étant dans ctx.hit.
+     * @param found true si le rayon touche une forme.
+     */
+    private void follow(Ray ray, TraceContext ctx, boolean found) {
+        ctx.color.set(0, 0, 0);
+        ctx.primaryShape = found ? ctx.hit.getShape() : null;
+        ctx.primaryPrimitive = ctx.hit.getPrimitive();
+        ctx.primaryT = ctx.hit.getT();
+        if (ctx.recordVisibility) {
+            ctx.visibility = 0;
+        }
+        MutableVec3 throughput = ctx.throughput.set(1, 1, 1);
+        int maxDepth = scene.getMaxDepth();
+        Ray current = ray;
+
+        for (int depth = 1; found; depth++) {
+            Shape shape = ctx.hit.getShape();
+            shade(current, ctx, depth == 1);
+
+            Color specular = shape.getSpecular();
+            if (depth >= maxDepth
+                    || throughput.getX() * specular.getR() < MIN_THROUGHPUT
+                    && throughput.getY() * specular.getG() < MIN_THROUGHPUT
+                    && throughput.getZ() * specular.getB() < MIN_THROUGHPUT) {
+                return;
+            }
+            throughput.schur(specular);
+
+            // Direction réfléchie : r = d - 2 (d.n) n (la normale est orientée vers le rayon)
+            MutableVec3 n = ctx.normal;
+            AbstractVec3 d = current.getDirection();
+            MutableVec3 r = ctx.reflected.set(d).addScaled(n, -2 * n.dot(d));
+            current = ctx.reflectedRay.set(ctx.point, r);
+            ctx.hit.getCounters().addSecondaryRay();
+            found = findClosestHit(current, ctx.hit);
+        }
+    }
+
+    /**
+     * Éclairage au point d'intersection : ambiante + somme des contributions
+     * diffuses (Lambert) de chaque lumière non masquée (rayon d'ombre, ou d'un échantillon
+     * des lumières ponctuelles avec lightTree), pondéré par ctx.throughput et ajouté à ctx.color.
+     * Le point et la normale restent dans ctx.point et ctx.normal.
+     * Le Hit du contexte est réutilisé par les rayons d'ombre : il n'est plus valide ensuite.
+     */
+    private void shade(Ray ray, TraceContext ctx, boolean primary) {
+        Hit hit = ctx.hit;
+        Shape shape = hit.getShape();
+        MutableVec3 p = ctx.point.setPointAt(ray, hit.getT());
+        MutableVec3 n = ctx.normal;
+        shape.normalAt(p, hit, n);
+        // On oriente la normale vers l'observateur (plans et triangles ont deux faces)
+        if (n.dot(ray.getDirection()) > 0) {
+            n.multiply(-1);
+        }
+
+        MutableVec3 throughput = ctx.throughput;
+        ctx.color.addSchurScaled(scene.getAmbient(), throughput, 1);
+        ctx.weightedDiffuse.set(shape.getDiffuse()).schur(throughput);
+        List<AbstractLight> lights = scene.getLights();
+        ctx.ensureOccluderCapacity(lights.size());
+
+        if (lightTree == null) {
+            // Boucle indexée : pas d'itérateur alloué par point d'intersection
+            for (int i = 0; i < lights.size(); i++) {
+                addLight(i, 1, primary, ctx);
+            }
+            return;
+        }
+
+        for (int i : directionalLights) {
+            addLight(i, 1, false, ctx);
+        }
+        // Estimateur sans biais : chaque lumière tirée compte pour 1 / (probabilité x tirages)
+        int samples = scene.getLightSamples();
+        long seed = seed(p);
+        for (int s = 0; s < samples; s++) {
+            int i = lightTree.sample(p, n, random(seed, s), ctx);
+            if (i >= 0) {
+                addLight(i, 1 / (ctx.lightPdf * samples), false, ctx);
+            }
+        }
+    }
+
+    /**
+     * Ajoute à ctx.color la contribution diffuse d'une lumière au point ctx.point (normale ctx.normal),
+     * si elle n'est pas masquée (rayon d'ombre).
+     * @param i Indice de la lumière dans Scene.getLights().
+     * @param weight Poids de la contribution (1 sans échantillonnage).
+     * @param primary true pour le point du rayon primaire (visibilité enregistrée ou relue, cf. GBuffer).
+     */
+    private void addLight(int i, double weight, boolean primary, TraceContext ctx) {
+        AbstractLight light = scene.getLights().get(i);
+        MutableVec3 p = ctx.point;
+        MutableVec3 l = ctx.toLight;
+        double distance = directionToLight(light, p, l);
+        double lambert = ctx.normal.dot(l);
+        // Pas de rayon d'ombre pour une lumière située derrière la surface
+        if (lambert <= 0) {
+            return;
+        }
+        boolean visible;
+        if (primary && ctx.replayVisibility) {
+            visible = (ctx.visibility >>> i & 1) != 0;
+        } else {
+            visible = !isOccluded(ctx.shadowRay.set(p, l), distance, i, ctx, ctx.hit);
+            if (visible && primary && ctx.recordVisibility) {
+                ctx.visibility |= 1L << i;
+            }
+        }
+        if (visible) {
+            ctx.color.addSchurScaled(light.getColor(), ctx.weightedDiffuse, lambert * weight);
+        }
+    }
+
+    // Graine des tirages de lumières en un point (hachage de ses coordonnées)
+    private static long seed(AbstractVec3 p) {
+        long h = Double.doubleToLongBits(p.getX());
+        h = h * 0x9E3779B97F4A7C15L ^ Double.doubleToLongBits(p.getY());
+        h = h * 0x9E3779B97F4A7C15L ^ Double.doubleToLongBits(p.getZ());
+        return h;
+    }
+
+    // Nombre pseudo-aléatoire dans [0, 1[ (SplitMix64 sur la graine et le numéro du tirage)
+    private static double random(long seed, int i) {
+        long z = seed + (i + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Direction normalisée allant du point p vers la lumière.
+     * @param l Reçoit la direction.
+     * @return La distance de p à la lumière (infinie pour une lumière directionnelle).
+     */
+    private double directionToLight(AbstractLight light, AbstractVec3 p, MutableVec3 l) {
+        if (light instanceof PointLight) {
+            l.setSubtract(((PointLight) light).getPosition(), p);
+            double distance = l.length();
+            l.multiply(1 / distance);
+            return distance;
+        }
+        l.set(((DirectionalLight) light).getDirection()).normalize();
+        return Double.POSITIVE_INFINITY;
+    }
+}
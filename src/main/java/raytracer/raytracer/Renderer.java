@@ -0,0 +1,725 @@
+package raytracer.raytracer;
+
+import raytracer.geometry.MutableVec3;
+import raytracer.geometry.Ray;
+import raytracer.geometry.RayPacket;
+import raytracer.geometry.Shape;
+import raytracer.imaging.Color;
+import raytracer.imaging.HdrImage;
+import raytracer.imaging.PfmWriter;
+import raytracer.imaging.PngWriter;
+import raytracer.stats.RenderFinishedEvent;
+import raytracer.stats.RenderStats;
+import raytracer.stats.TileRenderedEvent;
+import raytracer.stats.TraceCounters;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moteur de rendu multithreadé.
+ * L'image est découpée en tuiles carrées, rendues en parallèle sur un ForkJoinPool
+ * (vol de tâches : un thread inactif récupère les tuiles restantes des autres).
+ * <p>
+ * En mode paquet, les rayons primaires de blocs de pixels voisins (2x2, 4x2 ou 4x4) sont
+ * tracés ensemble (cf. RayPacket) ; l'image est identique à celle du rendu rayon par rayon.
+ * <p>
+ * Anti-aliasing adaptatif (cf. Scene.setAntialiasing) : l'image est d'abord rendue avec un rayon
+ * par pixel, en notant la forme touchée. Une seconde passe, elle aussi par tuiles, recalcule avec
+ * n x n rayons les seuls pixels de bord : ceux dont un voisin (gauche, droite, haut, bas) montre
+ * une autre forme ou une couleur trop différente. Les autres pixels ne coûtent qu'un rayon.
+ * <p>
+ * Avec un tone mapping ou une correction gamma (cf. Scene.hasToneMapping), les couleurs sont
+ * d'abord accumulées sans limite dans une image HDR en float (cf. renderHdr), convertie en 8 bits
+ * en une seule passe à la fin. Une image .pfm reçoit directement les couleurs HDR.
+ * <p>
+ * Pour une image PNG sans anti-aliasing ni tone mapping, renderToFile ne garde pas toute l'image en mémoire :
+ * elle est rendue par bandes (une ligne de tuiles) dans quelques tampons réutilisés, et chaque
+ * bande terminée est compressée (cf. PngWriter) par un autre thread pendant le rendu des suivantes.
+ * <p>
+ * Chaque rendu produit ses statistiques (cf. getStats), ajoutées aux statistiques globales
+ * (JMX), et émet des événements JFR par tuile et pour le rendu complet.
+ * <p>
+ * Les threads de rendu sont créés au premier rendu et gardés pour les suivants (ex: bandes d'un
+ * rendu distribué, cf. renderRows) jusqu'à close(), ou fournis par l'appelant (cf. setPool).
+ */
+public class Renderer implements AutoCloseable {
+
+    /** Taille (en pixels) du côté d'une tuile. */
+    public static final int DEFAULT_TILE_SIZE = 32;
+
+    /** Nombre de bandes en mémoire lors de l'écriture d'une image au fil du rendu. */
+    public static final int BANDS_IN_FLIGHT = 3;
+
+    private final Scene scene;
+    private final int threads;
+    private final int tileSize;
+    private final int packetSize;
+
+    // Cache des intersections primaires (null : aucun, cf. setGBuffer)
+    private GBuffer gbuffer;
+
+    // Threads de rendu (null : pas encore créés) ; ownPool : créés par ce Renderer, arrêtés par close()
+    private ForkJoinPool pool;
+    private boolean ownPool;
+    // Traceur de la scène, créé au premier rendu (ou fourni, cf. setTracer)
+    private RayTracer tracer;
+    // Variables de travail de chaque thread, gardées d'une tuile et d'un rendu à l'autre (la scène
+    // ne change pas) : le cache des bloqueurs de chaque lumière (cf. TraceContext) reste chaud
+    private final ThreadLocal<TraceContext> contexts = ThreadLocal.withInitial(TraceContext::new);
+
+    // Statistiques du dernier rendu
+    private volatile RenderStats stats;
+    private volatile boolean reshaded;
+
+    /**
+     * Crée un moteur utilisant tous les cœurs disponibles.
+     */
+    public Renderer(Scene scene) {
+        this(scene, Runtime.getRuntime().availableProcessors());
+    }
+
+    public Renderer(Scene scene, int threads) {
+        this(scene, threads, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * @param scene La scène à rendre.
+     * @param threads Nombre de threads de rendu (>= 1).
+     * @param tileSize Taille du côté d'une tuile (>= 1).
+     */
+    public Renderer(Scene scene, int threads, int tileSize) {
+        this(scene, threads, tileSize, 1);
+    }
+
+    /**
+     * @param scene La scène à rendre.
+     * @param threads Nombre de threads de rendu (>= 1).
+     * @param tileSize Taille du côté d'une tuile (>= 1).
+     * @param packetSize Nombre de rayons primaires tracés ensemble : 1 (rayon par rayon), 4, 8 ou 16.
+     */
+    public Renderer(Scene scene, int threads, int tileSize, int packetSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être >= 1 : " + threads);
+        }
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("La taille des tuiles doit être >= 1 : " + tileSize);
+        }
+        if (packetSize != 1 && packetSize != 4 && packetSize != 8 && packetSize != 16) {
+            throw new IllegalArgumentException("La taille des paquets doit être 1, 4, 8 ou 16 : " + packetSize);
+        }
+        this.scene = scene;
+        this.threads = threads;
+        this.tileSize = tileSize;
+        this.packetSize = packetSize;
+    }
+
+    /**
+     * Cache des intersections primaires (cf. GBuffer), utilisé par les rendus de l'image complète :
+     * s'il a été rempli pour une scène de même géométrie (seuls les matériaux, l'ambiante ou les
+     * lumières ont changé), l'éclairage est recalculé sans rayon primaire ; sinon il est rempli.
+     * Un même GBuffer peut passer d'un Renderer à l'autre, mais un seul rendu doit l'utiliser à la fois.
+     * @param gbuffer Le cache (null : aucun).
+     */
+    public void setGBuffer(GBuffer gbuffer) {
+        this.gbuffer = gbuffer;
+    }
+
+    /**
+     * Threads de rendu fournis par l'appelant (ex: partagés par les images d'une animation) :
+     * close() ne les arrête pas. Sans appel, le Renderer crée les siens au premier rendu.
+     * @param pool Les threads (null : ceux du Renderer).
+     */
+    public synchronized void setPool(ForkJoinPool pool) {
+        close();
+        this.pool = pool;
+    }
+
+    /**
+     * Traceur à réutiliser, créé pour une scène de mêmes formes, lumières et paramètres
+     * (ex: les vues d'une même scène, cf. Scene.withCamera) : son arbre de lumières n'est pas reconstruit.
+     */
+    synchronized void setTracer(RayTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * Arrête les threads de rendu créés par ce Renderer (ils seraient recréés par un nouveau rendu).
+     */
+    @Override
+    public synchronized void close() {
+        if (ownPool) {
+            pool.shutdown();
+        }
+        pool = null;
+        ownPool = false;
+    }
+
+    private synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(threads);
+            ownPool = true;
+        }
+        return pool;
+    }
+
+    private synchronized RayTracer tracer() {
+        if (tracer == null) {
+            tracer = new RayTracer(scene);
+        }
+        return tracer;
+    }
+
+    /**
+     * @return true si le dernier rendu a été recalculé depuis le G-buffer, sans rayon primaire.
+     */
+    public boolean isReshaded() {
+        return reshaded;
+    }
+
+    /**
+     * Rend la scène.
+     * @return Les pixels (format RGB packé, cf. Color.toRGB) ligne par ligne, de haut en bas.
+     */
+    public int[] render() {
+        return renderRows(0, scene.getHeight(), null);
+    }
+
+    /**
+     * Rend la scène en HDR : couleurs linéaires non limitées, avant tone mapping.
+     * Avec l'anti-aliasing, les pixels de bord sont détectés sur les couleurs limitées à [0, 1].
+     */
+    public HdrImage renderHdr() {
+        HdrImage hdr = new HdrImage(scene.getWidth(), scene.getHeight());
+        renderRows(0, scene.getHeight(), hdr);
+        return hdr;
+    }
+
+    /**
+     * Rend les lignes [y0, y1[ de l'image (ex: la part d'un nœud dans un rendu distribué,
+     * cf. raytracer.farm). Les pixels sont identiques à ceux des mêmes lignes de l'image complète,
+     * anti-aliasing compris : les pixels de bord sont détectés avec une ligne de plus de chaque côté.
+     * @param hdr Si non null, reçoit les couleurs HDR des lignes (image de width x (y1 - y0) pixels) ;
+     * rien n'est renvoyé.
+     * @return Les pixels des lignes (format RGB packé, après tone mapping éventuel).
+     */
+    public int[] renderRows(int y0, int y1, HdrImage hdr) {
+        if (y0 < 0 || y1 > scene.getHeight() || y0 > y1) {
+            throw new IllegalArgumentException("Lignes invalides : [" + y0 + ", " + y1 + "[");
+        }
+        if (hdr == null && scene.hasToneMapping()) {
+            HdrImage rows = new HdrImage(scene.getWidth(), y1 - y0);
+            render(null, rows, y0, y1);
+            return rows.toRGB(scene.getToneMapping(), scene.getExposure(), scene.getGamma());
+        }
+        return render(null, hdr, y0, y1);
+    }
+
+    /**
+     * Rend les lignes [y0, y1[ de la scène, en entier ou par bandes écrites au fur et à mesure dans 'png'.
+     * Les tuiles sont alignées sur la ligne y0.
+     * @param png Si non null, reçoit l'image au fil du rendu (sans anti-aliasing) ; rien n'est renvoyé.
+     * @param hdr Si non null, reçoit les couleurs HDR ; rien n'est renvoyé.
+     */
+    private int[] render(PngWriter png, HdrImage hdr, int y0, int y1) {
+        int width = scene.getWidth();
+        int height = scene.getHeight();
+        boolean antialiasing = scene.getAaSamples() > 1 && png == null;
+        // Avec l'anti-aliasing, les voisins des lignes extrêmes sont aussi rendus (un rayon par pixel)
+        int ya = antialiasing ? Math.max(0, y0 - 1) : y0;
+        int yb = antialiasing ? Math.min(height, y1 + 1) : y1;
+        boolean margins = ya < y0 || yb > y1;
+        // En HDR, les pixels 8 bits ne servent qu'à détecter les bords
+        int[] pixels = png == null && (hdr == null || antialiasing) ? new int[width * (yb - ya)] : null;
+
+        int tilesX = (width + tileSize - 1) / tileSize;
+        int tilesY = (yb - ya + tileSize - 1) / tileSize;
+
+        RenderStats renderStats = new RenderStats();
+        this.stats = renderStats;
+        this.reshaded = false;
+        if (tilesX * tilesY == 0) {
+            return pixels;
+        }
+
+        if (scene.getAccelerator() == null) {
+            scene.buildAccelerator();
+        }
+
+        RenderFinishedEvent event = new RenderFinishedEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        RayTracer tracer = tracer();
+        // Le G-buffer ne couvre que l'image complète
+        GBuffer frameGBuffer = gbuffer != null && y0 == 0 && y1 == height ? gbuffer : null;
+        if (frameGBuffer != null) {
+            frameGBuffer.begin(scene, tracer);
+            reshaded = frameGBuffer.isReshading();
+        }
+        Shape[] shapes = antialiasing ? new Shape[width * (yb - ya)] : null;
+        ForkJoinPool pool = pool();
+        if (png != null) {
+            renderBands(tracer, pool, renderStats, tilesX, tilesY, png, frameGBuffer);
+        } else if (shapes == null) {
+            Frame frame = new Frame(pixels, y0, y0, y1, null, null, hdr);
+            frame.gbuffer = frameGBuffer;
+            pool.invoke(new TileTask(tracer, frame, false, renderStats, tilesX, 0, tilesX * tilesY));
+        } else {
+            // Couleurs HDR des lignes et de leurs voisins (recopiées à la fin)
+            HdrImage frameHdr = hdr != null && margins ? new HdrImage(width, yb - ya) : hdr;
+            Frame frame = new Frame(pixels, ya, ya, yb, shapes, null, frameHdr);
+            frame.gbuffer = frameGBuffer;
+            pool.invoke(new TileTask(tracer, frame, false, renderStats, tilesX, 0, tilesX * tilesY));
+            // Les voisins sont lus dans l'image à un rayon par pixel, les pixels affinés écrits
+            // dans une copie (ou directement dans l'image HDR, qui n'est pas relue)
+            int[] refined = hdr == null ? pixels.clone() : null;
+            frame = new Frame(pixels, ya, y0, y1, shapes, refined, frameHdr);
+            int refineTilesY = (y1 - y0 + tileSize - 1) / tileSize;
+            pool.invoke(new TileTask(tracer, frame, true, renderStats, tilesX, 0, tilesX * refineTilesY));
+            pixels = refined;
+            if (margins) {
+                int offset = (y0 - ya) * width;
+                int count = (y1 - y0) * width;
+                if (pixels != null) {
+                    pixels = Arrays.copyOfRange(pixels, offset, offset + count);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        hdr.set(i, frameHdr.getR(offset + i), frameHdr.getG(offset + i), frameHdr.getB(offset + i));
+                    }
+                }
+            }
+        }
+
+        renderStats.recordRender(System.nanoTime() - start);
+        RenderStats.global().merge(renderStats);
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = y1 - y0;
+            event.threads = threads;
+            event.primaryRays = renderStats.getPrimaryRays();
+            event.shadowRays = renderStats.getShadowRays();
+            event.secondaryRays = renderStats.getSecondaryRays() + renderStats.getAntialiasRays();
+            event.intersectionTests = renderStats.getSphereTests() + renderStats.getTriangleTests()
+                    + renderStats.getPlaneTests();
+            event.nodesVisited = renderStats.getNodesVisited();
+            event.peakHeapBytes = renderStats.getPeakHeapBytes();
+            event.commit();
+        }
+        return pixels;
+    }
+
+    /**
+     * @return Les statistiques du dernier rendu (null si aucun rendu n'a été lancé).
+     */
+    public RenderStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Rend la scène et écrit l'image dans le fichier scene.getOutput().
+     * Le format est déduit de l'extension du fichier (png par défaut) ; une image .pfm est en HDR.
+     * @throws IOException Si l'image ne peut être écrite.
+     */
+    public void renderToFile() throws IOException {
+        String output = scene.getOutput();
+        int width = scene.getWidth();
+        int height = scene.getHeight();
+        String format = imageFormat(output);
+        if (format.equals("pfm")) {
+            HdrImage hdr = renderHdr();
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(output)))) {
+                PfmWriter.write(hdr, out);
+            }
+            return;
+        }
+        // L'anti-aliasing a besoin des voisins de chaque pixel, le tone mapping de l'image HDR :
+        // l'image est alors rendue en entier
+        if (format.equals("png") && scene.getAaSamples() == 1 && !scene.hasToneMapping() && width > 0 && height > 0) {
+            try (PngWriter png = new PngWriter(new BufferedOutputStream(Files.newOutputStream(Paths.get(output))),
+                    width, height)) {
+                render(png, null, 0, height);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return;
+        }
+        int[] pixels = render();
+        writeImage(pixels, width, height, output);
+    }
+
+    /**
+     * Rend l'image par bandes de tileSize lignes, dans BANDS_IN_FLIGHT tampons réutilisés.
+     * Chaque bande terminée est passée au thread d'écriture, qui rend son tampon une fois
+     * la bande compressée : le rendu n'attend que si l'écriture a BANDS_IN_FLIGHT bandes de retard.
+     */
+    private void renderBands(RayTracer tracer, ForkJoinPool pool, RenderStats renderStats,
+                             int tilesX, int tilesY, PngWriter png, GBuffer frameGBuffer) {
+        int width = scene.getWidth();
+        int height = scene.getHeight();
+        BlockingQueue<int[]> free = new ArrayBlockingQueue<>(BANDS_IN_FLIGHT);
+        BlockingQueue<int[]> done = new ArrayBlockingQueue<>(BANDS_IN_FLIGHT);
+        for (int i = 0; i < Math.min(BANDS_IN_FLIGHT, tilesY); i++) {
+            free.add(new int[width * tileSize]);
+        }
+
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writing = writer.submit(() -> {
+                for (int band = 0; band < tilesY; band++) {
+                    int[] pixels = done.take();
+                    png.writeRows(pixels, 0, Math.min(tileSize, height - band * tileSize));
+                    free.put(pixels);
+                }
+                return null;
+            });
+
+            for (int band = 0; band < tilesY; band++) {
+                int[] pixels;
+                // Si l'écriture a échoué, plus aucun tampon ne sera rendu : on s'arrête avec son erreur
+                while ((pixels = free.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                    if (writing.isDone()) {
+                        writing.get();
+                    }
+                }
+                int y0 = band * tileSize;
+                Frame frame = new Frame(pixels, y0, y0, Math.min(y0 + tileSize, height), null, null, null);
+                frame.gbuffer = frameGBuffer;
+                pool.invoke(new TileTask(tracer, frame, false, renderStats, tilesX, 0, tilesX));
+                done.put(pixels);
+            }
+            writing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("Écriture de l'image interrompue", e));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            throw new UncheckedIOException(new IOException("Erreur lors de l'écriture de l'image", e.getCause()));
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+
+    /**
+     * Écrit des pixels RGB packés dans un fichier image.
+     * Le PNG est écrit directement depuis les pixels (cf. PngWriter), les autres formats par ImageIO.
+     */
+    public static void writeImage(int[] pixels, int width, int height, String output) throws IOException {
+        String format = imageFormat(output);
+        if (format.equals("png") && width > 0 && height > 0) {
+            try (PngWriter png = new PngWriter(new BufferedOutputStream(Files.newOutputStream(Paths.get(output))),
+                    width, height)) {
+                png.writeRows(pixels, 0, height);
+            }
+            return;
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        if (!ImageIO.write(image, format, new File(output))) {
+            throw new IOException("Format d'image non supporté : " + format);
+        }
+    }
+
+    /**
+     * @return Le format d'image déduit de l'extension du fichier (png par défaut).
+     */
+    public static String imageFormat(String output) {
+        int dot = output.lastIndexOf('.');
+        if (dot >= 0 && dot < output.length() - 1) {
+            return output.substring(dot + 1).toLowerCase();
+        }
+        return "png";
+    }
+
+    /**
+     * Rend une seule tuile dans les tampons de 'frame'.
+     */
+    private void renderTile(RayTracer tracer, Frame frame, RenderStats renderStats, int x0, int y0) {
+        TileRenderedEvent event = new TileRenderedEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        int width = scene.getWidth();
+        int height = scene.getHeight();
+        int x1 = Math.min(x0 + tileSize, width);
+        int y1 = Math.min(y0 + tileSize, frame.endY);
+        Camera.RayTable rays = scene.getCamera().rayTable(width, height);
+
+        // Variables de travail du thread, réutilisées pour tous les pixels de la tuile
+        GBuffer gbuffer = frame.gbuffer;
+        boolean reshade = gbuffer != null && gbuffer.isReshading();
+        TraceContext ctx = context(gbuffer);
+        Ray ray = ctx.getRay();
+
+        if (packetSize == 1 || reshade) {
+            for (int y = y0; y < y1; y++) {
+                for (int x = x0; x < x1; x++) {
+                    rays.generateRay(x, y, ray);
+                    if (reshade) {
+                        gbuffer.reshade(tracer, ray, y * width + x, ctx);
+                    } else {
+                        tracer.trace(ray, ctx);
+                    }
+                    frame.store((y - frame.originY) * width + x, ctx);
+                    if (gbuffer != null && !reshade) {
+                        gbuffer.store(y * width + x, ctx);
+                    }
+                }
+            }
+        } else {
+            // Un paquet par bloc de pw x ph pixels
+            RayPacket packet = new RayPacket(packetSize);
+            int pw = packetSize == 4 ? 2 : 4;
+            int ph = packetSize / pw;
+            for (int by = y0; by < y1; by += ph) {
+                for (int bx = x0; bx < x1; bx += pw) {
+                    for (int lane = 0; lane < packetSize; lane++) {
+                        int x = bx + lane % pw;
+                        int y = by + lane / pw;
+                        // Pixel hors de la tuile (bord) : on répète le premier pixel du bloc, sans l'écrire
+                        if (x >= x1 || y >= y1) {
+                            x = bx;
+                            y = by;
+                        }
+                        rays.generateRay(x, y, ray);
+                        packet.set(lane, ray);
+                    }
+                    tracer.findClosestHits(packet, ctx.hit);
+                    for (int lane = 0; lane < packetSize; lane++) {
+                        int x = bx + lane % pw;
+                        int y = by + lane / pw;
+                        if (x < x1 && y < y1) {
+                            tracer.trace(packet, lane, ctx);
+                            frame.store((y - frame.originY) * width + x, ctx);
+                            if (gbuffer != null) {
+                                gbuffer.store(y * width + x, ctx);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // Report des compteurs du thread dans les statistiques du rendu
+        TraceCounters counters = ctx.hit.getCounters();
+        if (!reshade) {
+            counters.addPrimaryRays((long) (x1 - x0) * (y1 - y0));
+        }
+        long elapsed = System.nanoTime() - start;
+        event.end();
+        if (event.shouldCommit()) {
+            event.x = x0;
+            event.y = y0;
+            event.primaryRays = counters.getPrimaryRays();
+            event.shadowRays = counters.getShadowRays();
+            event.secondaryRays = counters.getSecondaryRays();
+            event.intersectionTests = counters.getIntersectionTests();
+            event.nodesVisited = counters.getNodesVisited();
+            event.commit();
+        }
+        renderStats.add(counters);
+        renderStats.recordTile(elapsed);
+    }
+
+    /**
+     * Anti-aliasing d'une tuile : recalcule les pixels de bord avec n x n rayons (grille régulière
+     * dans le pixel) et écrit la moyenne dans frame.refined, ou dans l'image HDR (moyenne des couleurs
+     * non limitées). Les autres pixels ne sont pas modifiés.
+     */
+    private void refineTile(RayTracer tracer, Frame frame, RenderStats renderStats, int x0, int y0) {
+        long start = System.nanoTime();
+        int width = scene.getWidth();
+        int height = scene.getHeight();
+        int x1 = Math.min(x0 + tileSize, width);
+        int y1 = Math.min(y0 + tileSize, frame.endY);
+        Camera camera = scene.getCamera();
+        int n = scene.getAaSamples();
+        int threshold = (int) Math.floor(scene.getAaThreshold() * 255);
+
+        TraceContext ctx = context(null);
+        Ray ray = ctx.getRay();
+        MutableVec3 color = ctx.getColor();
+        long samples = 0;
+        int[] pixels = frame.pixels;
+        Shape[] shapes = frame.shapes;
+        HdrImage hdr = frame.hdr;
+
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                int i = (y - frame.originY) * width + x;
+                if (!(x > 0 && isEdge(pixels, shapes, i, i - 1, threshold)
+                        || x < width - 1 && isEdge(pixels, shapes, i, i + 1, threshold)
+                        || y > 0 && isEdge(pixels, shapes, i, i - width, threshold)
+                        || y < height - 1 && isEdge(pixels, shapes, i, i + width, threshold))) {
+                    continue;
+                }
+                // Moyenne des échantillons, limités à [0, 1] comme les pixels de l'image 8 bits
+                double r = 0, g = 0, b = 0;
+                for (int sy = 0; sy < n; sy++) {
+                    for (int sx = 0; sx < n; sx++) {
+                        camera.generateRay(x + (sx + 0.5) / n, y + (sy + 0.5) / n, width, height, ray);
+                        tracer.trace(ray, ctx);
+                        if (hdr != null) {
+                            r += color.getX();
+                            g += color.getY();
+                            b += color.getZ();
+                        } else {
+                            r += Color.clamp(color.getX());
+                            g += Color.clamp(color.getY());
+                            b += Color.clamp(color.getZ());
+                        }
+                    }
+                }
+                samples += n * n;
+                double inv = 1.0 / (n * n);
+                if (hdr != null) {
+                    hdr.set(i, r * inv, g * inv, b * inv);
+                } else {
+                    frame.refined[i] = Color.toRGB(r * inv, g * inv, b * inv);
+                }
+            }
+        }
+
+        TraceCounters counters = ctx.hit.getCounters();
+        counters.addAntialiasRays(samples);
+        renderStats.add(counters);
+        renderStats.recordTile(System.nanoTime() - start);
+    }
+
+    /**
+     * @return Les variables de travail du thread courant, préparées pour une tuile lisant ou
+     * remplissant le G-buffer 'gbuffer' (null : aucun).
+     */
+    private TraceContext context(GBuffer gbuffer) {
+        TraceContext ctx = contexts.get();
+        ctx.recordVisibility = false;
+        ctx.replayVisibility = false;
+        if (gbuffer != null) {
+            gbuffer.prepare(ctx);
+        }
+        return ctx;
+    }
+
+    /**
+     * @return true si les pixels i et j montrent des formes différentes, ou si l'écart
+     * entre leurs couleurs (sur une composante, de 0 à 255) dépasse le seuil.
+     */
+    private static boolean isEdge(int[] pixels, Shape[] shapes, int i, int j, int threshold) {
+        if (shapes[i] != shapes[j]) {
+            return true;
+        }
+        int a = pixels[i];
+        int b = pixels[j];
+        return Math.abs((a >> 16 & 0xff) - (b >> 16 & 0xff)) > threshold
+                || Math.abs((a >> 8 & 0xff) - (b >> 8 & 0xff)) > threshold
+                || Math.abs((a & 0xff) - (b & 0xff)) > threshold;
+    }
+
+    /**
+     * Tampons de destination d'un rendu (ceux qui ne servent pas sont null).
+     */
+    private static final class Frame {
+
+        final int[] pixels;      // Pixels 8 bits (RGB packé)
+        final int originY;       // Ligne de l'image correspondant à la première ligne de 'pixels'
+        final int startY;        // Lignes [startY, endY[ à rendre (tuiles alignées sur startY)
+        final int endY;
+        final Shape[] shapes;    // Forme touchée par le rayon de chaque pixel (anti-aliasing)
+        final int[] refined;     // Pixels 8 bits après anti-aliasing
+        final HdrImage hdr;      // Couleurs HDR
+        GBuffer gbuffer;         // Cache des intersections primaires, relu ou rempli (null : aucun)
+
+        Frame(int[] pixels, int originY, int startY, int endY, Shape[] shapes, int[] refined, HdrImage hdr) {
+            this.pixels = pixels;
+            this.originY = originY;
+            this.startY = startY;
+            this.endY = endY;
+            this.shapes = shapes;
+            this.refined = refined;
+            this.hdr = hdr;
+        }
+
+        /**
+         * Écrit la couleur calculée par le dernier RayTracer.trace dans le pixel i.
+         */
+        void store(int i, TraceContext ctx) {
+            MutableVec3 color = ctx.color;
+            if (pixels != null) {
+                pixels[i] = Color.toRGB(color.getX(), color.getY(), color.getZ());
+            }
+            if (hdr != null) {
+                hdr.set(i, color.getX(), color.getY(), color.getZ());
+            }
+            if (shapes != null) {
+                shapes[i] = ctx.primaryShape;
+            }
+        }
+    }
+
+    /**
+     * Tâche ForkJoin couvrant un intervalle [from, to[ d'indices de tuiles.
+     * Elle se divise en deux tant qu'elle contient plus d'une tuile,
+     * ce qui permet aux threads inactifs de voler la moitié restante.
+     */
+    private class TileTask extends RecursiveAction {
+
+        private final RayTracer tracer;
+        private final Frame frame;
+        private final boolean refine;
+        private final RenderStats renderStats;
+        private final int tilesX;
+        private final int from;
+        private final int to;
+
+        /**
+         * @param refine true pour la passe d'anti-aliasing (cf. refineTile), false pour le rendu.
+         */
+        TileTask(RayTracer tracer, Frame frame, boolean refine, RenderStats renderStats, int tilesX, int from, int to) {
+            this.tracer = tracer;
+            this.frame = frame;
+            this.refine = refine;
+            this.renderStats = renderStats;
+            this.tilesX = tilesX;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                int tx = from % tilesX;
+                int ty = from / tilesX;
+                if (refine) {
+                    refineTile(tracer, frame, renderStats, tx * tileSize, frame.startY + ty * tileSize);
+                } else {
+                    renderTile(tracer, frame, renderStats, tx * tileSize, frame.startY + ty * tileSize);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TileTask(tracer, frame, refine, renderStats, tilesX, from, mid),
+                    new TileTask(tracer, frame, refine, renderStats, tilesX, mid, to));
+        }
+    }
+}
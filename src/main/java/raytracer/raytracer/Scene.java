@@ -1,7 +1,10 @@
 package raytracer.raytracer;
 
+import raytracer.acceleration.ShapeBVH;
 import raytracer.geometry.Shape;
+import raytracer.geometry.TriangleMesh;
 import raytracer.imaging.Color;
+import raytracer.imaging.ToneMapping;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -10,15 +13,28 @@ import java.util.List;
  */
 public class Scene {
 
+    /** Nombre maximal d'échantillons par axe de l'anti-aliasing. */
+    public static final int MAX_AA_SAMPLES = 8;
+
     // Informations du fichier [cite: 253-260]
     private int width;
     private int height;
     private Camera camera;
     private String output = "output.png"; // Valeur par défaut 
     private Color ambient = new Color();  // Valeur par défaut (noir)
+    private int maxDepth = 1;             // Nombre maximal de rayons par chemin (1 = pas de réflexion)
+    private int aaSamples = 1;            // Échantillons par axe des pixels de bord (1 = pas d'anti-aliasing)
+    private double aaThreshold = 0.1;     // Écart de couleur (0..1) entre voisins qui déclenche le suréchantillonnage
+    private ToneMapping toneMapping = ToneMapping.NONE; // Conversion HDR -> 8 bits (cf. HdrImage.toRGB)
+    private double exposure = 1;
+    private double gamma = 1;             // 1 = pas de correction gamma
+    private int lightSamples = 0;         // Lumières ponctuelles tirées par point (0 = toutes)
     private List<AbstractLight> lights = new ArrayList<>();
     private List<Shape> shapes = new ArrayList<>();
 
+    // Structure d'accélération (construite après le parsing)
+    private ShapeBVH accelerator;
+
     // --- Getters et Setters ---
     // (Nous aurons besoin des "setters" pour le parseur)
 
@@ -37,6 +53,89 @@ public class Scene {
     public Color getAmbient() { return ambient; }
     public void setAmbient(Color ambient) { this.ambient = ambient; }
 
+    public int getMaxDepth() { return maxDepth; }
+
+    /**
+     * @param maxDepth Nombre maximal de rayons par chemin (rayon primaire compris), >= 1.
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("La profondeur maximale doit être >= 1 : " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    public int getAaSamples() { return aaSamples; }
+    public double getAaThreshold() { return aaThreshold; }
+
+    /**
+     * Anti-aliasing adaptatif (cf. Renderer) : un pixel dont un voisin est d'une autre forme,
+     * ou d'une couleur trop différente, est recalculé avec samples x samples échantillons.
+     * @param samples Échantillons par axe, de 1 (pas d'anti-aliasing) à MAX_AA_SAMPLES.
+     * @param threshold Écart maximal (sur une composante, entre 0 et 1) entre deux pixels voisins.
+     */
+    public void setAntialiasing(int samples, double threshold) {
+        if (samples < 1 || samples > MAX_AA_SAMPLES) {
+            throw new IllegalArgumentException("Le nombre d'échantillons doit être entre 1 et "
+                    + MAX_AA_SAMPLES + " : " + samples);
+        }
+        if (!(threshold >= 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("Le seuil de contraste doit être entre 0 et 1 : " + threshold);
+        }
+        this.aaSamples = samples;
+        this.aaThreshold = threshold;
+    }
+
+    public ToneMapping getToneMapping() { return toneMapping; }
+    public double getExposure() { return exposure; }
+
+    /**
+     * @param exposure Facteur appliqué aux couleurs avant le tone mapping (> 0).
+     */
+    public void setToneMapping(ToneMapping toneMapping, double exposure) {
+        if (!(exposure > 0) || Double.isInfinite(exposure)) {
+            throw new IllegalArgumentException("L'exposition doit être > 0 : " + exposure);
+        }
+        this.toneMapping = toneMapping;
+        this.exposure = exposure;
+    }
+
+    public double getGamma() { return gamma; }
+
+    /**
+     * @param gamma Gamma de l'écran (> 0 ; 1 = pas de correction, 2.2 = écran sRGB typique).
+     */
+    public void setGamma(double gamma) {
+        if (!(gamma > 0) || Double.isInfinite(gamma)) {
+            throw new IllegalArgumentException("Le gamma doit être > 0 : " + gamma);
+        }
+        this.gamma = gamma;
+    }
+
+    public int getLightSamples() { return lightSamples; }
+
+    /**
+     * Échantillonnage des lumières ponctuelles (cf. LightTree) : au lieu de toutes les lumières,
+     * chaque point éclairé en tire 'samples' au hasard, selon leur importance (puissance et
+     * orientation par rapport à la surface). Les lumières directionnelles sont toujours toutes prises.
+     * @param samples Lumières tirées par point (>= 0 ; 0, ou au moins autant que de lumières ponctuelles :
+     * toutes les lumières, sans bruit).
+     */
+    public void setLightSamples(int samples) {
+        if (samples < 0) {
+            throw new IllegalArgumentException("Le nombre de lumières échantillonnées doit être >= 0 : " + samples);
+        }
+        this.lightSamples = samples;
+    }
+
+    /**
+     * @return true si l'image passe par un tone mapping, une exposition ou une correction gamma
+     * (l'image est alors rendue en HDR, cf. Renderer.renderHdr).
+     */
+    public boolean hasToneMapping() {
+        return toneMapping != ToneMapping.NONE || exposure != 1 || gamma != 1;
+    }
+
     public List<AbstractLight> getLights() { return lights; }
     public List<Shape> getShapes() { return shapes; }
 
@@ -47,5 +146,75 @@ public class Scene {
 
     public void addShape(Shape shape) {
         this.shapes.add(shape);
+        this.accelerator = null; // La BVH n'est plus à jour
+    }
+
+    /**
+     * Vue de la scène depuis une autre caméra (ex: une image d'une animation, cf. AnimationRenderer).
+     * Les lumières, les formes et la BVH sont partagées avec cette scène, sans copie : elles ne doivent
+     * plus être modifiées. Les paramètres de rendu sont recopiés.
+     * @param camera La caméra de la vue.
+     * @param output Le fichier de sortie de la vue.
+     */
+    public Scene withCamera(Camera camera, String output) {
+        if (accelerator == null) {
+            buildAccelerator();
+        }
+        Scene view = new Scene();
+        view.width = width;
+        view.height = height;
+        view.camera = camera;
+        view.output = output;
+        view.ambient = ambient;
+        view.maxDepth = maxDepth;
+        view.aaSamples = aaSamples;
+        view.aaThreshold = aaThreshold;
+        view.toneMapping = toneMapping;
+        view.exposure = exposure;
+        view.gamma = gamma;
+        view.lightSamples = lightSamples;
+        view.lights = lights;
+        view.shapes = shapes;
+        view.accelerator = accelerator;
+        return view;
     }
+
+    /**
+     * Construit la BVH sur les formes de la scène.
+     * À appeler une fois toutes les formes ajoutées (fait par SceneFileParser.parse).
+     */
+    public void buildAccelerator() {
+        completeMeshes();
+        this.accelerator = new ShapeBVH(shapes);
+    }
+
+    // Construit la BVH des maillages créés sans (cf. SceneFileParser.setBuildAccelerator)
+    private void completeMeshes() {
+        for (int i = 0; i < shapes.size(); i++) {
+            if (shapes.get(i) instanceof TriangleMesh mesh && !mesh.hasBVH()) {
+                shapes.set(i, mesh.withBVH(null));
+            }
+        }
+    }
+
+    /**
+     * Construit la BVH en réajustant celle d'une version précédente de la scène (cf. ShapeBVH.refit),
+     * ou entièrement si les formes ne lui correspondent pas.
+     * @param previous La BVH de la version précédente.
+     * @return true si la BVH a été réajustée, false si elle a été reconstruite.
+     */
+    public boolean refitAccelerator(ShapeBVH previous) {
+        completeMeshes();
+        this.accelerator = previous.refit(shapes);
+        if (accelerator == null) {
+            buildAccelerator();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return La BVH des formes, ou null si elle n'a pas encore été construite.
+     */
+    public ShapeBVH getAccelerator() { return accelerator; }
 }
\ No newline at end of file
@@ -0,0 +1,229 @@
+package raytracer.raytracer;
+
+import raytracer.geometry.AbstractVec3;
+import raytracer.geometry.Plane;
+import raytracer.geometry.Shape;
+import raytracer.geometry.Sphere;
+import raytracer.geometry.Triangle;
+import raytracer.geometry.TriangleMesh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Différences entre deux versions d'une scène (ex: fichier relu après une modification, cf. SceneWatcher).
+ * <p>
+ * Les scènes sont comparées une fois analysées, pas ligne à ligne : une ligne 'diffuse' change le
+ * matériau de toutes les formes qui la suivent, c'est donc la forme construite qui est comparée.
+ * Les formes sont comparées dans l'ordre, valeur par valeur (géométrie et matériaux séparément).
+ * Selon le résultat, la scène peut garder sa BVH réajustée (formes déplacées, cf. Scene.refitAccelerator)
+ * ou son G-buffer (seul l'éclairage a changé, cf. GBuffer).
+ */
+public final class SceneDiff {
+
+    private final boolean viewChanged;      // Taille ou caméra
+    private final boolean settingsChanged;  // Profondeur, anti-aliasing, tone mapping, échantillonnage, sortie
+    private final boolean ambientChanged;
+    private final boolean lightsChanged;
+    private final boolean shapesChanged;    // Formes ajoutées, retirées ou remplacées par une autre sorte
+    private final int movedShapes;          // Formes de même sorte dont la géométrie a changé
+    private final int materialChanges;      // Formes dont le matériau a changé
+
+    private SceneDiff(boolean viewChanged, boolean settingsChanged, boolean ambientChanged, boolean lightsChanged,
+                      boolean shapesChanged, int movedShapes, int materialChanges) {
+        this.viewChanged = viewChanged;
+        this.settingsChanged = settingsChanged;
+        this.ambientChanged = ambientChanged;
+        this.lightsChanged = lightsChanged;
+        this.shapesChanged = shapesChanged;
+        this.movedShapes = movedShapes;
+        this.materialChanges = materialChanges;
+    }
+
+    /**
+     * Compare deux versions d'une scène.
+     * @param before La version précédente.
+     * @param after La nouvelle version.
+     */
+    public static SceneDiff compare(Scene before, Scene after) {
+        boolean view = before.getWidth() != after.getWidth() || before.getHeight() != after.getHeight()
+                || !sameCamera(before.getCamera(), after.getCamera());
+        boolean settings = before.getMaxDepth() != after.getMaxDepth()
+                || before.getAaSamples() != after.getAaSamples() || before.getAaThreshold() != after.getAaThreshold()
+                || before.getToneMapping() != after.getToneMapping() || before.getExposure() != after.getExposure()
+                || before.getGamma() != after.getGamma() || before.getLightSamples() != after.getLightSamples()
+                || !before.getOutput().equals(after.getOutput());
+        boolean ambient = !same(before.getAmbient(), after.getAmbient());
+        boolean lights = !sameLights(before.getLights(), after.getLights());
+
+        List<Shape> a = before.getShapes();
+        List<Shape> b = after.getShapes();
+        boolean shapes = a.size() != b.size();
+        int moved = 0;
+        int materials = 0;
+        for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
+            Shape s = a.get(i);
+            Shape t = b.get(i);
+            if (s.getClass() != t.getClass()) {
+                shapes = true;
+                continue;
+            }
+            if (!sameGeometry(s, t)) {
+                moved++;
+            }
+            if (!same(s.getDiffuse(), t.getDiffuse()) || !same(s.getSpecular(), t.getSpecular())) {
+                materials++;
+            }
+        }
+        return new SceneDiff(view, settings, ambient, lights, shapes, moved, materials);
+    }
+
+    // --- Getters ---
+    public boolean isViewChanged() { return viewChanged; }
+    public boolean isSettingsChanged() { return settingsChanged; }
+    public boolean isAmbientChanged() { return ambientChanged; }
+    public boolean isLightsChanged() { return lightsChanged; }
+    public boolean isShapesChanged() { return shapesChanged; }
+    public int getMovedShapes() { return movedShapes; }
+    public int getMaterialChanges() { return materialChanges; }
+
+    /**
+     * @return true si les deux versions donnent la même image (ex: seuls des commentaires ont changé).
+     */
+    public boolean isEmpty() {
+        return !viewChanged && !settingsChanged && !isShadingChanged() && !isGeometryChanged();
+    }
+
+    /**
+     * @return true si des formes ont été ajoutées, retirées, remplacées ou déplacées.
+     */
+    public boolean isGeometryChanged() {
+        return shapesChanged || movedShapes > 0;
+    }
+
+    /**
+     * @return true si des matériaux, l'ambiante ou les lumières ont changé.
+     */
+    public boolean isShadingChanged() {
+        return ambientChanged || lightsChanged || materialChanges > 0;
+    }
+
+    /**
+     * @return true si seuls l'éclairage (et la sortie ou les paramètres de rendu) ont changé :
+     * mêmes taille, caméra et géométrie, l'image peut être recalculée depuis un G-buffer.
+     */
+    public boolean isShadingOnly() {
+        return !viewChanged && !isGeometryChanged();
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "aucun changement";
+        }
+        List<String> parts = new ArrayList<>();
+        if (viewChanged) {
+            parts.add("vue");
+        }
+        if (settingsChanged) {
+            parts.add("paramètres");
+        }
+        if (shapesChanged) {
+            parts.add("formes ajoutées ou retirées");
+        }
+        if (movedShapes > 0) {
+            parts.add(movedShapes + " forme(s) déplacée(s)");
+        }
+        if (materialChanges > 0) {
+            parts.add(materialChanges + " matériau(x)");
+        }
+        if (ambientChanged) {
+            parts.add("ambiante");
+        }
+        if (lightsChanged) {
+            parts.add("lumières");
+        }
+        return String.join(", ", parts);
+    }
+
+    private static boolean sameLights(List<AbstractLight> a, List<AbstractLight> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            AbstractLight l = a.get(i);
+            AbstractLight m = b.get(i);
+            if (l.getClass() != m.getClass() || !same(l.getColor(), m.getColor())) {
+                return false;
+            }
+            if (l instanceof PointLight p ? !same(p.getPosition(), ((PointLight) m).getPosition())
+                    : !same(((DirectionalLight) l).getDirection(), ((DirectionalLight) m).getDirection())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean sameCamera(Camera a, Camera b) {
+        return a == b || a != null && b != null && same(a.getLookFrom(), b.getLookFrom())
+                && same(a.getLookAt(), b.getLookAt()) && same(a.getUp(), b.getUp()) && a.getFov() == b.getFov();
+    }
+
+    /**
+     * @return true si les deux formes ont exactement la même géométrie (les matériaux peuvent différer).
+     */
+    public static boolean sameGeometry(Shape a, Shape b) {
+        if (a == b) {
+            return true;
+        }
+        if (a.getClass() != b.getClass()) {
+            return false;
+        }
+        if (a instanceof Sphere s) {
+            Sphere t = (Sphere) b;
+            return same(s.getCenter(), t.getCenter()) && s.getRadius() == t.getRadius();
+        }
+        if (a instanceof Plane p) {
+            Plane q = (Plane) b;
+            return same(p.getPoint(), q.getPoint()) && same(p.getNormal(), q.getNormal());
+        }
+        if (a instanceof Triangle t) {
+            Triangle u = (Triangle) b;
+            return same(t.getP1(), u.getP1()) && same(t.getP2(), u.getP2()) && same(t.getP3(), u.getP3());
+        }
+        if (a instanceof TriangleMesh m) {
+            TriangleMesh n = (TriangleMesh) b;
+            return Arrays.equals(m.getIndices(), n.getIndices()) && movedTriangles(m, n) == 0;
+        }
+        return false;
+    }
+
+    /**
+     * Compare les sommets de deux maillages de mêmes indices. Seuls les sommets de leurs triangles
+     * sont lus : le tableau des positions, partagé par tous les maillages d'une scène, peut
+     * contenir d'autres sommets.
+     * @return Le nombre de triangles dont un sommet a bougé.
+     */
+    public static int movedTriangles(TriangleMesh a, TriangleMesh b) {
+        int[] indices = a.getIndices();
+        float[] p = a.getPositions();
+        float[] q = b.getPositions();
+        int moved = 0;
+        for (int i = 0; i < indices.length; i += 3) {
+            for (int k = i; k < i + 3; k++) {
+                int v = indices[k] * 3;
+                if (p != q && (p[v] != q[v] || p[v + 1] != q[v + 1] || p[v + 2] != q[v + 2])) {
+                    moved++;
+                    break;
+                }
+            }
+        }
+        return moved;
+    }
+
+    // Égalité exacte (AbstractVec3.equals tolère un écart)
+    static boolean same(AbstractVec3 a, AbstractVec3 b) {
+        return a.getX() == b.getX() && a.getY() == b.getY() && a.getZ() == b.getZ();
+    }
+}
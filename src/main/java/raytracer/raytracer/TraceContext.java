@@ -0,0 +1,84 @@
+package raytracer.raytracer;
+
+import raytracer.geometry.Hit;
+import raytracer.geometry.MutableVec3;
+import raytracer.geometry.Ray;
+import raytracer.geometry.Shape;
+
+/**
+ * Variables de travail d'un thread de rendu.
+ * Toutes les valeurs intermédiaires d'un rayon (intersection, point, normale, couleur...)
+ * sont écrites dans ces objets, réutilisés d'un pixel à l'autre : le calcul d'un rayon
+ * n'alloue rien. Un TraceContext ne doit jamais être partagé entre deux threads.
+ * <p>
+ * Il garde aussi, pour chaque lumière, le dernier bloqueur trouvé par un rayon d'ombre :
+ * des pixels voisins sont souvent masqués par la même forme, testée alors en premier.
+ */
+public class TraceContext {
+
+    final Ray ray = new Ray();
+    final Hit hit = new Hit();
+    final MutableVec3 point = new MutableVec3();
+    final MutableVec3 normal = new MutableVec3();
+    final MutableVec3 toLight = new MutableVec3();
+    final MutableVec3 color = new MutableVec3();
+    final Ray shadowRay = new Ray();
+
+    // Réflexions : poids du chemin, diffuse pondérée, direction et rayon réfléchis
+    final MutableVec3 throughput = new MutableVec3();
+    final MutableVec3 weightedDiffuse = new MutableVec3();
+    final MutableVec3 reflected = new MutableVec3();
+    final Ray reflectedRay = new Ray();
+
+    // Forme touchée par le dernier rayon primaire (null : aucune), avec sa primitive et sa distance
+    Shape primaryShape;
+    int primaryPrimitive;
+    double primaryT;
+
+    // Visibilité des lumières depuis le point du rayon primaire (bit i : lumière i, cf. GBuffer),
+    // enregistrée pendant son éclairage, ou relue à la place des rayons d'ombre
+    long visibility;
+    boolean recordVisibility;
+    boolean replayVisibility;
+
+    // Probabilité de la dernière lumière tirée (cf. LightTree.sample)
+    double lightPdf;
+
+    // Dernier bloqueur (forme et primitive) de chaque lumière, indexé comme Scene.getLights()
+    boolean occluderCache = true;
+    Shape[] occluders = new Shape[0];
+    int[] occluderPrimitives = new int[0];
+
+    /**
+     * @return Le rayon de travail (à remplir, par ex. avec Camera.RayTable.generateRay).
+     */
+    public Ray getRay() { return ray; }
+
+    /**
+     * @return La couleur calculée par le dernier appel à RayTracer.trace (non limitée à [0, 1]).
+     */
+    public MutableVec3 getColor() { return color; }
+
+    /**
+     * @return La forme touchée par le rayon du dernier appel à RayTracer.trace (null si aucune).
+     */
+    public Shape getPrimaryShape() { return primaryShape; }
+
+    /**
+     * @param enabled false pour chercher chaque bloqueur dans toute la scène, sans tester d'abord
+     * le dernier bloqueur de la lumière (l'image est la même ; true par défaut).
+     */
+    public void setOccluderCache(boolean enabled) {
+        this.occluderCache = enabled;
+    }
+
+    /**
+     * Agrandit le cache des bloqueurs pour 'lights' lumières.
+     */
+    void ensureOccluderCapacity(int lights) {
+        if (occluders.length < lights) {
+            occluders = new Shape[lights];
+            occluderPrimitives = new int[lights];
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package raytracer.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR émis à la fin de chaque rendu (sa durée est celle du rendu).
+ */
+@Name("raytracer.RenderFinished")
+@Label("Rendu terminé")
+@Category("RayTracer")
+@Description("Rendu complet d'une image, avec ses compteurs")
+@StackTrace(false)
+public class RenderFinishedEvent extends Event {
+
+    @Label("Largeur")
+    public int width;
+
+    @Label("Hauteur")
+    public int height;
+
+    @Label("Threads")
+    public int threads;
+
+    @Label("Rayons primaires")
+    public long primaryRays;
+
+    @Label("Rayons d'ombre")
+    public long shadowRays;
+
+    @Label("Rayons secondaires")
+    public long secondaryRays;
+
+    @Label("Tests d'intersection")
+    public long intersectionTests;
+
+    @Label("Nœuds de BVH visités")
+    public long nodesVisited;
+
+    @Label("Pic du tas")
+    @DataAmount
+    public long peakHeapBytes;
+}
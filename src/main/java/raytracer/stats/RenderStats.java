@@ -0,0 +1,194 @@
+package raytracer.stats;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistiques de rendu : rayons lancés, tests d'intersection par type de forme, nœuds de BVH
+ * visités, temps des tuiles, temps de parsing et pic de mémoire.
+ * <p>
+ * Les compteurs sont des LongAdder (répartis entre les threads, sans contention). Ils ne sont
+ * mis à jour qu'une fois par tuile, depuis les TraceCounters de chaque thread (cf. add).
+ * Un objet RenderStats couvre un rendu (cf. Renderer.getStats) ; l'objet global cumule
+ * tous les rendus et parsings de la JVM et est exposé par JMX.
+ */
+public class RenderStats implements RenderStatsMXBean {
+
+    public static final String OBJECT_NAME = "raytracer:type=RenderStats";
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private static volatile RenderStats global;
+
+    private final LongAdder renders = new LongAdder();
+    private final LongAdder primaryRays = new LongAdder();
+    private final LongAdder shadowRays = new LongAdder();
+    private final LongAdder secondaryRays = new LongAdder();
+    private final LongAdder antialiasRays = new LongAdder();
+    private final LongAdder sphereTests = new LongAdder();
+    private final LongAdder triangleTests = new LongAdder();
+    private final LongAdder planeTests = new LongAdder();
+    private final LongAdder nodesVisited = new LongAdder();
+
+    private final LongAdder tiles = new LongAdder();
+    private final LongAdder tileNanos = new LongAdder();
+    private final LongAccumulator maxTileNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder renderNanos = new LongAdder();
+
+    private final LongAdder parses = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private volatile long lastParseNanos;
+
+    private final LongAccumulator peakHeapBytes = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @return Les statistiques cumulées de la JVM (enregistrées auprès de JMX au premier appel).
+     */
+    public static RenderStats global() {
+        RenderStats stats = global;
+        if (stats == null) {
+            synchronized (RenderStats.class) {
+                stats = global;
+                if (stats == null) {
+                    stats = new RenderStats();
+                    try {
+                        ManagementFactory.getPlatformMBeanServer().registerMBean(stats, new ObjectName(OBJECT_NAME));
+                    } catch (JMException | SecurityException e) {
+                        // JMX indisponible : les statistiques restent accessibles par l'API
+                    }
+                    global = stats;
+                }
+            }
+        }
+        return stats;
+    }
+
+    // --- Enregistrement ---
+
+    /**
+     * Reporte les compteurs d'un thread, puis les remet à zéro.
+     */
+    public void add(TraceCounters counters) {
+        primaryRays.add(counters.primaryRays);
+        shadowRays.add(counters.shadowRays);
+        secondaryRays.add(counters.secondaryRays);
+        antialiasRays.add(counters.antialiasRays);
+        sphereTests.add(counters.sphereTests);
+        triangleTests.add(counters.triangleTests);
+        planeTests.add(counters.planeTests);
+        nodesVisited.add(counters.nodesVisited);
+        counters.reset();
+    }
+
+    public void recordTile(long nanos) {
+        tiles.increment();
+        tileNanos.add(nanos);
+        maxTileNanos.accumulate(nanos);
+        sampleHeap();
+    }
+
+    public void recordRender(long nanos) {
+        renders.increment();
+        renderNanos.add(nanos);
+        sampleHeap();
+    }
+
+    public void recordParse(long nanos) {
+        parses.increment();
+        parseNanos.add(nanos);
+        lastParseNanos = nanos;
+    }
+
+    /**
+     * Ajoute toutes les statistiques d'un autre objet (ex: un rendu dans les statistiques globales).
+     */
+    public void merge(RenderStats other) {
+        renders.add(other.renders.sum());
+        primaryRays.add(other.primaryRays.sum());
+        shadowRays.add(other.shadowRays.sum());
+        secondaryRays.add(other.secondaryRays.sum());
+        antialiasRays.add(other.antialiasRays.sum());
+        sphereTests.add(other.sphereTests.sum());
+        triangleTests.add(other.triangleTests.sum());
+        planeTests.add(other.planeTests.sum());
+        nodesVisited.add(other.nodesVisited.sum());
+        tiles.add(other.tiles.sum());
+        tileNanos.add(other.tileNanos.sum());
+        maxTileNanos.accumulate(other.maxTileNanos.get());
+        renderNanos.add(other.renderNanos.sum());
+        parses.add(other.parses.sum());
+        parseNanos.add(other.parseNanos.sum());
+        if (other.parses.sum() > 0) {
+            lastParseNanos = other.lastParseNanos;
+        }
+        peakHeapBytes.accumulate(other.peakHeapBytes.get());
+    }
+
+    // --- Pic de mémoire ---
+
+    /**
+     * Relève l'utilisation courante du tas dans le pic de ces statistiques (fait à chaque tuile
+     * et à la fin du rendu). Les pics des zones mémoire de la JVM ne sont jamais remis à zéro :
+     * ils restent justes pour les autres outils JMX, et des rendus simultanés ne faussent pas
+     * le pic l'un de l'autre. Le pic relevé est un minorant du vrai pic (entre deux relevés).
+     */
+    public void sampleHeap() {
+        peakHeapBytes.accumulate(MEMORY.getHeapMemoryUsage().getUsed());
+    }
+
+    // --- Getters (MXBean) ---
+
+    @Override public long getRenders() { return renders.sum(); }
+    @Override public long getPrimaryRays() { return primaryRays.sum(); }
+    @Override public long getShadowRays() { return shadowRays.sum(); }
+    @Override public long getSecondaryRays() { return secondaryRays.sum(); }
+    @Override public long getAntialiasRays() { return antialiasRays.sum(); }
+    @Override public long getSphereTests() { return sphereTests.sum(); }
+    @Override public long getTriangleTests() { return triangleTests.sum(); }
+    @Override public long getPlaneTests() { return planeTests.sum(); }
+    @Override public long getNodesVisited() { return nodesVisited.sum(); }
+    @Override public long getTiles() { return tiles.sum(); }
+    @Override public double getTotalTileTimeMs() { return tileNanos.sum() / 1e6; }
+    @Override public double getMaxTileTimeMs() { return maxTileNanos.get() / 1e6; }
+    @Override public double getRenderTimeMs() { return renderNanos.sum() / 1e6; }
+    @Override public long getParses() { return parses.sum(); }
+    @Override public double getParseTimeMs() { return parseNanos.sum() / 1e6; }
+    @Override public double getLastParseTimeMs() { return lastParseNanos / 1e6; }
+    @Override public long getPeakHeapBytes() { return peakHeapBytes.get(); }
+
+    @Override
+    public void reset() {
+        for (LongAdder adder : new LongAdder[]{renders, primaryRays, shadowRays, secondaryRays, antialiasRays,
+                sphereTests, triangleTests, planeTests, nodesVisited, tiles, tileNanos, renderNanos, parses, parseNanos}) {
+            adder.reset();
+        }
+        maxTileNanos.reset();
+        peakHeapBytes.reset();
+        lastParseNanos = 0;
+    }
+
+    @Override
+    public String toJson() {
+        long tileCount = getTiles();
+        return String.format(Locale.ROOT, "{%n"
+                        + "  \"renders\": %d,%n"
+                        + "  \"rays\": {\"primary\": %d, \"shadow\": %d, \"secondary\": %d, \"antialias\": %d},%n"
+                        + "  \"intersectionTests\": {\"sphere\": %d, \"triangle\": %d, \"plane\": %d},%n"
+                        + "  \"bvhNodesVisited\": %d,%n"
+                        + "  \"tiles\": {\"count\": %d, \"totalMs\": %.3f, \"meanMs\": %.3f, \"maxMs\": %.3f},%n"
+                        + "  \"renderMs\": %.3f,%n"
+                        + "  \"parse\": {\"count\": %d, \"totalMs\": %.3f, \"lastMs\": %.3f},%n"
+                        + "  \"peakHeapBytes\": %d%n"
+                        + "}%n",
+                getRenders(), getPrimaryRays(), getShadowRays(), getSecondaryRays(), getAntialiasRays(),
+                getSphereTests(), getTriangleTests(), getPlaneTests(), getNodesVisited(),
+                tileCount, getTotalTileTimeMs(), tileCount > 0 ? getTotalTileTimeMs() / tileCount : 0.0,
+                getMaxTileTimeMs(), getRenderTimeMs(),
+                getParses(), getParseTimeMs(), getLastParseTimeMs(), getPeakHeapBytes());
+    }
+}
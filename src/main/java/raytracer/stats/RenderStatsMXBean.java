@@ -0,0 +1,39 @@
+package raytracer.stats;
+
+/**
+ * Statistiques de rendu exposées par JMX (objet "raytracer:type=RenderStats",
+ * cumulées depuis le lancement de la JVM, cf. RenderStats.global).
+ */
+public interface RenderStatsMXBean {
+
+    long getRenders();
+    long getPrimaryRays();
+    long getShadowRays();
+    long getSecondaryRays();
+    long getAntialiasRays();
+    long getSphereTests();
+    long getTriangleTests();
+    long getPlaneTests();
+    long getNodesVisited();
+
+    long getTiles();
+    double getTotalTileTimeMs();
+    double getMaxTileTimeMs();
+    double getRenderTimeMs();
+
+    long getParses();
+    double getParseTimeMs();
+    double getLastParseTimeMs();
+
+    long getPeakHeapBytes();
+
+    /**
+     * @return Les statistiques au format JSON.
+     */
+    String toJson();
+
+    /**
+     * Remet toutes les statistiques à zéro.
+     */
+    void reset();
+}
@@ -0,0 +1,33 @@
+package raytracer.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR émis après le parsing d'un fichier de scène (sa durée est celle du parsing).
+ */
+@Name("raytracer.SceneParsed")
+@Label("Scène analysée")
+@Category("RayTracer")
+@Description("Parsing d'un fichier de scène et construction de sa BVH")
+@StackTrace(false)
+public class SceneParsedEvent extends Event {
+
+    @Label("Fichier")
+    public String file;
+
+    @Label("Taille")
+    @DataAmount
+    public long bytes;
+
+    @Label("Threads")
+    public int threads;
+
+    @Label("Formes")
+    public int shapes;
+}
@@ -0,0 +1,40 @@
+package raytracer.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR émis pour chaque tuile rendue (sa durée est celle de l'événement).
+ */
+@Name("raytracer.TileRendered")
+@Label("Tuile rendue")
+@Category("RayTracer")
+@Description("Rendu d'une tuile de l'image, avec ses compteurs")
+@StackTrace(false)
+public class TileRenderedEvent extends Event {
+
+    @Label("X")
+    public int x;
+
+    @Label("Y")
+    public int y;
+
+    @Label("Rayons primaires")
+    public long primaryRays;
+
+    @Label("Rayons d'ombre")
+    public long shadowRays;
+
+    @Label("Rayons secondaires")
+    public long secondaryRays;
+
+    @Label("Tests d'intersection")
+    public long intersectionTests;
+
+    @Label("Nœuds de BVH visités")
+    public long nodesVisited;
+}
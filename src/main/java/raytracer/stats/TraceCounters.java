@@ -0,0 +1,75 @@
+package raytracer.stats;
+
+/**
+ * Compteurs d'un seul thread de rendu (portés par son Hit, cf. Hit.getCounters).
+ * <p>
+ * De simples champs long, incrémentés sans synchronisation dans les boucles critiques :
+ * leur coût est négligeable et ils peuvent rester actifs en production. Ils sont reportés
+ * régulièrement (à la fin de chaque tuile) dans les compteurs partagés de RenderStats,
+ * puis remis à zéro. Un TraceCounters ne doit jamais être partagé entre deux threads.
+ */
+public final class TraceCounters {
+
+    long primaryRays;
+    long shadowRays;
+    long secondaryRays;
+    long antialiasRays;
+    long sphereTests;
+    long triangleTests;
+    long planeTests;
+    long nodesVisited;
+
+    public void addPrimaryRays(long n) { primaryRays += n; }
+    public void addShadowRay() { shadowRays++; }
+    public void addSecondaryRay() { secondaryRays++; }
+    public void addAntialiasRays(long n) { antialiasRays += n; }
+    public void addSphereTest() { sphereTests++; }
+    public void addTriangleTest() { triangleTests++; }
+    public void addPlaneTest() { planeTests++; }
+    public void addSphereTests(int n) { sphereTests += n; }
+    public void addTriangleTests(int n) { triangleTests += n; }
+    public void addNodesVisited(int n) { nodesVisited += n; }
+
+    // --- Getters ---
+    public long getPrimaryRays() { return primaryRays; }
+    public long getShadowRays() { return shadowRays; }
+    public long getSecondaryRays() { return secondaryRays; }
+    public long getAntialiasRays() { return antialiasRays; }
+    public long getSphereTests() { return sphereTests; }
+    public long getTriangleTests() { return triangleTests; }
+    public long getPlaneTests() { return planeTests; }
+    public long getNodesVisited() { return nodesVisited; }
+
+    /**
+     * @return Le nombre total de tests d'intersection (toutes formes confondues).
+     */
+    public long getIntersectionTests() {
+        return sphereTests + triangleTests + planeTests;
+    }
+
+    /**
+     * Ajoute des compteurs transmis sous forme de tableau (cf. raytracer.farm), dans l'ordre :
+     * rayons primaires, d'ombre, secondaires et d'anti-aliasing, tests sphère, triangle et plan, nœuds visités.
+     */
+    public void add(long[] values) {
+        if (values.length != 8) {
+            throw new IllegalArgumentException("8 compteurs attendus : " + values.length);
+        }
+        primaryRays += values[0];
+        shadowRays += values[1];
+        secondaryRays += values[2];
+        antialiasRays += values[3];
+        sphereTests += values[4];
+        triangleTests += values[5];
+        planeTests += values[6];
+        nodesVisited += values[7];
+    }
+
+    /**
+     * Remet tous les compteurs à zéro.
+     */
+    public void reset() {
+        primaryRays = shadowRays = secondaryRays = antialiasRays = 0;
+        sphereTests = triangleTests = planeTests = nodesVisited = 0;
+    }
+}
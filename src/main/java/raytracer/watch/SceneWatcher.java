@@ -0,0 +1,284 @@
+package raytracer.watch;
+
+import raytracer.acceleration.BVH;
+import raytracer.geometry.Shape;
+import raytracer.geometry.TriangleMesh;
+import raytracer.parsing.SceneFileParser;
+import raytracer.raytracer.GBuffer;
+import raytracer.raytracer.Renderer;
+import raytracer.raytracer.Scene;
+import raytracer.raytracer.SceneDiff;
+import raytracer.stats.RenderStats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mode "surveillance" : l'image est rendue à nouveau à chaque modification du fichier de scène,
+ * dans la même JVM (cf. watch).
+ * <p>
+ * Le fichier est relu en entier (ses lignes dépendent des précédentes : 'diffuse', 'specular',
+ * 'vertex'...), puis la nouvelle scène est comparée à la scène courante (cf. SceneDiff) pour ne
+ * refaire que le nécessaire :
+ * <ul>
+ *   <li>rien n'a changé (ex: commentaires) : pas de rendu ;</li>
+ *   <li>formes déplacées, en petit nombre : la BVH de la scène courante est réajustée
+ *   (cf. Scene.refitAccelerator) au lieu d'être reconstruite ;</li>
+ *   <li>seuls les matériaux, l'ambiante ou les lumières ont changé : l'image est recalculée depuis
+ *   le G-buffer du rendu précédent, sans rayon primaire (cf. GBuffer) ;</li>
+ *   <li>formes ajoutées ou retirées : BVH reconstruite et rendu complet.</li>
+ * </ul>
+ * Les maillages sont lus sans BVH (cf. SceneFileParser.setBuildAccelerator) : un maillage de même
+ * géométrie reprend la BVH de sa version précédente, un maillage dont quelques sommets ont bougé
+ * la réajuste (cf. TriangleMesh.refitBVH) ; seuls les maillages nouveaux ou trop modifiés la construisent.
+ * <p>
+ * Les réajustements successifs s'additionnent : la part de formes (ou de triangles) déplacées depuis
+ * la dernière construction est suivie, et la BVH est reconstruite quand elle dépasse MAX_REFIT_FRACTION.
+ * <p>
+ * Les threads de rendu sont créés une fois et servent à tous les rendus, jusqu'à close().
+ */
+public class SceneWatcher implements Closeable {
+
+    /**
+     * Au-delà de cette part de formes (ou de triangles d'un maillage) déplacées depuis sa construction,
+     * une BVH est reconstruite : un réajustement garderait un découpage trop éloigné de la géométrie.
+     */
+    public static final double MAX_REFIT_FRACTION = 0.25;
+
+    // Délai sans nouvelle modification avant de relire le fichier (un éditeur l'écrit souvent en plusieurs fois)
+    private static final long SETTLE_MS = 50;
+
+    /**
+     * Reçoit chaque mise à jour de l'image.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Appelé après l'écriture de chaque image (depuis le thread qui surveille le fichier).
+         * @param diff Les différences avec la scène précédente (null : premier rendu).
+         * @param refitted true si la BVH a été réajustée plutôt que reconstruite.
+         * @param reshaded true si l'image a été recalculée depuis le G-buffer, sans rayon primaire.
+         * @param nanos Temps de relecture, de mise à jour et de rendu.
+         */
+        void imageUpdated(SceneDiff diff, boolean refitted, boolean reshaded, long nanos);
+    }
+
+    private final Path file;
+    private final int threads;
+    private final GBuffer gbuffer = new GBuffer();
+    private Listener listener;
+
+    private Scene scene;
+    private double sceneDrift;                       // Part des formes déplacées depuis la construction de la BVH
+    private Map<BVH, Double> meshDrift = new IdentityHashMap<>(); // Idem pour chaque BVH de maillage
+    private volatile RenderStats stats;
+    private volatile ForkJoinPool pool;             // Threads de rendu (null : pas encore créés)
+    private volatile WatchService service;
+    private volatile boolean closed;
+
+    /**
+     * @param filePath Chemin du fichier de scène.
+     * @param threads Nombre de threads de rendu (>= 1).
+     */
+    public SceneWatcher(String filePath, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être >= 1 : " + threads);
+        }
+        this.file = Paths.get(filePath).toAbsolutePath();
+        this.threads = threads;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return La scène de la dernière image rendue (null avant le premier rendu).
+     */
+    public synchronized Scene getScene() {
+        return scene;
+    }
+
+    /**
+     * @return Les statistiques du dernier rendu (null si aucun rendu n'a été lancé).
+     */
+    public RenderStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Relit le fichier de scène et met à jour l'image selon ses différences avec la scène courante.
+     * En cas d'erreur, la scène courante est gardée.
+     * @return Les différences (vides : l'image n'a pas été rendue), ou null au premier rendu.
+     * @throws IOException Si le fichier ne peut être lu ou l'image écrite.
+     */
+    public synchronized SceneDiff update() throws IOException {
+        long start = System.nanoTime();
+        SceneFileParser parser = new SceneFileParser(threads);
+        parser.setBuildAccelerator(false);
+        Scene next = parser.parse(file.toString());
+
+        SceneDiff diff = null;
+        boolean refitted = false;
+        double drift = 0;
+        Map<BVH, Double> meshDrifts;
+        if (scene == null) {
+            meshDrifts = completeMeshes(List.of(), next.getShapes());
+            next.buildAccelerator();
+        } else {
+            diff = SceneDiff.compare(scene, next);
+            if (diff.isEmpty()) {
+                return diff;
+            }
+            meshDrifts = completeMeshes(scene.getShapes(), next.getShapes());
+            drift = sceneDrift + (double) diff.getMovedShapes() / Math.max(1, next.getShapes().size());
+            if (!diff.isShapesChanged() && drift <= MAX_REFIT_FRACTION) {
+                refitted = next.refitAccelerator(scene.getAccelerator()); // Reconstruite si impossible
+            } else {
+                next.buildAccelerator();
+            }
+            if (!refitted) {
+                drift = 0;
+            }
+        }
+
+        if (pool == null || pool.isShutdown()) {
+            pool = new ForkJoinPool(threads);
+        }
+        Renderer renderer = new Renderer(next, threads);
+        renderer.setPool(pool);
+        renderer.setGBuffer(gbuffer);
+        renderer.renderToFile();
+        scene = next;
+        sceneDrift = drift;
+        meshDrift = meshDrifts;
+        stats = renderer.getStats();
+        if (listener != null) {
+            listener.imageUpdated(diff, refitted, renderer.isReshaded(), System.nanoTime() - start);
+        }
+        return diff;
+    }
+
+    /**
+     * Donne sa BVH à chaque maillage lu sans (même indice dans la liste des formes que dans la
+     * version précédente) : celle du maillage précédent s'il a la même géométrie, réajustée si
+     * seuls des sommets ont bougé, construite sinon.
+     * @return La part de triangles déplacés depuis la construction de chaque BVH de maillage.
+     */
+    private Map<BVH, Double> completeMeshes(List<Shape> previous, List<Shape> shapes) {
+        Map<BVH, Double> drifts = new IdentityHashMap<>();
+        for (int i = 0; i < shapes.size(); i++) {
+            if (!(shapes.get(i) instanceof TriangleMesh mesh) || mesh.hasBVH()) {
+                continue;
+            }
+            BVH bvh = null;
+            double drift = 0;
+            if (i < previous.size() && previous.get(i) instanceof TriangleMesh old
+                    && Arrays.equals(old.getIndices(), mesh.getIndices())) {
+                int moved = SceneDiff.movedTriangles(old, mesh);
+                drift = meshDrift.getOrDefault(old.getBVH(), 0.0) + (double) moved / Math.max(1, mesh.getTriangleCount());
+                if (moved == 0) {
+                    bvh = old.getBVH();
+                } else if (drift <= MAX_REFIT_FRACTION) {
+                    bvh = mesh.refitBVH(old.getBVH());
+                } else {
+                    drift = 0;
+                }
+            }
+            TriangleMesh complete = mesh.withBVH(bvh);
+            shapes.set(i, complete);
+            drifts.put(complete.getBVH(), drift);
+        }
+        return drifts;
+    }
+
+    /**
+     * Rend la scène, puis la rend à nouveau à chaque modification du fichier, jusqu'à close()
+     * (ou la suppression de son répertoire). Une erreur de lecture ou de rendu est affichée
+     * et la surveillance continue avec la scène courante.
+     * @throws IOException Si le répertoire du fichier ne peut être surveillé.
+     * @throws InterruptedException Si le thread est interrompu.
+     */
+    public void watch() throws IOException, InterruptedException {
+        Path dir = file.getParent();
+        try (WatchService watchService = dir.getFileSystem().newWatchService()) {
+            service = watchService;
+            if (closed) {
+                return;
+            }
+            // Répertoire surveillé avant le premier rendu : aucune modification n'est perdue
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            if (scene == null) {
+                tryUpdate();
+            }
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = changed(key);
+                if (!key.reset()) {
+                    return; // Répertoire supprimé
+                }
+                if (changed) {
+                    // Attente que le fichier ne bouge plus
+                    while ((key = watchService.poll(SETTLE_MS, TimeUnit.MILLISECONDS)) != null) {
+                        changed(key);
+                        key.reset();
+                    }
+                    tryUpdate();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Fermé par close()
+        } finally {
+            service = null;
+        }
+    }
+
+    private boolean changed(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private void tryUpdate() {
+        try {
+            update();
+        } catch (IOException e) {
+            System.err.println("Erreur d'entrée/sortie : " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Erreur lors de la mise à jour de la scène : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Arrête la surveillance (watch se termine) et les threads de rendu.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        ForkJoinPool renderPool = pool;
+        if (renderPool != null) {
+            renderPool.shutdown();
+        }
+        WatchService watchService = service;
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
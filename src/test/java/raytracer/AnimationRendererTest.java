@@ -0,0 +1,117 @@
+package raytracer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import raytracer.geometry.Point;
+import raytracer.geometry.Vector;
+import raytracer.parsing.CameraPathParser;
+import raytracer.parsing.SceneFileParser;
+import raytracer.raytracer.AnimationRenderer;
+import raytracer.raytracer.Camera;
+import raytracer.raytracer.Renderer;
+import raytracer.raytracer.Scene;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnimationRendererTest {
+
+    private static final String SCENE = String.join("\n",
+            "size 32 24",
+            "output image.png",
+            "camera 0 0 4 0 0 0 0 1 0 45",
+            "ambient 0.1 0.1 0.1",
+            "diffuse 0.5 0.2 0.2",
+            "sphere 0 0 0 1",
+            "plane 0 -1 0 0 1 0",
+            "point 1 2 3 0.5 0.5 0.5",
+            "");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testCameraPath() throws IOException {
+        Path path = tempDir.resolve("path.txt");
+        Files.writeString(path, String.join("\n",
+                "camera 0 0 4 0 0 0 0 1 0 45",
+                "keyframe 5 4 0 0 0 0 0 0 1 0 45",
+                "camera 4 0 2 0 0 0 0 1 0 60",
+                ""));
+        List<Camera> cameras = new CameraPathParser().parse(path.toString());
+        assertEquals(6, cameras.size());
+        assertEquals(new Point(0, 0, 4), cameras.get(0).getLookFrom());
+        assertEquals(new Point(2, 0, 2), cameras.get(2).getLookFrom()); // Interpolée
+        assertEquals(new Point(4, 0, 0), cameras.get(4).getLookFrom());
+        assertEquals(60, cameras.get(5).getFov());
+
+        // Première clé à l'image 3 : les images 1 et 2 gardent sa caméra
+        Files.writeString(path, String.join("\n",
+                "keyframe 3 0 0 4 0 0 0 0 1 0 45",
+                "keyframe 5 4 0 0 0 0 0 0 1 0 45",
+                ""));
+        cameras = new CameraPathParser().parse(path.toString());
+        assertEquals(5, cameras.size());
+        assertEquals(new Point(0, 0, 4), cameras.get(0).getLookFrom());
+        assertEquals(new Point(0, 0, 4), cameras.get(2).getLookFrom());
+        assertEquals(new Point(2, 0, 2), cameras.get(3).getLookFrom());
+
+        // Haut interpolé ramené à une longueur de 1 ; passage par zéro refusé
+        Files.writeString(path, String.join("\n",
+                "keyframe 1 0 0 4 0 0 0 0 1 0 45",
+                "keyframe 3 0 0 4 0 0 0 1 1 0 45",
+                ""));
+        assertEquals(1, new CameraPathParser().parse(path.toString()).get(1).getUp().length(), 1e-12);
+        Files.writeString(path, String.join("\n",
+                "keyframe 1 0 0 4 0 0 0 0 1 0 45",
+                "keyframe 3 0 0 4 0 0 0 0 -1 0 45",
+                ""));
+        assertThrows(IllegalArgumentException.class, () -> new CameraPathParser().parse(path.toString()));
+
+        assertEquals("out/image_0007.png", AnimationRenderer.frameOutput("out/image.png", 7, 500));
+        assertEquals("image_00012.png", AnimationRenderer.frameOutput("image.png", 12, 10000));
+        assertEquals("dir.v2/image_0001", AnimationRenderer.frameOutput("dir.v2/image", 1, 3));
+    }
+
+    @Test
+    void testFramesMatchSingleRenders() throws IOException {
+        Path file = tempDir.resolve("scene.txt");
+        Files.writeString(file, SCENE.replace("output image.png", "output " + tempDir.resolve("image.png")));
+        Scene scene = new SceneFileParser().parse(file.toString());
+        List<Camera> cameras = List.of(
+                new Camera(new Point(0, 0, 4), new Point(0, 0, 0), new Vector(0, 1, 0), 45),
+                new Camera(new Point(2, 1, 3), new Point(0, 0, 0), new Vector(0, 1, 0), 45),
+                new Camera(new Point(-3, 2, 2), new Point(0, 0, 0), new Vector(0, 1, 0), 60));
+
+        AnimationRenderer sequential = new AnimationRenderer(scene, cameras, 2);
+        List<String> outputs = sequential.renderToFiles();
+        assertEquals(3, outputs.size());
+        assertEquals(3 * 32 * 24, sequential.getStats().getPrimaryRays());
+        assertSame(scene.getAccelerator(), scene.withCamera(cameras.get(1), "view.png").getAccelerator());
+
+        for (int i = 0; i < cameras.size(); i++) {
+            Path image = Path.of(outputs.get(i));
+            byte[] expected = Files.readAllBytes(image);
+            // Même image que la scène rendue seule avec cette caméra
+            Path single = tempDir.resolve("single.png");
+            scene.setCamera(cameras.get(i));
+            scene.setOutput(single.toString());
+            new Renderer(scene, 1).renderToFile();
+            assertArrayEquals(Files.readAllBytes(single), expected);
+        }
+
+        // Plusieurs images à la fois : mêmes fichiers
+        scene.setOutput(tempDir.resolve("concurrent.png").toString());
+        AnimationRenderer concurrent = new AnimationRenderer(scene, cameras, 2);
+        concurrent.setConcurrentFrames(3);
+        List<String> concurrentOutputs = concurrent.renderToFiles();
+        for (int i = 0; i < cameras.size(); i++) {
+            assertArrayEquals(Files.readAllBytes(Path.of(outputs.get(i))),
+                    Files.readAllBytes(Path.of(concurrentOutputs.get(i))));
+        }
+    }
+}
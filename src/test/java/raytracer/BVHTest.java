@@ -0,0 +1,124 @@
+package raytracer;
+
+import org.junit.jupiter.api.Test;
+import raytracer.acceleration.ShapeBVH;
+import raytracer.geometry.*;
+import raytracer.imaging.Color;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BVHTest {
+
+    private final Color white = new Color(1, 1, 1);
+    private final Color black = new Color();
+
+    /**
+     * Génère une scène aléatoire (sphères, triangles et un plan).
+     */
+    private List<Shape> randomShapes(Random rnd, int count) {
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Point c = new Point(rnd.nextDouble() * 20 - 10, rnd.nextDouble() * 20 - 10, rnd.nextDouble() * 20 - 10);
+            if (i % 2 == 0) {
+                shapes.add(new Sphere(c, 0.1 + rnd.nextDouble() * 0.5, white, black));
+            } else {
+                shapes.add(new Triangle(c,
+                        c.add(new Vector(rnd.nextDouble(), rnd.nextDouble(), 0)),
+                        c.add(new Vector(0, rnd.nextDouble(), rnd.nextDouble())), white, black));
+            }
+        }
+        shapes.add(new Plane(new Point(0, -12, 0), new Vector(0, 1, 0), white, black));
+        return shapes;
+    }
+
+    @Test
+    void testSameResultAsBruteForce() {
+        Random rnd = new Random(42);
+        List<Shape> shapes = randomShapes(rnd, 2000);
+        ShapeBVH bvh = new ShapeBVH(shapes);
+        assertEquals(2000, bvh.getBoundedCount());
+        assertEquals(1, bvh.getUnboundedCount());
+
+        for (int i = 0; i < 2000; i++) {
+            Ray ray = new Ray(new Point(0, 0, 30),
+                    new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, -1).normalize());
+
+            Hit expected = new Hit();
+            for (Shape shape : shapes) {
+                shape.intersect(ray, expected);
+            }
+            Hit actual = new Hit();
+            bvh.intersect(ray, actual);
+
+            assertEquals(expected.isHit(), actual.isHit());
+            if (expected.isHit()) {
+                assertSame(expected.getShape(), actual.getShape());
+                assertEquals(expected.getT(), actual.getT(), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void testRefit() {
+        Random rnd = new Random(7);
+        List<Shape> shapes = randomShapes(rnd, 500);
+        ShapeBVH bvh = new ShapeBVH(shapes);
+
+        // Une forme sur dix déplacée : même résultat que les formes testées une à une
+        List<Shape> moved = new ArrayList<>(shapes);
+        for (int i = 0; i < moved.size() - 1; i += 10) {
+            moved.set(i, new Sphere(new Point(rnd.nextDouble() * 30 - 15, rnd.nextDouble() * 30 - 15,
+                    rnd.nextDouble() * 30 - 15), 0.5, white, black));
+        }
+        ShapeBVH refitted = bvh.refit(moved);
+        assertNotNull(refitted);
+        assertEquals(bvh.getBVH().getNodeCount(), refitted.getBVH().getNodeCount());
+        for (int i = 0; i < 1000; i++) {
+            Ray ray = new Ray(new Point(0, 0, 30),
+                    new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, -1).normalize());
+            Hit expected = new Hit();
+            for (Shape shape : moved) {
+                shape.intersect(ray, expected);
+            }
+            Hit actual = new Hit();
+            refitted.intersect(ray, actual);
+            assertEquals(expected.isHit(), actual.isHit());
+            if (expected.isHit()) {
+                assertSame(expected.getShape(), actual.getShape());
+            }
+        }
+
+        // Autre nombre de formes bornées : pas de réajustement possible
+        assertNull(bvh.refit(moved.subList(1, moved.size())));
+    }
+
+    @Test
+    void testEmptyAndPlanesOnly() {
+        ShapeBVH empty = new ShapeBVH(new ArrayList<>());
+        Ray ray = new Ray(new Point(0, 0, 5), new Vector(0, 0, -1));
+        assertFalse(empty.intersect(ray, new Hit()));
+
+        List<Shape> planes = new ArrayList<>();
+        planes.add(new Plane(new Point(0, 0, -1), new Vector(0, 0, 1), white, black));
+        Hit hit = new Hit();
+        assertTrue(new ShapeBVH(planes).intersect(ray, hit));
+        assertEquals(6.0, hit.getT(), 1e-9);
+    }
+
+    @Test
+    void testCoincidentCentroids() {
+        // Beaucoup de sphères concentriques : la construction ne doit pas boucler
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            shapes.add(new Sphere(new Point(0, 0, 0), i * 0.01, white, black));
+        }
+        ShapeBVH bvh = new ShapeBVH(shapes);
+        Hit hit = new Hit();
+        assertTrue(bvh.intersect(new Ray(new Point(0, 0, 5), new Vector(0, 0, -1)), hit));
+        assertEquals(4.0, hit.getT(), 1e-9);
+    }
+}
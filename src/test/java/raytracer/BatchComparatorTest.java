@@ -0,0 +1,63 @@
+package raytracer;
+
+import imgcompare.BatchComparator;
+import imgcompare.BatchComparator.PairResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchComparatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static BufferedImage image(int differentPixels) {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        for (int i = 0; i < differentPixels; i++) {
+            image.setRGB(i % 64, i / 64, 0xFF8040);
+        }
+        return image;
+    }
+
+    @Test
+    void testBatch() throws IOException {
+        File ref = Files.createDirectory(tempDir.resolve("ref")).toFile();
+        File gen = Files.createDirectory(tempDir.resolve("gen")).toFile();
+        File out = tempDir.resolve("out").toFile();
+
+        ImageIO.write(image(0), "png", new File(ref, "a.png"));
+        ImageIO.write(image(0), "png", new File(gen, "a.png"));
+        ImageIO.write(image(0), "png", new File(ref, "b.png"));
+        ImageIO.write(image(2000), "png", new File(gen, "b.png"));
+        ImageIO.write(image(0), "png", new File(ref, "c.png"));   // Pas d'image générée
+        ImageIO.write(image(0), "png", new File(ref, "d.png"));
+        Files.writeString(gen.toPath().resolve("d.png"), "pas une image");
+
+        List<PairResult> results = new BatchComparator(ref, gen, out, 2).run();
+
+        assertEquals(4, results.size());
+        assertEquals(PairResult.Status.OK, results.get(0).getStatus());
+        assertEquals(0, results.get(0).getDifferentPixels());
+        assertNull(results.get(0).getDiffFile());
+
+        assertEquals(PairResult.Status.KO, results.get(1).getStatus());
+        assertEquals(2000, results.get(1).getDifferentPixels());
+        assertTrue(new File(out, results.get(1).getDiffFile()).isFile());
+
+        assertEquals(PairResult.Status.MISSING, results.get(2).getStatus());
+        assertEquals(PairResult.Status.ERROR, results.get(3).getStatus());
+
+        String json = Files.readString(out.toPath().resolve("summary.json"));
+        assertTrue(json.contains("\"name\": \"b.png\", \"status\": \"KO\""));
+        assertEquals(5, Files.readAllLines(out.toPath().resolve("summary.csv")).size());
+    }
+}
@@ -0,0 +1,53 @@
+package raytracer;
+
+import org.junit.jupiter.api.Test;
+import raytracer.geometry.*;
+import raytracer.raytracer.Camera;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CameraTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private final Camera camera = new Camera(new Point(1, 2, 5), new Point(0, 0, 0), new Vector(0, 1, 0), 60);
+
+    @Test
+    void testRayTableMatchesGenerateRay() {
+        int width = 37;
+        int height = 23;
+        Camera.RayTable table = camera.rayTable(width, height);
+        assertSame(table, camera.rayTable(width, height));
+        assertNotSame(table, camera.rayTable(width + 1, height));
+
+        Ray expected = new Ray();
+        Ray actual = new Ray();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                camera.generateRay(x + 0.5, y + 0.5, width, height, expected);
+                table.generateRay(x, y, actual);
+                assertEquals(expected.getOrigin().getX(), actual.getOrigin().getX());
+                assertEquals(expected.getDirection().getX(), actual.getDirection().getX());
+                assertEquals(expected.getDirection().getY(), actual.getDirection().getY());
+                assertEquals(expected.getDirection().getZ(), actual.getDirection().getZ());
+            }
+        }
+    }
+
+    @Test
+    void testCenterAndCorners() {
+        // Le centre de l'image est dans l'axe de la caméra
+        Ray ray = camera.generateRay(50, 50, 100, 100);
+        MutableVec3 dir = new MutableVec3().set(ray.getDirection()).normalize();
+        MutableVec3 axis = new MutableVec3(-1, -2, -5).normalize();
+        assertEquals(axis.getX(), dir.getX(), EPSILON);
+        assertEquals(axis.getY(), dir.getY(), EPSILON);
+        assertEquals(axis.getZ(), dir.getZ(), EPSILON);
+
+        // Les bords haut et bas de l'image sont à fov / 2 de l'axe
+        Ray top = camera.generateRay(50, 0, 100, 100);
+        MutableVec3 t = new MutableVec3().set(top.getDirection()).normalize();
+        assertEquals(Math.cos(Math.toRadians(30)), t.dot(axis), EPSILON);
+        assertTrue(top.getDirection().getY() > ray.getDirection().getY());
+    }
+}
@@ -0,0 +1,78 @@
+package raytracer;
+
+import org.junit.jupiter.api.Test;
+import raytracer.imaging.Color;
+import raytracer.imaging.HdrImage;
+import raytracer.imaging.PfmWriter;
+import raytracer.imaging.ToneMapping;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HdrImageTest {
+
+    @Test
+    void testOperators() {
+        assertEquals(0.5f, ToneMapping.REINHARD.apply(1f));
+        assertEquals(0f, ToneMapping.ACES.apply(0f));
+        assertTrue(ToneMapping.ACES.apply(100f) > 0.99f);
+        assertEquals(ToneMapping.ACES, ToneMapping.fromName("aces"));
+        assertThrows(IllegalArgumentException.class, () -> ToneMapping.fromName("filmic"));
+
+        // Sans tone mapping : même conversion que Color.toRGB
+        assertEquals(Color.toRGB(0.25, 2, -1), ToneMapping.NONE.toRGB(0.25f, 2f, -1f, 1f, 1f));
+    }
+
+    @Test
+    void testToRGBMatchesReference() {
+        // 1037 pixels : des vecteurs complets et un reste traité en scalaire
+        int width = 61;
+        int height = 17;
+        HdrImage image = new HdrImage(width, height);
+        Random random = new Random(7);
+        for (int i = 0; i < width * height; i++) {
+            image.set(i, random.nextDouble() * 4, random.nextDouble() * 0.5, random.nextDouble() * 20 - 1);
+        }
+
+        for (ToneMapping mapping : ToneMapping.values()) {
+            int[] exact = image.toRGB(mapping, 1.5, 1);
+            int[] gamma = image.toRGB(mapping, 0.8, 2.2);
+            for (int i = 0; i < width * height; i++) {
+                float r = image.getR(i), g = image.getG(i), b = image.getB(i);
+                assertEquals(mapping.toRGB(r, g, b, 1.5f, 1f), exact[i], mapping + ", pixel " + i);
+                // La puissance vectorielle peut différer d'une unité
+                int expected = mapping.toRGB(r, g, b, 0.8f, (float) (1 / 2.2));
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    assertEquals(expected >> shift & 0xff, gamma[i] >> shift & 0xff, 1, mapping + ", pixel " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testPfm() throws IOException {
+        HdrImage image = new HdrImage(3, 2);
+        image.set(0, 1, 2, 3);     // (0, 0) : en haut à gauche
+        image.set(5, 10, 20, 30);  // (2, 1) : en bas à droite
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PfmWriter.write(image, out);
+        byte[] bytes = out.toByteArray();
+        String header = "PF\n3 2\n-1.0\n";
+        assertEquals(header, new String(bytes, 0, header.length(), StandardCharsets.US_ASCII));
+        assertEquals(header.length() + 3 * 2 * 3 * Float.BYTES, bytes.length);
+
+        // Lignes du bas vers le haut, en little-endian
+        ByteBuffer data = ByteBuffer.wrap(bytes, header.length(), bytes.length - header.length())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(10f, data.getFloat(header.length() + 6 * Float.BYTES));
+        assertEquals(1f, data.getFloat(header.length() + 9 * Float.BYTES));
+        assertEquals(3f, data.getFloat(header.length() + 11 * Float.BYTES));
+    }
+}
@@ -0,0 +1,121 @@
+package raytracer;
+
+import imgcompare.ImageComparator;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageComparatorTest {
+
+    private static final int[] TYPES = {
+            BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR,
+            BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY
+    };
+
+    /**
+     * Deux images presque identiques : environ un pixel sur 5 diffère.
+     */
+    private static BufferedImage[] imagePair(int type1, int type2, long seed) {
+        return imagePair(type1, type2, 37, 23, seed);
+    }
+
+    private static BufferedImage[] imagePair(int type1, int type2, int width, int height, long seed) {
+        Random rnd = new Random(seed);
+        BufferedImage a = new BufferedImage(width, height, type1);
+        BufferedImage b = new BufferedImage(width, height, type2);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = rnd.nextInt();
+                a.setRGB(x, y, rgb);
+                b.setRGB(x, y, rnd.nextInt(5) == 0 ? rgb ^ (1 << rnd.nextInt(32)) : rgb);
+            }
+        }
+        return new BufferedImage[]{a, b};
+    }
+
+    @Test
+    void testMatchesPerPixelGetRGB() {
+        for (int type1 : TYPES) {
+            for (int type2 : TYPES) {
+                BufferedImage[] images = imagePair(type1, type2, type1 * 31L + type2);
+                BufferedImage a = images[0];
+                BufferedImage b = images[1];
+                ImageComparator comparator = new ImageComparator(a, b);
+
+                // Référence : comparaison pixel par pixel avec getRGB
+                int expected = 0;
+                for (int y = 0; y < a.getHeight(); y++) {
+                    for (int x = 0; x < a.getWidth(); x++) {
+                        if (a.getRGB(x, y) != b.getRGB(x, y)) {
+                            expected++;
+                        }
+                    }
+                }
+                assertEquals(expected, comparator.countDifferentPixels(), type1 + "/" + type2);
+
+                BufferedImage diff = comparator.generateDiffImage();
+                assertEquals(type1, diff.getType());
+                for (int y = 0; y < a.getHeight(); y++) {
+                    for (int x = 0; x < a.getWidth(); x++) {
+                        int c1 = a.getRGB(x, y);
+                        int c2 = b.getRGB(x, y);
+                        java.awt.Color d = new java.awt.Color(
+                                Math.abs(((c1 >> 16) & 0xFF) - ((c2 >> 16) & 0xFF)),
+                                Math.abs(((c1 >> 8) & 0xFF) - ((c2 >> 8) & 0xFF)),
+                                Math.abs((c1 & 0xFF) - (c2 & 0xFF)));
+                        BufferedImage pixel = new BufferedImage(1, 1, type1);
+                        pixel.setRGB(0, 0, c1 == c2 ? java.awt.Color.BLACK.getRGB() : d.getRGB());
+                        assertEquals(pixel.getRGB(0, 0), diff.getRGB(x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSubImages() {
+        BufferedImage[] images = imagePair(BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_3BYTE_BGR, 5);
+        BufferedImage a = images[0].getSubimage(3, 4, 20, 10);
+        BufferedImage b = images[1].getSubimage(3, 4, 20, 10);
+        int expected = 0;
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 20; x++) {
+                if (a.getRGB(x, y) != b.getRGB(x, y)) {
+                    expected++;
+                }
+            }
+        }
+        assertEquals(expected, new ImageComparator(a, b).countDifferentPixels());
+        assertEquals(0, new ImageComparator(a, a).countDifferentPixels());
+    }
+
+    @Test
+    void testParallelMatchesSequential() {
+        // Assez large pour les boucles SIMD (et leurs fins de lignes), assez haute pour plusieurs bandes
+        for (int type : TYPES) {
+            BufferedImage[] images = imagePair(type, type, 203, 150, type);
+            ImageComparator sequential = new ImageComparator(images[0], images[1]);
+            ImageComparator parallel = new ImageComparator(images[0], images[1], 3);
+
+            assertEquals(sequential.countDifferentPixels(), parallel.countDifferentPixels());
+            BufferedImage expected = sequential.generateDiffImage();
+            BufferedImage actual = parallel.generateDiffImage();
+            int[] expectedRGB = expected.getRGB(0, 0, 203, 150, null, 0, 203);
+            assertArrayEquals(expectedRGB, actual.getRGB(0, 0, 203, 150, null, 0, 203));
+
+            // Référence : comptage pixel par pixel avec getRGB
+            int count = 0;
+            for (int y = 0; y < 150; y++) {
+                for (int x = 0; x < 203; x++) {
+                    if (images[0].getRGB(x, y) != images[1].getRGB(x, y)) {
+                        count++;
+                    }
+                }
+            }
+            assertEquals(count, parallel.countDifferentPixels());
+        }
+    }
+}
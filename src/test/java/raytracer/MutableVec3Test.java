@@ -0,0 +1,54 @@
+package raytracer;
+
+import org.junit.jupiter.api.Test;
+import raytracer.geometry.AbstractVec3;
+import raytracer.geometry.MutableVec3;
+import raytracer.geometry.Point;
+import raytracer.geometry.Ray;
+import raytracer.geometry.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MutableVec3Test {
+
+    private static final double EPSILON = AbstractVec3.EPSILON;
+
+    private final Vector v1 = new Vector(1, 2, 3);
+    private final Vector v2 = new Vector(4, 5, 6);
+
+    @Test
+    void testInPlaceOperationsMatchImmutableApi() {
+        MutableVec3 m = new MutableVec3().set(v1);
+        assertSame(m, m.add(v2)); // Les opérations retournent l'objet modifié
+        assertEquals(v1.add(v2), m);
+
+        assertEquals(v1.subtract(v2), new MutableVec3().setSubtract(v1, v2));
+        assertEquals(v1.cross(v2), new MutableVec3().setCross(v1, v2));
+        assertEquals(v1.schur(v2), new MutableVec3().set(v1).schur(v2));
+        assertEquals(v1.multiply(3), new MutableVec3().set(v1).multiply(3));
+        assertEquals(v1.add(v2.multiply(2)), new MutableVec3().set(v1).addScaled(v2, 2));
+        assertEquals(v1.dot(v2), new MutableVec3().set(v1).dot(v2), EPSILON);
+    }
+
+    @Test
+    void testNormalize() {
+        assertEquals(v1.normalize(), new MutableVec3().set(v1).normalize());
+        assertEquals(new Vector(0, 0, 0), new MutableVec3().normalize());
+    }
+
+    @Test
+    void testNoClamping() {
+        // Contrairement à Color, les composantes ne sont pas limitées à [0, 1]
+        MutableVec3 c = new MutableVec3(0.8, 0.8, 0.8).add(new MutableVec3(0.5, 0.5, 0.5));
+        assertEquals(1.3, c.getX(), EPSILON);
+    }
+
+    @Test
+    void testReusableRay() {
+        Ray ray = new Ray();
+        ray.set(new Point(1, 2, 3), new Vector(0, 0, -2));
+        assertEquals(new Point(1, 2, 1), ray.pointAt(1));
+        assertEquals(new Point(1, 2, 1), new MutableVec3().setPointAt(ray, 1));
+        assertEquals(-0.5, ray.getInvDirZ(), EPSILON);
+    }
+}
@@ -0,0 +1,66 @@
+package raytracer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import raytracer.imaging.PngWriter;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PngWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testImageReadBack() throws IOException {
+        int width = 311;
+        int height = 157;
+        int[] pixels = new int[width * height];
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // Dégradé (filtres Sub / Up / Paeth) puis bruit (plusieurs blocs IDAT)
+                pixels[y * width + x] = y < height / 2
+                        ? (x & 0xff) << 16 | (y & 0xff) << 8 | (x + y) & 0xff
+                        : random.nextInt() & 0xffffff;
+            }
+        }
+
+        Path file = tempDir.resolve("image.png");
+        try (PngWriter png = new PngWriter(Files.newOutputStream(file), width, height)) {
+            // Par morceaux de lignes, comme les bandes du rendu
+            png.writeRows(pixels, 0, 10);
+            png.writeRows(pixels, 10 * width, height - 10);
+            assertEquals(height, png.getRows());
+        }
+        assertTrue(Files.size(file) > PngWriter.CHUNK_SIZE);
+
+        BufferedImage image = ImageIO.read(file.toFile());
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(pixels[y * width + x], image.getRGB(x, y) & 0xffffff, "pixel " + x + ", " + y);
+            }
+        }
+    }
+
+    @Test
+    void testIncompleteImage() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PngWriter png = new PngWriter(bytes, 4, 4);
+        png.writeRows(new int[16], 0, 3);
+        assertThrows(IllegalArgumentException.class, () -> png.writeRows(new int[16], 0, 2));
+        assertThrows(IOException.class, png::close);
+        assertThrows(IllegalArgumentException.class, () -> new PngWriter(OutputStream.nullOutputStream(), 0, 4));
+    }
+}
@@ -0,0 +1,105 @@
+package raytracer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import raytracer.farm.RenderCoordinator;
+import raytracer.farm.RenderWorker;
+import raytracer.parsing.SceneFileParser;
+import raytracer.raytracer.Renderer;
+import raytracer.raytracer.Scene;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderFarmTest {
+
+    private static final String SCENE = String.join("\n",
+            "size 45 38",
+            "output image.png",
+            "antialias 3 0.1",
+            "camera 0 0 4 0 0 0 0 1 0 45",
+            "ambient 0.1 0.1 0.1",
+            "diffuse 0.5 0.2 0.2",
+            "specular 0.3 0.3 0.3",
+            "sphere 0 0 0 1",
+            "sphere 1.5 0.5 -1 0.5",
+            "plane 0 -1 0 0 1 0",
+            "directional 1 1 1 0.5 0.5 0.5",
+            "point 1 2 3 0.5 0.5 0.5",
+            "");
+
+    @TempDir
+    Path tempDir;
+
+    private Scene scene(String text) throws IOException {
+        Path file = tempDir.resolve("scene.txt");
+        Files.writeString(file, text);
+        return new SceneFileParser().parse(file.toString());
+    }
+
+    // Lance des nœuds dans des threads, connectés au coordinateur
+    private static void startWorkers(int port, int count) {
+        for (int i = 0; i < count; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    new RenderWorker("localhost", port, 1).run();
+                } catch (IOException e) {
+                    // Connecté après la fin du rendu : le coordinateur a fermé son port
+                }
+            });
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    @Test
+    void testFarmMatchesRenderer() throws Exception {
+        int[] expected = new Renderer(scene(SCENE), 1).render();
+        try (RenderCoordinator farm = new RenderCoordinator(scene(SCENE), 0)) {
+            // Bandes non alignées sur les tuiles : l'anti-aliasing doit voir les lignes voisines
+            farm.setBandRows(7);
+            startWorkers(farm.getPort(), 3);
+            assertArrayEquals(expected, farm.render());
+            // 6 bandes, et les lignes voisines de chaque bande entre deux bandes
+            assertEquals(45 * (38 + 2 * 5), farm.getStats().getPrimaryRays());
+            assertTrue(farm.getStats().getAntialiasRays() > 0);
+        }
+
+        // Tone mapping appliqué par les nœuds
+        String mapped = "tonemap reinhard 1\ngamma 2.2\n" + SCENE;
+        try (RenderCoordinator farm = new RenderCoordinator(scene(mapped), 0)) {
+            farm.setBandRows(10);
+            startWorkers(farm.getPort(), 2);
+            assertArrayEquals(new Renderer(scene(mapped), 1).render(), farm.render());
+        }
+    }
+
+    @Test
+    void testLostWorker() throws Exception {
+        int[] expected = new Renderer(scene(SCENE), 1).render();
+        try (RenderCoordinator farm = new RenderCoordinator(scene(SCENE), 0)) {
+            farm.setBandRows(16);
+            // Un nœud reçoit la scène et une bande, puis se déconnecte sans répondre
+            Thread lost = new Thread(() -> {
+                try (Socket socket = new Socket("localhost", farm.getPort())) {
+                    DataInputStream in = new DataInputStream(socket.getInputStream());
+                    in.readInt();
+                    in.readInt();
+                    in.skipNBytes(in.readInt());
+                    in.readInt();
+                    in.readInt();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                startWorkers(farm.getPort(), 1);
+            });
+            lost.start();
+            assertArrayEquals(expected, farm.render());
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package raytracer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import raytracer.geometry.Point;
+import raytracer.geometry.Ray;
+import raytracer.geometry.Vector;
+import raytracer.parsing.SceneFileParser;
+import raytracer.imaging.Color;
+import raytracer.imaging.HdrImage;
+import raytracer.imaging.ToneMapping;
+import raytracer.raytracer.Camera;
+import raytracer.raytracer.GBuffer;
+import raytracer.raytracer.ProgressiveRenderer;
+import raytracer.raytracer.RayTracer;
+import raytracer.raytracer.Renderer;
+import raytracer.raytracer.Scene;
+import raytracer.raytracer.TraceContext;
+import raytracer.stats.RenderStats;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RendererTest {
+
+    private static final String SCENE = String.join("\n",
+            "size 40 30",
+            "output image.png",
+            "camera 0 0 4 0 0 0 0 1 0 45",
+            "ambient 0.1 0.1 0.1",
+            "diffuse 0.5 0.2 0.2",
+            "specular 0.3 0.3 0.3",
+            "sphere 0 0 0 1",
+            "sphere 1.5 0.5 -1 0.5",
+            "plane 0 -1 0 0 1 0",
+            "directional 1 1 1 0.5 0.5 0.5",
+            "point 1 2 3 0.5 0.5 0.5",
+            "maxverts 3",
+            "vertex -3 -1 -2", "vertex -1 -1 -2", "vertex -2 1 -2",
+            "tri 0 1 2",
+            "");
+
+    @TempDir
+    Path tempDir;
+
+    private Scene scene() throws IOException {
+        return scene(SCENE);
+    }
+
+    private Scene scene(String text) throws IOException {
+        Path file = tempDir.resolve("scene.txt");
+        Files.writeString(file, text);
+        return new SceneFileParser().parse(file.toString());
+    }
+
+    @Test
+    void testStats() throws IOException {
+        Scene scene = scene();
+        Renderer renderer = new Renderer(scene, 2);
+        renderer.render();
+        RenderStats stats = renderer.getStats();
+
+        assertEquals(1, stats.getRenders());
+        assertEquals(40 * 30, stats.getPrimaryRays());
+        assertTrue(stats.getShadowRays() > 0);
+        // Un plan hors BVH : testé par chaque rayon primaire, et par les rayons d'ombre
+        // dont le dernier bloqueur (cache) ne masque pas la lumière
+        assertTrue(stats.getPlaneTests() > stats.getPrimaryRays());
+        assertTrue(stats.getPlaneTests() < stats.getPrimaryRays() + stats.getShadowRays());
+        assertTrue(stats.getSphereTests() > 0);
+        assertTrue(stats.getTriangleTests() > 0);
+        assertTrue(stats.getNodesVisited() > 0);
+        assertTrue(stats.getTiles() > 0);
+        assertTrue(stats.getPeakHeapBytes() > 0);
+        assertTrue(stats.toJson().contains("\"primary\": 1200"));
+
+        // Les compteurs ne changent pas l'image, et un second rendu repart de zéro (les tests
+        // d'intersection varient : le cache des bloqueurs dépend des tuiles rendues par chaque thread)
+        Renderer again = new Renderer(scene, 1);
+        again.render();
+        assertEquals(stats.getPrimaryRays(), again.getStats().getPrimaryRays());
+        assertEquals(stats.getShadowRays(), again.getStats().getShadowRays());
+        assertTrue(RenderStats.global().getRenders() >= 2);
+    }
+
+    @Test
+    void testPoolReuse() throws IOException {
+        // Un même Renderer (et ses threads) pour plusieurs rendus : mêmes pixels
+        Scene scene = scene();
+        int[] expected = new Renderer(scene, 1).render();
+        try (Renderer renderer = new Renderer(scene, 2, 7)) {
+            int[] bands = new int[expected.length];
+            for (int y0 = 0; y0 < 30; y0 += 7) {
+                int y1 = Math.min(y0 + 7, 30);
+                int[] rows = renderer.renderRows(y0, y1, null);
+                System.arraycopy(rows, 0, bands, y0 * 40, rows.length);
+            }
+            assertArrayEquals(expected, bands);
+            renderer.close();
+            assertArrayEquals(expected, renderer.render()); // Threads recréés
+        }
+
+        // Threads fournis : partagés, pas arrêtés par close()
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Renderer shared = new Renderer(scene, 2);
+            shared.setPool(pool);
+            assertArrayEquals(expected, shared.render());
+            shared.close();
+            assertFalse(pool.isShutdown());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testReflections() throws IOException {
+        // Par défaut (maxdepth 1) : aucun rayon réfléchi
+        Renderer flat = new Renderer(scene(), 1);
+        int[] flatPixels = flat.render();
+        assertEquals(0, flat.getStats().getSecondaryRays());
+
+        Renderer mirror = new Renderer(scene("maxdepth 4\n" + SCENE), 1);
+        int[] mirrorPixels = mirror.render();
+        long secondary = mirror.getStats().getSecondaryRays();
+        assertTrue(secondary > 0);
+        // Au plus 3 rayons réfléchis par rayon primaire
+        assertTrue(secondary <= 3 * mirror.getStats().getPrimaryRays());
+        assertFalse(Arrays.equals(flatPixels, mirrorPixels));
+
+        // Spéculaire noir : aucun rayon réfléchi, même image qu'avec maxdepth 1
+        String black = SCENE.replace("specular 0.3 0.3 0.3", "specular 0 0 0");
+        Renderer blackFlat = new Renderer(scene(black), 1);
+        Renderer blackMirror = new Renderer(scene("maxdepth 4\n" + black), 1);
+        assertArrayEquals(blackFlat.render(), blackMirror.render());
+        assertEquals(0, blackMirror.getStats().getSecondaryRays());
+    }
+
+    @Test
+    void testPacketsMatchSingleRays() throws IOException {
+        // Tuiles de 7 pixels : blocs coupés par les bords des tuiles et de l'image
+        Scene scene = scene("maxdepth 3\n" + SCENE);
+        int[] expected = new Renderer(scene, 1, 7).render();
+        for (int size : new int[]{4, 8, 16}) {
+            Renderer renderer = new Renderer(scene, 2, 7, size);
+            assertArrayEquals(expected, renderer.render(), "paquets de " + size);
+            assertEquals(40 * 30, renderer.getStats().getPrimaryRays());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new Renderer(scene, 1, 7, 3));
+    }
+
+    @Test
+    void testStreamedImageMatchesRender() throws IOException {
+        // Tuiles de 7 pixels : plusieurs bandes, la dernière incomplète
+        Path output = tempDir.resolve("streamed.png");
+        Scene scene = scene(SCENE.replace("output image.png", "output " + output));
+        Renderer renderer = new Renderer(scene, 2, 7);
+        int[] expected = renderer.render();
+        renderer.renderToFile();
+        assertEquals(40 * 30, renderer.getStats().getPrimaryRays());
+
+        BufferedImage image = ImageIO.read(output.toFile());
+        int[] actual = image.getRGB(0, 0, 40, 30, null, 0, 40);
+        for (int i = 0; i < actual.length; i++) {
+            actual[i] &= 0xffffff;
+        }
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void testToneMapping() throws IOException {
+        // Plusieurs lumières fortes (une couleur de lumière est limitée à 1) : les couleurs HDR dépassent 1
+        String bright = SCENE.replace("point 1 2 3 0.5 0.5 0.5",
+                "point 1 2 3 1 1 1\npoint -1 2 3 1 1 1\npoint 0 3 2 1 1 1");
+        int[] clamped = new Renderer(scene(bright), 1).render();
+        HdrImage hdr = new Renderer(scene(bright), 1).renderHdr();
+        float max = 0;
+        for (int i = 0; i < 40 * 30; i++) {
+            max = Math.max(max, hdr.getR(i));
+        }
+        assertTrue(max > 1);
+
+        Renderer mapped = new Renderer(scene("tonemap reinhard 1\ngamma 2.2\n" + bright), 2);
+        int[] pixels = mapped.render();
+        assertArrayEquals(hdr.toRGB(ToneMapping.REINHARD, 1, 2.2), pixels);
+        assertFalse(Arrays.equals(clamped, pixels));
+        assertEquals(40 * 30, mapped.getStats().getPrimaryRays());
+
+        // Image HDR : couleurs non limitées dans un fichier .pfm
+        Path output = tempDir.resolve("image.pfm");
+        new Renderer(scene(bright.replace("output image.png", "output " + output)), 1).renderToFile();
+        assertEquals("PF\n40 30\n-1.0\n".length() + 40 * 30 * 3 * Float.BYTES, Files.size(output));
+    }
+
+    @Test
+    void testLightSampling() throws IOException {
+        // 16 x 16 lumières faibles au-dessus de la scène
+        StringBuilder lights = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+            for (int j = 0; j < 16; j++) {
+                lights.append("point ").append(i * 0.5 - 4).append(" 3 ").append(j * 0.5 - 2)
+                        .append(" 0.004 0.004 0.004\n");
+            }
+        }
+        String many = SCENE.replace("point 1 2 3 0.5 0.5 0.5", lights.toString());
+        Renderer exact = new Renderer(scene(many), 1);
+        HdrImage reference = exact.renderHdr();
+        Renderer sampled = new Renderer(scene("lightsamples 8\n" + many), 2);
+        HdrImage image = sampled.renderHdr();
+
+        // Beaucoup moins de rayons d'ombre, même éclairage moyen
+        assertTrue(sampled.getStats().getShadowRays() * 10 < exact.getStats().getShadowRays());
+        double referenceSum = 0, sum = 0;
+        for (int i = 0; i < 40 * 30; i++) {
+            referenceSum += reference.getR(i) + reference.getG(i) + reference.getB(i);
+            sum += image.getR(i) + image.getG(i) + image.getB(i);
+        }
+        assertEquals(1, sum / referenceSum, 0.03);
+
+        // Tirages reproductibles
+        assertArrayEquals(sampled.render(), new Renderer(scene("lightsamples 8\n" + many), 1).render());
+
+        // Au moins autant de tirages que de lumières : toutes les lumières, même image
+        assertArrayEquals(new Renderer(scene(), 1).render(), new Renderer(scene("lightsamples 1\n" + SCENE), 1).render());
+    }
+
+    @Test
+    void testAdaptiveAntialiasing() throws IOException {
+        Renderer plain = new Renderer(scene(), 1);
+        int[] plainPixels = plain.render();
+
+        // Seuls les pixels de bord sont recalculés, avec 3 x 3 rayons
+        Renderer aa = new Renderer(scene("antialias 3 0.1\n" + SCENE), 2);
+        int[] aaPixels = aa.render();
+        RenderStats stats = aa.getStats();
+        assertEquals(40 * 30, stats.getPrimaryRays());
+        assertTrue(stats.getAntialiasRays() > 0);
+        assertEquals(0, stats.getAntialiasRays() % 9);
+        assertTrue(stats.getAntialiasRays() < 9 * 40 * 30 / 2);
+        assertFalse(Arrays.equals(plainPixels, aaPixels));
+        int changed = 0;
+        for (int i = 0; i < plainPixels.length; i++) {
+            if (plainPixels[i] != aaPixels[i]) {
+                changed++;
+            }
+        }
+        assertTrue(changed <= stats.getAntialiasRays() / 9);
+
+        // Même résultat en mode paquet ; un seuil plus haut recalcule moins de pixels
+        assertArrayEquals(aaPixels, new Renderer(scene("antialias 3 0.1\n" + SCENE), 1, 7, 8).render());
+        Renderer shapesOnly = new Renderer(scene("antialias 3 1\n" + SCENE), 1);
+        shapesOnly.render();
+        assertTrue(shapesOnly.getStats().getAntialiasRays() < stats.getAntialiasRays());
+
+        // 1 échantillon : pas d'anti-aliasing
+        Renderer off = new Renderer(scene("antialias 1 0\n" + SCENE), 1);
+        assertArrayEquals(plainPixels, off.render());
+        assertEquals(0, off.getStats().getAntialiasRays());
+        assertThrows(IllegalArgumentException.class, () -> new Scene().setAntialiasing(0, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new Scene().setAntialiasing(2, 1.5));
+    }
+
+    @Test
+    void testProgressiveMatchesRenderer() throws IOException {
+        Scene scene = scene("maxdepth 3\n" + SCENE);
+        int[] expected = new Renderer(scene, 1).render();
+
+        List<int[]> frames = new ArrayList<>();
+        ProgressiveRenderer progressive = new ProgressiveRenderer(scene, 2);
+        progressive.setListener((pixels, pass, complete) -> {
+            assertEquals(frames.size(), pass);
+            assertTrue(complete);
+            frames.add(pixels);
+        });
+        int[] pixels = progressive.render();
+        assertArrayEquals(expected, pixels);
+        assertEquals(ProgressiveRenderer.PASSES, frames.size());
+        assertEquals(ProgressiveRenderer.PASSES, progressive.getCompletedPasses());
+        assertArrayEquals(expected, frames.get(frames.size() - 1));
+        // Aucun pixel n'est calculé deux fois
+        assertEquals(40 * 30, progressive.getStats().getPrimaryRays());
+
+        // Aperçu : un pixel sur 8 x 8, recopié sur son bloc (coupé par le bord de l'image)
+        int[] preview = frames.get(0);
+        int step = ProgressiveRenderer.COARSE_STEP;
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 40; x++) {
+                assertEquals(expected[(y / step * step) * 40 + x / step * step], preview[y * 40 + x]);
+            }
+        }
+    }
+
+    @Test
+    void testProgressiveBudget() throws IOException {
+        ProgressiveRenderer progressive = new ProgressiveRenderer(scene(), 1);
+        progressive.setTimeBudget(1);
+        int[] pixels = progressive.render();
+        // La première passe est toujours complète : l'image est entièrement remplie
+        assertEquals(40 * 30, pixels.length);
+        assertTrue(progressive.getCompletedPasses() >= 1);
+        assertTrue(progressive.getStats().getPrimaryRays() >= (40 / 8) * (30 / 8 + 1));
+        assertThrows(IllegalArgumentException.class, () -> progressive.setTimeBudget(-1));
+
+
+        // Sans limite : la meilleure image est l'image complète, écrite dans scene.getOutput()
+        Path output = tempDir.resolve("progressive.png");
+        ProgressiveRenderer full = new ProgressiveRenderer(scene(SCENE.replace("output image.png", "output " + output)), 1);
+        full.setTimeBudget(0);
+        full.renderToFile();
+        assertEquals(ProgressiveRenderer.PASSES, full.getCompletedPasses());
+        assertTrue(Files.size(output) > 0);
+
+        // Sortie .pfm : même image HDR que Renderer
+        Path pfm = tempDir.resolve("progressive.pfm");
+        Path expected = tempDir.resolve("expected.pfm");
+        new ProgressiveRenderer(scene(SCENE.replace("output image.png", "output " + pfm)), 1).renderToFile();
+        new Renderer(scene(SCENE.replace("output image.png", "output " + expected)), 1).renderToFile();
+        assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(pfm));
+    }
+
+    @Test
+    void testGBufferReshade() throws IOException {
+        GBuffer gbuffer = new GBuffer();
+        Renderer first = new Renderer(scene(), 1, 16, 4);
+        first.setGBuffer(gbuffer);
+        first.render();
+        assertFalse(first.isReshaded());
+        assertTrue(gbuffer.isValidFor(scene()));
+
+        // Matériaux, ambiante et couleurs des lumières changés : aucun rayon primaire, même image
+        String colors = SCENE.replace("diffuse 0.5 0.2 0.2", "diffuse 0.1 0.6 0.3")
+                .replace("ambient 0.1 0.1 0.1", "ambient 0.2 0.1 0")
+                .replace("point 1 2 3 0.5 0.5 0.5", "point 1 2 3 0.8 0.2 0.2");
+        Renderer reshade = new Renderer(scene(colors), 2);
+        reshade.setGBuffer(gbuffer);
+        int[] pixels = reshade.render();
+        assertTrue(reshade.isReshaded());
+        assertEquals(0, reshade.getStats().getPrimaryRays());
+        Renderer full = new Renderer(scene(colors), 1);
+        assertArrayEquals(full.render(), pixels);
+        // Visibilité des lumières relue : seuls les reflets tracent des rayons d'ombre
+        assertTrue(reshade.getStats().getShadowRays() < full.getStats().getShadowRays());
+
+        // Lumière déplacée : ombres retracées, même image
+        String moved = colors.replace("point 1 2 3", "point -1 2 3");
+        Renderer light = new Renderer(scene(moved), 1);
+        light.setGBuffer(gbuffer);
+        pixels = light.render();
+        assertTrue(light.isReshaded());
+        assertEquals(0, light.getStats().getPrimaryRays());
+        assertArrayEquals(new Renderer(scene(moved), 1).render(), pixels);
+
+        // Géométrie changée : rendu complet, qui remplit à nouveau le cache
+        String geometry = moved.replace("sphere 0 0 0 1", "sphere 0 0 0 0.9");
+        Renderer changed = new Renderer(scene(geometry), 1);
+        changed.setGBuffer(gbuffer);
+        pixels = changed.render();
+        assertFalse(changed.isReshaded());
+        assertEquals(40 * 30, changed.getStats().getPrimaryRays());
+        assertArrayEquals(new Renderer(scene(geometry), 1).render(), pixels);
+        assertTrue(gbuffer.isValidFor(scene(geometry)));
+        assertFalse(gbuffer.isValidFor(scene(moved)));
+    }
+
+    // Couleur du point (x, -1, 0) du sol, vu depuis (0, 0, 4)
+    private static Color floor(Scene scene, double x) {
+        Point from = new Point(0, 0, 4);
+        return new RayTracer(scene).trace(new Ray(from, new Point(x, -1, 0).subtract(from)));
+    }
+
+    @Test
+    void testShadows() throws IOException {
+        // Sphère entre la lumière ponctuelle et le point (0, -1, 0) du sol ; lumière directionnelle non masquée
+        String lights = String.join("\n",
+                "size 40 30",
+                "output image.png",
+                "camera 0 0 4 0 -1 0 0 1 0 45",
+                "ambient 0.1 0.1 0.1",
+                "diffuse 0.5 0.5 0.5",
+                "plane 0 -1 0 0 1 0",
+                "sphere 0 1 0 0.5",
+                "directional 0 1 1 0.3 0.3 0.3",
+                "");
+        Scene occluded = scene(lights + "point 0 3 0 0.5 0.5 0.5\n");
+        Scene withoutPoint = scene(lights);
+
+        // Dans l'ombre : seule la lumière ponctuelle manque
+        Color shadow = floor(occluded, 0);
+        Color unlit = floor(withoutPoint, 0);
+        assertEquals(unlit.getR(), shadow.getR(), 1e-12);
+        assertEquals(unlit.getG(), shadow.getG(), 1e-12);
+        assertEquals(unlit.getB(), shadow.getB(), 1e-12);
+        // Hors de l'ombre : la lumière ponctuelle éclaire
+        assertTrue(floor(occluded, 3).getR() > floor(withoutPoint, 3).getR() + 0.01);
+
+        // Même image avec et sans le cache des bloqueurs (un contexte pour toute l'image, comme un thread)
+        for (Scene scene : List.of(occluded, scene())) {
+            RayTracer tracer = new RayTracer(scene);
+            Camera.RayTable rays = scene.getCamera().rayTable(scene.getWidth(), scene.getHeight());
+            TraceContext cached = new TraceContext();
+            TraceContext uncached = new TraceContext();
+            uncached.setOccluderCache(false);
+            for (int y = 0; y < scene.getHeight(); y++) {
+                for (int x = 0; x < scene.getWidth(); x++) {
+                    tracer.trace(rays.generateRay(x, y, cached.getRay()), cached);
+                    tracer.trace(rays.generateRay(x, y, uncached.getRay()), uncached);
+                    assertEquals(uncached.getColor().getX(), cached.getColor().getX(), 0);
+                    assertEquals(uncached.getColor().getY(), cached.getColor().getY(), 0);
+                    assertEquals(uncached.getColor().getZ(), cached.getColor().getZ(), 0);
+                }
+            }
+        }
+
+        // Le cache suit le thread d'une tuile à l'autre : des tuiles d'un pixel ne le vident pas
+        // (même parcours de la BVH qu'avec de grandes tuiles)
+        try (Renderer small = new Renderer(occluded, 1, 1); Renderer large = new Renderer(occluded, 1, 32)) {
+            assertArrayEquals(large.render(), small.render());
+            assertEquals(large.getStats().getNodesVisited(), small.getStats().getNodesVisited());
+        }
+    }
+}
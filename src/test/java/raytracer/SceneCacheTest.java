@@ -0,0 +1,100 @@
+package raytracer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import raytracer.geometry.*;
+import raytracer.imaging.ToneMapping;
+import raytracer.parsing.SceneCache;
+import raytracer.parsing.SceneFileParser;
+import raytracer.raytracer.DirectionalLight;
+import raytracer.raytracer.Renderer;
+import raytracer.raytracer.Scene;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SceneCacheTest {
+
+    private static final String SCENE = String.join("\n",
+            "size 32 24",
+            "output image.png",
+            "maxdepth 3",
+            "antialias 3 0.25",
+            "tonemap aces 1.5",
+            "gamma 2.2",
+            "lightsamples 4",
+            "camera 0 0 4 0 0 0 0 1 0 45",
+            "ambient 0.1 0.1 0.1",
+            "diffuse 0.5 0.2 0.2",
+            "specular 0.3 0.3 0.3",
+            "sphere 0 0 0 1",
+            "plane 0 -1 0 0 1 0",
+            "directional 1 1 1 0.5 0.5 0.5",
+            "point 1 2 3 0.5 0.5 0.5",
+            "maxverts 4",
+            "vertex -1 -1 -2", "vertex 1 -1 -2", "vertex 0 1 -2", "vertex 1 1 -2",
+            "tri 0 1 2",
+            "diffuse 0 0.5 0",
+            "tri 1 3 2",
+            "");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testCachedSceneMatchesParsedScene() throws IOException {
+        Path file = tempDir.resolve("scene.txt");
+        Files.writeString(file, SCENE);
+
+        Scene parsed = new SceneCache(1).load(file.toString()); // Crée le cache
+        assertTrue(Files.exists(SceneCache.cachePath(file)));
+        Scene cached = new SceneCache(1).load(file.toString()); // Relu depuis le cache
+
+        assertEquals(parsed.getWidth(), cached.getWidth());
+        assertEquals(parsed.getOutput(), cached.getOutput());
+        assertEquals(3, cached.getMaxDepth());
+        assertEquals(3, cached.getAaSamples());
+        assertEquals(0.25, cached.getAaThreshold());
+        assertEquals(ToneMapping.ACES, cached.getToneMapping());
+        assertEquals(1.5, cached.getExposure());
+        assertEquals(2.2, cached.getGamma());
+        assertEquals(4, cached.getLightSamples());
+        assertEquals(parsed.getCamera().getLookFrom(), cached.getCamera().getLookFrom());
+        assertEquals(parsed.getAmbient(), cached.getAmbient());
+        assertEquals(parsed.getLights().size(), cached.getLights().size());
+        assertEquals(((DirectionalLight) parsed.getLights().get(0)).getDirection(),
+                ((DirectionalLight) cached.getLights().get(0)).getDirection());
+        assertEquals(parsed.getShapes().size(), cached.getShapes().size());
+        for (int i = 0; i < parsed.getShapes().size(); i++) {
+            Shape expected = parsed.getShapes().get(i);
+            Shape actual = cached.getShapes().get(i);
+            assertEquals(expected.getClass(), actual.getClass());
+            assertEquals(expected.getDiffuse(), actual.getDiffuse());
+            assertEquals(expected.getSpecular(), actual.getSpecular());
+        }
+        TriangleMesh mesh = (TriangleMesh) cached.getShapes().get(2);
+        assertSame(mesh.getPositions(), ((TriangleMesh) cached.getShapes().get(3)).getPositions());
+        assertArrayEquals(((TriangleMesh) parsed.getShapes().get(2)).getIndices(), mesh.getIndices());
+
+        // Même image
+        assertArrayEquals(new Renderer(parsed, 1).render(), new Renderer(cached, 1).render());
+    }
+
+    @Test
+    void testCacheRebuiltWhenSourceChanges() throws IOException {
+        Path file = tempDir.resolve("scene.txt");
+        Files.writeString(file, SCENE);
+        new SceneCache(1).load(file.toString());
+
+        Files.writeString(file, SCENE + "sphere 2 0 0 0.5\n");
+        Scene scene = new SceneCache(1).load(file.toString());
+        assertEquals(new SceneFileParser().parse(file.toString()).getShapes().size(), scene.getShapes().size());
+
+        // Cache corrompu : la scène est relue depuis le texte
+        Files.write(SceneCache.cachePath(file), new byte[]{1, 2, 3});
+        assertEquals(5, new SceneCache(1).load(file.toString()).getShapes().size());
+    }
+}
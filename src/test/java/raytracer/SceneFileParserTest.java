@@ -0,0 +1,200 @@
+package raytracer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import raytracer.geometry.*;
+import raytracer.imaging.Color;
+import raytracer.parsing.SceneFileParser;
+import raytracer.raytracer.PointLight;
+import raytracer.raytracer.Scene;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SceneFileParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Scene parse(String content) throws IOException {
+        Path file = tempDir.resolve("scene.txt");
+        Files.writeString(file, content);
+        return new SceneFileParser().parse(file.toString());
+    }
+
+    @Test
+    void testBasicScene() throws IOException {
+        Scene scene = parse(String.join("\n",
+                "# Commentaire",
+                "size 640 480",
+                "output image.png",
+                "   camera 0 0 4  0 0 0  0 1 0  45   ",
+                "",
+                "ambient 0.1 0.1 0.1",
+                "diffuse 0.5 0.2 0.2",
+                "sphere 0 0 0 1",
+                "plane 0 -1 0 0 1 0",
+                "point 1 2 3 0.5 0.5 0.5\r",
+                "maxverts 3",
+                "vertex 0 0 0",
+                "vertex 1 0 0",
+                "vertex 0 1 0",
+                "tri 0 1 2")); // Pas de '\n' final
+
+        assertEquals(640, scene.getWidth());
+        assertEquals(480, scene.getHeight());
+        assertEquals("image.png", scene.getOutput());
+        assertEquals(45, scene.getCamera().getFov(), 1e-12);
+        assertEquals(new Point(0, 0, 4), scene.getCamera().getLookFrom());
+        assertEquals(new Color(0.1, 0.1, 0.1), scene.getAmbient());
+        assertEquals(3, scene.getShapes().size());
+        assertEquals(1, scene.getLights().size());
+        assertEquals(new Point(1, 2, 3), ((PointLight) scene.getLights().get(0)).getPosition());
+
+        TriangleMesh mesh = (TriangleMesh) scene.getShapes().get(2);
+        assertEquals(1, mesh.getTriangleCount());
+        assertEquals(new Color(0.5, 0.2, 0.2), mesh.getDiffuse());
+        assertNotNull(scene.getAccelerator());
+    }
+
+    @Test
+    void testTrianglesGroupedByMaterial() throws IOException {
+        Scene scene = parse(String.join("\n",
+                "size 10 10",
+                "camera 0 0 4 0 0 0 0 1 0 45",
+                "maxverts 4",
+                "vertex 0 0 0", "vertex 1 0 0", "vertex 0 1 0", "vertex 1 1 0",
+                "diffuse 1 0 0",
+                "tri 0 1 2",
+                "diffuse 0 1 0",
+                "tri 1 3 2",
+                "diffuse 1 0 0",
+                "tri 0 2 3",
+                ""));
+
+        assertEquals(2, scene.getShapes().size());
+        int triangles = 0;
+        for (Shape shape : scene.getShapes()) {
+            triangles += ((TriangleMesh) shape).getTriangleCount();
+        }
+        assertEquals(3, triangles);
+    }
+
+    @Test
+    void testNumbersMatchDoubleParseDouble() throws IOException {
+        // Différentes écritures de nombres : le parseur maison doit donner exactement
+        // le même résultat que Double.parseDouble
+        Random rnd = new Random(3);
+        List<String> radii = new ArrayList<>(List.of(
+                "1", "0.5", "-0", "+2.25", "007", ".5", "5.", "1e3", "1.5E-3", "2e+2",
+                "0.1", "0.30000000000000004", "123456789012345678901234", "1e-320", "1e400",
+                "3.141592653589793238462643383279"));
+        for (int i = 0; i < 200; i++) {
+            radii.add(Double.toString(rnd.nextDouble() * Math.pow(10, rnd.nextInt(20) - 10)));
+            radii.add(String.format(java.util.Locale.ROOT, "%.6f", rnd.nextDouble() * 100));
+        }
+
+        StringBuilder content = new StringBuilder("size 10 10\ncamera 0 0 4 0 0 0 0 1 0 45\n");
+        for (String r : radii) {
+            content.append("sphere 0 0 0 ").append(r).append('\n');
+        }
+        Scene scene = parse(content.toString());
+
+        assertEquals(radii.size(), scene.getShapes().size());
+        for (int i = 0; i < radii.size(); i++) {
+            double expected = Double.parseDouble(radii.get(i));
+            double actual = ((Sphere) scene.getShapes().get(i)).getRadius();
+            assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual), radii.get(i));
+        }
+    }
+
+    @Test
+    void testInvalidLinesAreSkipped() throws IOException {
+        Scene scene = parse(String.join("\n",
+                "size 10 10",
+                "camera 0 0 4 0 0 0 0 1 0 45",
+                "sphere 0 0 0 abc",    // Nombre invalide
+                "sphere 0 0",          // Paramètres manquants
+                "unknown 1 2 3",       // Commande inconnue
+                "maxverts 2",
+                "vertex 0 0 0",
+                "tri 0 1 5",           // Indice invalide
+                "sphere 0 0 0 1"));
+        assertEquals(1, scene.getShapes().size());
+    }
+
+    @Test
+    void testParallelParseMatchesSequential() throws IOException {
+        // Fichier assez gros (> 4 Mo) pour déclencher le parsing parallèle, avec des changements
+        // de matériau, plusieurs blocs maxverts et des lignes invalides répartis dans tout le fichier
+        Random rnd = new Random(11);
+        StringBuilder content = new StringBuilder("size 10 10\ncamera 0 0 4 0 0 0 0 1 0 45\nambient 0.1 0.1 0.1\n");
+        for (int block = 0; block < 4; block++) {
+            int verts = 20000;
+            content.append("maxverts ").append(verts).append('\n');
+            for (int v = 0; v < verts; v++) {
+                content.append("vertex ").append(rnd.nextDouble()).append(' ')
+                        .append(rnd.nextDouble()).append(' ').append(rnd.nextDouble()).append('\n');
+                if (v % 5000 == 4999) {
+                    content.append("diffuse ").append(rnd.nextInt(3) * 0.3).append(" 0.2 0.2\n");
+                    content.append("sphere 0 0 0 ").append(rnd.nextDouble()).append('\n');
+                }
+            }
+            for (int t = 0; t < 30000; t++) {
+                if (t % 7000 == 0) {
+                    content.append("diffuse ").append(rnd.nextInt(3) * 0.3).append(" 0.4 0.4\n");
+                }
+                if (t % 9000 == 0) {
+                    content.append("tri 1 2 ").append(verts + 3).append('\n'); // Indice invalide
+                    content.append("tri 1 x 2\n");                              // Nombre invalide
+                }
+                content.append("tri ").append(rnd.nextInt(verts)).append(' ')
+                        .append(rnd.nextInt(verts)).append(' ').append(rnd.nextInt(verts)).append('\n');
+            }
+        }
+        Path file = tempDir.resolve("big.txt");
+        Files.writeString(file, content);
+        assertTrue(Files.size(file) > (4 << 20));
+
+        Scene sequential = new SceneFileParser().parse(file.toString());
+        Scene parallel = new SceneFileParser(4).parse(file.toString());
+
+        assertEquals(sequential.getShapes().size(), parallel.getShapes().size());
+        for (int i = 0; i < sequential.getShapes().size(); i++) {
+            Shape expected = sequential.getShapes().get(i);
+            Shape actual = parallel.getShapes().get(i);
+            assertEquals(expected.getClass(), actual.getClass());
+            assertEquals(expected.getDiffuse(), actual.getDiffuse());
+            assertEquals(expected.getSpecular(), actual.getSpecular());
+            if (expected instanceof TriangleMesh) {
+                assertArrayEquals(((TriangleMesh) expected).getPositions(), ((TriangleMesh) actual).getPositions());
+                assertArrayEquals(((TriangleMesh) expected).getIndices(), ((TriangleMesh) actual).getIndices());
+            } else {
+                assertEquals(((Sphere) expected).getRadius(), ((Sphere) actual).getRadius(), 0);
+            }
+        }
+    }
+
+    @Test
+    void testNonAsciiOutput() throws IOException {
+        // Octets UTF-8 >= 0x80 (négatifs en Java) : ils ne doivent pas être pris pour des blancs
+        Scene scene = parse(String.join("\n",
+                "size 10 10",
+                "output rendu_é_ß→.png",
+                "camera 0 0 4 0 0 0 0 1 0 45",
+                "sphere 0 0 0 1"));
+        assertEquals("rendu_é_ß→.png", scene.getOutput());
+        assertEquals(1, scene.getShapes().size());
+    }
+
+    @Test
+    void testMissingSize() {
+        assertThrows(RuntimeException.class, () -> parse("camera 0 0 4 0 0 0 0 1 0 45\n"));
+    }
+}
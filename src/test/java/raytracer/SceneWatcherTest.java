@@ -0,0 +1,205 @@
+package raytracer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import raytracer.acceleration.BVH;
+import raytracer.geometry.TriangleMesh;
+import raytracer.parsing.SceneFileParser;
+import raytracer.raytracer.Renderer;
+import raytracer.raytracer.Scene;
+import raytracer.raytracer.SceneDiff;
+import raytracer.watch.SceneWatcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SceneWatcherTest {
+
+    private static final String SCENE = String.join("\n",
+            "size 40 30",
+            "output image.png",
+            "camera 0 0 4 0 0 0 0 1 0 45",
+            "ambient 0.1 0.1 0.1",
+            "diffuse 0.5 0.2 0.2",
+            "sphere 0 0 0 1",
+            "sphere 1.5 0.5 -1 0.5",
+            "sphere -1.5 0.5 -1 0.5",
+            "sphere 0 1.5 -1 0.4",
+            "diffuse 0.2 0.2 0.5",
+            "plane 0 -1 0 0 1 0",
+            "point 1 2 3 0.5 0.5 0.5",
+            "");
+
+    @TempDir
+    Path tempDir;
+
+    private Path write(String text) throws IOException {
+        Path file = tempDir.resolve("scene.txt");
+        Files.writeString(file, text.replace("output image.png", "output " + tempDir.resolve("image.png")));
+        return file;
+    }
+
+    // Image d'un rendu complet de la scène courante du fichier
+    private int[] fullRender(Path file) throws IOException {
+        Scene scene = new SceneFileParser().parse(file.toString());
+        return new Renderer(scene, 1).render();
+    }
+
+    @Test
+    void testUpdates() throws IOException {
+        Path file = write(SCENE);
+        try (SceneWatcher watcher = new SceneWatcher(file.toString(), 1)) {
+            boolean[] last = new boolean[2]; // BVH réajustée, G-buffer relu
+            watcher.setListener((diff, refitted, reshaded, nanos) -> {
+                last[0] = refitted;
+                last[1] = reshaded;
+            });
+            assertNull(watcher.update());
+            assertTrue(Files.exists(tempDir.resolve("image.png")));
+
+            // Commentaire seulement : pas de rendu
+            write("# Essai\n" + SCENE);
+            assertTrue(watcher.update().isEmpty());
+
+            // Matériau (une ligne 'diffuse' change toutes les formes qui la suivent) : G-buffer
+            write(SCENE.replace("diffuse 0.5 0.2 0.2", "diffuse 0.1 0.6 0.1"));
+            SceneDiff diff = watcher.update();
+            assertTrue(diff.isShadingOnly());
+            assertEquals(4, diff.getMaterialChanges());
+            assertTrue(last[1]);
+            assertEquals(0, watcher.getStats().getPrimaryRays());
+            assertArrayEquals(fullRender(file), new Renderer(watcher.getScene(), 1).render());
+
+            // Une sphère déplacée : BVH réajustée, même image qu'un rendu complet
+            String moved = SCENE.replace("diffuse 0.5 0.2 0.2", "diffuse 0.1 0.6 0.1")
+                    .replace("sphere 1.5 0.5 -1 0.5", "sphere 1 -0.5 0 0.6");
+            write(moved);
+            diff = watcher.update();
+            assertEquals(1, diff.getMovedShapes());
+            assertFalse(diff.isShapesChanged());
+            assertTrue(last[0]);
+            assertFalse(last[1]);
+            assertEquals(40 * 30, watcher.getStats().getPrimaryRays());
+            assertArrayEquals(fullRender(file), new Renderer(watcher.getScene(), 1).render());
+
+            // Une autre sphère déplacée : 2 formes sur 5 depuis la construction de la BVH, elle est reconstruite
+            moved = moved.replace("sphere -1.5 0.5 -1 0.5", "sphere -1 -0.5 0 0.6");
+            write(moved);
+            diff = watcher.update();
+            assertEquals(1, diff.getMovedShapes());
+            assertFalse(last[0]);
+            assertArrayEquals(fullRender(file), new Renderer(watcher.getScene(), 1).render());
+
+            // Forme ajoutée : BVH reconstruite
+            write(moved + "sphere 0 -0.5 1 0.3\n");
+            diff = watcher.update();
+            assertTrue(diff.isShapesChanged());
+            assertFalse(last[0]);
+            assertEquals(5, watcher.getScene().getAccelerator().getBoundedCount());
+        }
+    }
+
+    // Deux maillages : 8 triangles côte à côte, puis 2 triangles d'un autre matériau ;
+    // le sommet v de chaque triangle t donné est relevé de dz
+    private static String meshScene(String firstDiffuse, int... raised) {
+        StringBuilder text = new StringBuilder(String.join("\n",
+                "size 40 30",
+                "output image.png",
+                "camera 0 1 6 0 0 0 0 1 0 45",
+                "ambient 0.1 0.1 0.1",
+                "point 1 3 3 0.7 0.7 0.7",
+                "maxverts 30",
+                ""));
+        for (int t = 0; t < 10; t++) {
+            double dz = 0;
+            for (int r : raised) {
+                dz += r == t ? 0.5 : 0;
+            }
+            double x = t * 0.6 - 3;
+            text.append("vertex ").append(x).append(" -1 0\n");
+            text.append("vertex ").append(x + 0.5).append(" -1 ").append(dz).append("\n");
+            text.append("vertex ").append(x).append(" 1 0\n");
+        }
+        text.append(firstDiffuse).append("\n");
+        for (int t = 0; t < 10; t++) {
+            if (t == 8) {
+                text.append("diffuse 0.2 0.2 0.6\n");
+            }
+            text.append("tri ").append(t * 3).append(' ').append(t * 3 + 1).append(' ').append(t * 3 + 2).append('\n');
+        }
+        return text.toString();
+    }
+
+    private BVH meshBVH(SceneWatcher watcher, int shape) {
+        return ((TriangleMesh) watcher.getScene().getShapes().get(shape)).getBVH();
+    }
+
+    @Test
+    void testMeshes() throws IOException {
+        Path file = write(meshScene("diffuse 0.6 0.2 0.2"));
+        try (SceneWatcher watcher = new SceneWatcher(file.toString(), 1)) {
+            watcher.update();
+            assertEquals(2, watcher.getScene().getShapes().size());
+            BVH first = meshBVH(watcher, 0);
+            BVH second = meshBVH(watcher, 1);
+
+            // Matériau changé : BVH des maillages reprises telles quelles, image depuis le G-buffer
+            write(meshScene("diffuse 0.2 0.6 0.2"));
+            assertTrue(watcher.update().isShadingOnly());
+            assertSame(first, meshBVH(watcher, 0));
+            assertSame(second, meshBVH(watcher, 1));
+            assertEquals(0, watcher.getStats().getPrimaryRays());
+            assertArrayEquals(fullRender(file), new Renderer(watcher.getScene(), 1).render());
+
+            // Un triangle sur 8 déplacé : BVH du maillage réajustée (mêmes feuilles), l'autre reprise
+            write(meshScene("diffuse 0.2 0.6 0.2", 2));
+            assertEquals(1, watcher.update().getMovedShapes());
+            BVH refitted = meshBVH(watcher, 0);
+            assertNotSame(first, refitted);
+            assertSame(first.getPrimitiveIndices(), refitted.getPrimitiveIndices());
+            assertSame(second, meshBVH(watcher, 1));
+            assertArrayEquals(fullRender(file), new Renderer(watcher.getScene(), 1).render());
+
+            // 2 sur 8 depuis la construction : encore réajustée ; 3 sur 8 : reconstruite
+            write(meshScene("diffuse 0.2 0.6 0.2", 2, 5));
+            watcher.update();
+            assertSame(first.getPrimitiveIndices(), meshBVH(watcher, 0).getPrimitiveIndices());
+            write(meshScene("diffuse 0.2 0.6 0.2", 2, 5, 6));
+            watcher.update();
+            assertNotSame(first.getPrimitiveIndices(), meshBVH(watcher, 0).getPrimitiveIndices());
+            assertArrayEquals(fullRender(file), new Renderer(watcher.getScene(), 1).render());
+        }
+    }
+
+    @Test
+    void testWatch() throws Exception {
+        Path file = write(SCENE);
+        BlockingQueue<String> updates = new LinkedBlockingQueue<>();
+        SceneWatcher watcher = new SceneWatcher(file.toString(), 1);
+        watcher.setListener((diff, refitted, reshaded, nanos) -> updates.add(diff == null ? "" : diff.toString()));
+        Thread thread = new Thread(() -> {
+            try {
+                watcher.watch();
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            assertEquals("", updates.poll(30, TimeUnit.SECONDS));
+            write(SCENE.replace("ambient 0.1 0.1 0.1", "ambient 0.2 0.2 0.2"));
+            assertEquals("ambiante", updates.poll(30, TimeUnit.SECONDS));
+        } finally {
+            watcher.close();
+        }
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+    }
+}
@@ -0,0 +1,82 @@
+package raytracer;
+
+import org.junit.jupiter.api.Test;
+import raytracer.geometry.*;
+import raytracer.imaging.Color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShapeTest {
+
+    private static final double EPSILON = 1e-6;
+
+    private final Color white = new Color(1, 1, 1);
+    private final Color black = new Color();
+
+    // Rayon partant de z = 5 et regardant vers -z
+    private final Ray ray = new Ray(new Point(0, 0, 5), new Vector(0, 0, -1));
+
+    @Test
+    void testSphereIntersection() {
+        Sphere sphere = new Sphere(new Point(0, 0, 0), 1, white, black);
+        Hit hit = new Hit();
+        assertTrue(sphere.intersect(ray, hit));
+        assertEquals(4.0, hit.getT(), EPSILON);
+        assertSame(sphere, hit.getShape());
+
+        // La normale au point touché pointe vers la caméra
+        assertEquals(new Vector(0, 0, 1), sphere.normalAt(ray.pointAt(hit.getT()), hit));
+    }
+
+    @Test
+    void testSphereMiss() {
+        Sphere sphere = new Sphere(new Point(3, 0, 0), 1, white, black);
+        Hit hit = new Hit();
+        assertFalse(sphere.intersect(ray, hit));
+        assertFalse(hit.isHit());
+    }
+
+    @Test
+    void testSphereFromInside() {
+        // Origine dans la sphère : on doit trouver la seconde racine
+        Sphere sphere = new Sphere(new Point(0, 0, 5), 2, white, black);
+        Hit hit = new Hit();
+        assertTrue(sphere.intersect(ray, hit));
+        assertEquals(2.0, hit.getT(), EPSILON);
+    }
+
+    @Test
+    void testPlaneIntersection() {
+        Plane plane = new Plane(new Point(0, 0, -1), new Vector(0, 0, 1), white, black);
+        Hit hit = new Hit();
+        assertTrue(plane.intersect(ray, hit));
+        assertEquals(6.0, hit.getT(), EPSILON);
+
+        // Rayon parallèle au plan
+        Ray parallel = new Ray(new Point(0, 0, 5), new Vector(1, 0, 0));
+        assertFalse(plane.intersect(parallel, new Hit()));
+    }
+
+    @Test
+    void testTriangleIntersection() {
+        Triangle tri = new Triangle(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(0, 1, 0), white, black);
+        Hit hit = new Hit();
+        assertTrue(tri.intersect(ray, hit));
+        assertEquals(5.0, hit.getT(), EPSILON);
+
+        // Rayon passant à côté du triangle
+        Ray outside = new Ray(new Point(2, 2, 5), new Vector(0, 0, -1));
+        assertFalse(tri.intersect(outside, new Hit()));
+    }
+
+    @Test
+    void testClosestHitWins() {
+        Sphere near = new Sphere(new Point(0, 0, 0), 1, white, black);
+        Plane far = new Plane(new Point(0, 0, -1), new Vector(0, 0, 1), white, black);
+        Hit hit = new Hit();
+        near.intersect(ray, hit);
+        // Le plan est plus loin : il ne doit pas remplacer la sphère
+        assertFalse(far.intersect(ray, hit));
+        assertSame(near, hit.getShape());
+    }
+}
@@ -0,0 +1,89 @@
+package raytracer;
+
+import org.junit.jupiter.api.Test;
+import raytracer.geometry.*;
+import raytracer.imaging.Color;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TriangleMeshTest {
+
+    private final Color white = new Color(1, 1, 1);
+    private final Color black = new Color();
+
+    /**
+     * Grille de n x n carrés (2 triangles chacun) dans le plan z = 0, bosselée en z.
+     */
+    private TriangleMesh grid(int n) {
+        float[] positions = new float[(n + 1) * (n + 1) * 3];
+        for (int y = 0; y <= n; y++) {
+            for (int x = 0; x <= n; x++) {
+                int v = (y * (n + 1) + x) * 3;
+                positions[v] = x;
+                positions[v + 1] = y;
+                positions[v + 2] = (float) Math.sin(x * 0.7) * (float) Math.cos(y * 0.3);
+            }
+        }
+        int[] indices = new int[n * n * 6];
+        int k = 0;
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                int a = y * (n + 1) + x;
+                int b = a + 1;
+                int c = a + n + 1;
+                int d = c + 1;
+                indices[k++] = a; indices[k++] = b; indices[k++] = d;
+                indices[k++] = a; indices[k++] = d; indices[k++] = c;
+            }
+        }
+        return new TriangleMesh(positions, indices, white, black);
+    }
+
+    @Test
+    void testSameResultAsTriangles() {
+        TriangleMesh mesh = grid(30);
+        assertEquals(1800, mesh.getTriangleCount());
+
+        Random rnd = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            Ray ray = new Ray(new Point(rnd.nextDouble() * 30, rnd.nextDouble() * 30, 5),
+                    new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, -1));
+
+            // Référence : les triangles un par un
+            Hit expected = new Hit();
+            int expectedTriangle = -1;
+            for (int t = 0; t < mesh.getTriangleCount(); t++) {
+                if (mesh.getTriangle(t).intersect(ray, expected)) {
+                    expectedTriangle = t;
+                }
+            }
+
+            Hit actual = new Hit();
+            assertEquals(expected.isHit(), mesh.intersect(ray, actual));
+            if (expected.isHit()) {
+                assertSame(mesh, actual.getShape());
+                assertEquals(expectedTriangle, actual.getPrimitive());
+                assertEquals(expected.getT(), actual.getT(), 1e-6);
+
+                Point p = ray.pointAt(actual.getT());
+                assertEquals(mesh.getTriangle(expectedTriangle).normalAt(p, expected), mesh.normalAt(p, actual));
+            }
+        }
+    }
+
+    @Test
+    void testBoundingBox() {
+        BoundingBox box = grid(4).getBoundingBox();
+        assertTrue(box.getMinX() <= 0 && box.getMaxX() >= 4);
+        assertTrue(box.getMinY() <= 0 && box.getMaxY() >= 4);
+    }
+
+    @Test
+    void testInvalidIndex() {
+        float[] positions = {0, 0, 0, 1, 0, 0, 0, 1, 0};
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> new TriangleMesh(positions, new int[]{0, 1, 3}, white, black));
+    }
+}